@@ -0,0 +1,99 @@
+package com.gestionemployes.employee_management_api.config;
+
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.service.IdempotenceService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Rend les pointages d'arrivée et de départ idempotents pour les clients qui envoient un
+ * en-tête Idempotency-Key : une nouvelle tentative avec la même clé reçoit la réponse
+ * d'origine (en-tête Idempotent-Replayed) sans que le pointage soit refait. Les réponses
+ * d'erreur serveur et 429 ne sont pas conservées, la tentative suivante est traitée à nouveau.
+ * Sans en-tête, rien ne change.
+ */
+@Component
+public class IdempotenceFilter extends OncePerRequestFilter {
+
+    public static final String EN_TETE_CLE = "Idempotency-Key";
+    public static final String EN_TETE_REJEU = "Idempotent-Replayed";
+
+    static final int LONGUEUR_MAX_CLE = 255;
+
+    private static final Set<String> ROUTES = Set.of("/api/presences/arrivee", "/api/presences/depart");
+
+    private final IdempotenceService idempotenceService;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    public IdempotenceFilter(IdempotenceService idempotenceService,
+                             @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        this.idempotenceService = idempotenceService;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(EN_TETE_CLE) == null
+                || !ROUTES.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cle = request.getHeader(EN_TETE_CLE);
+        String route = request.getRequestURI();
+        IdempotenceService.ReponseEnregistree rejeu;
+        try {
+            if (cle.isBlank() || cle.length() > LONGUEUR_MAX_CLE) {
+                throw new BadRequestException("L'en-tête " + EN_TETE_CLE + " doit contenir entre 1 et " + LONGUEUR_MAX_CLE + " caractères.");
+            }
+            rejeu = idempotenceService.reserver(cle, route);
+        } catch (RuntimeException e) {
+            // Même corps d'erreur que les contrôleurs (GlobalExceptionHandler)
+            if (handlerExceptionResolver.resolveException(request, response, null, e) == null) {
+                throw e;
+            }
+            return;
+        }
+
+        if (rejeu != null) {
+            response.setStatus(rejeu.getStatut());
+            if (rejeu.getTypeContenu() != null) {
+                response.setContentType(rejeu.getTypeContenu());
+            }
+            response.setHeader(EN_TETE_REJEU, "true");
+            response.setContentLength(rejeu.getCorps().length);
+            response.getOutputStream().write(rejeu.getCorps());
+            return;
+        }
+
+        ContentCachingResponseWrapper reponse = new ContentCachingResponseWrapper(response);
+        boolean enregistree = false;
+        try {
+            chain.doFilter(request, reponse);
+            int statut = reponse.getStatus();
+            if (statut < 500 && statut != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                idempotenceService.enregistrer(cle, route,
+                        new IdempotenceService.ReponseEnregistree(statut, reponse.getContentType(), reponse.getContentAsByteArray()));
+                enregistree = true;
+            }
+        } finally {
+            if (!enregistree) {
+                idempotenceService.abandonner(cle);
+            }
+            reponse.copyBodyToResponse();
+        }
+    }
+}
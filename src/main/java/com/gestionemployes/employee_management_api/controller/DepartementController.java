@@ -1,5 +1,6 @@
 package com.gestionemployes.employee_management_api.controller;
 
+import com.gestionemployes.employee_management_api.dto.DepartementBudgetAnalysisDto;
 import com.gestionemployes.employee_management_api.dto.DepartementDto;
 import com.gestionemployes.employee_management_api.dto.DepartementRequest;
 import com.gestionemployes.employee_management_api.dto.EmployeDto;
@@ -21,7 +22,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -126,21 +126,22 @@ public class DepartementController {
         return ResponseEntity.ok(employes);
     }
 
-    @Operation(summary = "Obtenir l'analyse du budget d'un département")
+    @Operation(summary = "Obtenir l'analyse du budget d'un département",
+               description = "Effectif, masse salariale des employés actifs, budget restant et taux d'utilisation du budget, lus dans le registre de paie du département.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Analyse du budget du département",
                          content = @Content(mediaType = "application/json",
-                         schema = @Schema(type = "number", format = "double", example = "250000.00"))), 
+                         schema = @Schema(implementation = DepartementBudgetAnalysisDto.class))), 
             @ApiResponse(responseCode = "404", description = "Département non trouvé",
                          content = @Content(mediaType = "application/json",
                          schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":404,\"error\":\"Not Found\",\"message\":\"Département non trouvé(e) avec id : '1'\",\"path\":\"/api/departements/1/rapport-budget\"}")))
     })
     @GetMapping("/{id}/rapport-budget")
-    public ResponseEntity<BigDecimal> getDepartementBudgetReport(
+    public ResponseEntity<DepartementBudgetAnalysisDto> getDepartementBudgetReport(
             @Parameter(description = "ID du département", example = "1")
             @PathVariable Long id) {
-        BigDecimal budget = departementService.getDepartementBudgetAnalysis(id);
-        return ResponseEntity.ok(budget);
+        DepartementBudgetAnalysisDto analyse = departementService.getDepartementBudgetAnalysis(id);
+        return ResponseEntity.ok(analyse);
     }
 
     @Operation(summary = "Supprimer un département")
@@ -35,12 +35,12 @@ public class EmployeController {
 		this.employeMapper = employeMapper;
 	}
 
-	@Operation(summary = "Lister tous les employés avec pagination, tri et filtrage", description = "Récupère une liste paginée d'employés. Le paramètre 'searchTerm' permet de filtrer par nom ou email. Si 'searchTerm' est vide, tous les employés sont listés.")
+	@Operation(summary = "Lister tous les employés avec pagination, tri et filtrage", description = "Récupère une liste paginée d'employés. Le paramètre 'searchTerm' permet de filtrer par prénom, nom ou email, y compris avec une faute de frappe ; les résultats sont alors classés par pertinence et le tri demandé est ignoré. Si 'searchTerm' est vide, tous les employés sont listés.")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Liste paginée des employés", content = @Content(mediaType = "application/json", schema = @Schema(implementation = EmployeDto.class))) })
 	@GetMapping
 	public ResponseEntity<Page<EmployeDto>> getAllEmployes(
-			@Parameter(description = "Terme de recherche pour le nom ou l'email de l'employé", example = "Dupont") @RequestParam(required = false) String searchTerm,
+			@Parameter(description = "Terme de recherche sur le prénom, le nom ou l'email de l'employé", example = "Dupont") @RequestParam(required = false) String searchTerm,
 			@Parameter(description = "Paramètres de pagination et de tri (page, taille, tri). Ex: page=0&size=10&sort=nom,asc") @PageableDefault(size = 10, sort = "nom") Pageable pageable) {
 		Page<Employe> employesPage = employeService.getAllEmployes(searchTerm, pageable);
 		Page<EmployeDto> employeDtoPage = employesPage.map(employeMapper::toDto);
@@ -1,25 +1,48 @@
 package com.gestionemployes.employee_management_api.controller;
 
+import com.gestionemployes.employee_management_api.dto.PointageJournaliseDto;
 import com.gestionemployes.employee_management_api.dto.PresenceArriveeRequest;
 import com.gestionemployes.employee_management_api.dto.PresenceDepartRequest;
 import com.gestionemployes.employee_management_api.dto.PresenceDto;
+import com.gestionemployes.employee_management_api.dto.PresenceFluxDto;
+import com.gestionemployes.employee_management_api.dto.PresenceKeysetPageDto;
+import com.gestionemployes.employee_management_api.dto.PresenceLotReponseDto;
+import com.gestionemployes.employee_management_api.dto.PresenceMonthlyReportDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.dto.PresencesOuvertesDto;
 import com.gestionemployes.employee_management_api.mapper.PresenceMapper;
 import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.service.PointageJournalService;
+import com.gestionemployes.employee_management_api.service.PresenceExportService;
+import com.gestionemployes.employee_management_api.service.PresenceFluxService;
+import com.gestionemployes.employee_management_api.service.PresencePointageLotService;
 import com.gestionemployes.employee_management_api.service.PresenceService;
+import com.gestionemployes.employee_management_api.service.SortieFluxServlet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/presences")
@@ -28,31 +51,50 @@ public class PresenceController {
 
 	private final PresenceService presenceService;
 	private final PresenceMapper presenceMapper;
+	private final PresenceExportService presenceExportService;
+	private final PresencePointageLotService presencePointageLotService;
+	private final PointageJournalService pointageJournalService;
+	private final PresenceFluxService presenceFluxService;
 
-	public PresenceController(PresenceService presenceService, PresenceMapper presenceMapper) {
+	public PresenceController(PresenceService presenceService, PresenceMapper presenceMapper, PresenceExportService presenceExportService,
+			PresencePointageLotService presencePointageLotService, PointageJournalService pointageJournalService,
+			PresenceFluxService presenceFluxService) {
 		this.presenceService = presenceService;
 		this.presenceMapper = presenceMapper;
+		this.presenceExportService = presenceExportService;
+		this.presencePointageLotService = presencePointageLotService;
+		this.pointageJournalService = pointageJournalService;
+		this.presenceFluxService = presenceFluxService;
 	}
 
-	@Operation(summary = "Enregistrer le pointage d'arrivée d'un employé", description = "Permet à un employé de pointer son arrivée pour une date donnée. Un seul pointage d'arrivée par jour est autorisé sans un pointage de départ complété.")
+	@Operation(summary = "Enregistrer le pointage d'arrivée d'un employé", description = "Permet à un employé de pointer son arrivée pour une date donnée. Un seul pointage d'arrivée par jour est autorisé sans un pointage de départ complété. Si le journal des pointages est activé (app.pointages.journal.enabled), le pointage est acquitté dès qu'il est journalisé (202) et enregistré en base peu après ; un second pointage du même jour est alors ignoré à l'enregistrement. Avec un en-tête Idempotency-Key, une nouvelle tentative avec la même clé reçoit la réponse d'origine sans refaire le pointage.")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "201", description = "Pointage d'arrivée enregistré avec succès", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PresenceDto.class))),
+			@ApiResponse(responseCode = "202", description = "Pointage d'arrivée journalisé, enregistrement en base différé (journal activé)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PointageJournaliseDto.class))),
+			@ApiResponse(responseCode = "429", description = "Journal des pointages plein (journal activé)", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":429,\"error\":\"Too Many Requests\",\"message\":\"Le journal des pointages est plein, veuillez réessayer plus tard.\",\"path\":\"/api/presences/arrivee\"}"))),
 
 			@ApiResponse(responseCode = "400", description = "Requête invalide (validation échouée ou pointage existant)", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"L'employé a déjà pointé son arrivée pour le 2024-06-25 et n'a pas encore pointé son départ.\",\"path\":\"/api/presences/arrivee\"}"))),
+			@ApiResponse(responseCode = "409", description = "Requête de même clé d'idempotence encore en cours de traitement", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":409,\"error\":\"Conflict\",\"message\":\"Une requête avec la clé d'idempotence 'b7c1' est toujours en cours de traitement.\",\"path\":\"/api/presences/arrivee\"}"))),
 			@ApiResponse(responseCode = "404", description = "Employé non trouvé", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":404,\"error\":\"Not Found\",\"message\":\"Employé non trouvé(e) avec id : '99'\",\"path\":\"/api/presences/arrivee\"}"))) })
+	@Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER, description = "Clé choisie par le client (255 caractères au plus) pour rejouer sans risque une requête restée sans réponse ; conservée 24 h (app.idempotence.ttl)")
 	@PostMapping("/arrivee")
-	public ResponseEntity<PresenceDto> pointageArrivee(
+	public ResponseEntity<?> pointageArrivee(
 			@Parameter(description = "Objet PresenceArriveeRequest avec les détails du pointage d'arrivée") @Valid @RequestBody PresenceArriveeRequest request) {
+		if (pointageJournalService.isActif()) {
+			return new ResponseEntity<>(pointageJournalService.journaliser(request), HttpStatus.ACCEPTED);
+		}
 		Presence presence = presenceService.pointageArrivee(request);
 		return new ResponseEntity<>(presenceMapper.toDto(presence), HttpStatus.CREATED);
 	}
 
-	@Operation(summary = "Enregistrer le pointage de départ d'un employé", description = "Permet à un employé de pointer son départ pour un enregistrement de présence existant. L'heure de départ doit être après l'heure d'arrivée.")
+	@Operation(summary = "Enregistrer le pointage de départ d'un employé", description = "Permet à un employé de pointer son départ pour un enregistrement de présence existant. L'heure de départ doit être après l'heure d'arrivée. Avec un en-tête Idempotency-Key, une nouvelle tentative avec la même clé reçoit la réponse d'origine sans refaire le pointage.")
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Pointage de départ enregistré avec succès", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PresenceDto.class))),
 
 			@ApiResponse(responseCode = "400", description = "Requête invalide (validation, départ déjà enregistré ou heure invalide)", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"L'heure de départ (16:00) ne peut pas être avant l'heure d'arrivée (17:00).\",\"path\":\"/api/presences/depart\"}"))),
+			@ApiResponse(responseCode = "409", description = "Requête de même clé d'idempotence encore en cours de traitement", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":409,\"error\":\"Conflict\",\"message\":\"Une requête avec la clé d'idempotence 'b7c1' est toujours en cours de traitement.\",\"path\":\"/api/presences/depart\"}"))),
 			@ApiResponse(responseCode = "404", description = "Enregistrement de présence non trouvé", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":404,\"error\":\"Not Found\",\"message\":\"Enregistrement de présence non trouvé(e) avec id : '99'\",\"path\":\"/api/presences/depart\"}"))) })
+	@Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER, description = "Clé choisie par le client (255 caractères au plus) pour rejouer sans risque une requête restée sans réponse ; conservée 24 h (app.idempotence.ttl)")
 	@PostMapping("/depart")
 	public ResponseEntity<PresenceDto> pointageDepart(
 			@Parameter(description = "Objet PresenceDepartRequest avec les détails du pointage de départ") @Valid @RequestBody PresenceDepartRequest request) {
@@ -60,29 +102,121 @@ public class PresenceController {
 		return ResponseEntity.ok(presenceMapper.toDto(presence));
 	}
 
-	@Operation(summary = "Obtenir le rapport de présence mensuel pour un employé", description = "Génère un rapport de tous les enregistrements de présence pour un employé spécifique durant un mois et une année donnés.")
+	@Operation(summary = "Enregistrer un lot de pointages d'arrivée", description = "Enregistre jusqu'à 1000 pointages d'arrivée en un appel (passerelles de badgeuses). Chaque élément est validé et contrôlé comme un pointage unitaire et reçoit son propre résultat, dans l'ordre du lot : statut 201 et présence créée, ou statut 400/404 et message d'erreur. Un élément rejeté n'empêche pas l'enregistrement des autres.")
 	@ApiResponses(value = {
-			@ApiResponse(responseCode = "200", description = "Rapport de présence mensuel généré", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PresenceDto.class))),
+			@ApiResponse(responseCode = "200", description = "Lot traité, résultat par élément", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PresenceLotReponseDto.class))),
+
+			@ApiResponse(responseCode = "400", description = "Lot vide ou trop volumineux", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Un lot ne peut pas dépasser 1000 pointages (1200 reçus).\",\"path\":\"/api/presences/arrivees\"}"))) })
+	@PostMapping("/arrivees")
+	public ResponseEntity<PresenceLotReponseDto> pointagesArrivee(
+			@Parameter(description = "Liste de PresenceArriveeRequest (1 à 1000 éléments)") @RequestBody List<PresenceArriveeRequest> requests) {
+		return ResponseEntity.ok(presencePointageLotService.pointagesArrivee(requests));
+	}
+
+	@Operation(summary = "Enregistrer un lot de pointages de départ", description = "Enregistre jusqu'à 1000 pointages de départ en un appel. Chaque élément est validé et contrôlé comme un pointage unitaire et reçoit son propre résultat, dans l'ordre du lot : statut 200 et présence clôturée, ou statut 400/404 et message d'erreur. Un élément rejeté n'empêche pas l'enregistrement des autres.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Lot traité, résultat par élément", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PresenceLotReponseDto.class))),
+
+			@ApiResponse(responseCode = "400", description = "Lot vide ou trop volumineux", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Le lot de pointages ne peut pas être vide.\",\"path\":\"/api/presences/departs\"}"))) })
+	@PostMapping("/departs")
+	public ResponseEntity<PresenceLotReponseDto> pointagesDepart(
+			@Parameter(description = "Liste de PresenceDepartRequest (1 à 1000 éléments)") @RequestBody List<PresenceDepartRequest> requests) {
+		return ResponseEntity.ok(presencePointageLotService.pointagesDepart(requests));
+	}
+
+	@Operation(summary = "Obtenir le rapport de présence mensuel pour un employé", description = "Génère un rapport de tous les enregistrements de présence pour un employé spécifique durant un mois et une année donnés, avec les totaux du mois : minutes travaillées, jours pointés et heure d'arrivée moyenne.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Rapport de présence mensuel généré", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PresenceMonthlyReportDto.class))),
+
+			@ApiResponse(responseCode = "400", description = "Mois invalide", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Le mois doit être compris entre 1 et 12.\",\"path\":\"/api/presences/rapport/1\"}"))),
 
 			@ApiResponse(responseCode = "404", description = "Employé non trouvé", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":404,\"error\":\"Not Found\",\"message\":\"Employé non trouvé(e) avec id : '99'\",\"path\":\"/api/presences/rapport/99?year=2024&month=6\"}"))) })
 	@GetMapping("/rapport/{employeId}")
-	public ResponseEntity<List<PresenceDto>> getMonthlyPresenceReport(
+	public ResponseEntity<PresenceMonthlyReportDto> getMonthlyPresenceReport(
 			@Parameter(description = "ID de l'employé", example = "1") @PathVariable Long employeId,
 			@Parameter(description = "Année du rapport", example = "2024") @RequestParam int year,
 			@Parameter(description = "Mois du rapport (1-12)", example = "6") @RequestParam int month) {
-		List<Presence> report = presenceService.getMonthlyPresenceReport(employeId, year, month);
-		return ResponseEntity.ok(report.stream().map(presenceMapper::toDto).collect(Collectors.toList()));
+		return ResponseEntity.ok(presenceService.getMonthlyPresenceReport(employeId, year, month));
 	}
 
-	@Operation(summary = "Obtenir le résumé des présences par département", description = "Fournit un résumé de tous les enregistrements de présence pour tous les employés d'un département spécifique.")
+	@Operation(summary = "Obtenir le résumé des présences par département", description = "Fournit les enregistrements de présence des employés d'un département, sur une période optionnelle, par pages triées par date puis par employé. La page suivante s'obtient en passant le curseur renvoyé (nextAfterDate, nextAfterEmployeId) dans afterDate et afterEmployeId.")
 	@ApiResponses(value = {
-			@ApiResponse(responseCode = "200", description = "Résumé des présences du département généré", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PresenceDto.class))),
+			@ApiResponse(responseCode = "200", description = "Page du résumé des présences du département", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PresenceKeysetPageDto.class))),
 
+			@ApiResponse(responseCode = "400", description = "Taille de page, curseur ou période invalide", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"La taille de page doit être comprise entre 1 et 1000.\",\"path\":\"/api/presences/departement/1\"}"))),
 			@ApiResponse(responseCode = "404", description = "Département non trouvé", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":404,\"error\":\"Not Found\",\"message\":\"Département non trouvé(e) avec id : '99'\",\"path\":\"/api/presences/departement/99\"}"))) })
 	@GetMapping("/departement/{departementId}")
-	public ResponseEntity<List<PresenceDto>> getDepartementPresenceSummary(
-			@Parameter(description = "ID du département", example = "1") @PathVariable Long departementId) {
-		List<Presence> summary = presenceService.getDepartementPresenceSummary(departementId);
-		return ResponseEntity.ok(summary.stream().map(presenceMapper::toDto).collect(Collectors.toList()));
+	public ResponseEntity<PresenceKeysetPageDto> getDepartementPresenceSummary(
+			@Parameter(description = "ID du département", example = "1") @PathVariable Long departementId,
+			@Parameter(description = "Date de début incluse (AAAA-MM-JJ)", example = "2024-01-01") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@Parameter(description = "Date de fin incluse (AAAA-MM-JJ)", example = "2024-12-31") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@Parameter(description = "Curseur : date de la dernière présence de la page précédente", example = "2024-06-03") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDate,
+			@Parameter(description = "Curseur : employé de la dernière présence de la page précédente", example = "12") @RequestParam(required = false) Long afterEmployeId,
+			@Parameter(description = "Taille de page (1-1000)", example = "100") @RequestParam(defaultValue = "100") int size) {
+		return ResponseEntity.ok(presenceService.getDepartementPresenceSummary(departementId, from, to, afterDate, afterEmployeId, size));
+	}
+
+	@Operation(summary = "Compter les employés sur site", description = "Fournit le nombre de présences ouvertes (arrivée pointée, départ pas encore pointé), au total et par département, lu dans l'index en mémoire des présences ouvertes sans parcourir l'historique.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Présences ouvertes par département", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PresencesOuvertesDto.class))),
+
+			@ApiResponse(responseCode = "404", description = "Département non trouvé", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":404,\"error\":\"Not Found\",\"message\":\"Département non trouvé(e) avec id : '99'\",\"path\":\"/api/presences/ouvertes\"}"))) })
+	@GetMapping("/ouvertes")
+	public ResponseEntity<PresencesOuvertesDto> getPresencesOuvertes(
+			@Parameter(description = "ID du département (optionnel, tous les départements par défaut)", example = "1") @RequestParam(required = false) Long departementId) {
+		return ResponseEntity.ok(presenceService.getPresencesOuvertes(departementId));
+	}
+
+	@Operation(summary = "Suivre les présences en direct (SSE)", description = "Flux server-sent events : un événement arrivee ou depart (PresenceFluxDto) à chaque pointage validé, et un événement occupation (PresencesOuvertesDto) à l'abonnement puis à intervalle régulier. Avec departementId, seuls les pointages et l'occupation de ce département sont envoyés. Un client trop lent perd les messages les plus anciens.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Flux des présences", content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = PresenceFluxDto.class))),
+
+			@ApiResponse(responseCode = "404", description = "Département non trouvé", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":404,\"error\":\"Not Found\",\"message\":\"Département non trouvé(e) avec id : '99'\",\"path\":\"/api/presences/stream\"}"))),
+			@ApiResponse(responseCode = "429", description = "Trop de clients abonnés", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":429,\"error\":\"Too Many Requests\",\"message\":\"Trop de clients abonnés au flux des présences, veuillez réessayer plus tard.\",\"path\":\"/api/presences/stream\"}"))) })
+	@GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public void streamPresences(
+			@Parameter(description = "ID du département (optionnel, tous les départements par défaut)", example = "1") @RequestParam(required = false) Long departementId,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		presenceFluxService.abonner(departementId, new SortieFluxServlet(request, response));
+	}
+
+	@Operation(summary = "Exporter les présences en NDJSON ou CSV", description = "Exporte en flux les présences (ouvertes comprises) correspondant aux filtres optionnels : celles des mois archivés d'abord, puis celles de la table par id croissant. Les lignes sont écrites au fil de la lecture en base : la taille de l'export n'est pas limitée par la mémoire du serveur. La réponse est compressée en gzip si le client l'accepte (en-tête Accept-Encoding).")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Export des présences", content = {
+					@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = PresenceDto.class)),
+					@Content(mediaType = "text/csv", schema = @Schema(example = "id,employeId,date,arrivee,depart,heuresTravaillees\n1,1,2024-06-25,08:30:00,17:00:00,8h 30m")) }),
+
+			@ApiResponse(responseCode = "400", description = "Format inconnu ou période invalide (date de début après la date de fin)", content = @Content(mediaType = "application/json", schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Format d'export non pris en charge : xml (ndjson ou csv).\",\"path\":\"/api/presences/export\"}"))) })
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> exporterPresences(
+			@Parameter(description = "Date de début incluse (AAAA-MM-JJ)", example = "2024-01-01") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@Parameter(description = "Date de fin incluse (AAAA-MM-JJ)", example = "2024-12-31") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@Parameter(description = "ID du département", example = "1") @RequestParam(required = false) Long departementId,
+			@Parameter(description = "ID de l'employé", example = "1") @RequestParam(required = false) Long employeId,
+			@Parameter(description = "Format d'export : ndjson ou csv", example = "csv") @RequestParam(defaultValue = "ndjson") String format,
+			@Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		PresenceExportService.Format formatExport = PresenceExportService.Format.parse(format);
+		PresenceTrendFilter filtre = new PresenceTrendFilter(from, to, departementId, employeId);
+		presenceExportService.verifierFiltre(filtre);
+		boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+		StreamingResponseBody body = out -> {
+			if (gzip) {
+				// finish() et non close() : le flux de la réponse reste géré par le conteneur
+				GZIPOutputStream compresse = new GZIPOutputStream(out, 64 * 1024);
+				presenceExportService.exporter(filtre, formatExport, compresse);
+				compresse.finish();
+			} else {
+				presenceExportService.exporter(filtre, formatExport, out);
+			}
+		};
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+				.contentType(formatExport.getMediaType())
+				.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("presences." + formatExport.getExtension()).build().toString())
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (gzip) {
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return response.body(body);
 	}
 }
@@ -1,20 +1,32 @@
 package com.gestionemployes.employee_management_api.controller;
 
 import com.gestionemployes.employee_management_api.dto.DepartementSalarySummaryDto;
+import com.gestionemployes.employee_management_api.dto.PresenceDistributionReportDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
 import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.service.PresenceColumnStore;
+import com.gestionemployes.employee_management_api.service.PresenceRollupService;
+import com.gestionemployes.employee_management_api.service.RapportCache;
 import com.gestionemployes.employee_management_api.service.RapportService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/rapports")
@@ -22,21 +34,66 @@ import java.util.List;
 public class RapportController {
 
     private final RapportService rapportService;
+    private final PresenceRollupService presenceRollupService;
+    private final RapportCache rapportCache;
+    private final PresenceColumnStore presenceColumnStore;
 
-    public RapportController(RapportService rapportService) {
+    public RapportController(RapportService rapportService, PresenceRollupService presenceRollupService, RapportCache rapportCache,
+                             PresenceColumnStore presenceColumnStore) {
         this.rapportService = rapportService;
+        this.presenceRollupService = presenceRollupService;
+        this.rapportCache = rapportCache;
+        this.presenceColumnStore = presenceColumnStore;
     }
 
     @Operation(summary = "Obtenir les tendances et statistiques des présences",
-               description = "Génère un rapport agrégé sur les heures de présence (par jour de semaine, mois, employé, département, etc.).")
+               description = "Génère un rapport agrégé sur les heures de présence (par jour de semaine, mois, employé, département, etc.). " +
+                             "Les paramètres optionnels restreignent le rapport à une période, un département ou un employé.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Rapport de tendances de présence généré",
                          content = @Content(mediaType = "application/json",
-                         schema = @Schema(implementation = PresenceTrendReportDto.class)))
+                         schema = @Schema(implementation = PresenceTrendReportDto.class))),
+            @ApiResponse(responseCode = "400", description = "Période invalide (date de début après la date de fin)",
+                         content = @Content(mediaType = "application/json",
+                         schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"La date de début (2024-07-01) ne peut pas être après la date de fin (2024-06-01).\",\"path\":\"/api/rapports/tendances-presences\"}")))
     })
     @GetMapping("/tendances-presences")
-    public ResponseEntity<PresenceTrendReportDto> getTendancesPresences() {
-        PresenceTrendReportDto report = rapportService.getPresenceTrendsAndStats();
+    public ResponseEntity<PresenceTrendReportDto> getTendancesPresences(
+            @Parameter(description = "Date de début incluse (AAAA-MM-JJ)", example = "2024-06-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Date de fin incluse (AAAA-MM-JJ)", example = "2024-06-30")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "ID du département", example = "1") @RequestParam(required = false) Long departementId,
+            @Parameter(description = "ID de l'employé", example = "1") @RequestParam(required = false) Long employeId) {
+        PresenceTrendFilter filtre = new PresenceTrendFilter(from, to, departementId, employeId);
+        PresenceTrendReportDto report = rapportCache.get("tendances-presences", RapportCache.Groupe.PRESENCES, filtre,
+                () -> rapportService.getPresenceTrendsAndStats(filtre));
+        return ResponseEntity.ok(report);
+    }
+
+    @Operation(summary = "Obtenir la distribution des heures de présence",
+               description = "Génère les percentiles (médiane, p90, p99) des minutes travaillées par présence, globalement, par département et par mois, " +
+                             "ainsi que le nombre estimé d'employés distincts présents par jour. Les paramètres optionnels restreignent le rapport " +
+                             "à une période, un département ou un employé.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rapport de distribution des présences généré",
+                         content = @Content(mediaType = "application/json",
+                         schema = @Schema(implementation = PresenceDistributionReportDto.class))),
+            @ApiResponse(responseCode = "400", description = "Période invalide (date de début après la date de fin)",
+                         content = @Content(mediaType = "application/json",
+                         schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"La date de début (2024-07-01) ne peut pas être après la date de fin (2024-06-01).\",\"path\":\"/api/rapports/distribution-presences\"}")))
+    })
+    @GetMapping("/distribution-presences")
+    public ResponseEntity<PresenceDistributionReportDto> getDistributionPresences(
+            @Parameter(description = "Date de début incluse (AAAA-MM-JJ)", example = "2024-06-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Date de fin incluse (AAAA-MM-JJ)", example = "2024-06-30")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "ID du département", example = "1") @RequestParam(required = false) Long departementId,
+            @Parameter(description = "ID de l'employé", example = "1") @RequestParam(required = false) Long employeId) {
+        PresenceTrendFilter filtre = new PresenceTrendFilter(from, to, departementId, employeId);
+        PresenceDistributionReportDto report = rapportCache.get("distribution-presences", RapportCache.Groupe.PRESENCES, filtre,
+                () -> rapportService.getPresenceDistribution(filtre));
         return ResponseEntity.ok(report);
     }
 
@@ -49,7 +106,36 @@ public class RapportController {
     })
     @GetMapping("/resume-salaires")
     public ResponseEntity<List<DepartementSalarySummaryDto>> getResumeSalairesByDepartement() {
-        List<DepartementSalarySummaryDto> summary = rapportService.getResumeSalairesByDepartement();
+        List<DepartementSalarySummaryDto> summary = rapportCache.get("resume-salaires", RapportCache.Groupe.SALAIRES, null,
+                rapportService::getResumeSalairesByDepartement);
 		return ResponseEntity.ok(summary);
 	}
+
+    @Operation(summary = "Obtenir les statistiques de salaire par département",
+               description = "Fournit, pour chaque département (y compris sans employé), le total, la moyenne, le maximum et le minimum des salaires.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistiques de salaire par département générées",
+                         content = @Content(mediaType = "application/json",
+                         schema = @Schema(example = "{\"Développement\":{\"totalSalary\":120000.00,\"averageSalary\":60000.00,\"maxSalary\":70000.00,\"minSalary\":50000.00}}")))
+    })
+    @GetMapping("/statistiques-salaires")
+    public ResponseEntity<Map<String, Map<String, BigDecimal>>> getStatistiquesSalairesParDepartement() {
+        return ResponseEntity.ok(rapportCache.get("statistiques-salaires", RapportCache.Groupe.SALAIRES, null,
+                rapportService::getResumeSalairesParDepartement));
+    }
+
+    @Operation(summary = "Reconstruire les cumuls de présence",
+               description = "Régénère les cumuls utilisés par le rapport de tendances, ainsi que le stockage en colonnes s'il est activé, à partir de la table des présences (à lancer après une correction en masse).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cumuls reconstruits",
+                         content = @Content(mediaType = "application/json",
+                         schema = @Schema(example = "{\"lignes\":1250}")))
+    })
+    @PostMapping("/cumuls-presences/reconstruction")
+    public ResponseEntity<Map<String, Integer>> reconstruireCumulsPresences() {
+        int lignes = presenceRollupService.reconstruireRollups();
+        presenceColumnStore.charger();
+        rapportCache.invalider(RapportCache.Groupe.PRESENCES);
+        return ResponseEntity.ok(Map.of("lignes", lignes));
+    }
 }
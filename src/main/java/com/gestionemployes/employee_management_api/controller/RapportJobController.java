@@ -0,0 +1,71 @@
+package com.gestionemployes.employee_management_api.controller;
+
+import com.gestionemployes.employee_management_api.dto.RapportJobDto;
+import com.gestionemployes.employee_management_api.dto.RapportJobRequest;
+import com.gestionemployes.employee_management_api.service.RapportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/rapports/jobs")
+@Tag(name = "Rapports & Analyses", description = "API pour générer des rapports et des analyses de données")
+public class RapportJobController {
+
+    private final RapportJobService rapportJobService;
+
+    public RapportJobController(RapportJobService rapportJobService) {
+        this.rapportJobService = rapportJobService;
+    }
+
+    @Operation(summary = "Soumettre un rapport à calculer en arrière-plan",
+               description = "Enregistre le rapport demandé et rend immédiatement l'id du job ; l'état et le résultat se consultent sur /api/rapports/jobs/{id}.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job de rapport accepté",
+                         content = @Content(mediaType = "application/json",
+                         schema = @Schema(implementation = RapportJobDto.class))),
+            @ApiResponse(responseCode = "400", description = "Paramètres du rapport invalides",
+                         content = @Content(mediaType = "application/json",
+                         schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"La date de début (2024-07-01) ne peut pas être après la date de fin (2024-06-01).\",\"path\":\"/api/rapports/jobs\"}"))),
+            @ApiResponse(responseCode = "429", description = "Trop de rapports en cours de calcul",
+                         content = @Content(mediaType = "application/json",
+                         schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":429,\"error\":\"Too Many Requests\",\"message\":\"Trop de rapports en cours de calcul, veuillez réessayer plus tard.\",\"path\":\"/api/rapports/jobs\"}")))
+    })
+    @PostMapping
+    public ResponseEntity<RapportJobDto> soumettreRapport(@Valid @RequestBody RapportJobRequest request) {
+        RapportJobDto job = rapportJobService.soumettre(request);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.getId()).toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @Operation(summary = "Consulter un job de rapport",
+               description = "Retourne le statut du job (EN_ATTENTE, EN_COURS, TERMINE ou ECHEC), et le résultat du rapport lorsqu'il est terminé. Le job est à interroger jusqu'à un statut TERMINE ou ECHEC : aucun pourcentage d'avancement n'est fourni.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "État du job de rapport",
+                         content = @Content(mediaType = "application/json",
+                         schema = @Schema(implementation = RapportJobDto.class))),
+            @ApiResponse(responseCode = "404", description = "Job inconnu ou purgé",
+                         content = @Content(mediaType = "application/json",
+                         schema = @Schema(example = "{\"timestamp\":\"2025-06-25T10:00:00Z\",\"status\":404,\"error\":\"Not Found\",\"message\":\"Job de rapport non trouvé(e) avec id : 'b3f1c6e2-0000-0000-0000-000000000000'\",\"path\":\"/api/rapports/jobs/b3f1c6e2-0000-0000-0000-000000000000\"}")))
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<RapportJobDto> getJob(
+            @Parameter(description = "ID du job de rapport") @PathVariable String id) {
+        return ResponseEntity.ok(rapportJobService.getJob(id));
+    }
+}
@@ -0,0 +1,95 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import java.math.BigDecimal;
+
+public class DepartementBudgetAnalysisDto {
+	private Long departementId;
+	private String departementNom;
+	private BigDecimal budget;
+	private Integer effectif;
+	private BigDecimal masseSalariale;
+	private BigDecimal budgetRestant;
+	// Part du budget consommée par la masse salariale, en pourcentage
+	private BigDecimal tauxUtilisation;
+	private BigDecimal salaireMoyen;
+
+	public DepartementBudgetAnalysisDto() {
+	}
+
+	public DepartementBudgetAnalysisDto(Long departementId, String departementNom, BigDecimal budget, Integer effectif,
+			BigDecimal masseSalariale, BigDecimal budgetRestant, BigDecimal tauxUtilisation, BigDecimal salaireMoyen) {
+		this.departementId = departementId;
+		this.departementNom = departementNom;
+		this.budget = budget;
+		this.effectif = effectif;
+		this.masseSalariale = masseSalariale;
+		this.budgetRestant = budgetRestant;
+		this.tauxUtilisation = tauxUtilisation;
+		this.salaireMoyen = salaireMoyen;
+	}
+
+	// --- Getters et Setters ---
+	public Long getDepartementId() {
+		return departementId;
+	}
+
+	public void setDepartementId(Long departementId) {
+		this.departementId = departementId;
+	}
+
+	public String getDepartementNom() {
+		return departementNom;
+	}
+
+	public void setDepartementNom(String departementNom) {
+		this.departementNom = departementNom;
+	}
+
+	public BigDecimal getBudget() {
+		return budget;
+	}
+
+	public void setBudget(BigDecimal budget) {
+		this.budget = budget;
+	}
+
+	public Integer getEffectif() {
+		return effectif;
+	}
+
+	public void setEffectif(Integer effectif) {
+		this.effectif = effectif;
+	}
+
+	public BigDecimal getMasseSalariale() {
+		return masseSalariale;
+	}
+
+	public void setMasseSalariale(BigDecimal masseSalariale) {
+		this.masseSalariale = masseSalariale;
+	}
+
+	public BigDecimal getBudgetRestant() {
+		return budgetRestant;
+	}
+
+	public void setBudgetRestant(BigDecimal budgetRestant) {
+		this.budgetRestant = budgetRestant;
+	}
+
+	public BigDecimal getTauxUtilisation() {
+		return tauxUtilisation;
+	}
+
+	public void setTauxUtilisation(BigDecimal tauxUtilisation) {
+		this.tauxUtilisation = tauxUtilisation;
+	}
+
+	public BigDecimal getSalaireMoyen() {
+		return salaireMoyen;
+	}
+
+	public void setSalaireMoyen(BigDecimal salaireMoyen) {
+		this.salaireMoyen = salaireMoyen;
+	}
+}
@@ -0,0 +1,74 @@
+package com.gestionemployes.employee_management_api.dto;
+
+public class DistributionMinutesDto {
+	// Nombre de présences clôturées prises en compte
+	private long nombrePresences;
+	// Minutes travaillées par présence : extrêmes et quantiles (rang le plus proche)
+	private long minMinutes;
+	private long p50Minutes;
+	private long p90Minutes;
+	private long p99Minutes;
+	private long maxMinutes;
+
+	public DistributionMinutesDto() {
+	}
+
+	public DistributionMinutesDto(long nombrePresences, long minMinutes, long p50Minutes, long p90Minutes,
+			long p99Minutes, long maxMinutes) {
+		this.nombrePresences = nombrePresences;
+		this.minMinutes = minMinutes;
+		this.p50Minutes = p50Minutes;
+		this.p90Minutes = p90Minutes;
+		this.p99Minutes = p99Minutes;
+		this.maxMinutes = maxMinutes;
+	}
+
+	// --- Getters et Setters ---
+	public long getNombrePresences() {
+		return nombrePresences;
+	}
+
+	public void setNombrePresences(long nombrePresences) {
+		this.nombrePresences = nombrePresences;
+	}
+
+	public long getMinMinutes() {
+		return minMinutes;
+	}
+
+	public void setMinMinutes(long minMinutes) {
+		this.minMinutes = minMinutes;
+	}
+
+	public long getP50Minutes() {
+		return p50Minutes;
+	}
+
+	public void setP50Minutes(long p50Minutes) {
+		this.p50Minutes = p50Minutes;
+	}
+
+	public long getP90Minutes() {
+		return p90Minutes;
+	}
+
+	public void setP90Minutes(long p90Minutes) {
+		this.p90Minutes = p90Minutes;
+	}
+
+	public long getP99Minutes() {
+		return p99Minutes;
+	}
+
+	public void setP99Minutes(long p99Minutes) {
+		this.p99Minutes = p99Minutes;
+	}
+
+	public long getMaxMinutes() {
+		return maxMinutes;
+	}
+
+	public void setMaxMinutes(long maxMinutes) {
+		this.maxMinutes = maxMinutes;
+	}
+}
@@ -0,0 +1,90 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import com.gestionemployes.employee_management_api.json.DureeFormat;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map clé -> durée "Xh YYm" des rapports, tenue en minutes : la chaîne n'est construite
+ * qu'à la lecture d'une valeur (get, itération). À la sérialisation JSON, DureesSerializer
+ * écrit les minutes directement dans le générateur, sans passer par ces chaînes.
+ * L'ordre d'itération est l'ordre d'ajout. En lecture seule hors ajouter().
+ */
+public class DureesEnMinutes<K> extends AbstractMap<K, String> {
+
+    private final Map<K, Long> minutes;
+
+    public DureesEnMinutes() {
+        this.minutes = new LinkedHashMap<>();
+    }
+
+    public DureesEnMinutes(int capacite) {
+        this.minutes = new LinkedHashMap<>(Math.max(16, (int) (capacite / 0.75f) + 1));
+    }
+
+    public DureesEnMinutes<K> ajouter(K cle, long totalMinutes) {
+        minutes.put(cle, totalMinutes);
+        return this;
+    }
+
+    /**
+     * Vue en lecture seule des minutes par clé.
+     */
+    public Map<K, Long> getMinutes() {
+        return Collections.unmodifiableMap(minutes);
+    }
+
+    @Override
+    public String get(Object cle) {
+        Long valeur = minutes.get(cle);
+        return valeur == null ? null : DureeFormat.format(valeur);
+    }
+
+    @Override
+    public boolean containsKey(Object cle) {
+        return minutes.containsKey(cle);
+    }
+
+    @Override
+    public int size() {
+        return minutes.size();
+    }
+
+    @Override
+    public Set<Entry<K, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, String>> iterator() {
+                Iterator<Entry<K, Long>> it = minutes.entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, String> next() {
+                        Entry<K, Long> entry = it.next();
+                        return new SimpleImmutableEntry<>(entry.getKey(), DureeFormat.format(entry.getValue()));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return minutes.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(minutes.keySet());
+    }
+}
@@ -0,0 +1,55 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class PointageJournaliseDto {
+	// Numéro d'ordre du pointage dans le journal local
+	private long sequence;
+	private Long employeId;
+	private LocalDate date;
+	private LocalTime arrivee;
+
+	public PointageJournaliseDto() {
+	}
+
+	public PointageJournaliseDto(long sequence, Long employeId, LocalDate date, LocalTime arrivee) {
+		this.sequence = sequence;
+		this.employeId = employeId;
+		this.date = date;
+		this.arrivee = arrivee;
+	}
+
+	// --- Getters et Setters ---
+	public long getSequence() {
+		return sequence;
+	}
+
+	public void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	public Long getEmployeId() {
+		return employeId;
+	}
+
+	public void setEmployeId(Long employeId) {
+		this.employeId = employeId;
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public void setDate(LocalDate date) {
+		this.date = date;
+	}
+
+	public LocalTime getArrivee() {
+		return arrivee;
+	}
+
+	public void setArrivee(LocalTime arrivee) {
+		this.arrivee = arrivee;
+	}
+}
@@ -0,0 +1,70 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import java.util.Map;
+
+public class PresenceDistributionReportDto {
+	// Distribution des minutes travaillées par présence, toutes présences confondues
+	private DistributionMinutesDto global;
+	// Distribution par nom de département
+	private Map<String, DistributionMinutesDto> parDepartement;
+	// Distribution par mois (AAAA-MM)
+	private Map<String, DistributionMinutesDto> parMois;
+	// Nombre estimé d'employés distincts présents par jour (AAAA-MM-JJ)
+	private Map<String, Long> employesDistinctsParJour;
+	// Erreur relative type de l'estimation des employés distincts (0.023 = 2,3 %)
+	private double erreurRelativeEmployesDistincts;
+
+	public PresenceDistributionReportDto() {
+	}
+
+	public PresenceDistributionReportDto(DistributionMinutesDto global, Map<String, DistributionMinutesDto> parDepartement,
+			Map<String, DistributionMinutesDto> parMois, Map<String, Long> employesDistinctsParJour,
+			double erreurRelativeEmployesDistincts) {
+		this.global = global;
+		this.parDepartement = parDepartement;
+		this.parMois = parMois;
+		this.employesDistinctsParJour = employesDistinctsParJour;
+		this.erreurRelativeEmployesDistincts = erreurRelativeEmployesDistincts;
+	}
+
+	// --- Getters et Setters ---
+	public DistributionMinutesDto getGlobal() {
+		return global;
+	}
+
+	public void setGlobal(DistributionMinutesDto global) {
+		this.global = global;
+	}
+
+	public Map<String, DistributionMinutesDto> getParDepartement() {
+		return parDepartement;
+	}
+
+	public void setParDepartement(Map<String, DistributionMinutesDto> parDepartement) {
+		this.parDepartement = parDepartement;
+	}
+
+	public Map<String, DistributionMinutesDto> getParMois() {
+		return parMois;
+	}
+
+	public void setParMois(Map<String, DistributionMinutesDto> parMois) {
+		this.parMois = parMois;
+	}
+
+	public Map<String, Long> getEmployesDistinctsParJour() {
+		return employesDistinctsParJour;
+	}
+
+	public void setEmployesDistinctsParJour(Map<String, Long> employesDistinctsParJour) {
+		this.employesDistinctsParJour = employesDistinctsParJour;
+	}
+
+	public double getErreurRelativeEmployesDistincts() {
+		return erreurRelativeEmployesDistincts;
+	}
+
+	public void setErreurRelativeEmployesDistincts(double erreurRelativeEmployesDistincts) {
+		this.erreurRelativeEmployesDistincts = erreurRelativeEmployesDistincts;
+	}
+}
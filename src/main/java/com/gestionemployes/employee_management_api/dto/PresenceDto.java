@@ -1,27 +1,34 @@
 package com.gestionemployes.employee_management_api.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.gestionemployes.employee_management_api.json.DureeFormat;
+import com.gestionemployes.employee_management_api.json.PresenceDtoSerializer;
+
 import java.time.LocalDate;
 import java.time.LocalTime;
 
+@JsonSerialize(using = PresenceDtoSerializer.class)
 public class PresenceDto {
 	private Long id;
 	private Long employeId; 
 	private LocalDate date;
 	private LocalTime arrivee;
 	private LocalTime depart;
-	private String heuresTravaillees; 
+	// Seule valeur conservée : heuresTravaillees ("Xh YYm") en est dérivé à la lecture
+	private Long minutesTravaillees;
 
 	public PresenceDto() {
 	}
 
 	public PresenceDto(Long id, Long employeId, LocalDate date, LocalTime arrivee, LocalTime depart,
-			String heuresTravaillees) {
+			Long minutesTravaillees) {
 		this.id = id;
 		this.employeId = employeId;
 		this.date = date;
 		this.arrivee = arrivee;
 		this.depart = depart;
-		this.heuresTravaillees = heuresTravaillees;
+		this.minutesTravaillees = minutesTravaillees;
 	}
 
 	// --- Getters et Setters ---
@@ -66,10 +73,21 @@ public class PresenceDto {
 	}
 
 	public String getHeuresTravaillees() {
-		return heuresTravaillees;
+		return minutesTravaillees == null ? null : DureeFormat.format(minutesTravaillees);
 	}
 
+	// Lecture d'une réponse JSON : la durée formatée est reconvertie en minutes
 	public void setHeuresTravaillees(String heuresTravaillees) {
-		this.heuresTravaillees = heuresTravaillees;
+		this.minutesTravaillees = heuresTravaillees == null ? null : DureeFormat.lire(heuresTravaillees);
+	}
+
+	@JsonIgnore
+	public Long getMinutesTravaillees() {
+		return minutesTravaillees;
+	}
+
+	@JsonIgnore
+	public void setMinutesTravaillees(Long minutesTravaillees) {
+		this.minutesTravaillees = minutesTravaillees;
 	}
 }
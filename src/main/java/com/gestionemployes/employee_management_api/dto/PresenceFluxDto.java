@@ -0,0 +1,89 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class PresenceFluxDto {
+	// ARRIVEE ou DEPART (aussi nom de l'événement SSE, en minuscules)
+	private String type;
+	private Long presenceId;
+	private Long employeId;
+	// Département de l'employé, null s'il n'est rattaché à aucun département
+	private Long departementId;
+	private LocalDate date;
+	// Heure d'arrivée ou de départ selon le type
+	private LocalTime heure;
+	// Minutes travaillées, renseignées au départ seulement
+	private Long minutesTravaillees;
+
+	public PresenceFluxDto() {
+	}
+
+	public PresenceFluxDto(String type, Long presenceId, Long employeId, Long departementId, LocalDate date, LocalTime heure,
+			Long minutesTravaillees) {
+		this.type = type;
+		this.presenceId = presenceId;
+		this.employeId = employeId;
+		this.departementId = departementId;
+		this.date = date;
+		this.heure = heure;
+		this.minutesTravaillees = minutesTravaillees;
+	}
+
+	// --- Getters et Setters ---
+	public String getType() {
+		return type;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	public Long getPresenceId() {
+		return presenceId;
+	}
+
+	public void setPresenceId(Long presenceId) {
+		this.presenceId = presenceId;
+	}
+
+	public Long getEmployeId() {
+		return employeId;
+	}
+
+	public void setEmployeId(Long employeId) {
+		this.employeId = employeId;
+	}
+
+	public Long getDepartementId() {
+		return departementId;
+	}
+
+	public void setDepartementId(Long departementId) {
+		this.departementId = departementId;
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public void setDate(LocalDate date) {
+		this.date = date;
+	}
+
+	public LocalTime getHeure() {
+		return heure;
+	}
+
+	public void setHeure(LocalTime heure) {
+		this.heure = heure;
+	}
+
+	public Long getMinutesTravaillees() {
+		return minutesTravaillees;
+	}
+
+	public void setMinutesTravaillees(Long minutesTravaillees) {
+		this.minutesTravaillees = minutesTravaillees;
+	}
+}
@@ -0,0 +1,69 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class PresenceKeysetPageDto {
+	// Présences de la page, triées par (date, employeId)
+	private List<PresenceDto> content;
+	// Taille de page demandée
+	private int size;
+	// Vrai s'il reste des présences après cette page
+	private boolean hasNext;
+	// Curseur de la page suivante (afterDate, afterEmployeId) : dernière présence de la page, null en fin de parcours
+	private LocalDate nextAfterDate;
+	private Long nextAfterEmployeId;
+
+	public PresenceKeysetPageDto() {
+	}
+
+	public PresenceKeysetPageDto(List<PresenceDto> content, int size, boolean hasNext, LocalDate nextAfterDate,
+			Long nextAfterEmployeId) {
+		this.content = content;
+		this.size = size;
+		this.hasNext = hasNext;
+		this.nextAfterDate = nextAfterDate;
+		this.nextAfterEmployeId = nextAfterEmployeId;
+	}
+
+	// --- Getters et Setters ---
+	public List<PresenceDto> getContent() {
+		return content;
+	}
+
+	public void setContent(List<PresenceDto> content) {
+		this.content = content;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	public boolean isHasNext() {
+		return hasNext;
+	}
+
+	public void setHasNext(boolean hasNext) {
+		this.hasNext = hasNext;
+	}
+
+	public LocalDate getNextAfterDate() {
+		return nextAfterDate;
+	}
+
+	public void setNextAfterDate(LocalDate nextAfterDate) {
+		this.nextAfterDate = nextAfterDate;
+	}
+
+	public Long getNextAfterEmployeId() {
+		return nextAfterEmployeId;
+	}
+
+	public void setNextAfterEmployeId(Long nextAfterEmployeId) {
+		this.nextAfterEmployeId = nextAfterEmployeId;
+	}
+}
@@ -0,0 +1,55 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import java.util.List;
+
+public class PresenceLotReponseDto {
+	// Nombre d'éléments reçus, enregistrés et rejetés
+	private int total;
+	private int reussis;
+	private int echecs;
+	// Un résultat par élément, dans l'ordre du lot
+	private List<PresenceLotResultatDto> resultats;
+
+	public PresenceLotReponseDto() {
+	}
+
+	public PresenceLotReponseDto(List<PresenceLotResultatDto> resultats) {
+		this.resultats = resultats;
+		this.total = resultats.size();
+		this.reussis = (int) resultats.stream().filter(resultat -> resultat.getPresence() != null).count();
+		this.echecs = total - reussis;
+	}
+
+	// --- Getters et Setters ---
+	public int getTotal() {
+		return total;
+	}
+
+	public void setTotal(int total) {
+		this.total = total;
+	}
+
+	public int getReussis() {
+		return reussis;
+	}
+
+	public void setReussis(int reussis) {
+		this.reussis = reussis;
+	}
+
+	public int getEchecs() {
+		return echecs;
+	}
+
+	public void setEchecs(int echecs) {
+		this.echecs = echecs;
+	}
+
+	public List<PresenceLotResultatDto> getResultats() {
+		return resultats;
+	}
+
+	public void setResultats(List<PresenceLotResultatDto> resultats) {
+		this.resultats = resultats;
+	}
+}
@@ -0,0 +1,55 @@
+package com.gestionemployes.employee_management_api.dto;
+
+public class PresenceLotResultatDto {
+	// Position de l'élément dans le lot reçu (à partir de 0)
+	private int index;
+	// Statut HTTP qu'aurait renvoyé le pointage unitaire : 201, 200, 400 ou 404
+	private int status;
+	// Présence enregistrée, null en cas d'erreur
+	private PresenceDto presence;
+	// Message d'erreur, null en cas de succès
+	private String message;
+
+	public PresenceLotResultatDto() {
+	}
+
+	public PresenceLotResultatDto(int index, int status, PresenceDto presence, String message) {
+		this.index = index;
+		this.status = status;
+		this.presence = presence;
+		this.message = message;
+	}
+
+	// --- Getters et Setters ---
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	public PresenceDto getPresence() {
+		return presence;
+	}
+
+	public void setPresence(PresenceDto presence) {
+		this.presence = presence;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+}
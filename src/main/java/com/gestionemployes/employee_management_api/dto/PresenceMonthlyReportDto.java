@@ -0,0 +1,100 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import java.time.LocalTime;
+import java.util.List;
+
+public class PresenceMonthlyReportDto {
+	// ID de l'employé
+	private Long employeId;
+	private int year;
+	private int month;
+	// Minutes travaillées sur le mois (présences clôturées) et leur forme "Xh YYm"
+	private long totalMinutes;
+	private String totalHeuresTravaillees;
+	// Nombre de jours pointés, présences ouvertes comprises
+	private long joursPresents;
+	// Heure d'arrivée moyenne (null si aucune présence)
+	private LocalTime arriveeMoyenne;
+	// Présences du mois, par date croissante
+	private List<PresenceDto> presences;
+
+	public PresenceMonthlyReportDto() {
+	}
+
+	public PresenceMonthlyReportDto(Long employeId, int year, int month, long totalMinutes, String totalHeuresTravaillees,
+			long joursPresents, LocalTime arriveeMoyenne, List<PresenceDto> presences) {
+		this.employeId = employeId;
+		this.year = year;
+		this.month = month;
+		this.totalMinutes = totalMinutes;
+		this.totalHeuresTravaillees = totalHeuresTravaillees;
+		this.joursPresents = joursPresents;
+		this.arriveeMoyenne = arriveeMoyenne;
+		this.presences = presences;
+	}
+
+	// --- Getters et Setters ---
+	public Long getEmployeId() {
+		return employeId;
+	}
+
+	public void setEmployeId(Long employeId) {
+		this.employeId = employeId;
+	}
+
+	public int getYear() {
+		return year;
+	}
+
+	public void setYear(int year) {
+		this.year = year;
+	}
+
+	public int getMonth() {
+		return month;
+	}
+
+	public void setMonth(int month) {
+		this.month = month;
+	}
+
+	public long getTotalMinutes() {
+		return totalMinutes;
+	}
+
+	public void setTotalMinutes(long totalMinutes) {
+		this.totalMinutes = totalMinutes;
+	}
+
+	public String getTotalHeuresTravaillees() {
+		return totalHeuresTravaillees;
+	}
+
+	public void setTotalHeuresTravaillees(String totalHeuresTravaillees) {
+		this.totalHeuresTravaillees = totalHeuresTravaillees;
+	}
+
+	public long getJoursPresents() {
+		return joursPresents;
+	}
+
+	public void setJoursPresents(long joursPresents) {
+		this.joursPresents = joursPresents;
+	}
+
+	public LocalTime getArriveeMoyenne() {
+		return arriveeMoyenne;
+	}
+
+	public void setArriveeMoyenne(LocalTime arriveeMoyenne) {
+		this.arriveeMoyenne = arriveeMoyenne;
+	}
+
+	public List<PresenceDto> getPresences() {
+		return presences;
+	}
+
+	public void setPresences(List<PresenceDto> presences) {
+		this.presences = presences;
+	}
+}
@@ -0,0 +1,80 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Critères optionnels du rapport de tendances (bornes de dates incluses, département, employé).
+ * Un critère null n'est pas appliqué.
+ */
+public final class PresenceTrendFilter {
+
+    private static final PresenceTrendFilter SANS_FILTRE = new PresenceTrendFilter(null, null, null, null);
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Long departementId;
+    private final Long employeId;
+
+    public PresenceTrendFilter(LocalDate from, LocalDate to, Long departementId, Long employeId) {
+        this.from = from;
+        this.to = to;
+        this.departementId = departementId;
+        this.employeId = employeId;
+    }
+
+    public static PresenceTrendFilter sansFiltre() {
+        return SANS_FILTRE;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public Long getDepartementId() {
+        return departementId;
+    }
+
+    public Long getEmployeId() {
+        return employeId;
+    }
+
+    /**
+     * Copie du filtre restreinte à une période (mêmes critères de département et d'employé).
+     */
+    public PresenceTrendFilter avecPeriode(LocalDate from, LocalDate to) {
+        return new PresenceTrendFilter(from, to, departementId, employeId);
+    }
+
+    public boolean isEmpty() {
+        return from == null && to == null && departementId == null && employeId == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PresenceTrendFilter that = (PresenceTrendFilter) o;
+        return Objects.equals(from, that.from) && Objects.equals(to, that.to)
+                && Objects.equals(departementId, that.departementId) && Objects.equals(employeId, that.employeId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, to, departementId, employeId);
+    }
+
+    @Override
+    public String toString() {
+        return "PresenceTrendFilter{" +
+                "from=" + from +
+                ", to=" + to +
+                ", departementId=" + departementId +
+                ", employeId=" + employeId +
+                '}';
+    }
+}
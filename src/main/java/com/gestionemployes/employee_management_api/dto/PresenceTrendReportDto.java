@@ -1,20 +1,30 @@
 package com.gestionemployes.employee_management_api.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.gestionemployes.employee_management_api.json.DureesSerializer;
+
 import java.util.Map;
 
+// Les Map de durées sont des DureesEnMinutes à la construction du rapport : DureesSerializer
+// formate les minutes directement dans le flux JSON
 public class PresenceTrendReportDto {
 	// Total d'heures travaillées par jour de la semaine 
+	@JsonSerialize(using = DureesSerializer.class)
 	private Map<String, String> totalHoursByDayOfWeek;
 	// Total d'heures travaillées par mois (toutes années confondues)
+	@JsonSerialize(using = DureesSerializer.class)
 	private Map<Integer, String> totalHoursByMonth;
 	// Total d'heures travaillées par mois et année 
+	@JsonSerialize(using = DureesSerializer.class)
 	private Map<String, String> totalHoursByMonthYear;
 	// Heures moyennes travaillées par jour (sur tous les employés et toutes les dates)
 	private String averageDailyHoursAcrossAllEmployees;
 	// Total d'heures travaillées par employé (ID de l'employé -> heures formatées)
+	@JsonSerialize(using = DureesSerializer.class)
 	private Map<Long, String> totalHoursByEmployeeId;
 	// Total d'heures travaillées par nom de département (Nom du département ->
 	// heures formatées)
+	@JsonSerialize(using = DureesSerializer.class)
 	private Map<String, String> totalHoursByDepartementName;
 
 	public PresenceTrendReportDto() {
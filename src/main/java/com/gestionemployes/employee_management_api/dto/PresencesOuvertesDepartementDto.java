@@ -0,0 +1,33 @@
+package com.gestionemployes.employee_management_api.dto;
+
+public class PresencesOuvertesDepartementDto {
+	// Département, null pour les employés rattachés à aucun département
+	private Long departementId;
+	// Présences ouvertes des employés du département
+	private int nombre;
+
+	public PresencesOuvertesDepartementDto() {
+	}
+
+	public PresencesOuvertesDepartementDto(Long departementId, int nombre) {
+		this.departementId = departementId;
+		this.nombre = nombre;
+	}
+
+	// --- Getters et Setters ---
+	public Long getDepartementId() {
+		return departementId;
+	}
+
+	public void setDepartementId(Long departementId) {
+		this.departementId = departementId;
+	}
+
+	public int getNombre() {
+		return nombre;
+	}
+
+	public void setNombre(int nombre) {
+		this.nombre = nombre;
+	}
+}
@@ -0,0 +1,35 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import java.util.List;
+
+public class PresencesOuvertesDto {
+	// Présences ouvertes (arrivée pointée, départ pas encore pointé), tous départements confondus
+	private int total;
+	// Répartition par département, triée par département (employés sans département en dernier)
+	private List<PresencesOuvertesDepartementDto> departements;
+
+	public PresencesOuvertesDto() {
+	}
+
+	public PresencesOuvertesDto(int total, List<PresencesOuvertesDepartementDto> departements) {
+		this.total = total;
+		this.departements = departements;
+	}
+
+	// --- Getters et Setters ---
+	public int getTotal() {
+		return total;
+	}
+
+	public void setTotal(int total) {
+		this.total = total;
+	}
+
+	public List<PresencesOuvertesDepartementDto> getDepartements() {
+		return departements;
+	}
+
+	public void setDepartements(List<PresencesOuvertesDepartementDto> departements) {
+		this.departements = departements;
+	}
+}
@@ -0,0 +1,97 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import java.time.Instant;
+
+public class RapportJobDto {
+
+	public enum Statut { EN_ATTENTE, EN_COURS, TERMINE, ECHEC }
+
+	private String id;
+	private RapportJobRequest.Type type;
+	private Statut statut;
+	private Instant soumisLe;
+	private Instant demarreLe;
+	private Instant termineLe;
+	// Résultat du rapport, présent lorsque le statut est TERMINE
+	private Object resultat;
+	private String erreur;
+
+	public RapportJobDto() {
+	}
+
+	public RapportJobDto(String id, RapportJobRequest.Type type, Statut statut, Instant soumisLe, Instant demarreLe,
+			Instant termineLe, Object resultat, String erreur) {
+		this.id = id;
+		this.type = type;
+		this.statut = statut;
+		this.soumisLe = soumisLe;
+		this.demarreLe = demarreLe;
+		this.termineLe = termineLe;
+		this.resultat = resultat;
+		this.erreur = erreur;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public RapportJobRequest.Type getType() {
+		return type;
+	}
+
+	public void setType(RapportJobRequest.Type type) {
+		this.type = type;
+	}
+
+	public Statut getStatut() {
+		return statut;
+	}
+
+	public void setStatut(Statut statut) {
+		this.statut = statut;
+	}
+
+	public Instant getSoumisLe() {
+		return soumisLe;
+	}
+
+	public void setSoumisLe(Instant soumisLe) {
+		this.soumisLe = soumisLe;
+	}
+
+	public Instant getDemarreLe() {
+		return demarreLe;
+	}
+
+	public void setDemarreLe(Instant demarreLe) {
+		this.demarreLe = demarreLe;
+	}
+
+	public Instant getTermineLe() {
+		return termineLe;
+	}
+
+	public void setTermineLe(Instant termineLe) {
+		this.termineLe = termineLe;
+	}
+
+	public Object getResultat() {
+		return resultat;
+	}
+
+	public void setResultat(Object resultat) {
+		this.resultat = resultat;
+	}
+
+	public String getErreur() {
+		return erreur;
+	}
+
+	public void setErreur(String erreur) {
+		this.erreur = erreur;
+	}
+}
@@ -0,0 +1,75 @@
+package com.gestionemployes.employee_management_api.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.time.LocalDate;
+
+public class RapportJobRequest {
+
+	public enum Type { TENDANCES_PRESENCES, DISTRIBUTION_PRESENCES, RESUME_SALAIRES, STATISTIQUES_SALAIRES }
+
+	@NotNull(message = "Le type de rapport ne peut pas être nul")
+	private Type type;
+
+	// Critères optionnels, utilisés par les rapports TENDANCES_PRESENCES et DISTRIBUTION_PRESENCES
+	private LocalDate from;
+
+	private LocalDate to;
+
+	@Positive(message = "L'ID du département doit être un nombre positif")
+	private Long departementId;
+
+	@Positive(message = "L'ID de l'employé doit être un nombre positif")
+	private Long employeId;
+
+	public RapportJobRequest() {
+	}
+
+	public RapportJobRequest(Type type, LocalDate from, LocalDate to, Long departementId, Long employeId) {
+		this.type = type;
+		this.from = from;
+		this.to = to;
+		this.departementId = departementId;
+		this.employeId = employeId;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	public LocalDate getFrom() {
+		return from;
+	}
+
+	public void setFrom(LocalDate from) {
+		this.from = from;
+	}
+
+	public LocalDate getTo() {
+		return to;
+	}
+
+	public void setTo(LocalDate to) {
+		this.to = to;
+	}
+
+	public Long getDepartementId() {
+		return departementId;
+	}
+
+	public void setDepartementId(Long departementId) {
+		this.departementId = departementId;
+	}
+
+	public Long getEmployeId() {
+		return employeId;
+	}
+
+	public void setEmployeId(Long employeId) {
+		this.employeId = employeId;
+	}
+}
@@ -0,0 +1,26 @@
+package com.gestionemployes.employee_management_api.event;
+
+/**
+ * Publié par DepartementService à la création, la mise à jour ou la suppression d'un département.
+ */
+public class DepartementModifieEvent {
+
+    private final Long departementId;
+    private final boolean nomChange;
+
+    public DepartementModifieEvent(Long departementId, boolean nomChange) {
+        this.departementId = departementId;
+        this.nomChange = nomChange;
+    }
+
+    public Long getDepartementId() {
+        return departementId;
+    }
+
+    /**
+     * @return true si le nom du département a changé (il apparaît dans les rapports de présence).
+     */
+    public boolean isNomChange() {
+        return nomChange;
+    }
+}
@@ -0,0 +1,26 @@
+package com.gestionemployes.employee_management_api.event;
+
+/**
+ * Publié par EmployeService à la création ou la mise à jour d'un employé.
+ */
+public class EmployeModifieEvent {
+
+    private final Long employeId;
+    private final boolean departementChange;
+
+    public EmployeModifieEvent(Long employeId, boolean departementChange) {
+        this.employeId = employeId;
+        this.departementChange = departementChange;
+    }
+
+    public Long getEmployeId() {
+        return employeId;
+    }
+
+    /**
+     * @return true si l'employé a changé de département (les présences sont alors rattachées ailleurs).
+     */
+    public boolean isDepartementChange() {
+        return departementChange;
+    }
+}
@@ -0,0 +1,58 @@
+package com.gestionemployes.employee_management_api.event;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Publié par PresenceService à chaque pointage enregistré (arrivée ou départ).
+ */
+public class PointageEvent {
+
+    public enum Type { ARRIVEE, DEPART }
+
+    private final Type type;
+    private final Long presenceId;
+    private final Long employeId;
+    private final LocalDate date;
+    private final LocalTime heure;
+    private final Long minutesTravaillees;
+
+    public PointageEvent(Type type, Long presenceId, Long employeId, LocalDate date, LocalTime heure, Long minutesTravaillees) {
+        this.type = type;
+        this.presenceId = presenceId;
+        this.employeId = employeId;
+        this.date = date;
+        this.heure = heure;
+        this.minutesTravaillees = minutesTravaillees;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getPresenceId() {
+        return presenceId;
+    }
+
+    public Long getEmployeId() {
+        return employeId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * @return L'heure d'arrivée ou de départ, selon le type.
+     */
+    public LocalTime getHeure() {
+        return heure;
+    }
+
+    /**
+     * @return Les minutes travaillées (null pour une arrivée).
+     */
+    public Long getMinutesTravaillees() {
+        return minutesTravaillees;
+    }
+}
@@ -0,0 +1,118 @@
+package com.gestionemployes.employee_management_api.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Formatage "Xh YYm" des minutes travaillées (ex: 510 -> "8h 30m"), identique à
+ * String.format("%dh %02dm", minutes / 60, minutes % 60) mais sans passer par Formatter :
+ * les chiffres sont copiés deux par deux depuis une table précalculée dans un tampon de
+ * caractères, écrit ensuite directement dans le générateur Jackson ou le Writer.
+ */
+public final class DureeFormat {
+
+    /** Taille minimale du tableau passé à formater(long, char[]) (marge comprise). */
+    public static final int LONGUEUR_MAX = 32;
+
+    // "00" "01" ... "99" : DEUX_CHIFFRES[2 * n] et DEUX_CHIFFRES[2 * n + 1] sont les chiffres de n
+    private static final char[] DEUX_CHIFFRES = new char[200];
+
+    static {
+        for (int n = 0; n < 100; n++) {
+            DEUX_CHIFFRES[2 * n] = (char) ('0' + n / 10);
+            DEUX_CHIFFRES[2 * n + 1] = (char) ('0' + n % 10);
+        }
+    }
+
+    // Un tampon par thread : aucun tableau alloué par valeur sérialisée
+    private static final ThreadLocal<char[]> TAMPON = ThreadLocal.withInitial(() -> new char[LONGUEUR_MAX]);
+
+    private DureeFormat() {
+    }
+
+    /**
+     * Écrit la durée au début du tableau fourni.
+     *
+     * @param totalMinutes Minutes travaillées.
+     * @param dest         Tableau d'au moins LONGUEUR_MAX caractères.
+     * @return Le nombre de caractères écrits.
+     */
+    public static int formater(long totalMinutes, char[] dest) {
+        if (totalMinutes < 0) {
+            // Cas non rencontré en pratique : conserve le rendu exact de String.format
+            String formatee = String.format("%dh %02dm", totalMinutes / 60, totalMinutes % 60);
+            formatee.getChars(0, formatee.length(), dest, 0);
+            return formatee.length();
+        }
+        long heures = totalMinutes / 60;
+        int minutes = (int) (totalMinutes % 60);
+        int longueur = nombreChiffres(heures) + 5;
+
+        int pos = longueur;
+        dest[--pos] = 'm';
+        dest[--pos] = DEUX_CHIFFRES[2 * minutes + 1];
+        dest[--pos] = DEUX_CHIFFRES[2 * minutes];
+        dest[--pos] = ' ';
+        dest[--pos] = 'h';
+        while (heures >= 100) {
+            int deux = (int) (heures % 100);
+            heures /= 100;
+            dest[--pos] = DEUX_CHIFFRES[2 * deux + 1];
+            dest[--pos] = DEUX_CHIFFRES[2 * deux];
+        }
+        int reste = (int) heures;
+        dest[--pos] = DEUX_CHIFFRES[2 * reste + 1];
+        if (reste >= 10) {
+            dest[--pos] = DEUX_CHIFFRES[2 * reste];
+        }
+        return longueur;
+    }
+
+    /**
+     * @return La durée formatée (ex: "8h 30m").
+     */
+    public static String format(long totalMinutes) {
+        char[] tampon = TAMPON.get();
+        return new String(tampon, 0, formater(totalMinutes, tampon));
+    }
+
+    /**
+     * Écrit la durée comme valeur chaîne JSON.
+     */
+    public static void ecrire(long totalMinutes, JsonGenerator generator) throws IOException {
+        char[] tampon = TAMPON.get();
+        generator.writeString(tampon, 0, formater(totalMinutes, tampon));
+    }
+
+    /**
+     * Écrit la durée dans un Writer (export CSV).
+     */
+    public static void ecrire(long totalMinutes, Writer writer) throws IOException {
+        char[] tampon = TAMPON.get();
+        writer.write(tampon, 0, formater(totalMinutes, tampon));
+    }
+
+    /**
+     * Relit une durée formatée par format (ex: "8h 30m" -> 510).
+     *
+     * @throws IllegalArgumentException si la chaîne n'est pas au format "Xh YYm".
+     */
+    public static long lire(String duree) {
+        int h = duree.indexOf('h');
+        if (h <= 0 || !duree.startsWith(" ", h + 1) || !duree.endsWith("m") || duree.length() < h + 4) {
+            throw new IllegalArgumentException("Durée invalide : " + duree);
+        }
+        return Long.parseLong(duree.substring(0, h)) * 60 + Long.parseLong(duree.substring(h + 2, duree.length() - 1));
+    }
+
+    private static int nombreChiffres(long n) {
+        int chiffres = 1;
+        while (n >= 10) {
+            n /= 10;
+            chiffres++;
+        }
+        return chiffres;
+    }
+}
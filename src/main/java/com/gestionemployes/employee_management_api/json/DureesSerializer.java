@@ -0,0 +1,58 @@
+package com.gestionemployes.employee_management_api.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.gestionemployes.employee_management_api.dto.DureesEnMinutes;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Sérialise les Map de durées des rapports (clé -> "Xh YYm"). Pour une DureesEnMinutes,
+ * les minutes sont formatées directement dans le générateur, sans chaîne intermédiaire ;
+ * toute autre Map (rapport désérialisé, tests) est écrite telle quelle.
+ * Le JSON produit est identique à celui du MapSerializer par défaut.
+ */
+public class DureesSerializer extends StdSerializer<Map<?, String>> {
+
+    public DureesSerializer() {
+        super(Map.class, false);
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, Map<?, String> value) {
+        return value == null || value.isEmpty();
+    }
+
+    @Override
+    public void serialize(Map<?, String> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        if (value instanceof DureesEnMinutes<?> durees) {
+            for (Map.Entry<?, Long> entry : durees.getMinutes().entrySet()) {
+                ecrireCle(entry.getKey(), gen, provider);
+                DureeFormat.ecrire(entry.getValue(), gen);
+            }
+        } else {
+            for (Map.Entry<?, String> entry : value.entrySet()) {
+                ecrireCle(entry.getKey(), gen, provider);
+                if (entry.getValue() == null) {
+                    gen.writeNull();
+                } else {
+                    gen.writeString(entry.getValue());
+                }
+            }
+        }
+        gen.writeEndObject();
+    }
+
+    private static void ecrireCle(Object cle, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (cle instanceof Long || cle instanceof Integer) {
+            gen.writeFieldId(((Number) cle).longValue());
+        } else if (cle == null) {
+            provider.getDefaultNullKeySerializer().serialize(null, gen, provider);
+        } else {
+            gen.writeFieldName(cle.toString());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.gestionemployes.employee_management_api.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.gestionemployes.employee_management_api.dto.PresenceDto;
+
+import java.io.IOException;
+
+/**
+ * Sérialiseur dédié de PresenceDto (listes de présences, export NDJSON). Les champs sont
+ * écrits dans l'ordre et sous la forme du sérialiseur par défaut ; les heures travaillées
+ * sont formatées depuis les minutes directement dans le générateur. Dates et heures
+ * passent par les sérialiseurs configurés dans l'ObjectMapper (format ISO de l'API).
+ */
+public class PresenceDtoSerializer extends StdSerializer<PresenceDto> {
+
+    public PresenceDtoSerializer() {
+        super(PresenceDto.class);
+    }
+
+    @Override
+    public void serialize(PresenceDto value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        ecrireId("id", value.getId(), gen);
+        ecrireId("employeId", value.getEmployeId(), gen);
+        provider.defaultSerializeField("date", value.getDate(), gen);
+        provider.defaultSerializeField("arrivee", value.getArrivee(), gen);
+        provider.defaultSerializeField("depart", value.getDepart(), gen);
+        gen.writeFieldName("heuresTravaillees");
+        if (value.getMinutesTravaillees() != null) {
+            DureeFormat.ecrire(value.getMinutesTravaillees(), gen);
+        } else {
+            gen.writeNull();
+        }
+        gen.writeEndObject();
+    }
+
+    private static void ecrireId(String nom, Long id, JsonGenerator gen) throws IOException {
+        if (id == null) {
+            gen.writeNullField(nom);
+        } else {
+            gen.writeNumberField(nom, id.longValue());
+        }
+    }
+}
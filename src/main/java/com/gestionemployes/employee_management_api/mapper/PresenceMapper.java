@@ -2,6 +2,7 @@ package com.gestionemployes.employee_management_api.mapper;
 
 import com.gestionemployes.employee_management_api.dto.PresenceDto;
 import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -12,22 +13,23 @@ public class PresenceMapper {
             return null;
         }
 
-        // Conversion des minutes en format "Xh Ym"
-        String formattedHeuresTravaillees = null;
-        if (presence.getHeuresTravaillees() != null) {
-            long totalMinutes = presence.getHeuresTravaillees();
-            long hours = totalMinutes / 60;
-            long minutes = totalMinutes % 60;
-            formattedHeuresTravaillees = String.format("%dh %02dm", hours, minutes);
-        }
-
+        // Minutes conservées telles quelles : formatées en "Xh YYm" à la sérialisation
         return new PresenceDto(
             presence.getId(),
             presence.getEmploye() != null ? presence.getEmploye().getId() : null, // ID de l'employé
             presence.getDate(),
             presence.getArrivee(),
             presence.getDepart(),
-            formattedHeuresTravaillees // Utilise la valeur formatée
+            presence.getHeuresTravaillees()
         );
     }
+
+    // Projection scalaire d'une présence (PresencePointageRow) : aucune entité n'est chargée
+    public PresenceDto toDto(PresencePointageRow row) {
+        if (row == null) {
+            return null;
+        }
+
+        return new PresenceDto(row.getId(), row.getEmployeId(), row.getDate(), row.getArrivee(), row.getDepart(), row.getMinutes());
+    }
 }
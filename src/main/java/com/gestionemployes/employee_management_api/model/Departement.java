@@ -11,7 +11,8 @@ import java.util.Set;
 public class Departement {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "departements_seq")
+    @SequenceGenerator(name = "departements_seq", sequenceName = "departements_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -23,6 +24,15 @@ public class Departement {
     @Column(nullable = false) 
     private BigDecimal budget;
 
+    // Registre de paie (employés actifs) : tenu à jour par les mises à jour atomiques de
+    // DepartementRepository, jamais écrit par save()
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "integer not null default 0")
+    private int effectif;
+
+    @Column(name = "masse_salariale", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "numeric(38,2) not null default 0")
+    private BigDecimal masseSalariale = BigDecimal.ZERO;
+
     
     
     
@@ -51,6 +61,12 @@ public class Departement {
     public BigDecimal getBudget() { return budget; }
     public void setBudget(BigDecimal budget) { this.budget = budget; }
 
+    public int getEffectif() { return effectif; }
+    public void setEffectif(int effectif) { this.effectif = effectif; }
+
+    public BigDecimal getMasseSalariale() { return masseSalariale; }
+    public void setMasseSalariale(BigDecimal masseSalariale) { this.masseSalariale = masseSalariale; }
+
     public Set<Employe> getEmployes() { return employes; }
     public void setEmployes(Set<Employe> employes) { this.employes = employes; }
 
@@ -13,7 +13,8 @@ import java.util.Set;
 public class Employe {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employes_seq")
+    @SequenceGenerator(name = "employes_seq", sequenceName = "employes_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "prenom", nullable = false)
@@ -0,0 +1,58 @@
+package com.gestionemployes.employee_management_api.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Réponse d'un pointage envoyé avec un en-tête Idempotency-Key, conservée pour être renvoyée
+ * telle quelle aux nouvelles tentatives de la badgeuse, y compris après un redémarrage.
+ * Les lignes plus anciennes que la durée de rétention sont purgées.
+ */
+@Entity
+@Table(name = "pointages_idempotence", indexes = {
+    @Index(name = "idx_pointages_idempotence_cree_le", columnList = "cree_le")
+})
+public class PointageIdempotence {
+
+    @Id
+    @Column(length = 255)
+    private String cle;
+
+    // Méthode et chemin de la requête d'origine (POST /api/presences/arrivee)
+    @Column(nullable = false, length = 64)
+    private String route;
+
+    @Column(nullable = false)
+    private int statut;
+
+    @Column(name = "type_contenu", length = 100)
+    private String typeContenu;
+
+    @Column(nullable = false)
+    private byte[] corps;
+
+    @Column(name = "cree_le", nullable = false)
+    private Instant creeLe;
+
+    public PointageIdempotence() {
+    }
+
+    public String getCle() { return cle; }
+    public void setCle(String cle) { this.cle = cle; }
+
+    public String getRoute() { return route; }
+    public void setRoute(String route) { this.route = route; }
+
+    public int getStatut() { return statut; }
+    public void setStatut(int statut) { this.statut = statut; }
+
+    public String getTypeContenu() { return typeContenu; }
+    public void setTypeContenu(String typeContenu) { this.typeContenu = typeContenu; }
+
+    public byte[] getCorps() { return corps; }
+    public void setCorps(byte[] corps) { this.corps = corps; }
+
+    public Instant getCreeLe() { return creeLe; }
+    public void setCreeLe(Instant creeLe) { this.creeLe = creeLe; }
+}
@@ -7,11 +7,19 @@ import java.time.LocalTime;
 import java.time.Duration; 
 
 @Entity 
-@Table(name = "presences") 
+// Une présence au plus par employé et par jour : le pointage d'arrivée s'appuie sur cette
+// contrainte (INSERT ... ON CONFLICT), dont l'index sert aussi les lectures par employé
+@Table(name = "presences", indexes = {
+        @Index(name = "idx_presences_date_employe", columnList = "date, employe_id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_presences_employe_date", columnNames = {"employe_id", "date"})
+})
 public class Presence {
 
  @Id 
- @GeneratedValue(strategy = GenerationType.IDENTITY) 
+ // Identifiants réservés par blocs de 50 : les insertions d'un lot de pointages partent en batch JDBC
+ @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "presences_seq")
+ @SequenceGenerator(name = "presences_seq", sequenceName = "presences_seq", allocationSize = 50)
  private Long id;
 
  
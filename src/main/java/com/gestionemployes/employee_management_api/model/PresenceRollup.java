@@ -0,0 +1,59 @@
+package com.gestionemployes.employee_management_api.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Cumul des minutes travaillées pour une clé d'un axe d'agrégation.
+ * Les lignes sont maintenues de façon incrémentale lors du pointage de départ
+ * et peuvent être entièrement régénérées à partir de la table presences.
+ */
+@Entity
+@Table(name = "presence_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_presence_rollups_dimension_cle", columnNames = {"dimension", "cle"})
+})
+public class PresenceRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RollupDimension dimension;
+
+    @Column(nullable = false, length = 20)
+    private String cle;
+
+    @Column(name = "total_minutes", nullable = false)
+    private Long totalMinutes;
+
+    public PresenceRollup() {
+    }
+
+    public PresenceRollup(RollupDimension dimension, String cle, Long totalMinutes) {
+        this.dimension = dimension;
+        this.cle = cle;
+        this.totalMinutes = totalMinutes;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public RollupDimension getDimension() { return dimension; }
+    public void setDimension(RollupDimension dimension) { this.dimension = dimension; }
+
+    public String getCle() { return cle; }
+    public void setCle(String cle) { this.cle = cle; }
+
+    public Long getTotalMinutes() { return totalMinutes; }
+    public void setTotalMinutes(Long totalMinutes) { this.totalMinutes = totalMinutes; }
+
+    @Override
+    public String toString() {
+        return "PresenceRollup{" +
+                "dimension=" + dimension +
+                ", cle='" + cle + '\'' +
+                ", totalMinutes=" + totalMinutes +
+                '}';
+    }
+}
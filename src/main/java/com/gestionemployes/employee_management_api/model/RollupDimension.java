@@ -0,0 +1,15 @@
+package com.gestionemployes.employee_management_api.model;
+
+/**
+ * Axes d'agrégation des cumuls de présence (table presence_rollups).
+ * La clé associée à chaque axe est stockée sous forme de texte :
+ * JOUR = "2024-06-20", ANNEE_MOIS = "2024-06", JOUR_SEMAINE = "THURSDAY",
+ * EMPLOYE = id de l'employé. Le cumul par département n'est pas stocké : il est obtenu à la
+ * lecture en repliant le cumul par employé sur le département courant de chaque employé.
+ */
+public enum RollupDimension {
+    JOUR,
+    ANNEE_MOIS,
+    JOUR_SEMAINE,
+    EMPLOYE
+}
@@ -1,9 +1,15 @@
 package com.gestionemployes.employee_management_api.repository;
 
 import com.gestionemployes.employee_management_api.model.Departement;
+import com.gestionemployes.employee_management_api.repository.projection.SalaireStatsByDepartementProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional; 
 
 @Repository
@@ -13,4 +19,41 @@ public interface DepartementRepository extends JpaRepository<Departement, Long>
 
     boolean existsByNom(String nom); 
 
+    // Une ligne par département, y compris ceux sans employé (LEFT JOIN), dans l'ordre des ids
+    @Query("SELECT d.id AS departementId, d.nom AS departementNom, COUNT(e.id) AS nombreEmployes, " +
+           "SUM(e.salaire) AS totalSalaires, MIN(e.salaire) AS salaireMin, MAX(e.salaire) AS salaireMax " +
+           "FROM Departement d LEFT JOIN d.employes e GROUP BY d.id, d.nom ORDER BY d.id")
+    List<SalaireStatsByDepartementProjection> findSalaireStatsByDepartement();
+
+    // Mouvement sur le registre de paie, appliqué sous le verrou de la ligne du département.
+    // Une hausse de la masse salariale n'est appliquée que si elle reste dans le budget :
+    // 0 ligne modifiée signifie que le budget serait dépassé.
+    @Modifying
+    @Query(value = "UPDATE departements SET effectif = effectif + :deltaEffectif, " +
+           "masse_salariale = masse_salariale + CAST(:deltaMasse AS numeric) " +
+           "WHERE id = :id AND (CAST(:deltaMasse AS numeric) <= 0 OR masse_salariale + CAST(:deltaMasse AS numeric) <= budget)",
+           nativeQuery = true)
+    int appliquerMouvementPaie(@Param("id") Long id, @Param("deltaEffectif") int deltaEffectif,
+                               @Param("deltaMasse") BigDecimal deltaMasse);
+
+    // Verrou partagé : les écritures d'employés concurrentes attendent la fin de la reconstruction
+    @Modifying
+    @Query(value = "LOCK TABLE employes IN SHARE MODE", nativeQuery = true)
+    void lockEmployesForRebuild();
+
+    // Vrai si le registre d'au moins un département ne correspond pas à la table employes
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM departements d LEFT JOIN (SELECT e.departement_id, COUNT(*) AS effectif, " +
+           "SUM(e.salaire) AS masse FROM employes e WHERE e.statut <> 'INACTIF' GROUP BY e.departement_id) s " +
+           "ON s.departement_id = d.id WHERE d.effectif <> COALESCE(s.effectif, 0) OR d.masse_salariale <> COALESCE(s.masse, 0))",
+           nativeQuery = true)
+    boolean existsRegistrePaieIncoherent();
+
+    // Recalcule le registre de paie à partir de la table employes ; ne modifie que les départements incohérents
+    @Modifying
+    @Query(value = "UPDATE departements d SET effectif = s.effectif, masse_salariale = s.masse " +
+           "FROM (SELECT d2.id, COUNT(e.id) AS effectif, COALESCE(SUM(e.salaire), 0) AS masse FROM departements d2 " +
+           "LEFT JOIN employes e ON e.departement_id = d2.id AND e.statut <> 'INACTIF' GROUP BY d2.id) s " +
+           "WHERE d.id = s.id AND (d.effectif <> s.effectif OR d.masse_salariale <> s.masse)", nativeQuery = true)
+    int reconstruireRegistresPaie();
+
 }
@@ -1,12 +1,20 @@
 package com.gestionemployes.employee_management_api.repository;
 
 import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.repository.projection.EmployeDepartementProjection;
+import jakarta.persistence.LockModeType;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.domain.Page; 
 import org.springframework.data.domain.Pageable; 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -15,8 +23,27 @@ public interface EmployeRepository extends JpaRepository<Employe, Long> {
  Employe findByEmail(String email);
 
  boolean existsByEmail(String email);
+
+ // Lecture sous verrou de la ligne : deux modifications concurrentes d'un même employé sont sérialisées
+ // et chacune reporte sur le registre de paie l'écart calculé depuis le salaire réellement en base
+ @Lock(LockModeType.PESSIMISTIC_WRITE)
+ @Query("SELECT e FROM Employe e WHERE e.id = :id")
+ Optional<Employe> findByIdForUpdate(@Param("id") Long id);
  
- Page<Employe> findByNomContainingIgnoreCaseOrEmailContainingIgnoreCase(String nom, String email, Pageable pageable);
+ // Critères de la recherche, communs à la requête et à son comptage
+ String CRITERES_RECHERCHE = "(lower(e.prenom) LIKE :motif OR lower(e.nom) LIKE :motif OR lower(e.email) LIKE :motif " +
+        "OR lower(e.prenom) % :terme OR lower(e.nom) % :terme)";
+
+ // Recherche sur le prénom, le nom et l'email (index trigrammes de la migration V3) : sous-chaîne du
+ // motif LIKE (terme en minuscules, jokers échappés) ou prénom / nom proche du terme (opérateur %,
+ // seuil pg_trgm.similarity_threshold), classés par similarité décroissante. Le tri du Pageable n'est
+ // pas applicable : l'appelant passe une page non triée.
+ @Query(value = "SELECT e.* FROM employes e WHERE " + CRITERES_RECHERCHE +
+        " ORDER BY GREATEST(similarity(lower(e.prenom), :terme), similarity(lower(e.nom), :terme), " +
+        "similarity(lower(e.email), :terme)) DESC, e.id",
+        countQuery = "SELECT COUNT(*) FROM employes e WHERE " + CRITERES_RECHERCHE,
+        nativeQuery = true)
+ Page<Employe> rechercher(@Param("terme") String terme, @Param("motif") String motif, Pageable pageable);
 
  
  Page<Employe> findByDepartementId(Long departementId, Pageable pageable);
@@ -25,5 +52,17 @@ boolean existsByDepartementId(Long id);
 
 List<Employe> findByDepartementId(Long departementId);
 
+ // Dictionnaire employé -> département du stockage en colonnes des présences
+ @Query("SELECT e.id AS employeId, d.id AS departementId, d.nom AS departementNom FROM Employe e LEFT JOIN e.departement d")
+ List<EmployeDepartementProjection> findAllDepartementsEmployes();
+
+ @Query("SELECT e.id AS employeId, d.id AS departementId, d.nom AS departementNom FROM Employe e LEFT JOIN e.departement d " +
+        "WHERE e.id = :employeId")
+ Optional<EmployeDepartementProjection> findDepartementEmploye(@Param("employeId") Long employeId);
+
+ // Identifiants existants parmi ceux d'un lot de pointages, sans charger les employés
+ @Query("SELECT e.id FROM Employe e WHERE e.id IN :ids")
+ Set<Long> findIdsExistants(@Param("ids") Collection<Long> ids);
+
 
 }
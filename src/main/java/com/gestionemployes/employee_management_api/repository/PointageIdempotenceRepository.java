@@ -0,0 +1,30 @@
+package com.gestionemployes.employee_management_api.repository;
+
+import com.gestionemployes.employee_management_api.model.PointageIdempotence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface PointageIdempotenceRepository extends JpaRepository<PointageIdempotence, String> {
+
+ // Réponse encore valide d'une clé (les lignes expirées pas encore purgées sont ignorées)
+ Optional<PointageIdempotence> findByCleAndCreeLeAfter(String cle, Instant limite);
+
+ // Première réponse enregistrée pour une clé : une écriture concurrente pour la même clé est ignorée
+ @Modifying
+ @Query(value = "INSERT INTO pointages_idempotence (cle, route, statut, type_contenu, corps, cree_le) " +
+        "VALUES (:cle, :route, :statut, :typeContenu, :corps, :creeLe) ON CONFLICT (cle) DO NOTHING", nativeQuery = true)
+ int enregistrer(@Param("cle") String cle, @Param("route") String route, @Param("statut") int statut,
+                 @Param("typeContenu") String typeContenu, @Param("corps") byte[] corps, @Param("creeLe") Instant creeLe);
+
+ // Purge par l'index idx_pointages_idempotence_cree_le
+ @Modifying
+ @Query("DELETE FROM PointageIdempotence i WHERE i.creeLe < :limite")
+ int purgerAvant(@Param("limite") Instant limite);
+}
@@ -1,19 +1,119 @@
 package com.gestionemployes.employee_management_api.repository;
 
 import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.repository.projection.DateBoundsProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByDateProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByDayOfWeekProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByDepartementProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByEmployeProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByMonthProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByYearMonthProjection;
+import com.gestionemployes.employee_management_api.repository.projection.PointageArriveeResultat;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceMoisRow;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceOuverteRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional; 
+import java.util.Optional;
 
 @Repository
-public interface PresenceRepository extends JpaRepository<Presence, Long> {
- 
+public interface PresenceRepository extends JpaRepository<Presence, Long>, PresenceRepositoryCustom {
+
  Optional<Presence> findByEmployeIdAndDate(Long employeId, LocalDate date);
- 
- List<Presence> findByEmployeIdOrderByDateAsc(Long employeId);
+
+ // Pointage d'arrivée en un aller-retour : l'employé n'est pas chargé (INSERT ... SELECT sur sa clé) et
+ // l'unicité (employé, date) est tranchée par uk_presences_employe_date, y compris entre pointages
+ // concurrents. L'id vient directement de la séquence : il ne recoupe aucun bloc réservé par Hibernate.
+ // Les sous-requêtes de diagnostic voient l'état d'avant l'insertion.
+ @Query(value = "WITH nouvelle AS (" +
+        "INSERT INTO presences (id, employe_id, date, arrivee) " +
+        "SELECT nextval('presences_seq'), e.id, :date, :arrivee FROM employes e WHERE e.id = :employeId " +
+        "ON CONFLICT (employe_id, date) DO NOTHING RETURNING id) " +
+        "SELECT (SELECT n.id FROM nouvelle n) AS \"id\", " +
+        "EXISTS (SELECT 1 FROM employes e WHERE e.id = :employeId) AS \"employeExiste\", " +
+        "(SELECT p.depart IS NOT NULL FROM presences p WHERE p.employe_id = :employeId AND p.date = :date) AS \"cloturee\"",
+        nativeQuery = true)
+ PointageArriveeResultat insererArrivee(@Param("employeId") Long employeId, @Param("date") LocalDate date,
+                                        @Param("arrivee") LocalTime arrivee);
+
+ // Pointage de départ d'une présence connue ouverte (index des présences ouvertes), sans lecture préalable :
+ // la condition sur depart écarte une clôture concurrente, l'appelant reprend alors le chemin avec lecture
+ @Modifying
+ @Query("UPDATE Presence p SET p.depart = :depart, p.heuresTravaillees = :minutes WHERE p.id = :id AND p.depart IS NULL")
+ int cloturerSiOuverte(@Param("id") Long id, @Param("depart") LocalTime depart, @Param("minutes") Long minutes);
+
+ // Chargement de l'index des présences ouvertes au démarrage
+ @Query("SELECT p.id AS id, e.id AS employeId, d.id AS departementId, p.date AS date, p.arrivee AS arrivee " +
+        "FROM Presence p JOIN p.employe e LEFT JOIN e.departement d WHERE p.depart IS NULL")
+ List<PresenceOuverteRow> findPresencesOuvertes();
+
+ // Présences existantes d'un lot de pointages d'arrivée en une requête ; les couples
+ // (employé, date) sont filtrés ensuite côté service
+ @Query("SELECT p FROM Presence p WHERE p.employe.id IN :employeIds AND p.date IN :dates")
+ List<Presence> findByEmployeIdInAndDateIn(@Param("employeIds") Collection<Long> employeIds,
+                                           @Param("dates") Collection<LocalDate> dates);
+
+ // Présences d'un employé sur une période (parcours de l'index de uk_presences_employe_date), avec les
+ // totaux de la période en fonctions de fenêtre. Une présence au plus par employé et par jour
+ // (uk_presences_employe_date) : le nombre de lignes est le nombre de jours pointés.
+ @Query(value = "SELECT p.id AS \"id\", p.employe_id AS \"employeId\", p.date AS \"date\", p.arrivee AS \"arrivee\", " +
+        "p.depart AS \"depart\", p.heures_travaillees AS \"minutes\", " +
+        "CAST(COALESCE(SUM(p.heures_travaillees) OVER (), 0) AS bigint) AS \"totalMinutes\", " +
+        "COUNT(*) OVER () AS \"joursPresents\", " +
+        "CAST(ROUND(AVG(EXTRACT(EPOCH FROM p.arrivee)) OVER ()) AS bigint) AS \"arriveeMoyenneSecondes\" " +
+        "FROM presences p WHERE p.employe_id = :employeId AND p.date BETWEEN :debut AND :fin " +
+        "ORDER BY p.date, p.id", nativeQuery = true)
+ List<PresenceMoisRow> findPresencesPeriodeAvecTotaux(@Param("employeId") Long employeId,
+                                                      @Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
 
  boolean existsByEmployeId(Long employeId);
+
+ // Archivage des mois clos : premier mois encore en table, mois vides et présences restées ouvertes
+ @Query("SELECT MIN(p.date) FROM Presence p")
+ LocalDate findPremiereDate();
+
+ long countByDateBetween(LocalDate debut, LocalDate fin);
+
+ long countByDateBetweenAndDepartIsNull(LocalDate debut, LocalDate fin);
+
+ boolean existsByHeuresTravailleesIsNotNull();
+
+ // Bornes de la lecture partitionnée par mois (servies par l'index idx_presences_date_employe)
+ @Query("SELECT MIN(p.date) AS minDate, MAX(p.date) AS maxDate FROM Presence p WHERE p.heuresTravaillees IS NOT NULL")
+ DateBoundsProjection findDateBoundsPresencesCloturees();
+
+ // Agrégations du rapport de tendances, calculées par la base (seules les présences clôturées comptent)
+
+ @Query("SELECT EXTRACT(DAY OF WEEK FROM p.date) AS dayOfWeek, SUM(p.heuresTravaillees) AS totalMinutes " +
+        "FROM Presence p WHERE p.heuresTravaillees IS NOT NULL " +
+        "GROUP BY EXTRACT(DAY OF WEEK FROM p.date)")
+ List<MinutesByDayOfWeekProjection> sumMinutesByDayOfWeek();
+
+ @Query("SELECT MONTH(p.date) AS month, SUM(p.heuresTravaillees) AS totalMinutes " +
+        "FROM Presence p WHERE p.heuresTravaillees IS NOT NULL GROUP BY MONTH(p.date)")
+ List<MinutesByMonthProjection> sumMinutesByMonth();
+
+ @Query("SELECT YEAR(p.date) AS year, MONTH(p.date) AS month, SUM(p.heuresTravaillees) AS totalMinutes " +
+        "FROM Presence p WHERE p.heuresTravaillees IS NOT NULL GROUP BY YEAR(p.date), MONTH(p.date)")
+ List<MinutesByYearMonthProjection> sumMinutesByYearMonth();
+
+ @Query("SELECT p.date AS date, SUM(p.heuresTravaillees) AS totalMinutes " +
+        "FROM Presence p WHERE p.heuresTravaillees IS NOT NULL GROUP BY p.date")
+ List<MinutesByDateProjection> sumMinutesByDate();
+
+ @Query("SELECT p.employe.id AS employeId, SUM(p.heuresTravaillees) AS totalMinutes " +
+        "FROM Presence p WHERE p.heuresTravaillees IS NOT NULL GROUP BY p.employe.id")
+ List<MinutesByEmployeProjection> sumMinutesByEmploye();
+
+ @Query("SELECT d.nom AS departementNom, SUM(p.heuresTravaillees) AS totalMinutes " +
+        "FROM Presence p JOIN p.employe e JOIN e.departement d " +
+        "WHERE p.heuresTravaillees IS NOT NULL GROUP BY d.nom")
+ List<MinutesByDepartementProjection> sumMinutesByDepartement();
 }
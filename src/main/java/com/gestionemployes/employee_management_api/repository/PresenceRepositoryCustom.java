@@ -0,0 +1,57 @@
+package com.gestionemployes.employee_management_api.repository;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceMinutesRow;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Requêtes de PresenceRepository construites dynamiquement.
+ */
+public interface PresenceRepositoryCustom {
+
+    /**
+     * Lit en flux (curseur JDBC) les présences clôturées correspondant au filtre, dans l'ordre d'insertion.
+     * Seuls les critères renseignés sont ajoutés à la requête, pour que PostgreSQL puisse utiliser
+     * les index presences(date, employe_id) et presences(employe_id, date).
+     * Doit être consommée dans une transaction : le pilote PostgreSQL ne respecte le fetch size qu'hors autocommit.
+     */
+    Stream<PresenceMinutesRow> streamPresencesCloturees(PresenceTrendFilter filtre);
+
+    /**
+     * Lit en flux les présences, ouvertes comprises, correspondant au filtre, par id croissant
+     * (exports, chargement du stockage en colonnes). Mêmes critères et même contrainte de transaction.
+     */
+    Stream<PresencePointageRow> streamPresences(PresenceTrendFilter filtre);
+
+    /**
+     * Lit en flux les présences, ouvertes comprises, de debut à fin inclus, triées par employé puis
+     * par date (parcours de l'index de uk_presences_employe_date) : ordre d'écriture d'un segment
+     * d'archive. Même contrainte de transaction.
+     */
+    Stream<PresencePointageRow> streamPresencesParEmploye(LocalDate debut, LocalDate fin);
+
+    /**
+     * Page de présences correspondant au filtre, triées par (date, employe_id), en pagination par clé :
+     * seules les présences strictement après (apresDate, apresEmployeId) sont lues, sans OFFSET.
+     * Une présence au plus par employé et par jour : le couple identifie une ligne.
+     *
+     * @param apresDate      Date de la dernière présence de la page précédente (null pour la première page).
+     * @param apresEmployeId Employé de la dernière présence de la page précédente (renseigné avec apresDate).
+     * @param limite         Nombre maximal de lignes lues.
+     */
+    List<PresencePointageRow> findPresencesApres(PresenceTrendFilter filtre, LocalDate apresDate, Long apresEmployeId, int limite);
+
+    /**
+     * Insère un lot de pointages d'arrivée en une instruction (tableaux dépliés par unnest), dans l'ordre
+     * des listes. Idempotent : un couple (employé, date) déjà présent, en base ou plus tôt dans le lot,
+     * est ignoré (ON CONFLICT DO NOTHING), de même qu'un employé supprimé entre-temps.
+     *
+     * @return Les présences effectivement créées.
+     */
+    List<PresencePointageRow> insererArrivees(List<Long> employeIds, List<LocalDate> dates, List<LocalTime> arrivees);
+}
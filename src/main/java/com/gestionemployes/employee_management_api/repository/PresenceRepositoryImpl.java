@@ -0,0 +1,212 @@
+package com.gestionemployes.employee_management_api.repository;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceMinutesRow;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class PresenceRepositoryImpl implements PresenceRepositoryCustom {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String INSERT_ARRIVEES = "INSERT INTO presences (id, employe_id, date, arrivee) " +
+            "SELECT nextval('presences_seq'), u.employe_id, u.date, u.arrivee " +
+            "FROM unnest(CAST(? AS bigint[]), CAST(? AS date[]), CAST(? AS time[])) WITH ORDINALITY AS u(employe_id, date, arrivee, rang) " +
+            "WHERE EXISTS (SELECT 1 FROM employes e WHERE e.id = u.employe_id) " +
+            "ORDER BY u.rang " +
+            "ON CONFLICT (employe_id, date) DO NOTHING " +
+            "RETURNING id, employe_id, date, arrivee";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<PresenceMinutesRow> streamPresencesCloturees(PresenceTrendFilter filtre) {
+        return stream("SELECT p.date, e.id, d.nom, p.heuresTravaillees " +
+                "FROM Presence p JOIN p.employe e LEFT JOIN e.departement d",
+                List.of("p.heuresTravaillees IS NOT NULL"), filtre).map(Row::new);
+    }
+
+    @Override
+    public Stream<PresencePointageRow> streamPresences(PresenceTrendFilter filtre) {
+        return stream("SELECT p.id, e.id, p.date, p.arrivee, p.depart, p.heuresTravaillees " +
+                "FROM Presence p JOIN p.employe e", List.of(), filtre).map(PointageRow::new);
+    }
+
+    @Override
+    public Stream<PresencePointageRow> streamPresencesParEmploye(LocalDate debut, LocalDate fin) {
+        return entityManager.createQuery("SELECT p.id, e.id, p.date, p.arrivee, p.depart, p.heuresTravaillees " +
+                        "FROM Presence p JOIN p.employe e WHERE p.date BETWEEN :debut AND :fin ORDER BY e.id, p.date", Object[].class)
+                .setParameter("debut", debut)
+                .setParameter("fin", fin)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(PointageRow::new);
+    }
+
+    @Override
+    public List<PresencePointageRow> findPresencesApres(PresenceTrendFilter filtre, LocalDate apresDate, Long apresEmployeId, int limite) {
+        List<String> predicats = new ArrayList<>();
+        Map<String, Object> parameters = criteres(predicats, filtre);
+        if (apresDate != null) {
+            // Le premier terme borne le parcours de l'index (date, employe_id), le second exclut la page précédente
+            predicats.add("p.date >= :apresDate");
+            predicats.add("(p.date > :apresDate OR e.id > :apresEmployeId)");
+            parameters.put("apresDate", apresDate);
+            parameters.put("apresEmployeId", apresEmployeId);
+        }
+        String jpql = "SELECT p.id, e.id, p.date, p.arrivee, p.depart, p.heuresTravaillees " +
+                "FROM Presence p JOIN p.employe e" + where(predicats) + " ORDER BY p.date, e.id";
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class)
+                .setMaxResults(limite)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        parameters.forEach(query::setParameter);
+        List<PresencePointageRow> rows = new ArrayList<>(limite);
+        for (Object[] columns : query.getResultList()) {
+            rows.add(new PointageRow(columns));
+        }
+        return rows;
+    }
+
+    @Override
+    public List<PresencePointageRow> insererArrivees(List<Long> employeIds, List<LocalDate> dates, List<LocalTime> arrivees) {
+        // JDBC sur la connexion de la transaction : tableaux SQL en paramètres et lignes créées en retour
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ARRIVEES)) {
+                statement.setArray(1, connection.createArrayOf("bigint", employeIds.toArray(new Long[0])));
+                statement.setArray(2, connection.createArrayOf("text", dates.stream().map(LocalDate::toString).toArray(String[]::new)));
+                statement.setArray(3, connection.createArrayOf("text", arrivees.stream().map(LocalTime::toString).toArray(String[]::new)));
+                List<PresencePointageRow> rows = new ArrayList<>(employeIds.size());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        rows.add(new PointageRow(new Object[]{resultSet.getLong(1), resultSet.getLong(2),
+                                resultSet.getObject(3, LocalDate.class), resultSet.getObject(4, LocalTime.class), null, null}));
+                    }
+                }
+                return rows;
+            }
+        });
+    }
+
+    private Stream<Object[]> stream(String select, List<String> predicatsFixes, PresenceTrendFilter filtre) {
+        List<String> predicats = new ArrayList<>(predicatsFixes);
+        Map<String, Object> parameters = criteres(predicats, filtre);
+        String jpql = select + where(predicats) + " ORDER BY p.id";
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        parameters.forEach(query::setParameter);
+        return query.getResultStream();
+    }
+
+    // Ajoute aux prédicats (alias p et e) les seuls critères renseignés du filtre
+    private static Map<String, Object> criteres(List<String> predicats, PresenceTrendFilter filtre) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (filtre.getFrom() != null) {
+            predicats.add("p.date >= :from");
+            parameters.put("from", filtre.getFrom());
+        }
+        if (filtre.getTo() != null) {
+            predicats.add("p.date <= :to");
+            parameters.put("to", filtre.getTo());
+        }
+        if (filtre.getEmployeId() != null) {
+            predicats.add("p.employe.id = :employeId");
+            parameters.put("employeId", filtre.getEmployeId());
+        }
+        if (filtre.getDepartementId() != null) {
+            predicats.add("e.departement.id = :departementId");
+            parameters.put("departementId", filtre.getDepartementId());
+        }
+        return parameters;
+    }
+
+    private static String where(List<String> predicats) {
+        return predicats.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicats);
+    }
+
+    private static final class Row implements PresenceMinutesRow {
+
+        private final Object[] columns;
+
+        private Row(Object[] columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public LocalDate getDate() {
+            return (LocalDate) columns[0];
+        }
+
+        @Override
+        public Long getEmployeId() {
+            return (Long) columns[1];
+        }
+
+        @Override
+        public String getDepartementNom() {
+            return (String) columns[2];
+        }
+
+        @Override
+        public Long getMinutes() {
+            return (Long) columns[3];
+        }
+    }
+
+    private static final class PointageRow implements PresencePointageRow {
+
+        private final Object[] columns;
+
+        private PointageRow(Object[] columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public Long getId() {
+            return (Long) columns[0];
+        }
+
+        @Override
+        public Long getEmployeId() {
+            return (Long) columns[1];
+        }
+
+        @Override
+        public LocalDate getDate() {
+            return (LocalDate) columns[2];
+        }
+
+        @Override
+        public LocalTime getArrivee() {
+            return (LocalTime) columns[3];
+        }
+
+        @Override
+        public LocalTime getDepart() {
+            return (LocalTime) columns[4];
+        }
+
+        @Override
+        public Long getMinutes() {
+            return (Long) columns[5];
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.gestionemployes.employee_management_api.repository;
+
+import com.gestionemployes.employee_management_api.model.PresenceRollup;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByDepartementProjection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PresenceRollupRepository extends JpaRepository<PresenceRollup, Long> {
+
+ List<PresenceRollup> findAllByOrderByIdAsc();
+
+ // Cumul par employé replié sur le département courant de chaque employé, en base : une mutation
+ // déplace toutes ses minutes. La clé est comparée en texte (les autres axes ne sont pas des ids).
+ @Query(value = "SELECT d.nom AS \"departementNom\", SUM(r.total_minutes) AS \"totalMinutes\" " +
+        "FROM presence_rollups r " +
+        "JOIN employes e ON r.cle = CAST(e.id AS varchar) " +
+        "JOIN departements d ON d.id = e.departement_id " +
+        "WHERE r.dimension = 'EMPLOYE' GROUP BY d.nom", nativeQuery = true)
+ List<MinutesByDepartementProjection> sumMinutesByDepartement();
+
+ // Ajoute les minutes d'une présence clôturée aux quatre axes en un seul aller-retour.
+ // Pas d'axe département : le cumul par employé est replié sur le département courant à la lecture.
+ @Modifying
+ @Query(value = "INSERT INTO presence_rollups (dimension, cle, total_minutes) VALUES " +
+        "('JOUR', to_char(CAST(:date AS date), 'YYYY-MM-DD'), :minutes), " +
+        "('ANNEE_MOIS', to_char(CAST(:date AS date), 'YYYY-MM'), :minutes), " +
+        "('JOUR_SEMAINE', to_char(CAST(:date AS date), 'FMDAY'), :minutes), " +
+        "('EMPLOYE', CAST(:employeId AS varchar), :minutes) " +
+        "ON CONFLICT (dimension, cle) DO UPDATE SET total_minutes = presence_rollups.total_minutes + EXCLUDED.total_minutes",
+        nativeQuery = true)
+ int addMinutes(@Param("employeId") Long employeId, @Param("date") LocalDate date, @Param("minutes") Long minutes);
+
+ // Verrou exclusif : les pointages de départ concurrents attendent la fin de la reconstruction
+ @Modifying
+ @Query(value = "LOCK TABLE presence_rollups IN EXCLUSIVE MODE", nativeQuery = true)
+ void lockForRebuild();
+
+ @Modifying
+ @Query(value = "DELETE FROM presence_rollups", nativeQuery = true)
+ int deleteAllRollups();
+
+ // Reconstruction : les cumuls des mois archivés sont insérés d'abord (ajouterTotal), ceux de la
+ // table s'y ajoutent pour les clés communes (présences saisies après l'archivage de leur mois)
+
+ @Modifying
+ @Query(value = "INSERT INTO presence_rollups (dimension, cle, total_minutes) VALUES (:dimension, :cle, :minutes) " +
+        "ON CONFLICT (dimension, cle) DO UPDATE SET total_minutes = presence_rollups.total_minutes + EXCLUDED.total_minutes",
+        nativeQuery = true)
+ int ajouterTotal(@Param("dimension") String dimension, @Param("cle") String cle, @Param("minutes") long minutes);
+
+ @Modifying
+ @Query(value = "INSERT INTO presence_rollups (dimension, cle, total_minutes) " +
+        "SELECT 'JOUR', to_char(p.date, 'YYYY-MM-DD'), SUM(p.heures_travaillees) FROM presences p " +
+        "WHERE p.heures_travaillees IS NOT NULL GROUP BY p.date ORDER BY MIN(p.id) " +
+        "ON CONFLICT (dimension, cle) DO UPDATE SET total_minutes = presence_rollups.total_minutes + EXCLUDED.total_minutes", nativeQuery = true)
+ int rebuildByDate();
+
+ @Modifying
+ @Query(value = "INSERT INTO presence_rollups (dimension, cle, total_minutes) " +
+        "SELECT 'ANNEE_MOIS', to_char(p.date, 'YYYY-MM'), SUM(p.heures_travaillees) FROM presences p " +
+        "WHERE p.heures_travaillees IS NOT NULL GROUP BY to_char(p.date, 'YYYY-MM') ORDER BY MIN(p.id) " +
+        "ON CONFLICT (dimension, cle) DO UPDATE SET total_minutes = presence_rollups.total_minutes + EXCLUDED.total_minutes", nativeQuery = true)
+ int rebuildByYearMonth();
+
+ @Modifying
+ @Query(value = "INSERT INTO presence_rollups (dimension, cle, total_minutes) " +
+        "SELECT 'JOUR_SEMAINE', to_char(p.date, 'FMDAY'), SUM(p.heures_travaillees) FROM presences p " +
+        "WHERE p.heures_travaillees IS NOT NULL GROUP BY to_char(p.date, 'FMDAY') ORDER BY MIN(p.id) " +
+        "ON CONFLICT (dimension, cle) DO UPDATE SET total_minutes = presence_rollups.total_minutes + EXCLUDED.total_minutes", nativeQuery = true)
+ int rebuildByDayOfWeek();
+
+ @Modifying
+ @Query(value = "INSERT INTO presence_rollups (dimension, cle, total_minutes) " +
+        "SELECT 'EMPLOYE', CAST(p.employe_id AS varchar), SUM(p.heures_travaillees) FROM presences p " +
+        "WHERE p.heures_travaillees IS NOT NULL GROUP BY p.employe_id ORDER BY MIN(p.id) " +
+        "ON CONFLICT (dimension, cle) DO UPDATE SET total_minutes = presence_rollups.total_minutes + EXCLUDED.total_minutes", nativeQuery = true)
+ int rebuildByEmploye();
+}
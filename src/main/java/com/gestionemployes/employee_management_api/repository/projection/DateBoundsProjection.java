@@ -0,0 +1,13 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Première et dernière date des présences clôturées (null si aucune).
+ */
+public interface DateBoundsProjection {
+
+    LocalDate getMinDate();
+
+    LocalDate getMaxDate();
+}
@@ -0,0 +1,13 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+/**
+ * Département courant d'un employé (id et nom null si l'employé n'est rattaché à aucun département).
+ */
+public interface EmployeDepartementProjection {
+
+    Long getEmployeId();
+
+    Long getDepartementId();
+
+    String getDepartementNom();
+}
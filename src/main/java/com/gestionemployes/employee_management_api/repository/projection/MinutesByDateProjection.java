@@ -0,0 +1,13 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Total des minutes travaillées pour une date donnée (tous employés confondus).
+ */
+public interface MinutesByDateProjection {
+
+    LocalDate getDate();
+
+    Long getTotalMinutes();
+}
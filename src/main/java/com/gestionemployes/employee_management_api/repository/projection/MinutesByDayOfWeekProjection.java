@@ -0,0 +1,12 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+/**
+ * Total des minutes travaillées pour un jour de la semaine.
+ * Le jour suit la convention HQL : 1 = dimanche, 7 = samedi.
+ */
+public interface MinutesByDayOfWeekProjection {
+
+    Integer getDayOfWeek();
+
+    Long getTotalMinutes();
+}
@@ -0,0 +1,11 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+/**
+ * Total des minutes travaillées par les employés d'un département.
+ */
+public interface MinutesByDepartementProjection {
+
+    String getDepartementNom();
+
+    Long getTotalMinutes();
+}
@@ -0,0 +1,11 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+/**
+ * Total des minutes travaillées par un employé.
+ */
+public interface MinutesByEmployeProjection {
+
+    Long getEmployeId();
+
+    Long getTotalMinutes();
+}
@@ -0,0 +1,11 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+/**
+ * Total des minutes travaillées pour un mois (1-12), toutes années confondues.
+ */
+public interface MinutesByMonthProjection {
+
+    Integer getMonth();
+
+    Long getTotalMinutes();
+}
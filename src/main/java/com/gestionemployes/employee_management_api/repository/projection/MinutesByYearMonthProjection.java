@@ -0,0 +1,13 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+/**
+ * Total des minutes travaillées pour un couple année / mois.
+ */
+public interface MinutesByYearMonthProjection {
+
+    Integer getYear();
+
+    Integer getMonth();
+
+    Long getTotalMinutes();
+}
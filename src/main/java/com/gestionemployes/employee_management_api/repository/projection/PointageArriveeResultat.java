@@ -0,0 +1,22 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+/**
+ * Issue de l'insertion d'un pointage d'arrivée (INSERT ... ON CONFLICT DO NOTHING) et de quoi
+ * expliquer un refus, lus dans la même instruction.
+ */
+public interface PointageArriveeResultat {
+
+    /**
+     * @return L'identifiant de la présence créée (null si rien n'a été inséré).
+     */
+    Long getId();
+
+    Boolean getEmployeExiste();
+
+    /**
+     * @return Vrai si la présence déjà enregistrée ce jour est clôturée, faux si elle est ouverte,
+     * null si aucune n'est visible (insertion réussie, ou présence concurrente validée après
+     * le début de l'instruction).
+     */
+    Boolean getCloturee();
+}
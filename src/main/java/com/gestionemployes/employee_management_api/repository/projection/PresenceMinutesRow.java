@@ -0,0 +1,18 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Ligne scalaire d'une présence clôturée, lue en flux pour les rapports
+ * (aucune entité n'est chargée dans le contexte de persistance).
+ */
+public interface PresenceMinutesRow {
+
+    LocalDate getDate();
+
+    Long getEmployeId();
+
+    String getDepartementNom();
+
+    Long getMinutes();
+}
@@ -0,0 +1,23 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+/**
+ * Présence d'un employé sur un mois, accompagnée des totaux du mois calculés par fonctions
+ * de fenêtre dans la même requête (valeurs identiques sur toutes les lignes).
+ */
+public interface PresenceMoisRow extends PresencePointageRow {
+
+    /**
+     * @return Les minutes travaillées sur le mois (présences clôturées).
+     */
+    Long getTotalMinutes();
+
+    /**
+     * @return Le nombre de jours pointés sur le mois, présences ouvertes comprises.
+     */
+    Long getJoursPresents();
+
+    /**
+     * @return L'heure d'arrivée moyenne du mois, en secondes depuis minuit.
+     */
+    Long getArriveeMoyenneSecondes();
+}
@@ -0,0 +1,23 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Présence ouverte (arrivée pointée, départ pas encore pointé) avec le département courant de l'employé.
+ */
+public interface PresenceOuverteRow {
+
+    Long getId();
+
+    Long getEmployeId();
+
+    /**
+     * @return Le département de l'employé (null s'il n'est rattaché à aucun département).
+     */
+    Long getDepartementId();
+
+    LocalDate getDate();
+
+    LocalTime getArrivee();
+}
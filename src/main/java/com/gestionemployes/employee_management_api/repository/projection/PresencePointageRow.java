@@ -0,0 +1,28 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Ligne scalaire d'une présence, ouverte ou clôturée, lue en flux pour charger le stockage en colonnes.
+ */
+public interface PresencePointageRow {
+
+    Long getId();
+
+    Long getEmployeId();
+
+    LocalDate getDate();
+
+    LocalTime getArrivee();
+
+    /**
+     * @return L'heure de départ (null si la présence est encore ouverte).
+     */
+    LocalTime getDepart();
+
+    /**
+     * @return Les minutes travaillées (null si la présence est encore ouverte).
+     */
+    Long getMinutes();
+}
@@ -0,0 +1,21 @@
+package com.gestionemployes.employee_management_api.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Statistiques de salaire d'un département (somme, min et max null si le département n'a aucun employé).
+ */
+public interface SalaireStatsByDepartementProjection {
+
+    Long getDepartementId();
+
+    String getDepartementNom();
+
+    Long getNombreEmployes();
+
+    BigDecimal getTotalSalaires();
+
+    BigDecimal getSalaireMin();
+
+    BigDecimal getSalaireMax();
+}
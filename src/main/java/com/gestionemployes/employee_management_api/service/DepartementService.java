@@ -1,7 +1,9 @@
 package com.gestionemployes.employee_management_api.service;
 
+import com.gestionemployes.employee_management_api.dto.DepartementBudgetAnalysisDto;
 import com.gestionemployes.employee_management_api.dto.DepartementRequest;
 import com.gestionemployes.employee_management_api.dto.EmployeDto;
+import com.gestionemployes.employee_management_api.event.DepartementModifieEvent;
 import com.gestionemployes.employee_management_api.exception.BadRequestException;
 import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
 import com.gestionemployes.employee_management_api.mapper.DepartementMapper;
@@ -10,12 +12,14 @@ import com.gestionemployes.employee_management_api.model.Departement;
 import com.gestionemployes.employee_management_api.model.Employe;
 import com.gestionemployes.employee_management_api.repository.DepartementRepository;
 import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 import java.util.Optional; 
 import java.util.stream.Collectors;
@@ -27,13 +31,16 @@ public class DepartementService {
     private final EmployeRepository employeRepository;
     private final DepartementMapper departementMapper;
     private final EmployeMapper employeMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     public DepartementService(DepartementRepository departementRepository, EmployeRepository employeRepository,
-                              DepartementMapper departementMapper, EmployeMapper employeMapper) {
+                              DepartementMapper departementMapper, EmployeMapper employeMapper,
+                              ApplicationEventPublisher eventPublisher) {
         this.departementRepository = departementRepository;
         this.employeRepository = employeRepository;
         this.departementMapper = departementMapper;
         this.employeMapper = employeMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -52,7 +59,9 @@ public class DepartementService {
             departement.setManagerId(departementRequest.getManagerId());
         }
 
-        return departementRepository.save(departement);
+        Departement saved = departementRepository.save(departement);
+        eventPublisher.publishEvent(new DepartementModifieEvent(saved.getId(), false));
+        return saved;
     }
 
     @Transactional
@@ -69,6 +78,7 @@ public class DepartementService {
             }
         }
 
+        boolean nomChange = !existingDepartement.getNom().equals(request.getNom());
         existingDepartement.setNom(request.getNom());
         existingDepartement.setBudget(request.getBudget());
 
@@ -86,7 +96,9 @@ public class DepartementService {
             existingDepartement.setManagerId(null);
         }
 
-        return departementRepository.save(existingDepartement);
+        Departement saved = departementRepository.save(existingDepartement);
+        eventPublisher.publishEvent(new DepartementModifieEvent(saved.getId(), nomChange));
+        return saved;
     }
 
     @Transactional
@@ -99,6 +111,7 @@ public class DepartementService {
         }
 
         departementRepository.delete(departement);
+        eventPublisher.publishEvent(new DepartementModifieEvent(id, false));
     }
 
     @Transactional(readOnly = true)
@@ -123,11 +136,29 @@ public class DepartementService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Analyse l'utilisation du budget d'un département à partir de son registre de paie,
+     * sans parcourir ses employés.
+     *
+     * @param departementId L'ID du département.
+     * @return Budget, effectif, masse salariale, budget restant, taux d'utilisation et salaire moyen.
+     */
     @Transactional(readOnly = true)
-    public BigDecimal getDepartementBudgetAnalysis(Long departementId) {
+    public DepartementBudgetAnalysisDto getDepartementBudgetAnalysis(Long departementId) {
         Departement departement = departementRepository.findById(departementId)
                 .orElseThrow(() -> new ResourceNotFoundException("Département", "id", departementId));
 
-        return departement.getBudget();
+        BigDecimal budget = departement.getBudget();
+        BigDecimal masseSalariale = departement.getMasseSalariale();
+        int effectif = departement.getEffectif();
+        BigDecimal tauxUtilisation = budget.signum() > 0 && masseSalariale.signum() != 0
+                ? masseSalariale.multiply(BigDecimal.valueOf(100)).divide(budget, 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        BigDecimal salaireMoyen = effectif > 0
+                ? masseSalariale.divide(BigDecimal.valueOf(effectif), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        return new DepartementBudgetAnalysisDto(departement.getId(), departement.getNom(), budget, effectif,
+                masseSalariale, budget.subtract(masseSalariale), tauxUtilisation, salaireMoyen);
     }
 }
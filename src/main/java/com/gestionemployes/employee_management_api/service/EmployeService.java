@@ -1,6 +1,7 @@
 package com.gestionemployes.employee_management_api.service;
 
 import com.gestionemployes.employee_management_api.dto.EmployeRequest;
+import com.gestionemployes.employee_management_api.event.EmployeModifieEvent;
 import com.gestionemployes.employee_management_api.exception.BadRequestException;
 import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
 import com.gestionemployes.employee_management_api.model.Departement;
@@ -9,12 +10,15 @@ import com.gestionemployes.employee_management_api.repository.DepartementReposit
 import com.gestionemployes.employee_management_api.repository.EmployeRepository;
 import com.gestionemployes.employee_management_api.repository.PresenceRepository;
 import com.gestionemployes.employee_management_api.mapper.EmployeMapper; 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -24,15 +28,21 @@ public class EmployeService {
     private final DepartementRepository departementRepository;
     private final PresenceRepository presenceRepository;
     private final EmployeMapper employeMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RegistrePaieService registrePaieService;
 
     public EmployeService(EmployeRepository employeRepository,
                           DepartementRepository departementRepository,
                           PresenceRepository presenceRepository,
-                          EmployeMapper employeMapper) {
+                          EmployeMapper employeMapper,
+                          ApplicationEventPublisher eventPublisher,
+                          RegistrePaieService registrePaieService) {
         this.employeRepository = employeRepository;
         this.departementRepository = departementRepository;
         this.presenceRepository = presenceRepository;
         this.employeMapper = employeMapper;
+        this.eventPublisher = eventPublisher;
+        this.registrePaieService = registrePaieService;
     }
 
     @Transactional
@@ -54,13 +64,17 @@ public class EmployeService {
         }
 
         Employe employe = employeMapper.toEntity(employeRequest, departement);
+        // Contrôle de la masse salariale totale par le registre du département
+        registrePaieService.enregistrerEmbauche(employe);
 
-        return employeRepository.save(employe);
+        Employe saved = employeRepository.save(employe);
+        eventPublisher.publishEvent(new EmployeModifieEvent(saved.getId(), false));
+        return saved;
     }
 
     @Transactional
     public Employe updateEmploye(Long id, EmployeRequest employeRequest) {
-        Employe existingEmploye = employeRepository.findById(id)
+        Employe existingEmploye = employeRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Employé", "id", id));
 
         if (!existingEmploye.getEmail().equals(employeRequest.getEmail()) && employeRepository.existsByEmail(employeRequest.getEmail())) {
@@ -79,6 +93,12 @@ public class EmployeService {
             throw new BadRequestException("Le salaire de l'employé dépasse le budget du nouveau département ou le budget n'est pas défini.");
         }
 
+        Departement ancienDepartement = existingEmploye.getDepartement();
+        BigDecimal ancienSalaire = existingEmploye.getSalaire();
+        String ancienStatut = existingEmploye.getStatut();
+        boolean departementChange = ancienDepartement == null
+                || !ancienDepartement.getId().equals(newDepartement.getId());
+
         existingEmploye.setPrenom(employeRequest.getPrenom());
         existingEmploye.setNom(employeRequest.getNom());
         existingEmploye.setEmail(employeRequest.getEmail());
@@ -86,13 +106,16 @@ public class EmployeService {
         existingEmploye.setSalaire(employeRequest.getSalaire());
         existingEmploye.setDateEmbauche(employeRequest.getDateEmbauche());
         existingEmploye.setStatut(employeRequest.getStatut());
+        registrePaieService.enregistrerModification(ancienDepartement, ancienSalaire, ancienStatut, existingEmploye);
 
-        return employeRepository.save(existingEmploye);
+        Employe saved = employeRepository.save(existingEmploye);
+        eventPublisher.publishEvent(new EmployeModifieEvent(saved.getId(), departementChange));
+        return saved;
     }
 
     @Transactional
     public void deactivateEmploye(Long id) {
-        Employe employe = employeRepository.findById(id)
+        Employe employe = employeRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Employé", "id", id));
 
         // Règle métier : Impossible de désactiver un employé avec des enregistrements de présence
@@ -100,7 +123,9 @@ public class EmployeService {
             throw new BadRequestException("Impossible de désactiver l'employé avec l'ID " + id + " car il a des enregistrements de présence associés.");
         }
 
+        String ancienStatut = employe.getStatut();
         employe.setStatut("INACTIF");
+        registrePaieService.enregistrerDesactivation(employe, ancienStatut);
         employeRepository.save(employe);
     }
 
@@ -110,11 +135,23 @@ public class EmployeService {
                 .orElseThrow(() -> new ResourceNotFoundException("Employé", "id", id));
     }
 
+    /**
+     * Liste paginée des employés. Avec un terme de recherche : employés dont le prénom, le nom ou
+     * l'email contient le terme, ou dont le prénom ou le nom en est proche (trigrammes), du plus
+     * au moins semblable ; le tri demandé est alors ignoré.
+     */
     @Transactional(readOnly = true)
     public Page<Employe> getAllEmployes(String searchTerm, Pageable pageable) {
         if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-            return employeRepository.findByNomContainingIgnoreCaseOrEmailContainingIgnoreCase(searchTerm, searchTerm, pageable);
+            String terme = searchTerm.trim().toLowerCase(Locale.ROOT);
+            Pageable page = pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : Pageable.unpaged();
+            return employeRepository.rechercher(terme, "%" + echapperMotif(terme) + "%", page);
         }
         return employeRepository.findAll(pageable);
     }
+
+    // Le terme est cherché tel quel : ses caractères spéciaux de LIKE sont échappés (échappement par défaut \)
+    private static String echapperMotif(String terme) {
+        return terme.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
@@ -0,0 +1,319 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.exception.ConflictException;
+import com.gestionemployes.employee_management_api.model.PointageIdempotence;
+import com.gestionemployes.employee_management_api.repository.PointageIdempotenceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Réponses des pointages envoyés avec un en-tête Idempotency-Key (app.idempotence.*). Une
+ * nouvelle tentative avec la même clé reçoit la réponse d'origine sans refaire le pointage ;
+ * une tentative qui arrive pendant le traitement de l'original attend sa réponse.
+ *
+ * Les réponses sont gardées en mémoire, dans des segments verrouillés séparément (ordre de
+ * création, expiration après app.idempotence.ttl, au plus app.idempotence.taille-max entrées),
+ * et copiées dans la table pointages_idempotence. La table n'est lue que pour une clé absente
+ * de la mémoire qui a pu en sortir : pendant la durée de rétention qui suit le démarrage, ou
+ * après une éviction pour cause de taille dans son segment.
+ */
+@Service
+public class IdempotenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenceService.class);
+
+    static final int SEGMENTS = 32;
+
+    private final PointageIdempotenceRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration attente;
+    private final int entreesMaxParSegment;
+    private final Instant demarrage;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Counter rejeux;
+
+    @Autowired
+    public IdempotenceService(PointageIdempotenceRepository repository, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.idempotence.ttl:24h}") Duration ttl,
+                              @Value("${app.idempotence.attente:10s}") Duration attente,
+                              @Value("${app.idempotence.taille-max:100000}") int tailleMax) {
+        this(repository, transactionManager, meterRegistry, ttl, attente, tailleMax, Clock.systemUTC());
+    }
+
+    public IdempotenceService(PointageIdempotenceRepository repository, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry, Duration ttl, Duration attente, int tailleMax, Clock clock) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.ttl = ttl;
+        this.attente = attente;
+        this.entreesMaxParSegment = Math.max(1, tailleMax / SEGMENTS);
+        this.demarrage = clock.instant();
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+        this.rejeux = Counter.builder("pointages.idempotence.rejeux")
+                .description("Pointages rejoués servis avec la réponse d'origine")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Réserve une clé pour une requête, ou renvoie la réponse déjà produite pour cette clé.
+     * Une réservation doit être suivie de enregistrer ou abandonner.
+     *
+     * @return La réponse d'origine, ou null si la requête doit être traitée.
+     * @throws BadRequestException si la clé a déjà servi pour une autre route.
+     * @throws ConflictException   si la requête d'origine est toujours en cours après app.idempotence.attente.
+     */
+    public ReponseEnregistree reserver(String cle, String route) {
+        Instant maintenant = clock.instant();
+        Segment segment = segment(cle);
+        Entree existante;
+        Entree reservee = null;
+        boolean consulterBase = false;
+        segment.verrou.lock();
+        try {
+            segment.purger(maintenant.minus(ttl));
+            existante = segment.entrees.get(cle);
+            if (existante == null) {
+                reservee = new Entree(route, maintenant);
+                segment.entrees.put(cle, reservee);
+                segment.evincer(entreesMaxParSegment, maintenant);
+                consulterBase = maintenant.isBefore(demarrage.plus(ttl))
+                        || (segment.derniereEviction != null && maintenant.isBefore(segment.derniereEviction.plus(ttl)));
+            }
+        } finally {
+            segment.verrou.unlock();
+        }
+
+        if (existante != null) {
+            return attendre(cle, route, existante);
+        }
+        if (!consulterBase) {
+            return null;
+        }
+        Optional<PointageIdempotence> enregistree;
+        try {
+            enregistree = repository.findByCleAndCreeLeAfter(cle, maintenant.minus(ttl));
+        } catch (RuntimeException e) {
+            abandonner(cle);
+            throw e;
+        }
+        if (enregistree.isEmpty()) {
+            return null;
+        }
+        PointageIdempotence ligne = enregistree.get();
+        ReponseEnregistree reponse = new ReponseEnregistree(ligne.getStatut(), ligne.getTypeContenu(), ligne.getCorps());
+        Entree rechargee = new Entree(ligne.getRoute(), ligne.getCreeLe());
+        rechargee.terminer(reponse);
+        remplacer(cle, reservee, rechargee);
+        return reponseRejouee(cle, route, rechargee);
+    }
+
+    /**
+     * Enregistre la réponse d'une requête réservée et la rend aux tentatives en attente.
+     */
+    public void enregistrer(String cle, String route, ReponseEnregistree reponse) {
+        Segment segment = segment(cle);
+        Entree entree;
+        segment.verrou.lock();
+        try {
+            entree = segment.entrees.get(cle);
+        } finally {
+            segment.verrou.unlock();
+        }
+        if (entree != null) {
+            entree.terminer(reponse);
+        }
+        Instant creeLe = entree != null ? entree.creeLe : clock.instant();
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.enregistrer(cle, route, reponse.getStatut(),
+                    reponse.getTypeContenu(), reponse.getCorps(), creeLe));
+        } catch (RuntimeException e) {
+            // Servie depuis la mémoire ; après un redémarrage, le rejeu reçoit la réponse habituelle d'un pointage déjà fait
+            log.warn("Réponse du pointage de clé d'idempotence {} non enregistrée en base", cle, e);
+        }
+    }
+
+    /**
+     * Libère une clé réservée sans réponse à conserver (erreur serveur) : la tentative suivante
+     * refera le pointage.
+     */
+    public void abandonner(String cle) {
+        Segment segment = segment(cle);
+        Entree entree;
+        segment.verrou.lock();
+        try {
+            entree = segment.entrees.get(cle);
+            if (entree != null && entree.reponse == null) {
+                segment.entrees.remove(cle);
+            }
+        } finally {
+            segment.verrou.unlock();
+        }
+        if (entree != null && entree.reponse == null) {
+            entree.terminee.countDown();
+        }
+    }
+
+    /**
+     * Supprime les réponses expirées, en mémoire et en base.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotence.purge:10m}")
+    public void purger() {
+        Instant limite = clock.instant().minus(ttl);
+        for (Segment segment : segments) {
+            segment.verrou.lock();
+            try {
+                segment.purger(limite);
+            } finally {
+                segment.verrou.unlock();
+            }
+        }
+        Integer supprimees = transactionTemplate.execute(status -> repository.purgerAvant(limite));
+        log.debug("{} réponse(s) de pointage idempotent purgée(s) en base", supprimees);
+    }
+
+    private ReponseEnregistree attendre(String cle, String route, Entree entree) {
+        if (!entree.route.equals(route)) {
+            throw new BadRequestException("La clé d'idempotence '" + cle + "' a déjà servi pour une autre requête (" + entree.route + ").");
+        }
+        try {
+            if (!entree.terminee.await(attente.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ConflictException("Une requête avec la clé d'idempotence '" + cle + "' est toujours en cours de traitement.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Une requête avec la clé d'idempotence '" + cle + "' est toujours en cours de traitement.");
+        }
+        if (entree.reponse == null) {
+            // Requête d'origine abandonnée : cette tentative la remplace
+            return reserver(cle, route);
+        }
+        return reponseRejouee(cle, route, entree);
+    }
+
+    private ReponseEnregistree reponseRejouee(String cle, String route, Entree entree) {
+        if (!entree.route.equals(route)) {
+            throw new BadRequestException("La clé d'idempotence '" + cle + "' a déjà servi pour une autre requête (" + entree.route + ").");
+        }
+        rejeux.increment();
+        return entree.reponse;
+    }
+
+    private void remplacer(String cle, Entree reservee, Entree rechargee) {
+        Segment segment = segment(cle);
+        segment.verrou.lock();
+        try {
+            segment.entrees.replace(cle, reservee, rechargee);
+        } finally {
+            segment.verrou.unlock();
+        }
+        // Les tentatives arrivées entre-temps attendaient la réservation
+        reservee.terminer(rechargee.reponse);
+    }
+
+    private Segment segment(String cle) {
+        return segments[Math.floorMod(cle.hashCode(), SEGMENTS)];
+    }
+
+    /**
+     * Réponse d'origine d'un pointage : statut, type de contenu et corps tels qu'envoyés.
+     */
+    public static final class ReponseEnregistree {
+
+        private final int statut;
+        private final String typeContenu;
+        private final byte[] corps;
+
+        public ReponseEnregistree(int statut, String typeContenu, byte[] corps) {
+            this.statut = statut;
+            this.typeContenu = typeContenu;
+            this.corps = corps;
+        }
+
+        public int getStatut() {
+            return statut;
+        }
+
+        public String getTypeContenu() {
+            return typeContenu;
+        }
+
+        public byte[] getCorps() {
+            return corps;
+        }
+    }
+
+    private static final class Entree {
+
+        private final String route;
+        private final Instant creeLe;
+        private final CountDownLatch terminee = new CountDownLatch(1);
+        private volatile ReponseEnregistree reponse;
+
+        private Entree(String route, Instant creeLe) {
+            this.route = route;
+            this.creeLe = creeLe;
+        }
+
+        private void terminer(ReponseEnregistree reponse) {
+            this.reponse = reponse;
+            terminee.countDown();
+        }
+    }
+
+    // Entrées dans l'ordre de création : les plus anciennes expirent et sont évincées en premier
+    private static final class Segment {
+
+        private final ReentrantLock verrou = new ReentrantLock();
+        private final LinkedHashMap<String, Entree> entrees = new LinkedHashMap<>();
+        private Instant derniereEviction;
+
+        private void purger(Instant limite) {
+            Iterator<Entree> iterator = entrees.values().iterator();
+            while (iterator.hasNext()) {
+                Entree entree = iterator.next();
+                if (!entree.creeLe.isBefore(limite)) {
+                    return;
+                }
+                if (entree.reponse != null) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        private void evincer(int entreesMax, Instant maintenant) {
+            Iterator<Entree> iterator = entrees.values().iterator();
+            while (entrees.size() > entreesMax && iterator.hasNext()) {
+                // Les requêtes en cours restent : des tentatives peuvent les attendre
+                if (iterator.next().reponse != null) {
+                    iterator.remove();
+                    derniereEviction = maintenant;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.gestionemployes.employee_management_api.service;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage long -> long à adressage ouvert (sondage linéaire), sans boxing.
+ * Réservée aux agrégations : seules l'addition et le parcours sont nécessaires.
+ * La valeur Long.MIN_VALUE est réservée comme marqueur de case vide.
+ */
+final class LongLongHashMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    LongLongHashMap() {
+        this(64);
+    }
+
+    LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Ajoute delta à la valeur associée à key (0 si absente).
+     *
+     * @return true si la clé vient d'être créée.
+     */
+    boolean addTo(long key, long delta) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    long get(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0L;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(LongLongConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    void addAll(LongLongHashMap other) {
+        other.forEach(this::addTo);
+    }
+
+    /**
+     * @return Les clés présentes, triées par ordre croissant.
+     */
+    long[] sortedKeys() {
+        long[] result = new long[size];
+        int index = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[index++] = key;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private int slot(long key) {
+        // Mélange des bits (constante de Fibonacci) : les ids et jours consécutifs se répartissent uniformément
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface LongLongConsumer {
+        void accept(long key, long value);
+    }
+}
@@ -0,0 +1,66 @@
+package com.gestionemployes.employee_management_api.service;
+
+/**
+ * Histogramme des minutes travaillées par présence, une case par minute de 0 à 24 h.
+ * Le domaine étant borné, les quantiles sont exacts pour une mémoire fixe (11,5 Ko)
+ * et deux histogrammes se fusionnent par simple addition.
+ */
+final class MinutesHistogram {
+
+    static final int MAX_MINUTES = 24 * 60;
+
+    private final long[] counts = new long[MAX_MINUTES + 1];
+    private long total;
+
+    void add(long minutes) {
+        counts[(int) Math.max(0, Math.min(MAX_MINUTES, minutes))]++;
+        total++;
+    }
+
+    void merge(MinutesHistogram other) {
+        for (int i = 0; i <= MAX_MINUTES; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    long count() {
+        return total;
+    }
+
+    /**
+     * Quantile au rang le plus proche : plus petite valeur dont la fréquence cumulée atteint q.
+     */
+    long quantile(double q) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long cumul = 0;
+        for (int i = 0; i <= MAX_MINUTES; i++) {
+            cumul += counts[i];
+            if (cumul >= rank) {
+                return i;
+            }
+        }
+        return MAX_MINUTES;
+    }
+
+    long min() {
+        for (int i = 0; i <= MAX_MINUTES; i++) {
+            if (counts[i] > 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    long max() {
+        for (int i = MAX_MINUTES; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,319 @@
+package com.gestionemployes.employee_management_api.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal local des pointages d'arrivée, en ajout seul dans un fichier projeté en mémoire.
+ * Un pointage est acquitté dès que son entrée est sur disque : les ajouts concurrents attendent
+ * une même synchronisation (msync) faite par un thread dédié, qui couvre tout ce qui a été écrit
+ * depuis la précédente (validation groupée). Les entrées sont ensuite vidées vers la base par lots
+ * (lire / acquitter) ; la position vidée est conservée dans l'entête.
+ *
+ * Au démarrage, les entrées durables non acquittées sont retrouvées et seront vidées à nouveau :
+ * l'insertion doit donc être idempotente. Une fois tout vidé, le journal repart du début du fichier
+ * avec une nouvelle génération, ce qui écarte les entrées de la génération précédente restées derrière.
+ *
+ * Entête (64 octets) : magie, version, génération, position vidée, dernière séquence vidée.
+ * Entrée (40 octets) : génération, CRC32C, séquence, employé, heure d'arrivée (nanosecondes du jour),
+ * jour epoch. La relecture s'arrête à la première entrée de génération, séquence ou CRC inattendus.
+ */
+public final class PointageJournal implements Closeable {
+
+    static final int TAILLE_ENTETE = 64;
+    static final int TAILLE_ENTREE = 40;
+
+    private static final int MAGIE = 0x504A524E;
+    private static final int VERSION = 1;
+
+    private final FileChannel canal;
+    private final MappedByteBuffer tampon;
+    private final int capacite;
+    private final Thread synchroniseur;
+
+    private int generation;
+    private int positionEcrite;
+    private int positionDurable;
+    private int positionVidee;
+    private long sequenceVidee;
+    private long sequenceSuivante;
+    private long synchronisations;
+    private boolean ferme;
+
+    private PointageJournal(FileChannel canal, MappedByteBuffer tampon) {
+        this.canal = canal;
+        this.tampon = tampon;
+        this.capacite = tampon.capacity();
+        this.synchroniseur = new Thread(this::synchroniser, "pointage-journal-sync");
+        this.synchroniseur.setDaemon(true);
+    }
+
+    /**
+     * Ouvre le journal, le crée s'il n'existe pas, et retrouve les entrées non vidées.
+     *
+     * @param fichier  Fichier du journal.
+     * @param capacite Taille du fichier à la création (un fichier existant garde sa taille).
+     */
+    public static PointageJournal ouvrir(Path fichier, int capacite) throws IOException {
+        if (fichier.getParent() != null) {
+            Files.createDirectories(fichier.getParent());
+        }
+        FileChannel canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long taille = canal.size() >= TAILLE_ENTETE + TAILLE_ENTREE ? canal.size() : capacite;
+            if (taille < TAILLE_ENTETE + TAILLE_ENTREE || taille > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Taille de journal invalide : " + taille + " octets.");
+            }
+            PointageJournal journal = new PointageJournal(canal, canal.map(FileChannel.MapMode.READ_WRITE, 0, taille));
+            journal.recuperer();
+            journal.synchroniseur.start();
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Ajoute un pointage d'arrivée et attend qu'il soit sur disque.
+     *
+     * @return La séquence de l'entrée, ou -1 si le journal est plein (pas encore assez vidé).
+     * @throws IllegalStateException si le journal est fermé avant que l'entrée soit durable.
+     */
+    public synchronized long ajouter(long employeId, LocalDate date, LocalTime arrivee) throws InterruptedException {
+        verifierOuvert();
+        if (positionEcrite + TAILLE_ENTREE > capacite) {
+            if (positionVidee < positionEcrite) {
+                return -1;
+            }
+            recommencer();
+        }
+        long sequence = sequenceSuivante++;
+        int position = positionEcrite;
+        tampon.putLong(position + 8, sequence);
+        tampon.putLong(position + 16, employeId);
+        tampon.putLong(position + 24, arrivee.toNanoOfDay());
+        tampon.putInt(position + 32, (int) date.toEpochDay());
+        tampon.putInt(position + 36, 0);
+        tampon.putInt(position, generation);
+        tampon.putInt(position + 4, crc(position));
+        positionEcrite = position + TAILLE_ENTREE;
+        notifyAll();
+
+        // Le moniteur est rendu pendant l'attente : les ajouts suivants rejoignent la même synchronisation
+        while (positionDurable < position + TAILLE_ENTREE) {
+            verifierOuvert();
+            wait();
+        }
+        return sequence;
+    }
+
+    /**
+     * Lit les entrées durables non vidées, au plus max, sans les acquitter.
+     */
+    public synchronized Lot lire(int max) {
+        List<Entree> entrees = new ArrayList<>(Math.min(max, (positionDurable - positionVidee) / TAILLE_ENTREE));
+        int position = positionVidee;
+        while (position < positionDurable && entrees.size() < max) {
+            entrees.add(new Entree(tampon.getLong(position + 8), tampon.getLong(position + 16),
+                    LocalDate.ofEpochDay(tampon.getInt(position + 32)), LocalTime.ofNanoOfDay(tampon.getLong(position + 24))));
+            position += TAILLE_ENTREE;
+        }
+        return new Lot(entrees, position);
+    }
+
+    /**
+     * Marque un lot comme vidé en base (à appeler après le commit de son insertion). Les lots
+     * sont lus et acquittés par un seul thread, dans l'ordre.
+     */
+    public synchronized void acquitter(Lot lot) {
+        if (lot.entrees.isEmpty()) {
+            return;
+        }
+        verifierOuvert();
+        positionVidee = lot.fin;
+        sequenceVidee = lot.entrees.get(lot.entrees.size() - 1).getSequence();
+        if (positionVidee == positionEcrite) {
+            recommencer();
+        } else {
+            ecrireEntete();
+        }
+    }
+
+    /**
+     * @return Le nombre d'entrées acquittées par le journal mais pas encore vidées en base.
+     */
+    public synchronized long getRetard() {
+        return (positionEcrite - positionVidee) / TAILLE_ENTREE;
+    }
+
+    /**
+     * @return Le nombre de synchronisations disque des entrées depuis l'ouverture.
+     */
+    public synchronized long getSynchronisations() {
+        return synchronisations;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (ferme) {
+                return;
+            }
+            ferme = true;
+            notifyAll();
+        }
+        try {
+            synchroniseur.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tampon.force();
+        canal.close();
+    }
+
+    // Thread de synchronisation : un msync pour toutes les entrées écrites depuis le précédent
+    private void synchroniser() {
+        while (true) {
+            int debut;
+            int fin;
+            synchronized (this) {
+                while (!ferme && positionDurable == positionEcrite) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (ferme) {
+                    return;
+                }
+                debut = positionDurable;
+                fin = positionEcrite;
+            }
+            tampon.force(debut, fin - debut);
+            synchronized (this) {
+                positionDurable = fin;
+                synchronisations++;
+                notifyAll();
+            }
+        }
+    }
+
+    private void recuperer() {
+        if (tampon.getInt(0) != MAGIE) {
+            generation = 1;
+            positionVidee = TAILLE_ENTETE;
+            sequenceVidee = 0;
+            ecrireEntete();
+        } else {
+            if (tampon.getInt(4) != VERSION) {
+                throw new IllegalStateException("Version de journal non prise en charge : " + tampon.getInt(4));
+            }
+            generation = tampon.getInt(8);
+            positionVidee = (int) tampon.getLong(16);
+            sequenceVidee = tampon.getLong(24);
+        }
+        int position = positionVidee;
+        long sequence = sequenceVidee + 1;
+        while (position + TAILLE_ENTREE <= capacite
+                && tampon.getInt(position) == generation
+                && tampon.getLong(position + 8) == sequence
+                && tampon.getInt(position + 4) == crc(position)) {
+            position += TAILLE_ENTREE;
+            sequence++;
+        }
+        positionEcrite = position;
+        positionDurable = position;
+        sequenceSuivante = sequence;
+    }
+
+    // Tout est vidé : nouvelle génération au début du fichier
+    private void recommencer() {
+        generation++;
+        positionVidee = TAILLE_ENTETE;
+        positionEcrite = TAILLE_ENTETE;
+        positionDurable = TAILLE_ENTETE;
+        ecrireEntete();
+    }
+
+    private void ecrireEntete() {
+        tampon.putInt(0, MAGIE);
+        tampon.putInt(4, VERSION);
+        tampon.putInt(8, generation);
+        tampon.putLong(16, positionVidee);
+        tampon.putLong(24, sequenceVidee);
+        tampon.force(0, TAILLE_ENTETE);
+    }
+
+    private int crc(int position) {
+        CRC32C crc = new CRC32C();
+        crc.update(tampon.slice(position + 8, TAILLE_ENTREE - 8));
+        return (int) crc.getValue();
+    }
+
+    private void verifierOuvert() {
+        if (ferme) {
+            throw new IllegalStateException("Le journal des pointages est fermé.");
+        }
+    }
+
+    /**
+     * Entrées lues par lire(), à acquitter ensemble.
+     */
+    public static final class Lot {
+
+        private final List<Entree> entrees;
+        private final int fin;
+
+        private Lot(List<Entree> entrees, int fin) {
+            this.entrees = entrees;
+            this.fin = fin;
+        }
+
+        public List<Entree> getEntrees() {
+            return entrees;
+        }
+    }
+
+    public static final class Entree {
+
+        private final long sequence;
+        private final long employeId;
+        private final LocalDate date;
+        private final LocalTime arrivee;
+
+        private Entree(long sequence, long employeId, LocalDate date, LocalTime arrivee) {
+            this.sequence = sequence;
+            this.employeId = employeId;
+            this.date = date;
+            this.arrivee = arrivee;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getEmployeId() {
+            return employeId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public LocalTime getArrivee() {
+            return arrivee;
+        }
+    }
+}
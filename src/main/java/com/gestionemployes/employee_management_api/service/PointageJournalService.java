@@ -0,0 +1,195 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.dto.PointageJournaliseDto;
+import com.gestionemployes.employee_management_api.dto.PresenceArriveeRequest;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
+import com.gestionemployes.employee_management_api.exception.TooManyRequestsException;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mode d'ingestion optionnel des pointages d'arrivée pour le pic du matin
+ * (app.pointages.journal.enabled) : le pointage est acquitté dès qu'il est durable dans le journal
+ * local (PointageJournal), sans transaction en base, puis vidé vers presences par lots, une
+ * transaction par lot. Au redémarrage, les entrées non vidées sont rejouées ; l'insertion ignore
+ * les couples (employé, date) déjà présents, ce qui rend le rejeu sans effet sur ce qui a déjà été
+ * écrit. Le premier pointage du jour l'emporte : les suivants sont comptés comme doublons, de même
+ * qu'un pointage sur un jour déjà pointé d'un mois archivé (PresenceArchive).
+ *
+ * Métriques : pointages.journal.retard (entrées acquittées pas encore en base),
+ * pointages.journal.doublons (entrées ignorées au vidage).
+ */
+@Service
+public class PointageJournalService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PointageJournalService.class);
+
+    private final PresenceRepository presenceRepository;
+    private final EmployeRepository employeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PresenceArchive presenceArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final PointageJournal journal;
+    private final int tailleLot;
+    private final Counter doublons;
+
+    @Autowired
+    public PointageJournalService(PresenceRepository presenceRepository, EmployeRepository employeRepository,
+                                  ApplicationEventPublisher eventPublisher, PresenceArchive presenceArchive,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                  @Value("${app.pointages.journal.enabled:false}") boolean enabled,
+                                  @Value("${app.pointages.journal.fichier:data/pointages.journal}") Path fichier,
+                                  @Value("${app.pointages.journal.taille:64MB}") DataSize taille,
+                                  @Value("${app.pointages.journal.lot:500}") int tailleLot) throws IOException {
+        this(presenceRepository, employeRepository, eventPublisher, presenceArchive, transactionManager, meterRegistry,
+                enabled ? PointageJournal.ouvrir(fichier, Math.toIntExact(taille.toBytes())) : null, tailleLot);
+    }
+
+    public PointageJournalService(PresenceRepository presenceRepository, EmployeRepository employeRepository,
+                                  ApplicationEventPublisher eventPublisher, PresenceArchive presenceArchive,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                  PointageJournal journal, int tailleLot) {
+        this.presenceRepository = presenceRepository;
+        this.employeRepository = employeRepository;
+        this.eventPublisher = eventPublisher;
+        this.presenceArchive = presenceArchive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journal = journal;
+        this.tailleLot = tailleLot;
+        this.doublons = Counter.builder("pointages.journal.doublons")
+                .description("Pointages journalisés ignorés au vidage (présence déjà enregistrée ce jour)")
+                .register(meterRegistry);
+        if (journal != null) {
+            Gauge.builder("pointages.journal.retard", journal, PointageJournal::getRetard)
+                    .description("Pointages acquittés par le journal pas encore écrits en base")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return true si les pointages d'arrivée passent par le journal.
+     */
+    public boolean isActif() {
+        return journal != null;
+    }
+
+    /**
+     * Journalise un pointage d'arrivée et rend la main quand il est durable. L'existence de l'employé
+     * et une présence archivée ce jour sont vérifiées (lecture seule) ; le contrôle d'un pointage
+     * déjà enregistré en table se fait au vidage.
+     *
+     * @throws ResourceNotFoundException si l'employé n'existe pas.
+     * @throws BadRequestException       si l'employé a une présence archivée à cette date.
+     * @throws TooManyRequestsException  si le journal est plein (vidage en retard).
+     */
+    public PointageJournaliseDto journaliser(PresenceArriveeRequest request) {
+        if (!employeRepository.existsById(request.getEmployeId())) {
+            throw new ResourceNotFoundException("Employé", "id", request.getEmployeId());
+        }
+        PresencePointageRow archivee = presenceArchive.getPresence(request.getEmployeId(), request.getDate());
+        if (archivee != null) {
+            throw new BadRequestException(archivee.getDepart() != null
+                    ? "L'employé a déjà complété un pointage pour le " + request.getDate() + "."
+                    : "L'employé a déjà pointé son arrivée pour le " + request.getDate() + " et n'a pas encore pointé son départ.");
+        }
+        long sequence;
+        try {
+            sequence = journal.ajouter(request.getEmployeId(), request.getDate(), request.getArrivee());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pointage interrompu avant d'être journalisé.", e);
+        }
+        if (sequence < 0) {
+            throw new TooManyRequestsException("Le journal des pointages est plein, veuillez réessayer plus tard.");
+        }
+        return new PointageJournaliseDto(sequence, request.getEmployeId(), request.getDate(), request.getArrivee());
+    }
+
+    /**
+     * Vide le journal vers la base, lot par lot, jusqu'à la dernière entrée durable. Un lot n'est
+     * acquitté qu'après le commit de son insertion : en cas d'échec, il est repris au passage suivant.
+     *
+     * @return Le nombre de présences créées.
+     */
+    @Scheduled(fixedDelayString = "${app.pointages.journal.intervalle:200ms}")
+    public int vider() {
+        if (journal == null) {
+            return 0;
+        }
+        int creees = 0;
+        PointageJournal.Lot lot = journal.lire(tailleLot);
+        while (!lot.getEntrees().isEmpty()) {
+            PointageJournal.Lot courant = lot;
+            creees += transactionTemplate.execute(status -> inserer(courant));
+            journal.acquitter(lot);
+            lot = journal.lire(tailleLot);
+        }
+        return creees;
+    }
+
+    private int inserer(PointageJournal.Lot lot) {
+        List<PointageJournal.Entree> entrees = lot.getEntrees();
+        List<Long> employeIds = new ArrayList<>(entrees.size());
+        List<LocalDate> dates = new ArrayList<>(entrees.size());
+        List<LocalTime> arrivees = new ArrayList<>(entrees.size());
+        for (PointageJournal.Entree entree : entrees) {
+            // Jour archivé entre la journalisation et le vidage : hors de portée de ON CONFLICT
+            if (presenceArchive.getPresence(entree.getEmployeId(), entree.getDate()) != null) {
+                continue;
+            }
+            employeIds.add(entree.getEmployeId());
+            dates.add(entree.getDate());
+            arrivees.add(entree.getArrivee());
+        }
+
+        List<PresencePointageRow> creees = employeIds.isEmpty() ? List.of() : presenceRepository.insererArrivees(employeIds, dates, arrivees);
+        // Publiés dans la transaction du lot : les écouteurs AFTER_COMMIT les reçoivent comme un pointage unitaire
+        for (PresencePointageRow row : creees) {
+            eventPublisher.publishEvent(new PointageEvent(PointageEvent.Type.ARRIVEE, row.getId(), row.getEmployeId(),
+                    row.getDate(), row.getArrivee(), null));
+        }
+        if (creees.size() < entrees.size()) {
+            doublons.increment(entrees.size() - creees.size());
+            log.debug("{} pointage(s) journalisé(s) ignoré(s) au vidage", entrees.size() - creees.size());
+        }
+        return creees.size();
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        try {
+            vider();
+        } catch (RuntimeException e) {
+            // Les entrées restent dans le journal et seront rejouées au prochain démarrage
+            log.warn("Vidage du journal des pointages impossible à l'arrêt : {} entrée(s) en attente", journal.getRetard(), e);
+        }
+        journal.close();
+    }
+}
@@ -0,0 +1,212 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.stream.Stream;
+
+/**
+ * Archivage des mois clos (app.presences.archive.enabled) : les présences d'un mois antérieur aux
+ * app.presences.archive.mois-chauds mois précédant le mois courant sont écrites dans un segment
+ * d'archive (PresenceArchive) puis retirées de la table, chaque nuit (app.presences.archive.cron).
+ *
+ * Un mois est archivé en trois temps : le segment est écrit et synchronisé sous un nom d'attente ;
+ * la partition du mois est détachée puis supprimée (à défaut, ses lignes sont supprimées) dans une
+ * transaction qui vérifie que le nombre de présences et les minutes retirées sont ceux du segment ;
+ * le segment prend enfin son nom définitif et devient lisible. Un segment resté en attente après
+ * un arrêt est publié ou supprimé au démarrage, selon que la suppression des lignes a été validée.
+ *
+ * Un mois qui compte encore des présences ouvertes n'est pas archivé : elles doivent d'abord être
+ * clôturées (l'index des présences ouvertes et le pointage de départ lisent la table).
+ */
+@Service
+public class PresenceArchivageService {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceArchivageService.class);
+
+    private static final DateTimeFormatter FORMAT_PARTITION = DateTimeFormatter.ofPattern("uuuu_MM");
+
+    private final PresenceRepository presenceRepository;
+    private final PresenceArchive presenceArchive;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lecture;
+    private final TransactionTemplate ecriture;
+    private final boolean enabled;
+    private final int moisChauds;
+    private final Clock clock;
+
+    @Autowired
+    public PresenceArchivageService(PresenceRepository presenceRepository, PresenceArchive presenceArchive, JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.presences.archive.enabled:false}") boolean enabled,
+                                    @Value("${app.presences.archive.mois-chauds:3}") int moisChauds) {
+        this(presenceRepository, presenceArchive, jdbcTemplate, transactionManager, enabled, moisChauds, Clock.systemDefaultZone());
+    }
+
+    public PresenceArchivageService(PresenceRepository presenceRepository, PresenceArchive presenceArchive, JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager, boolean enabled, int moisChauds, Clock clock) {
+        this.presenceRepository = presenceRepository;
+        this.presenceArchive = presenceArchive;
+        this.jdbcTemplate = jdbcTemplate;
+        this.lecture = new TransactionTemplate(transactionManager);
+        this.lecture.setReadOnly(true);
+        this.ecriture = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.moisChauds = Math.max(1, moisChauds);
+        this.clock = clock;
+    }
+
+    /**
+     * Archive les mois clos encore en table, du plus ancien au plus récent ; sans effet si l'archivage
+     * est désactivé.
+     *
+     * @return Le nombre de mois archivés.
+     */
+    @Scheduled(cron = "${app.presences.archive.cron:0 30 3 * * *}")
+    public int archiverMoisClos() {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDate premiere = presenceRepository.findPremiereDate();
+        if (premiere == null) {
+            return 0;
+        }
+        YearMonth limite = YearMonth.now(clock).minusMonths(moisChauds);
+        int archives = 0;
+        for (YearMonth mois = YearMonth.from(premiere); mois.isBefore(limite); mois = mois.plusMonths(1)) {
+            if (archiverMois(mois)) {
+                archives++;
+            }
+        }
+        return archives;
+    }
+
+    /**
+     * Archive un mois : écrit son segment, retire ses présences de la table, puis publie le segment.
+     * Un mois déjà archivé n'est pas réécrit : les présences saisies depuis restent en table.
+     *
+     * @return true si le mois a été archivé, false s'il est vide, déjà archivé ou a des présences ouvertes.
+     * @throws IllegalStateException si les présences retirées de la table ne correspondent pas au segment
+     *                               (la suppression est annulée et le segment effacé).
+     */
+    public boolean archiverMois(YearMonth mois) {
+        LocalDate debut = mois.atDay(1);
+        LocalDate fin = mois.atEndOfMonth();
+        if (presenceArchive.isArchive(mois) || presenceRepository.countByDateBetween(debut, fin) == 0) {
+            return false;
+        }
+        long ouvertes = presenceRepository.countByDateBetweenAndDepartIsNull(debut, fin);
+        if (ouvertes > 0) {
+            log.warn("Mois {} non archivé : {} présence(s) encore ouverte(s)", mois, ouvertes);
+            return false;
+        }
+
+        Path enAttente = presenceArchive.cheminEnAttente(mois);
+        int nombre;
+        try {
+            lecture.executeWithoutResult(status -> {
+                try (Stream<PresencePointageRow> presences = presenceRepository.streamPresencesParEmploye(debut, fin)) {
+                    PresenceSegment.ecrire(enAttente, mois, presences.iterator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            long totalMinutes;
+            try (PresenceSegment segment = PresenceSegment.ouvrir(enAttente)) {
+                nombre = segment.getNombrePresences();
+                totalMinutes = segment.getTotalMinutes();
+            }
+            ecriture.executeWithoutResult(status -> retirerMois(mois, nombre, totalMinutes));
+        } catch (IOException e) {
+            supprimer(enAttente);
+            throw new UncheckedIOException("Échec de l'archivage des présences de " + mois, e);
+        } catch (RuntimeException e) {
+            supprimer(enAttente);
+            throw e;
+        }
+
+        // Présences retirées de la table : le segment en attente ne doit plus être supprimé
+        try {
+            presenceArchive.publier(mois);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Segment du mois " + mois + " non publié, il le sera au prochain démarrage", e);
+        }
+        log.info("Mois {} archivé : {} présences", mois, nombre);
+        return true;
+    }
+
+    /**
+     * Termine les archivages interrompus : un segment en attente est publié si les présences de son
+     * mois ont été retirées de la table (transaction validée), supprimé sinon.
+     */
+    public void recupererEnAttente() {
+        try {
+            for (YearMonth mois : presenceArchive.getMoisEnAttente()) {
+                Path enAttente = presenceArchive.cheminEnAttente(mois);
+                PresencePointageRow premiere;
+                try (PresenceSegment segment = PresenceSegment.ouvrir(enAttente)) {
+                    premiere = segment.premiere();
+                }
+                if (premiere != null && !presenceRepository.existsById(premiere.getId())) {
+                    presenceArchive.publier(mois);
+                    log.info("Archivage interrompu du mois {} terminé : segment publié", mois);
+                } else {
+                    Files.delete(enAttente);
+                    log.info("Archivage interrompu du mois {} annulé : présences toujours en table", mois);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Échec de la reprise des archivages interrompus", e);
+        }
+    }
+
+    // Détache et supprime la partition du mois, ou supprime ses lignes si le mois n'a pas de partition
+    private void retirerMois(YearMonth mois, int nombre, long totalMinutes) {
+        String partition = "presences_" + FORMAT_PARTITION.format(mois);
+        Boolean attachee = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_inherits i " +
+                "WHERE i.inhrelid = to_regclass(?) AND i.inhparent = to_regclass('presences'))", Boolean.class, partition);
+
+        long[] retirees;
+        if (Boolean.TRUE.equals(attachee)) {
+            jdbcTemplate.execute("ALTER TABLE presences DETACH PARTITION " + partition);
+            retirees = jdbcTemplate.queryForObject("SELECT COUNT(*), COALESCE(SUM(heures_travaillees), 0) FROM " + partition,
+                    (resultSet, ligne) -> new long[]{resultSet.getLong(1), resultSet.getLong(2)});
+        } else {
+            retirees = jdbcTemplate.queryForObject("WITH retirees AS (DELETE FROM presences p WHERE p.date BETWEEN ? AND ? " +
+                            "RETURNING p.heures_travaillees) SELECT COUNT(*), COALESCE(SUM(heures_travaillees), 0) FROM retirees",
+                    (resultSet, ligne) -> new long[]{resultSet.getLong(1), resultSet.getLong(2)}, mois.atDay(1), mois.atEndOfMonth());
+        }
+        if (retirees == null || retirees[0] != nombre || retirees[1] != totalMinutes) {
+            throw new IllegalStateException("Archivage du mois " + mois + " annulé : le segment compte " + nombre + " présences et "
+                    + totalMinutes + " minutes, la table " + (retirees == null ? "aucune" : retirees[0] + " présences et " + retirees[1] + " minutes"));
+        }
+        if (Boolean.TRUE.equals(attachee)) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+    }
+
+    private static void supprimer(Path fichier) {
+        try {
+            Files.deleteIfExists(fichier);
+        } catch (IOException e) {
+            log.warn("Segment en attente non supprimé : {}", fichier, e);
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.repository.projection.EmployeDepartementProjection;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Stockage froid des présences : un segment immuable par mois archivé (PresenceSegment), dans
+ * app.presences.archive.dossier, sous le nom presences-AAAA-MM.seg. Les segments présents sont
+ * ouverts au démarrage ; un mois archivé par PresenceArchivageService y est ajouté une fois la
+ * suppression de ses lignes validée en base.
+ *
+ * Les lectures (rapport mensuel, rapports de tendances et de distribution, stockage en colonnes,
+ * reconstruction des cumuls, export et résumé paginé par département) complètent la table presences
+ * avec les segments des mois demandés.
+ * Une présence saisie après l'archivage de son mois reste en table et est lue avec le segment.
+ */
+@Component
+public class PresenceArchive implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceArchive.class);
+
+    private static final String PREFIXE = "presences-";
+    private static final String EXTENSION = ".seg";
+    private static final String EXTENSION_EN_ATTENTE = ".seg.attente";
+    private static final DateTimeFormatter FORMAT_MOIS = DateTimeFormatter.ofPattern("uuuu-MM");
+    private static final Comparator<PresencePointageRow> ORDRE_DATE_EMPLOYE = Comparator.comparing(PresencePointageRow::getDate)
+            .thenComparing(PresencePointageRow::getEmployeId).thenComparing(PresencePointageRow::getId);
+
+    private final Path dossier;
+    private final NavigableMap<YearMonth, PresenceSegment> segments = new ConcurrentSkipListMap<>();
+
+    public PresenceArchive(@Value("${app.presences.archive.dossier:data/archive}") Path dossier) throws IOException {
+        this.dossier = dossier;
+        if (!Files.isDirectory(dossier)) {
+            return;
+        }
+        for (YearMonth mois : lister(EXTENSION)) {
+            segments.put(mois, PresenceSegment.ouvrir(chemin(mois)));
+        }
+        if (!segments.isEmpty()) {
+            log.info("{} segment(s) d'archive des présences ouvert(s) de {} à {}", segments.size(), segments.firstKey(), segments.lastKey());
+        }
+    }
+
+    /**
+     * @return true si au moins un mois est archivé.
+     */
+    public boolean contientSegments() {
+        return !segments.isEmpty();
+    }
+
+    /**
+     * @return true si le mois est archivé.
+     */
+    public boolean isArchive(YearMonth mois) {
+        return segments.containsKey(mois);
+    }
+
+    /**
+     * Présence archivée d'un employé à une date (index du segment du mois). Les lignes archivées
+     * ont quitté presences : uk_presences_employe_date ne les voit plus, un pointage d'arrivée sur
+     * un mois archivé est contrôlé ici.
+     *
+     * @return La présence, ou null si le mois n'est pas archivé ou si l'employé n'a pas pointé ce jour.
+     */
+    public PresencePointageRow getPresence(Long employeId, LocalDate date) {
+        if (!isArchive(YearMonth.from(date))) {
+            return null;
+        }
+        List<PresencePointageRow> presences = lirePresences(employeId, date, date);
+        return presences.isEmpty() ? null : presences.get(0);
+    }
+
+    /**
+     * Présences archivées d'un employé sur une période, par date (index des segments : un bloc
+     * décompressé par mois couvert).
+     */
+    public List<PresencePointageRow> lirePresences(Long employeId, LocalDate debut, LocalDate fin) {
+        List<PresencePointageRow> presences = new ArrayList<>();
+        for (PresenceSegment segment : segmentsCouverts(debut, fin)) {
+            for (PresencePointageRow presence : segment.lireEmploye(employeId)) {
+                if (!presence.getDate().isBefore(debut) && !presence.getDate().isAfter(fin)) {
+                    presences.add(presence);
+                }
+            }
+        }
+        return presences;
+    }
+
+    /**
+     * Parcourt les présences archivées, ouvertes comprises, correspondant aux critères de période
+     * et d'employé du filtre, mois par mois. Le critère de département est laissé à l'appelant,
+     * qui connaît les affectations courantes.
+     */
+    public void parcourir(PresenceTrendFilter filtre, Consumer<PresencePointageRow> consommateur) {
+        for (PresenceSegment segment : segmentsCouverts(filtre.getFrom(), filtre.getTo())) {
+            if (filtre.getEmployeId() != null) {
+                segment.lireEmploye(filtre.getEmployeId()).forEach(presence -> accepter(filtre, presence, consommateur));
+            } else {
+                segment.parcourir(presence -> accepter(filtre, presence, consommateur));
+            }
+        }
+    }
+
+    /**
+     * Présences archivées, ouvertes comprises, correspondant au filtre, département compris, lues à
+     * la demande : mois par mois, puis par employé et par date, un bloc d'employé décompressé à la
+     * fois. Les présences d'un employé supprimé depuis l'archivage sont ignorées.
+     *
+     * @param affectations Département courant de chaque employé.
+     */
+    public Iterator<PresencePointageRow> iterer(PresenceTrendFilter filtre, Collection<EmployeDepartementProjection> affectations) {
+        Predicate<Long> retenu = employesRetenus(filtre, affectations);
+        Iterator<PresenceSegment> restants = segmentsCouverts(filtre.getFrom(), filtre.getTo()).iterator();
+        return new Iterator<>() {
+            private PresenceSegment segment;
+            private int entree;
+            private Iterator<PresencePointageRow> bloc = Collections.emptyIterator();
+            private PresencePointageRow suivante;
+
+            @Override
+            public boolean hasNext() {
+                while (suivante == null) {
+                    if (bloc.hasNext()) {
+                        PresencePointageRow presence = bloc.next();
+                        if (dansPeriode(filtre, presence)) {
+                            suivante = presence;
+                        }
+                    } else if (segment != null && entree < segment.getNombreEmployes()) {
+                        if (retenu.test(segment.getEmployeId(entree))) {
+                            bloc = segment.lireEntree(entree).iterator();
+                        }
+                        entree++;
+                    } else if (restants.hasNext()) {
+                        segment = restants.next();
+                        entree = 0;
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public PresencePointageRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                PresencePointageRow presence = suivante;
+                suivante = null;
+                return presence;
+            }
+        };
+    }
+
+    /**
+     * Présences archivées correspondant au filtre, département compris, postérieures au curseur
+     * (date, employé), triées par date puis par employé : au plus limite présences, les mois
+     * couverts étant lus un à un jusqu'à l'atteindre.
+     *
+     * @param apresDate      Date du curseur, ou null pour la première page.
+     * @param apresEmployeId Employé du curseur (avec apresDate).
+     */
+    public List<PresencePointageRow> lirePresencesApres(PresenceTrendFilter filtre, Collection<EmployeDepartementProjection> affectations,
+                                                        LocalDate apresDate, Long apresEmployeId, int limite) {
+        LocalDate debut = filtre.getFrom();
+        if (apresDate != null && (debut == null || apresDate.isAfter(debut))) {
+            debut = apresDate;
+        }
+        if (debut != null && filtre.getTo() != null && debut.isAfter(filtre.getTo())) {
+            return List.of();
+        }
+        Predicate<Long> retenu = employesRetenus(filtre, affectations);
+        List<PresencePointageRow> presences = new ArrayList<>();
+        for (PresenceSegment segment : segmentsCouverts(debut, filtre.getTo())) {
+            // Un segment est trié par employé : le mois est trié en mémoire, les mois se suivent
+            List<PresencePointageRow> mois = new ArrayList<>();
+            for (int entree = 0; entree < segment.getNombreEmployes(); entree++) {
+                if (!retenu.test(segment.getEmployeId(entree))) {
+                    continue;
+                }
+                for (PresencePointageRow presence : segment.lireEntree(entree)) {
+                    if (dansPeriode(filtre, presence) && apres(presence, apresDate, apresEmployeId)) {
+                        mois.add(presence);
+                    }
+                }
+            }
+            mois.sort(ORDRE_DATE_EMPLOYE);
+            presences.addAll(mois);
+            if (presences.size() >= limite) {
+                return presences.subList(0, limite);
+            }
+        }
+        return presences;
+    }
+
+    /**
+     * Agrège les présences clôturées archivées correspondant au filtre, département compris. Les
+     * présences d'un employé supprimé depuis l'archivage sont ignorées, comme la jointure sur
+     * employes le fait pour la table.
+     *
+     * @param affectations Département courant de chaque employé.
+     */
+    <A extends PresenceRowAggregator<A>> A agreger(PresenceTrendFilter filtre, Collection<EmployeDepartementProjection> affectations,
+                                                   A aggregator) {
+        Map<Long, EmployeDepartementProjection> parEmploye = new HashMap<>(affectations.size() * 2);
+        affectations.forEach(affectation -> parEmploye.put(affectation.getEmployeId(), affectation));
+        parcourir(filtre, presence -> {
+            EmployeDepartementProjection affectation = parEmploye.get(presence.getEmployeId());
+            if (presence.getMinutes() == null || affectation == null
+                    || (filtre.getDepartementId() != null && !filtre.getDepartementId().equals(affectation.getDepartementId()))) {
+                return;
+            }
+            aggregator.add(presence.getDate(), presence.getEmployeId(), affectation.getDepartementNom(), presence.getMinutes());
+        });
+        return aggregator;
+    }
+
+    /**
+     * @return Le fichier du segment d'un mois.
+     */
+    public Path chemin(YearMonth mois) {
+        return dossier.resolve(PREFIXE + FORMAT_MOIS.format(mois) + EXTENSION);
+    }
+
+    /**
+     * @return Le fichier d'un segment écrit dont la suppression des lignes en base n'est pas encore validée.
+     */
+    public Path cheminEnAttente(YearMonth mois) {
+        return dossier.resolve(PREFIXE + FORMAT_MOIS.format(mois) + EXTENSION_EN_ATTENTE);
+    }
+
+    /**
+     * @return Les mois dont un segment est en attente de validation (arrêt pendant un archivage).
+     */
+    public List<YearMonth> getMoisEnAttente() throws IOException {
+        return Files.isDirectory(dossier) ? lister(EXTENSION_EN_ATTENTE) : List.of();
+    }
+
+    /**
+     * Rend lisible le segment en attente d'un mois : il prend son nom définitif puis est ouvert.
+     */
+    public void publier(YearMonth mois) throws IOException {
+        Files.move(cheminEnAttente(mois), chemin(mois), StandardCopyOption.ATOMIC_MOVE);
+        PresenceSegment segment = PresenceSegment.ouvrir(chemin(mois));
+        PresenceSegment precedent = segments.put(mois, segment);
+        if (precedent != null) {
+            precedent.close();
+        }
+    }
+
+    private Collection<PresenceSegment> segmentsCouverts(LocalDate debut, LocalDate fin) {
+        NavigableMap<YearMonth, PresenceSegment> couverts = segments;
+        if (debut != null) {
+            couverts = couverts.tailMap(YearMonth.from(debut), true);
+        }
+        if (fin != null) {
+            couverts = couverts.headMap(YearMonth.from(fin), true);
+        }
+        return couverts.values();
+    }
+
+    private static void accepter(PresenceTrendFilter filtre, PresencePointageRow presence, Consumer<PresencePointageRow> consommateur) {
+        if (dansPeriode(filtre, presence)) {
+            consommateur.accept(presence);
+        }
+    }
+
+    private static boolean dansPeriode(PresenceTrendFilter filtre, PresencePointageRow presence) {
+        return (filtre.getFrom() == null || !presence.getDate().isBefore(filtre.getFrom()))
+                && (filtre.getTo() == null || !presence.getDate().isAfter(filtre.getTo()));
+    }
+
+    private static boolean apres(PresencePointageRow presence, LocalDate apresDate, Long apresEmployeId) {
+        return apresDate == null || presence.getDate().isAfter(apresDate)
+                || (presence.getDate().equals(apresDate) && presence.getEmployeId() > apresEmployeId);
+    }
+
+    // Employés existants correspondant aux critères d'employé et de département du filtre
+    private static Predicate<Long> employesRetenus(PresenceTrendFilter filtre, Collection<EmployeDepartementProjection> affectations) {
+        Set<Long> retenus = new HashSet<>(affectations.size() * 2);
+        for (EmployeDepartementProjection affectation : affectations) {
+            if ((filtre.getEmployeId() == null || filtre.getEmployeId().equals(affectation.getEmployeId()))
+                    && (filtre.getDepartementId() == null || filtre.getDepartementId().equals(affectation.getDepartementId()))) {
+                retenus.add(affectation.getEmployeId());
+            }
+        }
+        return retenus::contains;
+    }
+
+    private List<YearMonth> lister(String extension) throws IOException {
+        List<YearMonth> mois = new ArrayList<>();
+        try (DirectoryStream<Path> fichiers = Files.newDirectoryStream(dossier, PREFIXE + "*" + extension)) {
+            for (Path fichier : fichiers) {
+                String nom = fichier.getFileName().toString();
+                try {
+                    mois.add(YearMonth.parse(nom.substring(PREFIXE.length(), nom.length() - extension.length()), FORMAT_MOIS));
+                } catch (DateTimeParseException | StringIndexOutOfBoundsException e) {
+                    log.warn("Fichier ignoré dans l'archive des présences : {}", fichier);
+                }
+            }
+        }
+        mois.sort(null);
+        return mois;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (PresenceSegment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+    }
+}
@@ -0,0 +1,24 @@
+package com.gestionemployes.employee_management_api.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Termine au démarrage les archivages de mois interrompus par un arrêt : un mois retiré de la
+ * table dont le segment est resté en attente n'est lu par les rapports qu'une fois publié.
+ */
+@Component
+public class PresenceArchiveInitializer implements ApplicationRunner {
+
+    private final PresenceArchivageService presenceArchivageService;
+
+    public PresenceArchiveInitializer(PresenceArchivageService presenceArchivageService) {
+        this.presenceArchivageService = presenceArchivageService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        presenceArchivageService.recupererEnAttente();
+    }
+}
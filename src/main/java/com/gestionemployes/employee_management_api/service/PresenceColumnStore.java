@@ -0,0 +1,461 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.event.DepartementModifieEvent;
+import com.gestionemployes.employee_management_api.event.EmployeModifieEvent;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import com.gestionemployes.employee_management_api.model.Departement;
+import com.gestionemployes.employee_management_api.repository.DepartementRepository;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.EmployeDepartementProjection;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Copie en mémoire des présences (table et mois archivés), rangée en colonnes de types primitifs, pour les
+ * tableaux de bord interactifs (app.rapports.colonnes.enabled). Une présence occupe 14 octets :
+ * index de l'employé (int), jour epoch (int), minute d'arrivée et de départ dans la journée
+ * (short) et minutes travaillées (short, -1 tant que la présence est ouverte), plus au plus
+ * un huitième de capacité de réserve. Le département est résolu par un dictionnaire
+ * employé -> département tenu à jour des changements d'affectation et des renommages.
+ *
+ * Le stockage est chargé au démarrage puis suivi par les pointages validés (PointageEvent,
+ * après commit). Les écritures validées pendant un chargement sont mises de côté puis rejouées,
+ * celles que la lecture a déjà vues étant ignorées. Tant qu'il n'est pas prêt, les rapports
+ * sont calculés par les autres chemins.
+ */
+@Component
+public class PresenceColumnStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceColumnStore.class);
+
+    static final int OCTETS_PAR_PRESENCE = 4 + 4 + 2 + 2 + 2;
+
+    private enum Etat { INACTIF, CHARGEMENT, PRET }
+
+    private final PresenceRepository presenceRepository;
+    private final EmployeRepository employeRepository;
+    private final DepartementRepository departementRepository;
+    private final PresenceArchive presenceArchive;
+    private final TransactionTemplate lecture;
+    private final boolean enabled;
+
+    // Les rapports lisent en parallèle ; un pointage attend la fin des parcours en cours
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    private volatile Etat etat = Etat.INACTIF;
+    private Colonnes colonnes;
+    private List<Consumer<Colonnes>> enAttente = new ArrayList<>();
+
+    public PresenceColumnStore(PresenceRepository presenceRepository, EmployeRepository employeRepository,
+                               DepartementRepository departementRepository, PresenceArchive presenceArchive,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.rapports.colonnes.enabled:false}") boolean enabled) {
+        this.presenceRepository = presenceRepository;
+        this.employeRepository = employeRepository;
+        this.departementRepository = departementRepository;
+        this.presenceArchive = presenceArchive;
+        this.lecture = new TransactionTemplate(transactionManager);
+        this.lecture.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return true si le stockage est chargé et peut servir les rapports.
+     */
+    public boolean isDisponible() {
+        return etat == Etat.PRET;
+    }
+
+    /**
+     * (Re)charge le stockage depuis la base ; sans effet si le stockage est désactivé.
+     * Les rapports sont calculés par les autres chemins pendant le chargement.
+     */
+    public synchronized void charger() {
+        if (!enabled) {
+            return;
+        }
+        verrou.writeLock().lock();
+        try {
+            etat = Etat.CHARGEMENT;
+            colonnes = null;
+            enAttente = new ArrayList<>();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+
+        Colonnes chargees;
+        try {
+            chargees = lecture.execute(status -> lire());
+        } catch (RuntimeException e) {
+            verrou.writeLock().lock();
+            try {
+                etat = Etat.INACTIF;
+                enAttente = new ArrayList<>();
+            } finally {
+                verrou.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        verrou.writeLock().lock();
+        try {
+            enAttente.forEach(ecriture -> ecriture.accept(chargees));
+            enAttente = new ArrayList<>();
+            chargees.idsCharges = null;
+            colonnes = chargees;
+            etat = Etat.PRET;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        log.info("Stockage en colonnes des présences chargé : {} présences, {} Ko", chargees.taille,
+                chargees.octetsColonnes() / 1024);
+    }
+
+    // Présences d'abord : un changement d'affectation validé entre les deux lectures est lu ici ou rejoué
+    private Colonnes lire() {
+        long attendues = presenceRepository.count();
+        Colonnes chargees = new Colonnes((int) Math.min(Integer.MAX_VALUE - 16, attendues + attendues / 16 + 16));
+        try (Stream<PresencePointageRow> stream = presenceRepository.streamPresences(PresenceTrendFilter.sansFiltre())) {
+            stream.forEach(chargees::ajouterChargee);
+        }
+        // Mois archivés : immuables, ils ne sont concernés par aucune écriture à rejouer
+        presenceArchive.parcourir(PresenceTrendFilter.sansFiltre(), chargees::ajouterArchivee);
+        employeRepository.findAllDepartementsEmployes().forEach(chargees::affecter);
+        return chargees;
+    }
+
+    /**
+     * Agrège les présences clôturées correspondant au filtre pour le rapport de tendances.
+     *
+     * @throws IllegalStateException si le stockage n'est pas disponible.
+     */
+    public PresenceTrendAggregator agregerTendances(PresenceTrendFilter filtre) {
+        return agreger(filtre, new PresenceTrendAggregator());
+    }
+
+    /**
+     * Agrège les présences clôturées correspondant au filtre pour le rapport de distribution.
+     *
+     * @throws IllegalStateException si le stockage n'est pas disponible.
+     */
+    public PresenceDistributionAggregator agregerDistribution(PresenceTrendFilter filtre) {
+        return agreger(filtre, new PresenceDistributionAggregator());
+    }
+
+    private <A extends PresenceRowAggregator<A>> A agreger(PresenceTrendFilter filtre, A aggregator) {
+        verrou.readLock().lock();
+        try {
+            if (etat != Etat.PRET) {
+                throw new IllegalStateException("Le stockage en colonnes des présences n'est pas chargé.");
+            }
+            colonnes.parcourir(filtre, aggregator);
+            return aggregator;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Le nombre de présences stockées (0 si le stockage n'est pas disponible).
+     */
+    public int getNombrePresences() {
+        verrou.readLock().lock();
+        try {
+            return colonnes == null ? 0 : colonnes.taille;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return La taille des colonnes en octets, réserve comprise (hors dictionnaires).
+     */
+    public long getOctetsColonnes() {
+        verrou.readLock().lock();
+        try {
+            return colonnes == null ? 0 : colonnes.octetsColonnes();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPointage(PointageEvent event) {
+        if (etat == Etat.INACTIF) {
+            return;
+        }
+        if (event.getType() == PointageEvent.Type.DEPART) {
+            ecrire(c -> c.cloturer(event.getPresenceId(), event.getHeure(), event.getMinutesTravaillees()));
+            return;
+        }
+        // Employé créé depuis le chargement : son département est lu avant de prendre le verrou
+        EmployeDepartementProjection affectation = employeConnu(event.getEmployeId())
+                ? null : employeRepository.findDepartementEmploye(event.getEmployeId()).orElse(null);
+        ecrire(c -> {
+            if (affectation != null) {
+                c.affecter(affectation);
+            }
+            c.ajouterArrivee(event.getPresenceId(), event.getEmployeId(), event.getDate(), event.getHeure());
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEmployeModifie(EmployeModifieEvent event) {
+        if (etat == Etat.INACTIF || !event.isDepartementChange()) {
+            return;
+        }
+        employeRepository.findDepartementEmploye(event.getEmployeId())
+                .ifPresent(affectation -> ecrire(c -> c.affecter(affectation)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDepartementModifie(DepartementModifieEvent event) {
+        if (etat == Etat.INACTIF || !event.isNomChange()) {
+            return;
+        }
+        departementRepository.findById(event.getDepartementId()).map(Departement::getNom)
+                .ifPresent(nom -> ecrire(c -> c.renommerDepartement(event.getDepartementId(), nom)));
+    }
+
+    private boolean employeConnu(Long employeId) {
+        verrou.readLock().lock();
+        try {
+            return colonnes != null && colonnes.indexEmployes.containsKey(employeId);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private void ecrire(Consumer<Colonnes> ecriture) {
+        verrou.writeLock().lock();
+        try {
+            if (etat == Etat.CHARGEMENT) {
+                enAttente.add(ecriture);
+            } else if (etat == Etat.PRET) {
+                ecriture.accept(colonnes);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Colonnes et dictionnaires ; accès protégé par le verrou du stockage.
+     */
+    private static final class Colonnes {
+
+        private static final short OUVERTE = -1;
+        private static final int SANS_DEPARTEMENT = -1;
+
+        // Une case par présence, dans l'ordre des ids (celui de la lecture en flux)
+        private int[] employes;
+        private int[] jours;
+        private short[] arrivees;
+        private short[] departs;
+        private short[] minutes;
+        private int taille;
+        private int jourMin = Integer.MAX_VALUE;
+        private int jourMax = Integer.MIN_VALUE;
+
+        // Présences ouvertes (id -> ligne), clôturées au pointage de départ
+        private final Map<Long, Integer> lignesOuvertes = new HashMap<>();
+
+        // Ids lus au chargement (triés), pour ignorer les pointages rejoués déjà vus ; libérés ensuite
+        private long[] idsCharges;
+        private int nombreIdsCharges;
+
+        private final Map<Long, Integer> indexEmployes = new HashMap<>();
+        private Long[] employeIds = new Long[64];
+        private int[] departementParEmploye = new int[64];
+        private final Map<Long, Integer> indexDepartements = new HashMap<>();
+        private final List<String> departementNoms = new ArrayList<>();
+
+        private Colonnes(int capacite) {
+            employes = new int[capacite];
+            jours = new int[capacite];
+            arrivees = new short[capacite];
+            departs = new short[capacite];
+            minutes = new short[capacite];
+            idsCharges = new long[capacite];
+        }
+
+        private void ajouterChargee(PresencePointageRow row) {
+            if (nombreIdsCharges == idsCharges.length) {
+                idsCharges = Arrays.copyOf(idsCharges, agrandir(idsCharges.length));
+            }
+            idsCharges[nombreIdsCharges++] = row.getId();
+            int ligne = ajouterLigne(row.getEmployeId(), row.getDate(), row.getArrivee(), row.getDepart(), row.getMinutes());
+            if (row.getMinutes() == null) {
+                lignesOuvertes.put(row.getId(), ligne);
+            }
+        }
+
+        private void ajouterArchivee(PresencePointageRow row) {
+            ajouterLigne(row.getEmployeId(), row.getDate(), row.getArrivee(), row.getDepart(), row.getMinutes());
+        }
+
+        private void ajouterArrivee(Long presenceId, Long employeId, LocalDate date, LocalTime arrivee) {
+            if (dejaChargee(presenceId)) {
+                return;
+            }
+            lignesOuvertes.put(presenceId, ajouterLigne(employeId, date, arrivee, null, null));
+        }
+
+        private void cloturer(Long presenceId, LocalTime depart, Long minutesTravaillees) {
+            Integer ligne = lignesOuvertes.remove(presenceId);
+            if (ligne == null) {
+                if (!dejaChargee(presenceId)) {
+                    log.debug("Départ ignoré par le stockage en colonnes : présence {} inconnue", presenceId);
+                }
+                return;
+            }
+            departs[ligne] = minuteDuJour(depart);
+            minutes[ligne] = (short) Math.min(Short.MAX_VALUE, minutesTravaillees);
+        }
+
+        private boolean dejaChargee(Long presenceId) {
+            return idsCharges != null && Arrays.binarySearch(idsCharges, 0, nombreIdsCharges, presenceId) >= 0;
+        }
+
+        private int ajouterLigne(Long employeId, LocalDate date, LocalTime arrivee, LocalTime depart, Long minutesTravaillees) {
+            if (taille == employes.length) {
+                int capacite = agrandir(taille);
+                employes = Arrays.copyOf(employes, capacite);
+                jours = Arrays.copyOf(jours, capacite);
+                arrivees = Arrays.copyOf(arrivees, capacite);
+                departs = Arrays.copyOf(departs, capacite);
+                minutes = Arrays.copyOf(minutes, capacite);
+            }
+            int jour = (int) date.toEpochDay();
+            employes[taille] = indexEmploye(employeId);
+            jours[taille] = jour;
+            arrivees[taille] = minuteDuJour(arrivee);
+            departs[taille] = depart == null ? OUVERTE : minuteDuJour(depart);
+            minutes[taille] = minutesTravaillees == null ? OUVERTE : (short) Math.min(Short.MAX_VALUE, minutesTravaillees);
+            jourMin = Math.min(jourMin, jour);
+            jourMax = Math.max(jourMax, jour);
+            return taille++;
+        }
+
+        private void affecter(EmployeDepartementProjection affectation) {
+            int employe = indexEmploye(affectation.getEmployeId());
+            departementParEmploye[employe] = affectation.getDepartementId() == null
+                    ? SANS_DEPARTEMENT : indexDepartement(affectation.getDepartementId(), affectation.getDepartementNom());
+        }
+
+        private void renommerDepartement(Long departementId, String nom) {
+            Integer departement = indexDepartements.get(departementId);
+            if (departement != null) {
+                departementNoms.set(departement, nom);
+            }
+        }
+
+        private int indexEmploye(Long employeId) {
+            Integer index = indexEmployes.get(employeId);
+            if (index != null) {
+                return index;
+            }
+            int nouveau = indexEmployes.size();
+            if (nouveau == employeIds.length) {
+                employeIds = Arrays.copyOf(employeIds, nouveau * 2);
+                departementParEmploye = Arrays.copyOf(departementParEmploye, nouveau * 2);
+            }
+            employeIds[nouveau] = employeId;
+            departementParEmploye[nouveau] = SANS_DEPARTEMENT;
+            indexEmployes.put(employeId, nouveau);
+            return nouveau;
+        }
+
+        private int indexDepartement(Long departementId, String nom) {
+            Integer index = indexDepartements.get(departementId);
+            if (index != null) {
+                departementNoms.set(index, nom);
+                return index;
+            }
+            departementNoms.add(nom);
+            indexDepartements.put(departementId, departementNoms.size() - 1);
+            return departementNoms.size() - 1;
+        }
+
+        private <A extends PresenceRowAggregator<A>> void parcourir(PresenceTrendFilter filtre, A aggregator) {
+            int debut = Math.max(jourMin, filtre.getFrom() == null ? Integer.MIN_VALUE : (int) filtre.getFrom().toEpochDay());
+            int fin = Math.min(jourMax, filtre.getTo() == null ? Integer.MAX_VALUE : (int) filtre.getTo().toEpochDay());
+            if (taille == 0 || debut > fin) {
+                return;
+            }
+            int employeFiltre = -1;
+            if (filtre.getEmployeId() != null) {
+                Integer index = indexEmployes.get(filtre.getEmployeId());
+                if (index == null) {
+                    return;
+                }
+                employeFiltre = index;
+            }
+            int departementFiltre = -1;
+            if (filtre.getDepartementId() != null) {
+                Integer index = indexDepartements.get(filtre.getDepartementId());
+                if (index == null) {
+                    return;
+                }
+                departementFiltre = index;
+            }
+
+            // Une seule LocalDate par jour couvert, créée à la première présence de ce jour
+            LocalDate[] dates = new LocalDate[fin - debut + 1];
+            for (int i = 0; i < taille; i++) {
+                int minutesTravaillees = minutes[i];
+                int jour = jours[i];
+                if (minutesTravaillees < 0 || jour < debut || jour > fin) {
+                    continue;
+                }
+                int employe = employes[i];
+                if (employeFiltre >= 0 && employe != employeFiltre) {
+                    continue;
+                }
+                int departement = departementParEmploye[employe];
+                if (departementFiltre >= 0 && departement != departementFiltre) {
+                    continue;
+                }
+                LocalDate date = dates[jour - debut];
+                if (date == null) {
+                    date = LocalDate.ofEpochDay(jour);
+                    dates[jour - debut] = date;
+                }
+                aggregator.add(date, employeIds[employe],
+                        departement == SANS_DEPARTEMENT ? null : departementNoms.get(departement), minutesTravaillees);
+            }
+        }
+
+        private long octetsColonnes() {
+            return (long) employes.length * OCTETS_PAR_PRESENCE;
+        }
+
+        // Réserve d'un huitième : les colonnes restent sous 16 octets par présence
+        private static int agrandir(int capacite) {
+            return capacite + capacite / 8 + 16;
+        }
+
+        private static short minuteDuJour(LocalTime heure) {
+            return (short) (heure.getHour() * 60 + heure.getMinute());
+        }
+    }
+}
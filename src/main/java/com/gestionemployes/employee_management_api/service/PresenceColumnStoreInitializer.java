@@ -0,0 +1,23 @@
+package com.gestionemployes.employee_management_api.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Charge le stockage en colonnes des présences au démarrage (sans effet s'il est désactivé).
+ */
+@Component
+public class PresenceColumnStoreInitializer implements ApplicationRunner {
+
+    private final PresenceColumnStore presenceColumnStore;
+
+    public PresenceColumnStoreInitializer(PresenceColumnStore presenceColumnStore) {
+        this.presenceColumnStore = presenceColumnStore;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        presenceColumnStore.charger();
+    }
+}
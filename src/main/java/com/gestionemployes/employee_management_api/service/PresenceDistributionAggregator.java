@@ -0,0 +1,78 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.dto.DistributionMinutesDto;
+import com.gestionemployes.employee_management_api.dto.PresenceDistributionReportDto;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Agrège les présences clôturées pour le rapport de distribution : un histogramme des minutes
+ * travaillées par département et par mois (quantiles exacts, mémoire fixe par groupe) et un
+ * compteur HyperLogLog des employés distincts par jour. La mémoire dépend du nombre de groupes
+ * et de jours, jamais du nombre de présences ; les agrégateurs de partitions se fusionnent.
+ * Une instance n'est pas thread-safe.
+ */
+public final class PresenceDistributionAggregator implements PresenceRowAggregator<PresenceDistributionAggregator> {
+
+    private final MinutesHistogram global = new MinutesHistogram();
+    private final Map<String, MinutesHistogram> byDepartement = new HashMap<>();
+    private final Map<YearMonth, MinutesHistogram> byMonth = new HashMap<>();
+    private final Map<LocalDate, HyperLogLog> employesByDate = new HashMap<>();
+
+    // Les lignes d'une même date se suivent le plus souvent : évite deux recherches par ligne
+    private LocalDate lastDate;
+    private MinutesHistogram lastMonth;
+    private HyperLogLog lastDateEmployes;
+
+    @Override
+    public void add(LocalDate date, Long employeId, String departementNom, long minutes) {
+        if (!date.equals(lastDate)) {
+            lastDate = date;
+            lastMonth = byMonth.computeIfAbsent(YearMonth.from(date), key -> new MinutesHistogram());
+            lastDateEmployes = employesByDate.computeIfAbsent(date, key -> new HyperLogLog());
+        }
+        global.add(minutes);
+        lastMonth.add(minutes);
+        if (departementNom != null) {
+            byDepartement.computeIfAbsent(departementNom, key -> new MinutesHistogram()).add(minutes);
+        }
+        if (employeId != null) {
+            lastDateEmployes.add(employeId);
+        }
+    }
+
+    @Override
+    public void merge(PresenceDistributionAggregator other) {
+        global.merge(other.global);
+        other.byDepartement.forEach((nom, histogram) -> byDepartement.computeIfAbsent(nom, key -> new MinutesHistogram()).merge(histogram));
+        other.byMonth.forEach((month, histogram) -> byMonth.computeIfAbsent(month, key -> new MinutesHistogram()).merge(histogram));
+        other.employesByDate.forEach((date, employes) -> employesByDate.computeIfAbsent(date, key -> new HyperLogLog()).merge(employes));
+    }
+
+    /**
+     * Construit le DTO du rapport (groupes triés par nom, mois et date).
+     */
+    public PresenceDistributionReportDto toReport() {
+        Map<String, DistributionMinutesDto> parDepartement = new LinkedHashMap<>();
+        new TreeMap<>(byDepartement).forEach((nom, histogram) -> parDepartement.put(nom, toDto(histogram)));
+
+        Map<String, DistributionMinutesDto> parMois = new LinkedHashMap<>();
+        new TreeMap<>(byMonth).forEach((month, histogram) -> parMois.put(month.toString(), toDto(histogram)));
+
+        Map<String, Long> employesDistinctsParJour = new LinkedHashMap<>();
+        new TreeMap<>(employesByDate).forEach((date, employes) -> employesDistinctsParJour.put(date.toString(), employes.estimate()));
+
+        return new PresenceDistributionReportDto(toDto(global), parDepartement, parMois, employesDistinctsParJour,
+                HyperLogLog.relativeError());
+    }
+
+    private static DistributionMinutesDto toDto(MinutesHistogram histogram) {
+        return new DistributionMinutesDto(histogram.count(), histogram.min(), histogram.quantile(0.50),
+                histogram.quantile(0.90), histogram.quantile(0.99), histogram.max());
+    }
+}
@@ -0,0 +1,200 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gestionemployes.employee_management_api.dto.PresenceDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.json.DureeFormat;
+import com.gestionemployes.employee_management_api.mapper.PresenceMapper;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exporte les présences en NDJSON ou en CSV, ligne à ligne depuis un curseur JDBC vers le
+ * flux de la réponse : aucune liste intermédiaire n'est construite, la mémoire utilisée ne
+ * dépend pas du nombre de présences exportées. Les lignes NDJSON sont des PresenceDto
+ * sérialisés par l'ObjectMapper de l'application (même format que le reste de l'API).
+ *
+ * Les présences des mois archivés (PresenceArchive) sont écrites en premier, lues bloc par bloc
+ * dans les segments, puis celles de la table : un export annuel couvre aussi les mois archivés.
+ */
+@Service
+public class PresenceExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceExportService.class);
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+    private static final String EN_TETE_CSV = "id,employeId,date,arrivee,depart,heuresTravaillees";
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @throws BadRequestException si le format n'est ni ndjson ni csv.
+         */
+        public static Format parse(String format) {
+            try {
+                return Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Format d'export non pris en charge : " + format + " (ndjson ou csv).");
+            }
+        }
+    }
+
+    private final PresenceRepository presenceRepository;
+    private final EmployeRepository employeRepository;
+    private final PresenceArchive presenceArchive;
+    private final PresenceMapper presenceMapper;
+    private final RapportService rapportService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter ndjsonWriter;
+    private final TransactionTemplate lecture;
+
+    public PresenceExportService(PresenceRepository presenceRepository, EmployeRepository employeRepository, PresenceArchive presenceArchive,
+                                 PresenceMapper presenceMapper, RapportService rapportService, ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager) {
+        this.presenceRepository = presenceRepository;
+        this.employeRepository = employeRepository;
+        this.presenceArchive = presenceArchive;
+        this.presenceMapper = presenceMapper;
+        this.rapportService = rapportService;
+        this.objectMapper = objectMapper;
+        // Un flush par ligne viderait le tampon (et la compression) à chaque présence
+        this.ndjsonWriter = objectMapper.writerFor(PresenceDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        this.lecture = new TransactionTemplate(transactionManager);
+        this.lecture.setReadOnly(true);
+    }
+
+    /**
+     * Vérifie le filtre d'un export avant l'envoi de la réponse (une erreur ne peut plus
+     * être signalée par le statut HTTP une fois l'écriture commencée).
+     *
+     * @throws BadRequestException si la date de début est postérieure à la date de fin.
+     */
+    public void verifierFiltre(PresenceTrendFilter filtre) {
+        rapportService.verifierFiltre(filtre);
+    }
+
+    /**
+     * Écrit les présences correspondant au filtre dans le flux fourni : celles des mois archivés
+     * (mois par mois, par employé puis par date), puis celles de la table par id croissant.
+     * Le flux n'est pas fermé ; il est vidé à la fin de l'export.
+     *
+     * @param filtre Critères optionnels de dates, département et employé.
+     * @param format Format d'export.
+     * @param out    Flux de destination (réponse HTTP, éventuellement compressée).
+     * @return Le nombre de présences exportées.
+     */
+    public long exporter(PresenceTrendFilter filtre, Format format, OutputStream out) {
+        Long lignes = lecture.execute(status -> {
+            try (Stream<PresencePointageRow> rows = Stream.concat(archivees(filtre), presenceRepository.streamPresences(filtre))) {
+                return format == Format.CSV ? ecrireCsv(rows.iterator(), out) : ecrireNdjson(rows.iterator(), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.debug("Export {} de {} présences ({})", format, lignes, filtre);
+        return lignes;
+    }
+
+    private Stream<PresencePointageRow> archivees(PresenceTrendFilter filtre) {
+        if (!presenceArchive.contientSegments()) {
+            return Stream.empty();
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                presenceArchive.iterer(filtre, employeRepository.findAllDepartementsEmployes()), Spliterator.ORDERED), false);
+    }
+
+    private long ecrireNdjson(Iterator<PresencePointageRow> rows, OutputStream out) throws IOException {
+        long lignes = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (rows.hasNext()) {
+                ndjsonWriter.writeValue(generator, presenceMapper.toDto(rows.next()));
+                lignes++;
+            }
+            if (lignes > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        out.flush();
+        return lignes;
+    }
+
+    private long ecrireCsv(Iterator<PresencePointageRow> rows, OutputStream out) throws IOException {
+        long lignes = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), TAILLE_TAMPON);
+        writer.write(EN_TETE_CSV);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            PresencePointageRow row = rows.next();
+            writer.write(Long.toString(row.getId()));
+            writer.write(',');
+            writer.write(Long.toString(row.getEmployeId()));
+            writer.write(',');
+            writer.write(row.getDate().toString());
+            writer.write(',');
+            writer.write(heure(row.getArrivee()));
+            writer.write(',');
+            writer.write(heure(row.getDepart()));
+            writer.write(',');
+            if (row.getMinutes() != null) {
+                DureeFormat.ecrire(row.getMinutes(), writer);
+            }
+            writer.write('\n');
+            lignes++;
+        }
+        writer.flush();
+        return lignes;
+    }
+
+    // Même représentation que les heures des PresenceDto en JSON
+    private static String heure(LocalTime heure) {
+        return heure == null ? "" : DateTimeFormatter.ISO_LOCAL_TIME.format(heure);
+    }
+}
@@ -0,0 +1,326 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestionemployes.employee_management_api.dto.PresenceFluxDto;
+import com.gestionemployes.employee_management_api.dto.PresencesOuvertesDepartementDto;
+import com.gestionemployes.employee_management_api.dto.PresencesOuvertesDto;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
+import com.gestionemployes.employee_management_api.exception.TooManyRequestsException;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.projection.EmployeDepartementProjection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flux SSE des présences pour les écrans d'accueil et le poste de sécurité : pointages
+ * d'arrivée et de départ diffusés après commit, et occupation (présences ouvertes par
+ * département) à l'abonnement puis à intervalle régulier (app.presences.stream.occupation).
+ *
+ * Un abonné ne retient aucun thread : réponse asynchrone écrite en E/S non bloquantes
+ * (SortieFlux). La diffusion ne bloque pas le pointage : chaque abonné a sa file bornée
+ * (app.presences.stream.tampon), vidée vers le client par un petit pool d'envoi
+ * (app.presences.stream.threads), une tâche au plus par abonné. Un client qui ne lit plus est
+ * laissé de côté jusqu'à ce que le conteneur le signale de nouveau prêt ; sa file pleine perd
+ * ses messages les plus anciens (presences.stream.messages.perdus), et il est désabonné s'il ne
+ * lit toujours pas après app.presences.stream.envoi-timeout (presences.stream.envois.expires).
+ */
+@Service
+public class PresenceFluxService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceFluxService.class);
+
+    static final String OCCUPATION = "occupation";
+
+    private final PresenceService presenceService;
+    private final PresenceOuverteIndex presenceOuverteIndex;
+    private final EmployeRepository employeRepository;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+    private final ExecutorService executorPropre;
+    private final int capaciteFile;
+    private final int abonnesMax;
+    private final Duration timeout;
+    private final long delaiEnvoiNanos;
+    private final Counter messagesPerdus;
+    private final Counter envoisExpires;
+
+    private final Set<Abonne> abonnes = ConcurrentHashMap.newKeySet();
+    // Places réservées avant l'inscription : le plafond tient même entre abonnements simultanés
+    private final AtomicInteger places = new AtomicInteger();
+
+    @Autowired
+    public PresenceFluxService(PresenceService presenceService, PresenceOuverteIndex presenceOuverteIndex,
+                               EmployeRepository employeRepository, MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                               @Value("${app.presences.stream.tampon:64}") int capaciteFile,
+                               @Value("${app.presences.stream.abonnes-max:2000}") int abonnesMax,
+                               @Value("${app.presences.stream.threads:2}") int threads,
+                               @Value("${app.presences.stream.timeout:30m}") Duration timeout,
+                               @Value("${app.presences.stream.envoi-timeout:30s}") Duration delaiEnvoi) {
+        this(presenceService, presenceOuverteIndex, employeRepository, meterRegistry, objectMapper, capaciteFile, abonnesMax,
+                creerExecutor(threads), timeout, delaiEnvoi);
+    }
+
+    public PresenceFluxService(PresenceService presenceService, PresenceOuverteIndex presenceOuverteIndex,
+                               EmployeRepository employeRepository, MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                               int capaciteFile, int abonnesMax, Executor executor, Duration timeout, Duration delaiEnvoi) {
+        this.presenceService = presenceService;
+        this.presenceOuverteIndex = presenceOuverteIndex;
+        this.employeRepository = employeRepository;
+        this.objectMapper = objectMapper;
+        this.capaciteFile = capaciteFile;
+        this.abonnesMax = abonnesMax;
+        this.timeout = timeout;
+        this.delaiEnvoiNanos = delaiEnvoi.toNanos();
+        this.executor = executor;
+        this.executorPropre = executor instanceof ExecutorService ? (ExecutorService) executor : null;
+        this.messagesPerdus = Counter.builder("presences.stream.messages.perdus")
+                .description("Messages du flux des présences abandonnés pour un client trop lent")
+                .register(meterRegistry);
+        this.envoisExpires = Counter.builder("presences.stream.envois.expires")
+                .description("Clients du flux des présences désabonnés faute de lire leurs messages")
+                .register(meterRegistry);
+        Gauge.builder("presences.stream.abonnes", abonnes, Set::size)
+                .description("Clients abonnés au flux des présences")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Abonne un client au flux ; l'occupation courante lui est envoyée d'emblée.
+     *
+     * @param departementId Département suivi, ou null pour tous les départements.
+     * @param sortie        Réponse du client, ouverte une fois l'abonnement accepté.
+     * @throws ResourceNotFoundException si le département n'existe pas.
+     * @throws TooManyRequestsException  si le nombre maximal d'abonnés est atteint.
+     */
+    public void abonner(Long departementId, SortieFlux sortie) throws IOException {
+        PresencesOuvertesDto occupation = presenceService.getPresencesOuvertes(departementId);
+        if (places.incrementAndGet() > abonnesMax) {
+            places.decrementAndGet();
+            throw new TooManyRequestsException("Trop de clients abonnés au flux des présences, veuillez réessayer plus tard.");
+        }
+
+        Abonne abonne = new Abonne(sortie, departementId);
+        abonnes.add(abonne);
+        try {
+            sortie.ouvrir(timeout, () -> planifier(abonne), () -> retirer(abonne));
+        } catch (IOException | RuntimeException e) {
+            retirer(abonne);
+            throw e;
+        }
+        publier(abonne, new Message(OCCUPATION, occupation));
+    }
+
+    /**
+     * @return Le nombre de clients abonnés.
+     */
+    public int getNombreAbonnes() {
+        return abonnes.size();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPointage(PointageEvent event) {
+        if (abonnes.isEmpty()) {
+            return;
+        }
+        PresenceFluxDto dto = new PresenceFluxDto(event.getType().name(), event.getPresenceId(), event.getEmployeId(),
+                departement(event.getEmployeId()), event.getDate(), event.getHeure(), event.getMinutesTravaillees());
+        Message message = new Message(event.getType().name().toLowerCase(Locale.ROOT), dto);
+        for (Abonne abonne : abonnes) {
+            if (abonne.departementId == null || abonne.departementId.equals(dto.getDepartementId())) {
+                publier(abonne, message);
+            }
+        }
+    }
+
+    /**
+     * Diffuse l'occupation courante à tous les abonnés (sert aussi de signal de vie).
+     */
+    @Scheduled(fixedDelayString = "${app.presences.stream.occupation:10s}")
+    public void diffuserOccupation() {
+        if (abonnes.isEmpty()) {
+            return;
+        }
+        // Calculée une fois pour tous les abonnés, puis restreinte au département suivi
+        PresencesOuvertesDto occupation = presenceService.getPresencesOuvertes(null);
+        Message toutes = new Message(OCCUPATION, occupation);
+        for (Abonne abonne : abonnes) {
+            publier(abonne, abonne.departementId == null ? toutes : new Message(OCCUPATION, restreindre(occupation, abonne.departementId)));
+        }
+    }
+
+    private void retirer(Abonne abonne) {
+        if (abonnes.remove(abonne)) {
+            places.decrementAndGet();
+        }
+    }
+
+    private Long departement(Long employeId) {
+        // L'index est mis à jour avant ce flux au commit ; un employé inconnu de l'index est relu
+        if (presenceOuverteIndex.connaitEmploye(employeId)) {
+            return presenceOuverteIndex.getDepartementEmploye(employeId);
+        }
+        return employeRepository.findDepartementEmploye(employeId).map(EmployeDepartementProjection::getDepartementId).orElse(null);
+    }
+
+    private static PresencesOuvertesDto restreindre(PresencesOuvertesDto occupation, Long departementId) {
+        int nombre = 0;
+        for (PresencesOuvertesDepartementDto departement : occupation.getDepartements()) {
+            if (departementId.equals(departement.getDepartementId())) {
+                nombre = departement.getNombre();
+            }
+        }
+        return new PresencesOuvertesDto(nombre, List.of(new PresencesOuvertesDepartementDto(departementId, nombre)));
+    }
+
+    private void publier(Abonne abonne, Message message) {
+        synchronized (abonne.file) {
+            // Client qui ne lit plus depuis le délai d'envoi : désabonné plutôt que mis en file
+            if (abonne.bloqueDepuis != 0 && System.nanoTime() - abonne.bloqueDepuis >= delaiEnvoiNanos) {
+                abonne.file.clear();
+                abonne.bloqueDepuis = 0;
+                envoisExpires.increment();
+                log.debug("Client du flux des présences désabonné : aucune lecture depuis le délai d'envoi");
+                retirer(abonne);
+                abonne.sortie.fermer();
+                return;
+            }
+            if (abonne.file.size() == capaciteFile) {
+                abonne.file.pollFirst();
+                messagesPerdus.increment();
+            }
+            abonne.file.addLast(message);
+        }
+        planifier(abonne);
+    }
+
+    private void planifier(Abonne abonne) {
+        if (abonne.envoiPlanifie.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> envoyer(abonne));
+            } catch (RejectedExecutionException e) {
+                abonne.envoiPlanifie.set(false);
+                log.debug("Envoi du flux des présences refusé (arrêt en cours)");
+            }
+        }
+    }
+
+    // Une tâche au plus par abonné : les messages partent dans l'ordre de la file, sans jamais
+    // attendre le client
+    private void envoyer(Abonne abonne) {
+        try {
+            while (true) {
+                Message message;
+                synchronized (abonne.file) {
+                    if (abonne.file.isEmpty()) {
+                        abonne.envoiPlanifie.set(false);
+                        return;
+                    }
+                    if (!abonne.sortie.isPrete()) {
+                        // Le conteneur rappellera planifier (ecriturePossible) quand le client lira
+                        if (abonne.bloqueDepuis == 0) {
+                            abonne.bloqueDepuis = System.nanoTime();
+                        }
+                        abonne.envoiPlanifie.set(false);
+                        // Un rappel survenu avant la ligne précédente a été écarté par planifier : revérifié
+                        if (!abonne.sortie.isPrete() || !abonne.envoiPlanifie.compareAndSet(false, true)) {
+                            return;
+                        }
+                        continue;
+                    }
+                    abonne.bloqueDepuis = 0;
+                    message = abonne.file.pollFirst();
+                }
+                abonne.sortie.ecrire(serialiser(message));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client déconnecté ou réponse terminée
+            retirer(abonne);
+            synchronized (abonne.file) {
+                abonne.file.clear();
+                abonne.envoiPlanifie.set(false);
+            }
+        }
+    }
+
+    // Événement SSE : event, data (JSON sur une ligne), ligne vide
+    private byte[] serialiser(Message message) throws JsonProcessingException {
+        return ("event:" + message.nom + "\ndata:" + objectMapper.writeValueAsString(message.donnees) + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ExecutorService creerExecutor(int threads) {
+        AtomicInteger compteur = new AtomicInteger();
+        // Une tâche au plus par abonné : la file est bornée par app.presences.stream.abonnes-max
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "presences-stream-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        abonnes.forEach(abonne -> abonne.sortie.fermer());
+        abonnes.clear();
+        places.set(0);
+        if (executorPropre != null) {
+            executorPropre.shutdownNow();
+        }
+    }
+
+    private static final class Abonne {
+
+        private final SortieFlux sortie;
+        private final Long departementId;
+        // File et état d'envoi, gardés par le moniteur de la file
+        private final ArrayDeque<Message> file = new ArrayDeque<>();
+        private final AtomicBoolean envoiPlanifie = new AtomicBoolean();
+        // Début (System.nanoTime) de l'attente d'un client qui ne lit plus, 0 sinon
+        private long bloqueDepuis;
+
+        private Abonne(SortieFlux sortie, Long departementId) {
+            this.sortie = sortie;
+            this.departementId = departementId;
+        }
+    }
+
+    private static final class Message {
+
+        private final String nom;
+        private final Object donnees;
+
+        private Message(String nom, Object donnees) {
+            this.nom = nom;
+            this.donnees = donnees;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.event.EmployeModifieEvent;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.EmployeDepartementProjection;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceOuverteRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index en mémoire des présences ouvertes (arrivée pointée, départ pas encore pointé), par
+ * présence, par employé et par département (app.presences.ouvertes.enabled). Il sert le
+ * comptage « qui est sur site » sans parcourir presences, et permet au pointage de départ de
+ * valider une présence ouverte sans la relire.
+ *
+ * L'index est chargé au démarrage puis suivi par les pointages validés (PointageEvent, après
+ * commit) et les changements d'affectation des employés. Les lectures ne prennent aucun verrou ;
+ * les écritures sont sérialisées. Les écritures validées pendant un chargement sont mises de côté
+ * puis rejouées (ajout et retrait sont idempotents). Tant qu'il n'est pas prêt, les appelants
+ * passent par la base.
+ */
+@Component
+public class PresenceOuverteIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceOuverteIndex.class);
+
+    // Clé des employés sans département (les identifiants de séquence commencent à 1)
+    private static final Long SANS_DEPARTEMENT = 0L;
+
+    private enum Etat { INACTIF, CHARGEMENT, PRET }
+
+    private final PresenceRepository presenceRepository;
+    private final EmployeRepository employeRepository;
+    private final TransactionTemplate lecture;
+    private final boolean enabled;
+
+    private final Map<Long, PresenceOuverte> parPresence = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> parEmploye = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> parDepartement = new ConcurrentHashMap<>();
+    // Département courant des employés déjà vus (SANS_DEPARTEMENT si aucun)
+    private final Map<Long, Long> departementParEmploye = new ConcurrentHashMap<>();
+
+    private final ReentrantLock ecriture = new ReentrantLock();
+    private volatile Etat etat = Etat.INACTIF;
+    private List<Runnable> enAttente = new ArrayList<>();
+
+    public PresenceOuverteIndex(PresenceRepository presenceRepository, EmployeRepository employeRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.presences.ouvertes.enabled:true}") boolean enabled) {
+        this.presenceRepository = presenceRepository;
+        this.employeRepository = employeRepository;
+        this.lecture = new TransactionTemplate(transactionManager);
+        this.lecture.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return true si l'index est chargé et peut servir les lectures.
+     */
+    public boolean isDisponible() {
+        return etat == Etat.PRET;
+    }
+
+    /**
+     * (Re)charge l'index depuis la base ; sans effet si l'index est désactivé.
+     */
+    public synchronized void charger() {
+        if (!enabled) {
+            return;
+        }
+        ecriture.lock();
+        try {
+            etat = Etat.CHARGEMENT;
+            enAttente = new ArrayList<>();
+        } finally {
+            ecriture.unlock();
+        }
+
+        List<PresenceOuverteRow> rows;
+        try {
+            rows = lecture.execute(status -> presenceRepository.findPresencesOuvertes());
+        } catch (RuntimeException e) {
+            ecriture.lock();
+            try {
+                etat = Etat.INACTIF;
+                enAttente = new ArrayList<>();
+            } finally {
+                ecriture.unlock();
+            }
+            throw e;
+        }
+
+        ecriture.lock();
+        try {
+            parPresence.clear();
+            parEmploye.clear();
+            parDepartement.clear();
+            for (PresenceOuverteRow row : rows) {
+                departementParEmploye.put(row.getEmployeId(), cleDepartement(row.getDepartementId()));
+                ajouter(new PresenceOuverte(row.getId(), row.getEmployeId(), row.getDate(), row.getArrivee()));
+            }
+            enAttente.forEach(Runnable::run);
+            enAttente = new ArrayList<>();
+            etat = Etat.PRET;
+        } finally {
+            ecriture.unlock();
+        }
+        log.info("Index des présences ouvertes chargé : {} présences ouvertes", rows.size());
+    }
+
+    /**
+     * @return La présence si elle est ouverte d'après l'index, sinon null (présence clôturée,
+     * inconnue ou index indisponible).
+     */
+    public PresenceOuverte getPresenceOuverte(Long presenceId) {
+        return etat == Etat.PRET ? parPresence.get(presenceId) : null;
+    }
+
+    /**
+     * @return Les présences ouvertes d'un employé (vide si l'index est indisponible).
+     */
+    public List<PresenceOuverte> getPresencesOuvertesEmploye(Long employeId) {
+        Set<Long> ids = etat == Etat.PRET ? parEmploye.get(employeId) : null;
+        List<PresenceOuverte> presences = new ArrayList<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                PresenceOuverte presence = parPresence.get(id);
+                if (presence != null) {
+                    presences.add(presence);
+                }
+            }
+        }
+        return presences;
+    }
+
+    /**
+     * @return Le nombre total de présences ouvertes.
+     */
+    public int getNombreOuvertes() {
+        return parPresence.size();
+    }
+
+    /**
+     * @param departementId Département, ou null pour les employés sans département.
+     * @return Le nombre de présences ouvertes des employés du département.
+     */
+    public int getNombreOuvertesDepartement(Long departementId) {
+        AtomicInteger nombre = parDepartement.get(cleDepartement(departementId));
+        return nombre == null ? 0 : nombre.get();
+    }
+
+    /**
+     * @return Le nombre de présences ouvertes par département (clé null : employés sans
+     * département), départements sans présence ouverte exclus.
+     */
+    public Map<Long, Integer> getNombreOuvertesParDepartement() {
+        Map<Long, Integer> nombres = new HashMap<>();
+        parDepartement.forEach((departement, nombre) -> {
+            if (nombre.get() > 0) {
+                nombres.put(SANS_DEPARTEMENT.equals(departement) ? null : departement, nombre.get());
+            }
+        });
+        return nombres;
+    }
+
+    /**
+     * @return true si l'index connaît le département de l'employé (employé ayant pointé depuis le chargement).
+     */
+    public boolean connaitEmploye(Long employeId) {
+        return etat == Etat.PRET && departementParEmploye.containsKey(employeId);
+    }
+
+    /**
+     * @return Le département de l'employé d'après l'index, null s'il n'en a pas ou s'il est inconnu (voir connaitEmploye).
+     */
+    public Long getDepartementEmploye(Long employeId) {
+        Long departement = departementParEmploye.get(employeId);
+        return departement == null || SANS_DEPARTEMENT.equals(departement) ? null : departement;
+    }
+
+    /**
+     * Retire une présence que la base a trouvée déjà clôturée (clôture par une autre instance
+     * ou événement perdu).
+     */
+    public void oublier(Long presenceId) {
+        ecrire(() -> retirer(presenceId));
+    }
+
+    // Avant les autres écouteurs du commit : le flux des présences lit l'index à jour
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPointage(PointageEvent event) {
+        if (etat == Etat.INACTIF) {
+            return;
+        }
+        if (event.getType() == PointageEvent.Type.DEPART) {
+            ecrire(() -> retirer(event.getPresenceId()));
+            return;
+        }
+        // Employé pas encore vu : son département est lu avant de prendre le verrou
+        EmployeDepartementProjection affectation = departementParEmploye.containsKey(event.getEmployeId())
+                ? null : employeRepository.findDepartementEmploye(event.getEmployeId()).orElse(null);
+        PresenceOuverte presence = new PresenceOuverte(event.getPresenceId(), event.getEmployeId(), event.getDate(), event.getHeure());
+        ecrire(() -> {
+            if (affectation != null) {
+                departementParEmploye.putIfAbsent(event.getEmployeId(), cleDepartement(affectation.getDepartementId()));
+            }
+            ajouter(presence);
+        });
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEmployeModifie(EmployeModifieEvent event) {
+        if (etat == Etat.INACTIF || !event.isDepartementChange()) {
+            return;
+        }
+        employeRepository.findDepartementEmploye(event.getEmployeId())
+                .ifPresent(affectation -> ecrire(() -> affecter(affectation.getEmployeId(), cleDepartement(affectation.getDepartementId()))));
+    }
+
+    private void ecrire(Runnable operation) {
+        ecriture.lock();
+        try {
+            if (etat == Etat.CHARGEMENT) {
+                enAttente.add(operation);
+            } else if (etat == Etat.PRET) {
+                operation.run();
+            }
+        } finally {
+            ecriture.unlock();
+        }
+    }
+
+    // Appelées sous le verrou d'écriture
+
+    private void ajouter(PresenceOuverte presence) {
+        if (parPresence.putIfAbsent(presence.getId(), presence) != null) {
+            return;
+        }
+        parEmploye.computeIfAbsent(presence.getEmployeId(), id -> ConcurrentHashMap.newKeySet()).add(presence.getId());
+        Long departement = departementParEmploye.computeIfAbsent(presence.getEmployeId(), id -> SANS_DEPARTEMENT);
+        parDepartement.computeIfAbsent(departement, id -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private void retirer(Long presenceId) {
+        PresenceOuverte presence = parPresence.remove(presenceId);
+        if (presence == null) {
+            return;
+        }
+        Set<Long> ids = parEmploye.get(presence.getEmployeId());
+        ids.remove(presenceId);
+        if (ids.isEmpty()) {
+            parEmploye.remove(presence.getEmployeId());
+        }
+        parDepartement.get(departementParEmploye.get(presence.getEmployeId())).decrementAndGet();
+    }
+
+    private void affecter(Long employeId, Long departement) {
+        Long ancien = departementParEmploye.put(employeId, departement);
+        Set<Long> ids = parEmploye.get(employeId);
+        if (ancien == null || ids == null || departement.equals(ancien)) {
+            return;
+        }
+        parDepartement.get(ancien).addAndGet(-ids.size());
+        parDepartement.computeIfAbsent(departement, id -> new AtomicInteger()).addAndGet(ids.size());
+    }
+
+    private static Long cleDepartement(Long departementId) {
+        return departementId == null ? SANS_DEPARTEMENT : departementId;
+    }
+
+    /**
+     * Présence ouverte telle qu'enregistrée au pointage d'arrivée.
+     */
+    public static final class PresenceOuverte {
+
+        private final Long id;
+        private final Long employeId;
+        private final LocalDate date;
+        private final LocalTime arrivee;
+
+        public PresenceOuverte(Long id, Long employeId, LocalDate date, LocalTime arrivee) {
+            this.id = id;
+            this.employeId = employeId;
+            this.date = date;
+            this.arrivee = arrivee;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Long getEmployeId() {
+            return employeId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public LocalTime getArrivee() {
+            return arrivee;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.gestionemployes.employee_management_api.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Charge l'index des présences ouvertes au démarrage (sans effet s'il est désactivé).
+ */
+@Component
+public class PresenceOuverteIndexInitializer implements ApplicationRunner {
+
+    private final PresenceOuverteIndex presenceOuverteIndex;
+
+    public PresenceOuverteIndexInitializer(PresenceOuverteIndex presenceOuverteIndex) {
+        this.presenceOuverteIndex = presenceOuverteIndex;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        presenceOuverteIndex.charger();
+    }
+}
@@ -0,0 +1,24 @@
+package com.gestionemployes.employee_management_api.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Crée au démarrage les partitions mensuelles de presences à venir : une instance arrêtée
+ * au passage du mois n'attend pas la tâche quotidienne.
+ */
+@Component
+public class PresencePartitionInitializer implements ApplicationRunner {
+
+    private final PresencePartitionService presencePartitionService;
+
+    public PresencePartitionInitializer(PresencePartitionService presencePartitionService) {
+        this.presencePartitionService = presencePartitionService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        presencePartitionService.creerPartitionsAVenir();
+    }
+}
@@ -0,0 +1,66 @@
+package com.gestionemployes.employee_management_api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Partitions mensuelles de presences (migration V2) : crée à l'avance celles du mois courant et
+ * des app.presences.partitions.avance mois suivants, au démarrage puis chaque jour
+ * (app.presences.partitions.cron). Une partition manquante ne bloque pas le pointage (les lignes
+ * vont dans presences_defaut), mais elle prive les requêtes de l'élagage par mois.
+ */
+@Service
+public class PresencePartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PresencePartitionService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int moisAvance;
+    private final Clock clock;
+
+    @Autowired
+    public PresencePartitionService(JdbcTemplate jdbcTemplate, @Value("${app.presences.partitions.avance:3}") int moisAvance) {
+        this(jdbcTemplate, moisAvance, Clock.systemDefaultZone());
+    }
+
+    public PresencePartitionService(JdbcTemplate jdbcTemplate, int moisAvance, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.moisAvance = moisAvance;
+        this.clock = clock;
+    }
+
+    /**
+     * Crée les partitions manquantes du mois courant aux app.presences.partitions.avance mois suivants.
+     *
+     * @return Le nombre de partitions créées.
+     */
+    @Scheduled(cron = "${app.presences.partitions.cron:0 0 2 * * *}")
+    public int creerPartitionsAVenir() {
+        YearMonth courant = YearMonth.now(clock);
+        return creerPartitions(courant, courant.plusMonths(moisAvance));
+    }
+
+    /**
+     * Crée les partitions manquantes des mois de debut à fin inclus ; les lignes de ces mois
+     * déjà dans presences_defaut y sont déplacées.
+     *
+     * @return Le nombre de partitions créées.
+     */
+    public int creerPartitions(YearMonth debut, YearMonth fin) {
+        Integer creees = jdbcTemplate.queryForObject("SELECT creer_partitions_presences(?, ?)", Integer.class,
+                debut.atDay(1), fin.atDay(1));
+        if (creees != null && creees > 0) {
+            log.info("{} partition(s) mensuelle(s) de presences créée(s) de {} à {}", creees, debut, fin);
+        }
+        return creees == null ? 0 : creees;
+    }
+}
@@ -0,0 +1,268 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.dto.PresenceArriveeRequest;
+import com.gestionemployes.employee_management_api.dto.PresenceDepartRequest;
+import com.gestionemployes.employee_management_api.dto.PresenceLotReponseDto;
+import com.gestionemployes.employee_management_api.dto.PresenceLotResultatDto;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
+import com.gestionemployes.employee_management_api.mapper.PresenceMapper;
+import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Pointages d'arrivée et de départ reçus par lots (passerelles de badgeuses qui envoient
+ * leurs passages accumulés). Chaque élément est validé et contrôlé comme un pointage unitaire,
+ * avec les mêmes messages, et reçoit son propre résultat : un élément rejeté n'empêche pas
+ * l'enregistrement des autres. Les lectures sont faites en une requête par lot. Les arrivées
+ * sont insérées en une instruction qui ignore les couples (employé, date) déjà présents
+ * (insererArrivees) : un pointage concurrent, par exemple une passerelle qui renvoie son lot,
+ * rejette son seul élément au lieu d'annuler le lot. Chaque départ est une clôture conditionnelle
+ * (depart IS NULL) : une présence clôturée entre-temps est rejetée et n'est comptée qu'une fois
+ * dans les cumuls.
+ */
+@Service
+public class PresencePointageLotService {
+
+    public static final int TAILLE_LOT_MAX = 1000;
+
+    private static final String DEPART_DEJA_ENREGISTRE = "Le pointage de départ a déjà été enregistré pour cet enregistrement de présence.";
+
+    private final PresenceRepository presenceRepository;
+    private final EmployeRepository employeRepository;
+    private final PresenceRollupService presenceRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PresenceMapper presenceMapper;
+    private final Validator validator;
+    private final PresenceArchive presenceArchive;
+
+    public PresencePointageLotService(PresenceRepository presenceRepository, EmployeRepository employeRepository,
+                                      PresenceRollupService presenceRollupService, ApplicationEventPublisher eventPublisher,
+                                      PresenceMapper presenceMapper, Validator validator, PresenceArchive presenceArchive) {
+        this.presenceRepository = presenceRepository;
+        this.employeRepository = employeRepository;
+        this.presenceRollupService = presenceRollupService;
+        this.eventPublisher = eventPublisher;
+        this.presenceMapper = presenceMapper;
+        this.validator = validator;
+        this.presenceArchive = presenceArchive;
+    }
+
+    /**
+     * Enregistre un lot de pointages d'arrivée.
+     *
+     * @throws BadRequestException si le lot est vide ou dépasse TAILLE_LOT_MAX éléments.
+     */
+    @Transactional
+    public PresenceLotReponseDto pointagesArrivee(List<PresenceArriveeRequest> requests) {
+        verifierTaille(requests);
+        PresenceLotResultatDto[] resultats = new PresenceLotResultatDto[requests.size()];
+
+        Set<Long> employeIds = new HashSet<>();
+        Set<LocalDate> dates = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String erreur = valider(requests.get(i));
+            if (erreur != null) {
+                resultats[i] = erreur(i, HttpStatus.BAD_REQUEST, erreur);
+            } else {
+                employeIds.add(requests.get(i).getEmployeId());
+                dates.add(requests.get(i).getDate());
+            }
+        }
+
+        Set<Long> employesExistants = employeIds.isEmpty() ? Set.of() : employeRepository.findIdsExistants(employeIds);
+        Map<Long, Map<LocalDate, Presence>> existantes = employesExistants.isEmpty() ? Map.of() : lirePresences(employesExistants, dates);
+
+        // Doublons internes : une arrivée retenue plus tôt dans le lot est encore ouverte
+        Map<Long, Set<LocalDate>> retenues = new HashMap<>();
+        List<Integer> indexRetenus = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (resultats[i] != null) {
+                continue;
+            }
+            PresenceArriveeRequest request = requests.get(i);
+            if (!employesExistants.contains(request.getEmployeId())) {
+                resultats[i] = employeIntrouvable(i, request);
+                continue;
+            }
+            Presence existante = existantes.getOrDefault(request.getEmployeId(), Map.of()).get(request.getDate());
+            PresencePointageRow archivee;
+            if (existante != null) {
+                resultats[i] = dejaPointe(i, request, existante.getDepart() == null);
+            } else if ((archivee = presenceArchive.getPresence(request.getEmployeId(), request.getDate())) != null) {
+                // Mois archivé : la présence a quitté la table, l'insertion ne la verrait pas
+                resultats[i] = dejaPointe(i, request, archivee.getDepart() == null);
+            } else if (!retenues.computeIfAbsent(request.getEmployeId(), id -> new HashSet<>()).add(request.getDate())) {
+                resultats[i] = dejaPointe(i, request, true);
+            } else {
+                indexRetenus.add(i);
+            }
+        }
+        if (indexRetenus.isEmpty()) {
+            return new PresenceLotReponseDto(List.of(resultats));
+        }
+
+        // Une instruction pour le lot : un pointage concurrent du même (employé, date) est ignoré par
+        // ON CONFLICT DO NOTHING au lieu de violer uk_presences_employe_date et d'annuler tout le lot
+        List<Long> employesRetenus = new ArrayList<>(indexRetenus.size());
+        List<LocalDate> datesRetenues = new ArrayList<>(indexRetenus.size());
+        List<LocalTime> arrivees = new ArrayList<>(indexRetenus.size());
+        for (int i : indexRetenus) {
+            employesRetenus.add(requests.get(i).getEmployeId());
+            datesRetenues.add(requests.get(i).getDate());
+            arrivees.add(requests.get(i).getArrivee());
+        }
+        Map<Long, Map<LocalDate, PresencePointageRow>> creees = new HashMap<>();
+        for (PresencePointageRow row : presenceRepository.insererArrivees(employesRetenus, datesRetenues, arrivees)) {
+            creees.computeIfAbsent(row.getEmployeId(), id -> new HashMap<>()).put(row.getDate(), row);
+            eventPublisher.publishEvent(new PointageEvent(PointageEvent.Type.ARRIVEE, row.getId(), row.getEmployeId(),
+                    row.getDate(), row.getArrivee(), null));
+        }
+
+        List<Integer> ignores = new ArrayList<>();
+        for (int i : indexRetenus) {
+            PresenceArriveeRequest request = requests.get(i);
+            PresencePointageRow row = creees.getOrDefault(request.getEmployeId(), Map.of()).get(request.getDate());
+            if (row != null) {
+                resultats[i] = new PresenceLotResultatDto(i, HttpStatus.CREATED.value(), presenceMapper.toDto(row), null);
+            } else {
+                ignores.add(i);
+            }
+        }
+        if (!ignores.isEmpty()) {
+            // Ignorés à l'insertion : pointage concurrent validé entre-temps, ou employé supprimé
+            Map<Long, Map<LocalDate, Presence>> concurrentes = lirePresences(
+                    ignores.stream().map(i -> requests.get(i).getEmployeId()).collect(Collectors.toSet()),
+                    ignores.stream().map(i -> requests.get(i).getDate()).collect(Collectors.toSet()));
+            for (int i : ignores) {
+                PresenceArriveeRequest request = requests.get(i);
+                Presence concurrente = concurrentes.getOrDefault(request.getEmployeId(), Map.of()).get(request.getDate());
+                resultats[i] = concurrente != null ? dejaPointe(i, request, concurrente.getDepart() == null) : employeIntrouvable(i, request);
+            }
+        }
+        return new PresenceLotReponseDto(List.of(resultats));
+    }
+
+    /**
+     * Enregistre un lot de pointages de départ.
+     *
+     * @throws BadRequestException si le lot est vide ou dépasse TAILLE_LOT_MAX éléments.
+     */
+    @Transactional
+    public PresenceLotReponseDto pointagesDepart(List<PresenceDepartRequest> requests) {
+        verifierTaille(requests);
+        PresenceLotResultatDto[] resultats = new PresenceLotResultatDto[requests.size()];
+
+        Set<Long> presenceIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String erreur = valider(requests.get(i));
+            if (erreur != null) {
+                resultats[i] = erreur(i, HttpStatus.BAD_REQUEST, erreur);
+            } else {
+                presenceIds.add(requests.get(i).getPresenceId());
+            }
+        }
+
+        Map<Long, Presence> presences = new HashMap<>();
+        presenceRepository.findAllById(presenceIds).forEach(presence -> presences.put(presence.getId(), presence));
+
+        for (int i = 0; i < requests.size(); i++) {
+            if (resultats[i] != null) {
+                continue;
+            }
+            PresenceDepartRequest request = requests.get(i);
+            Presence presence = presences.get(request.getPresenceId());
+            if (presence == null) {
+                resultats[i] = erreur(i, HttpStatus.NOT_FOUND,
+                        new ResourceNotFoundException("Enregistrement de présence", "id", request.getPresenceId()).getMessage());
+            } else if (presence.getDepart() != null) {
+                resultats[i] = erreur(i, HttpStatus.BAD_REQUEST, DEPART_DEJA_ENREGISTRE);
+            } else if (request.getDepart().isBefore(presence.getArrivee())) {
+                resultats[i] = erreur(i, HttpStatus.BAD_REQUEST, "L'heure de départ (" + request.getDepart() + ") ne peut pas être avant l'heure d'arrivée (" + presence.getArrivee() + ").");
+            } else {
+                // Copie hors session, comme au pointage unitaire : la présence lue reste intacte et
+                // seule la clôture conditionnelle écrit. Une clôture concurrente (pointage unitaire,
+                // autre lot, même présence plus tôt dans ce lot) laisse 0 ligne modifiée.
+                Presence cloturee = new Presence(presence.getEmploye(), presence.getDate(), presence.getArrivee());
+                cloturee.setId(presence.getId());
+                cloturee.setDepart(request.getDepart());
+                if (presenceRepository.cloturerSiOuverte(cloturee.getId(), cloturee.getDepart(), cloturee.getHeuresTravaillees()) == 0) {
+                    resultats[i] = erreur(i, HttpStatus.BAD_REQUEST, DEPART_DEJA_ENREGISTRE);
+                    continue;
+                }
+                presenceRollupService.enregistrerPresenceCloturee(cloturee);
+                resultats[i] = new PresenceLotResultatDto(i, HttpStatus.OK.value(), presenceMapper.toDto(cloturee), null);
+                eventPublisher.publishEvent(new PointageEvent(PointageEvent.Type.DEPART, cloturee.getId(), cloturee.getEmploye().getId(),
+                        cloturee.getDate(), cloturee.getDepart(), cloturee.getHeuresTravaillees()));
+            }
+        }
+        return new PresenceLotReponseDto(List.of(resultats));
+    }
+
+    private void verifierTaille(List<?> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("Le lot de pointages ne peut pas être vide.");
+        }
+        if (requests.size() > TAILLE_LOT_MAX) {
+            throw new BadRequestException("Un lot ne peut pas dépasser " + TAILLE_LOT_MAX + " pointages (" + requests.size() + " reçus).");
+        }
+    }
+
+    // Contraintes de validation de la requête unitaire, ou null si l'élément est valide
+    private String valider(Object request) {
+        if (request == null) {
+            return "L'élément du lot ne peut pas être nul.";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + " : " + violation.getMessage())
+                .collect(Collectors.joining(" ; "));
+    }
+
+    // employé -> date -> présence existante
+    private Map<Long, Map<LocalDate, Presence>> lirePresences(Set<Long> employeIds, Set<LocalDate> dates) {
+        Map<Long, Map<LocalDate, Presence>> presences = new HashMap<>();
+        for (Presence presence : presenceRepository.findByEmployeIdInAndDateIn(employeIds, dates)) {
+            presences.computeIfAbsent(presence.getEmploye().getId(), id -> new HashMap<>()).put(presence.getDate(), presence);
+        }
+        return presences;
+    }
+
+    private static PresenceLotResultatDto dejaPointe(int index, PresenceArriveeRequest request, boolean ouverte) {
+        return erreur(index, HttpStatus.BAD_REQUEST, ouverte
+                ? "L'employé a déjà pointé son arrivée pour le " + request.getDate() + " et n'a pas encore pointé son départ."
+                : "L'employé a déjà complété un pointage pour le " + request.getDate() + ".");
+    }
+
+    private static PresenceLotResultatDto employeIntrouvable(int index, PresenceArriveeRequest request) {
+        return erreur(index, HttpStatus.NOT_FOUND, new ResourceNotFoundException("Employé", "id", request.getEmployeId()).getMessage());
+    }
+
+    private static PresenceLotResultatDto erreur(int index, HttpStatus status, String message) {
+        return new PresenceLotResultatDto(index, status.value(), null, message);
+    }
+}
@@ -0,0 +1,33 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRollupRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Construit les cumuls de présence au démarrage lorsqu'ils n'existent pas encore
+ * (première mise en service sur une base contenant déjà des présences).
+ */
+@Component
+public class PresenceRollupInitializer implements ApplicationRunner {
+
+    private final PresenceRollupRepository presenceRollupRepository;
+    private final PresenceRepository presenceRepository;
+    private final PresenceRollupService presenceRollupService;
+
+    public PresenceRollupInitializer(PresenceRollupRepository presenceRollupRepository, PresenceRepository presenceRepository,
+                                     PresenceRollupService presenceRollupService) {
+        this.presenceRollupRepository = presenceRollupRepository;
+        this.presenceRepository = presenceRepository;
+        this.presenceRollupService = presenceRollupService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (presenceRollupRepository.count() == 0 && presenceRepository.existsByHeuresTravailleesIsNotNull()) {
+            presenceRollupService.reconstruireRollups();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.model.RollupDimension;
+import com.gestionemployes.employee_management_api.repository.PresenceRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintient les cumuls de présence (presence_rollups) utilisés par le rapport de tendances.
+ * Les cumuls sont incrémentés dans la transaction du pointage de départ, et peuvent être
+ * régénérés à partir de la table presences et des mois archivés après une correction en masse.
+ */
+@Service
+public class PresenceRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceRollupService.class);
+
+    private final PresenceRollupRepository presenceRollupRepository;
+    private final PresenceArchive presenceArchive;
+
+    public PresenceRollupService(PresenceRollupRepository presenceRollupRepository, PresenceArchive presenceArchive) {
+        this.presenceRollupRepository = presenceRollupRepository;
+        this.presenceArchive = presenceArchive;
+    }
+
+    /**
+     * Ajoute les minutes d'une présence clôturée aux cumuls.
+     * Doit être appelée dans la transaction qui enregistre le départ.
+     *
+     * @param presence La présence dont le départ vient d'être enregistré.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrerPresenceCloturee(Presence presence) {
+        if (presence.getHeuresTravaillees() == null) {
+            return;
+        }
+        presenceRollupRepository.addMinutes(presence.getEmploye().getId(), presence.getDate(), presence.getHeuresTravaillees());
+    }
+
+    /**
+     * Régénère l'ensemble des cumuls à partir des mois archivés puis de la table presences.
+     *
+     * @return Le nombre de lignes de cumul produites.
+     */
+    @Transactional
+    public int reconstruireRollups() {
+        presenceRollupRepository.lockForRebuild();
+        presenceRollupRepository.deleteAllRollups();
+
+        int lignes = ajouterCumulsArchives()
+                + presenceRollupRepository.rebuildByDate()
+                + presenceRollupRepository.rebuildByYearMonth()
+                + presenceRollupRepository.rebuildByDayOfWeek()
+                + presenceRollupRepository.rebuildByEmploye();
+
+        log.info("Cumuls de présence reconstruits : {} lignes", lignes);
+        return lignes;
+    }
+
+    // Cumuls des mois archivés, calculés ici et insérés avant ceux de la table (ordre chronologique des jours)
+    private int ajouterCumulsArchives() {
+        if (!presenceArchive.contientSegments()) {
+            return 0;
+        }
+        Map<String, Long> parJour = new TreeMap<>();
+        Map<String, Long> parMois = new TreeMap<>();
+        Map<DayOfWeek, Long> parJourSemaine = new EnumMap<>(DayOfWeek.class);
+        Map<Long, Long> parEmploye = new LinkedHashMap<>();
+        presenceArchive.parcourir(PresenceTrendFilter.sansFiltre(), presence -> {
+            if (presence.getMinutes() == null) {
+                return;
+            }
+            long minutes = presence.getMinutes();
+            parJour.merge(presence.getDate().toString(), minutes, Long::sum);
+            parMois.merge(YearMonth.from(presence.getDate()).toString(), minutes, Long::sum);
+            parJourSemaine.merge(presence.getDate().getDayOfWeek(), minutes, Long::sum);
+            parEmploye.merge(presence.getEmployeId(), minutes, Long::sum);
+        });
+
+        // Mêmes clés que les requêtes de reconstruction : YYYY-MM-DD, YYYY-MM, nom du jour en anglais (FMDAY)
+        int lignes = 0;
+        for (Map.Entry<String, Long> total : parJour.entrySet()) {
+            lignes += presenceRollupRepository.ajouterTotal(RollupDimension.JOUR.name(), total.getKey(), total.getValue());
+        }
+        for (Map.Entry<String, Long> total : parMois.entrySet()) {
+            lignes += presenceRollupRepository.ajouterTotal(RollupDimension.ANNEE_MOIS.name(), total.getKey(), total.getValue());
+        }
+        for (Map.Entry<DayOfWeek, Long> total : parJourSemaine.entrySet()) {
+            lignes += presenceRollupRepository.ajouterTotal(RollupDimension.JOUR_SEMAINE.name(), total.getKey().name(), total.getValue());
+        }
+        for (Map.Entry<Long, Long> total : parEmploye.entrySet()) {
+            lignes += presenceRollupRepository.ajouterTotal(RollupDimension.EMPLOYE.name(), total.getKey().toString(), total.getValue());
+        }
+        log.debug("Cumuls des mois archivés : {} lignes", lignes);
+        return lignes;
+    }
+}
@@ -0,0 +1,14 @@
+package com.gestionemployes.employee_management_api.service;
+
+import java.time.LocalDate;
+
+/**
+ * Agrégat alimenté ligne à ligne par PresenceStreamReader, puis fusionné avec les agrégats
+ * des autres partitions.
+ */
+interface PresenceRowAggregator<A extends PresenceRowAggregator<A>> {
+
+    void add(LocalDate date, Long employeId, String departementNom, long minutes);
+
+    void merge(A other);
+}
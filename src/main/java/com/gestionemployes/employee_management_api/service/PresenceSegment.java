@@ -0,0 +1,411 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Segment d'archive des présences d'un mois : fichier immuable, écrit une fois puis projeté en
+ * mémoire en lecture seule. Les présences y sont regroupées par employé, un bloc compressé
+ * (Deflate) par employé, et un index trié par employé en fin de fichier donne la position de
+ * chaque bloc : les présences d'un employé se lisent par recherche dichotomique dans l'index
+ * puis décompression d'un seul bloc.
+ *
+ * Entête (48 octets) : magie, version, année, mois, nombre d'employés, nombre de présences,
+ * nombre de présences clôturées, CRC32C de tout ce qui suit l'entête, minutes travaillées
+ * totales, position de l'index.
+ * Présence décompressée (33 octets) : id, jour du mois, arrivée, départ et minutes travaillées
+ * (départ et minutes à -1 pour une présence ouverte ; heures en nanosecondes du jour).
+ * Entrée d'index (24 octets) : employé, position du bloc, taille compressée, nombre de présences.
+ */
+public final class PresenceSegment implements Closeable {
+
+    static final int TAILLE_ENTETE = 48;
+    static final int TAILLE_PRESENCE = 8 + 1 + 8 + 8 + 8;
+    static final int TAILLE_ENTREE_INDEX = 24;
+
+    private static final int MAGIE = 0x50534547;
+    private static final int VERSION = 1;
+
+    private final FileChannel canal;
+    private final MappedByteBuffer tampon;
+    private final YearMonth mois;
+    private final int nombreEmployes;
+    private final int nombrePresences;
+    private final int nombreCloturees;
+    private final long totalMinutes;
+    private final int positionIndex;
+
+    private PresenceSegment(FileChannel canal, MappedByteBuffer tampon) {
+        this.canal = canal;
+        this.tampon = tampon;
+        this.mois = YearMonth.of(tampon.getInt(8), tampon.getInt(12));
+        this.nombreEmployes = tampon.getInt(16);
+        this.nombrePresences = tampon.getInt(20);
+        this.nombreCloturees = tampon.getInt(24);
+        this.totalMinutes = tampon.getLong(32);
+        this.positionIndex = Math.toIntExact(tampon.getLong(40));
+    }
+
+    /**
+     * Écrit le segment d'un mois. Le fichier est d'abord écrit à côté puis synchronisé sur disque,
+     * et ne prend son nom qu'une fois complet (renommage atomique).
+     *
+     * @param fichier    Fichier du segment (remplacé s'il existe).
+     * @param mois       Mois archivé.
+     * @param presences  Présences du mois, triées par employé puis par date.
+     * @throws IllegalArgumentException si une présence est hors du mois ou si l'ordre par employé n'est pas respecté.
+     */
+    public static void ecrire(Path fichier, YearMonth mois, Iterator<? extends PresencePointageRow> presences) throws IOException {
+        if (fichier.getParent() != null) {
+            Files.createDirectories(fichier.getParent());
+        }
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            Ecrivain ecrivain = new Ecrivain(canal, mois);
+            while (presences.hasNext()) {
+                ecrivain.ajouter(presences.next());
+            }
+            ecrivain.terminer();
+            canal.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaire);
+            throw e;
+        }
+        Files.move(temporaire, fichier, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Ouvre un segment en lecture seule et vérifie son intégrité.
+     *
+     * @throws IOException si le fichier n'est pas un segment valide (entête ou CRC inattendus).
+     */
+    public static PresenceSegment ouvrir(Path fichier) throws IOException {
+        FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ);
+        try {
+            long taille = canal.size();
+            if (taille < TAILLE_ENTETE || taille > Integer.MAX_VALUE) {
+                throw new IOException("Segment d'archive invalide (" + taille + " octets) : " + fichier);
+            }
+            MappedByteBuffer tampon = canal.map(FileChannel.MapMode.READ_ONLY, 0, taille);
+            if (tampon.getInt(0) != MAGIE || tampon.getInt(4) != VERSION) {
+                throw new IOException("Entête de segment d'archive inattendu : " + fichier);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(tampon.slice(TAILLE_ENTETE, (int) taille - TAILLE_ENTETE));
+            long positionIndex = tampon.getLong(40);
+            if ((int) crc.getValue() != tampon.getInt(28)
+                    || positionIndex + (long) tampon.getInt(16) * TAILLE_ENTREE_INDEX != taille) {
+                throw new IOException("Segment d'archive corrompu : " + fichier);
+            }
+            return new PresenceSegment(canal, tampon);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public YearMonth getMois() {
+        return mois;
+    }
+
+    public int getNombreEmployes() {
+        return nombreEmployes;
+    }
+
+    public int getNombrePresences() {
+        return nombrePresences;
+    }
+
+    public int getNombreCloturees() {
+        return nombreCloturees;
+    }
+
+    public long getTotalMinutes() {
+        return totalMinutes;
+    }
+
+    /**
+     * @return Les présences de l'employé sur le mois, par date (liste vide s'il n'en a aucune).
+     */
+    public List<PresencePointageRow> lireEmploye(long employeId) {
+        int bas = 0;
+        int haut = nombreEmployes - 1;
+        while (bas <= haut) {
+            int milieu = (bas + haut) >>> 1;
+            long employe = tampon.getLong(positionIndex + milieu * TAILLE_ENTREE_INDEX);
+            if (employe < employeId) {
+                bas = milieu + 1;
+            } else if (employe > employeId) {
+                haut = milieu - 1;
+            } else {
+                List<PresencePointageRow> presences = new ArrayList<>();
+                lireBloc(milieu, presences::add);
+                return presences;
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * @return L'employé d'une entrée de l'index (0 à getNombreEmployes() - 1, ids croissants).
+     */
+    public long getEmployeId(int entree) {
+        return tampon.getLong(positionIndex + entree * TAILLE_ENTREE_INDEX);
+    }
+
+    /**
+     * @return Les présences de l'employé d'une entrée de l'index, par date.
+     */
+    public List<PresencePointageRow> lireEntree(int entree) {
+        List<PresencePointageRow> presences = new ArrayList<>();
+        lireBloc(entree, presences::add);
+        return presences;
+    }
+
+    /**
+     * @return La première présence du segment (premier employé de l'index), ou null si le segment est vide.
+     */
+    public PresencePointageRow premiere() {
+        if (nombreEmployes == 0) {
+            return null;
+        }
+        List<PresencePointageRow> presences = new ArrayList<>();
+        lireBloc(0, presences::add);
+        return presences.get(0);
+    }
+
+    /**
+     * Parcourt toutes les présences du segment, par employé puis par date.
+     */
+    public void parcourir(Consumer<PresencePointageRow> consommateur) {
+        for (int entree = 0; entree < nombreEmployes; entree++) {
+            lireBloc(entree, consommateur);
+        }
+    }
+
+    private void lireBloc(int entree, Consumer<PresencePointageRow> consommateur) {
+        int positionEntree = positionIndex + entree * TAILLE_ENTREE_INDEX;
+        long employeId = tampon.getLong(positionEntree);
+        int position = Math.toIntExact(tampon.getLong(positionEntree + 8));
+        int longueur = tampon.getInt(positionEntree + 16);
+        int nombre = tampon.getInt(positionEntree + 20);
+
+        byte[] brut = new byte[nombre * TAILLE_PRESENCE];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(tampon.slice(position, longueur));
+            int lus = 0;
+            while (lus < brut.length && !inflater.finished()) {
+                int n = inflater.inflate(brut, lus, brut.length - lus);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                lus += n;
+            }
+            if (lus != brut.length) {
+                throw new IllegalStateException("Bloc tronqué dans le segment d'archive " + mois + " (employé " + employeId + ")");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Bloc illisible dans le segment d'archive " + mois + " (employé " + employeId + ")", e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer presences = ByteBuffer.wrap(brut);
+        for (int i = 0; i < nombre; i++) {
+            long id = presences.getLong();
+            LocalDate date = mois.atDay(presences.get());
+            LocalTime arrivee = LocalTime.ofNanoOfDay(presences.getLong());
+            long depart = presences.getLong();
+            long minutes = presences.getLong();
+            consommateur.accept(new Ligne(id, employeId, date, arrivee, depart < 0 ? null : LocalTime.ofNanoOfDay(depart),
+                    minutes < 0 ? null : minutes));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    // Écriture séquentielle : un bloc compressé par employé, puis l'index et l'entête
+    private static final class Ecrivain {
+
+        private final FileChannel canal;
+        private final YearMonth mois;
+        private final CRC32C crc = new CRC32C();
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+        private long[] employes = new long[64];
+        private long[] positions = new long[64];
+        private int[] longueurs = new int[64];
+        private int[] nombres = new int[64];
+        private int nombreEmployes;
+        private int nombrePresences;
+        private int nombreCloturees;
+        private long totalMinutes;
+        private long position = TAILLE_ENTETE;
+
+        private Long employeCourant;
+        private ByteBuffer presencesCourantes = ByteBuffer.allocate(TAILLE_PRESENCE * 31);
+        private int nombreCourant;
+
+        private Ecrivain(FileChannel canal, YearMonth mois) {
+            this.canal = canal;
+            this.mois = mois;
+        }
+
+        private void ajouter(PresencePointageRow presence) throws IOException {
+            if (!YearMonth.from(presence.getDate()).equals(mois)) {
+                throw new IllegalArgumentException("Présence " + presence.getId() + " du " + presence.getDate() + " hors du mois archivé " + mois);
+            }
+            if (employeCourant == null || employeCourant.longValue() != presence.getEmployeId()) {
+                if (employeCourant != null && employeCourant > presence.getEmployeId()) {
+                    throw new IllegalArgumentException("Présences non triées par employé (" + presence.getEmployeId() + " après " + employeCourant + ")");
+                }
+                ecrireBloc();
+                employeCourant = presence.getEmployeId();
+            }
+            if (presencesCourantes.remaining() < TAILLE_PRESENCE) {
+                presencesCourantes = ByteBuffer.allocate(presencesCourantes.capacity() * 2).put(presencesCourantes.flip());
+            }
+            presencesCourantes.putLong(presence.getId())
+                    .put((byte) presence.getDate().getDayOfMonth())
+                    .putLong(presence.getArrivee().toNanoOfDay())
+                    .putLong(presence.getDepart() == null ? -1 : presence.getDepart().toNanoOfDay())
+                    .putLong(presence.getMinutes() == null ? -1 : presence.getMinutes());
+            nombreCourant++;
+            nombrePresences++;
+            if (presence.getMinutes() != null) {
+                nombreCloturees++;
+                totalMinutes += presence.getMinutes();
+            }
+        }
+
+        private void ecrireBloc() throws IOException {
+            if (employeCourant == null) {
+                return;
+            }
+            ByteArrayOutputStream compresse = new ByteArrayOutputStream(presencesCourantes.position() / 2 + 16);
+            deflater.reset();
+            try (DeflaterOutputStream sortie = new DeflaterOutputStream(compresse, deflater)) {
+                sortie.write(presencesCourantes.array(), 0, presencesCourantes.position());
+            }
+            byte[] octets = compresse.toByteArray();
+
+            if (nombreEmployes == employes.length) {
+                int capacite = employes.length * 2;
+                employes = Arrays.copyOf(employes, capacite);
+                positions = Arrays.copyOf(positions, capacite);
+                longueurs = Arrays.copyOf(longueurs, capacite);
+                nombres = Arrays.copyOf(nombres, capacite);
+            }
+            employes[nombreEmployes] = employeCourant;
+            positions[nombreEmployes] = position;
+            longueurs[nombreEmployes] = octets.length;
+            nombres[nombreEmployes] = nombreCourant;
+            nombreEmployes++;
+            ecrire(ByteBuffer.wrap(octets));
+
+            presencesCourantes.clear();
+            nombreCourant = 0;
+        }
+
+        private void terminer() throws IOException {
+            ecrireBloc();
+            deflater.end();
+            long positionIndex = position;
+            ByteBuffer index = ByteBuffer.allocate(nombreEmployes * TAILLE_ENTREE_INDEX);
+            for (int i = 0; i < nombreEmployes; i++) {
+                index.putLong(employes[i]).putLong(positions[i]).putInt(longueurs[i]).putInt(nombres[i]);
+            }
+            ecrire(index.flip());
+
+            ByteBuffer entete = ByteBuffer.allocate(TAILLE_ENTETE)
+                    .putInt(MAGIE).putInt(VERSION).putInt(mois.getYear()).putInt(mois.getMonthValue())
+                    .putInt(nombreEmployes).putInt(nombrePresences).putInt(nombreCloturees).putInt((int) crc.getValue())
+                    .putLong(totalMinutes).putLong(positionIndex);
+            canal.write(entete.flip(), 0);
+        }
+
+        private void ecrire(ByteBuffer octets) throws IOException {
+            crc.update(octets.duplicate());
+            while (octets.hasRemaining()) {
+                position += canal.write(octets, position);
+            }
+        }
+    }
+
+    private static final class Ligne implements PresencePointageRow {
+
+        private final Long id;
+        private final Long employeId;
+        private final LocalDate date;
+        private final LocalTime arrivee;
+        private final LocalTime depart;
+        private final Long minutes;
+
+        private Ligne(Long id, Long employeId, LocalDate date, LocalTime arrivee, LocalTime depart, Long minutes) {
+            this.id = id;
+            this.employeId = employeId;
+            this.date = date;
+            this.arrivee = arrivee;
+            this.depart = depart;
+            this.minutes = minutes;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getEmployeId() {
+            return employeId;
+        }
+
+        @Override
+        public LocalDate getDate() {
+            return date;
+        }
+
+        @Override
+        public LocalTime getArrivee() {
+            return arrivee;
+        }
+
+        @Override
+        public LocalTime getDepart() {
+            return depart;
+        }
+
+        @Override
+        public Long getMinutes() {
+            return minutes;
+        }
+    }
+}
@@ -2,15 +2,26 @@ package com.gestionemployes.employee_management_api.service;
 
 import com.gestionemployes.employee_management_api.dto.PresenceArriveeRequest;
 import com.gestionemployes.employee_management_api.dto.PresenceDepartRequest;
+import com.gestionemployes.employee_management_api.dto.PresenceDto;
+import com.gestionemployes.employee_management_api.dto.PresenceKeysetPageDto;
+import com.gestionemployes.employee_management_api.dto.PresenceMonthlyReportDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.dto.PresencesOuvertesDepartementDto;
+import com.gestionemployes.employee_management_api.dto.PresencesOuvertesDto;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
 import com.gestionemployes.employee_management_api.exception.BadRequestException;
 import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
-import com.gestionemployes.employee_management_api.model.Departement; 
-import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.json.DureeFormat;
+import com.gestionemployes.employee_management_api.mapper.PresenceMapper;
 import com.gestionemployes.employee_management_api.model.Presence;
 import com.gestionemployes.employee_management_api.repository.DepartementRepository; 
 import com.gestionemployes.employee_management_api.repository.EmployeRepository;
 import com.gestionemployes.employee_management_api.repository.PresenceRepository;
-import org.springframework.data.domain.Pageable; 
+import com.gestionemployes.employee_management_api.repository.projection.PointageArriveeResultat;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceMoisRow;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceOuverteRow;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest; 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,43 +29,106 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors; 
+import java.util.Map;
 
 @Service
 public class PresenceService {
 
+    public static final int TAILLE_PAGE_MAX = 1000;
+
     private final PresenceRepository presenceRepository;
     private final EmployeRepository employeRepository;
     private final DepartementRepository departementRepository; 
+    private final PresenceRollupService presenceRollupService;
+    private final PresenceOuverteIndex presenceOuverteIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PresenceMapper presenceMapper;
+    private final PresenceArchive presenceArchive;
 
     
-    public PresenceService(PresenceRepository presenceRepository, EmployeRepository employeRepository, DepartementRepository departementRepository) {
+    public PresenceService(PresenceRepository presenceRepository, EmployeRepository employeRepository, DepartementRepository departementRepository,
+                           PresenceRollupService presenceRollupService, PresenceOuverteIndex presenceOuverteIndex,
+                           ApplicationEventPublisher eventPublisher, PresenceMapper presenceMapper, PresenceArchive presenceArchive) {
         this.presenceRepository = presenceRepository;
         this.employeRepository = employeRepository;
         this.departementRepository = departementRepository; 
+        this.presenceRollupService = presenceRollupService;
+        this.presenceOuverteIndex = presenceOuverteIndex;
+        this.eventPublisher = eventPublisher;
+        this.presenceMapper = presenceMapper;
+        this.presenceArchive = presenceArchive;
     }
 
+    /**
+     * Pointage d'arrivée en une seule instruction (INSERT ... ON CONFLICT) : l'unicité d'une
+     * présence par employé et par jour est garantie par la base, même entre pointages concurrents,
+     * et le motif d'un refus est lu dans la même instruction. Sur un mois archivé, la présence du
+     * jour est d'abord cherchée dans le segment d'archive, hors de portée de la contrainte.
+     *
+     * @throws ResourceNotFoundException si l'employé n'existe pas.
+     * @throws BadRequestException       si l'employé a déjà une présence à cette date, en table ou archivée.
+     */
     @Transactional
     public Presence pointageArrivee(PresenceArriveeRequest request) {
-        Employe employe = employeRepository.findById(request.getEmployeId())
-                .orElseThrow(() -> new ResourceNotFoundException("Employé", "id", request.getEmployeId()));
+        PresencePointageRow archivee = presenceArchive.getPresence(request.getEmployeId(), request.getDate());
+        if (archivee != null) {
+            throw dejaPointe(request.getDate(), archivee.getDepart() != null);
+        }
+        PointageArriveeResultat resultat = presenceRepository.insererArrivee(request.getEmployeId(), request.getDate(), request.getArrivee());
 
-        
-        Optional<Presence> existingPresence = presenceRepository.findByEmployeIdAndDate(employe.getId(), request.getDate());
-        if (existingPresence.isPresent() && existingPresence.get().getDepart() == null) {
-            throw new BadRequestException("L'employé a déjà pointé son arrivée pour le " + request.getDate() + " et n'a pas encore pointé son départ.");
-        } else if (existingPresence.isPresent() && existingPresence.get().getDepart() != null) {
-            throw new BadRequestException("L'employé a déjà complété un pointage pour le " + request.getDate() + ".");
+        if (resultat.getId() == null) {
+            if (!Boolean.TRUE.equals(resultat.getEmployeExiste())) {
+                throw new ResourceNotFoundException("Employé", "id", request.getEmployeId());
+            }
+            // Présence ouverte, ou pointage concurrent validé pendant l'instruction (donc ouvert)
+            throw dejaPointe(request.getDate(), Boolean.TRUE.equals(resultat.getCloturee()));
         }
 
-        Presence presence = new Presence(employe, request.getDate(), request.getArrivee());
-        return presenceRepository.save(presence);
+        // Référence sans lecture : seule la clé de l'employé sert au DTO et à l'événement
+        Presence saved = new Presence(employeRepository.getReferenceById(request.getEmployeId()), request.getDate(), request.getArrivee());
+        saved.setId(resultat.getId());
+        eventPublisher.publishEvent(new PointageEvent(PointageEvent.Type.ARRIVEE, saved.getId(), request.getEmployeId(),
+                saved.getDate(), saved.getArrivee(), null));
+        return saved;
+    }
+
+    private static BadRequestException dejaPointe(LocalDate date, boolean cloturee) {
+        return new BadRequestException(cloturee
+                ? "L'employé a déjà complété un pointage pour le " + date + "."
+                : "L'employé a déjà pointé son arrivée pour le " + date + " et n'a pas encore pointé son départ.");
     }
 
+    /**
+     * Pointage de départ. Une présence ouverte d'après l'index des présences ouvertes est validée
+     * sans lecture et clôturée par une mise à jour conditionnelle ; sinon (index indisponible,
+     * présence inconnue de l'index ou clôturée entre-temps), la présence est relue pour donner le
+     * motif du refus.
+     *
+     * @throws ResourceNotFoundException si la présence n'existe pas.
+     * @throws BadRequestException       si le départ est déjà pointé ou précède l'arrivée.
+     */
     @Transactional
     public Presence pointageDepart(PresenceDepartRequest request) {
+        PresenceOuverteIndex.PresenceOuverte ouverte = presenceOuverteIndex.getPresenceOuverte(request.getPresenceId());
+        if (ouverte != null) {
+            if (request.getDepart().isBefore(ouverte.getArrivee())) {
+                throw new BadRequestException("L'heure de départ (" + request.getDepart() + ") ne peut pas être avant l'heure d'arrivée (" + ouverte.getArrivee() + ").");
+            }
+            // Référence sans lecture, comme au pointage d'arrivée ; setDepart calcule les minutes travaillées
+            Presence presence = new Presence(employeRepository.getReferenceById(ouverte.getEmployeId()), ouverte.getDate(), ouverte.getArrivee());
+            presence.setId(ouverte.getId());
+            presence.setDepart(request.getDepart());
+            if (presenceRepository.cloturerSiOuverte(presence.getId(), presence.getDepart(), presence.getHeuresTravaillees()) == 1) {
+                return enregistrerDepart(presence);
+            }
+            presenceOuverteIndex.oublier(request.getPresenceId());
+        }
+
         Presence presence = presenceRepository.findById(request.getPresenceId())
                 .orElseThrow(() -> new ResourceNotFoundException("Enregistrement de présence", "id", request.getPresenceId()));
 
@@ -70,37 +144,161 @@ public class PresenceService {
         presence.setDepart(request.getDepart()); 
         presence.calculateHeuresTravaillees(); 
 
-        return presenceRepository.save(presence);
+        return enregistrerDepart(presenceRepository.save(presence));
+    }
+
+    private Presence enregistrerDepart(Presence saved) {
+        // Cumuls du rapport de tendances mis à jour dans la même transaction
+        presenceRollupService.enregistrerPresenceCloturee(saved);
+        eventPublisher.publishEvent(new PointageEvent(PointageEvent.Type.DEPART, saved.getId(), saved.getEmploye().getId(),
+                saved.getDate(), saved.getDepart(), saved.getHeuresTravaillees()));
+        return saved;
     }
 
+    /**
+     * Présences ouvertes (employés sur site) par département, lues dans l'index des présences
+     * ouvertes ; recalculées depuis la base tant que l'index n'est pas disponible.
+     *
+     * @param departementId Département à compter, ou null pour tous les départements.
+     * @throws ResourceNotFoundException si le département n'existe pas.
+     */
     @Transactional(readOnly = true)
-    public List<Presence> getMonthlyPresenceReport(Long employeId, int year, int month) {
-        
+    public PresencesOuvertesDto getPresencesOuvertes(Long departementId) {
+        if (departementId != null && !departementRepository.existsById(departementId)) {
+            throw new ResourceNotFoundException("Département", "id", departementId);
+        }
+
+        Map<Long, Integer> nombres;
+        if (presenceOuverteIndex.isDisponible()) {
+            nombres = departementId == null ? presenceOuverteIndex.getNombreOuvertesParDepartement()
+                    : Map.of(departementId, presenceOuverteIndex.getNombreOuvertesDepartement(departementId));
+        } else {
+            nombres = new HashMap<>();
+            for (PresenceOuverteRow row : presenceRepository.findPresencesOuvertes()) {
+                if (departementId == null || departementId.equals(row.getDepartementId())) {
+                    nombres.merge(row.getDepartementId(), 1, Integer::sum);
+                }
+            }
+            if (departementId != null) {
+                nombres.putIfAbsent(departementId, 0);
+            }
+        }
+
+        List<PresencesOuvertesDepartementDto> departements = new ArrayList<>(nombres.size());
+        int total = 0;
+        for (Map.Entry<Long, Integer> nombre : nombres.entrySet()) {
+            departements.add(new PresencesOuvertesDepartementDto(nombre.getKey(), nombre.getValue()));
+            total += nombre.getValue();
+        }
+        departements.sort(Comparator.comparing(PresencesOuvertesDepartementDto::getDepartementId,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return new PresencesOuvertesDto(total, departements);
+    }
+
+    /**
+     * Rapport mensuel d'un employé : ses présences du mois et les totaux du mois (minutes
+     * travaillées, jours pointés, heure d'arrivée moyenne), lus en une seule requête bornée
+     * au mois plutôt que sur tout l'historique de l'employé. Pour un mois archivé, les présences
+     * du segment d'archive sont ajoutées à celles restées en table et les totaux calculés ici.
+     *
+     * @throws BadRequestException       si l'année n'est pas comprise entre 1 et 9999 ou le mois entre 1 et 12.
+     * @throws ResourceNotFoundException si l'employé n'existe pas.
+     */
+    @Transactional(readOnly = true)
+    public PresenceMonthlyReportDto getMonthlyPresenceReport(Long employeId, int year, int month) {
+        // Années à quatre chiffres : au-delà, les dates ne sont pas représentables en base
+        if (year < 1 || year > 9999) {
+            throw new BadRequestException("L'année doit être comprise entre 1 et 9999.");
+        }
+        if (month < 1 || month > 12) {
+            throw new BadRequestException("Le mois doit être compris entre 1 et 12.");
+        }
         if (!employeRepository.existsById(employeId)) {
             throw new ResourceNotFoundException("Employé", "id", employeId);
         }
 
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.plusMonths(1).minusDays(1);
+        YearMonth periode = YearMonth.of(year, month);
+        List<PresenceMoisRow> rows = presenceRepository.findPresencesPeriodeAvecTotaux(employeId, periode.atDay(1), periode.atEndOfMonth());
+        if (presenceArchive.isArchive(periode)) {
+            List<PresencePointageRow> archivees = new ArrayList<>(presenceArchive.lirePresences(employeId, periode.atDay(1), periode.atEndOfMonth()));
+            archivees.addAll(rows);
+            return rapportMensuel(employeId, year, month, archivees);
+        }
 
-        List<Presence> allPresences = presenceRepository.findByEmployeIdOrderByDateAsc(employeId);
+        List<PresenceDto> presences = new ArrayList<>(rows.size());
+        rows.forEach(row -> presences.add(presenceMapper.toDto(row)));
+        if (rows.isEmpty()) {
+            return new PresenceMonthlyReportDto(employeId, year, month, 0, DureeFormat.format(0), 0, null, presences);
+        }
+        // Totaux de fenêtre : identiques sur chaque ligne
+        PresenceMoisRow totaux = rows.get(0);
+        return new PresenceMonthlyReportDto(employeId, year, month, totaux.getTotalMinutes(), DureeFormat.format(totaux.getTotalMinutes()),
+                totaux.getJoursPresents(), LocalTime.ofSecondOfDay(totaux.getArriveeMoyenneSecondes()), presences);
+    }
 
-        return allPresences.stream()
-                .filter(p -> !p.getDate().isBefore(startDate) && !p.getDate().isAfter(endDate))
-                .collect(Collectors.toList()); 
+    // Totaux du rapport mensuel calculés sur les présences lues, comme les fonctions de fenêtre de la requête
+    private PresenceMonthlyReportDto rapportMensuel(Long employeId, int year, int month, List<PresencePointageRow> rows) {
+        rows.sort(Comparator.comparing(PresencePointageRow::getDate).thenComparing(PresencePointageRow::getId));
+        List<PresenceDto> presences = new ArrayList<>(rows.size());
+        long totalMinutes = 0;
+        long nanosArrivees = 0;
+        for (PresencePointageRow row : rows) {
+            presences.add(presenceMapper.toDto(row));
+            totalMinutes += row.getMinutes() == null ? 0 : row.getMinutes();
+            nanosArrivees += row.getArrivee().toNanoOfDay();
+        }
+        LocalTime arriveeMoyenne = rows.isEmpty() ? null
+                : LocalTime.ofSecondOfDay(Math.round(nanosArrivees / (double) rows.size() / 1_000_000_000L));
+        return new PresenceMonthlyReportDto(employeId, year, month, totalMinutes, DureeFormat.format(totalMinutes), rows.size(),
+                arriveeMoyenne, presences);
     }
 
+    /**
+     * Présences des employés d'un département, par page triée par (date, employeId), en une
+     * seule requête de jointure. La page suivante est demandée avec le curseur renvoyé
+     * (nextAfterDate, nextAfterEmployeId) : pas d'OFFSET, le coût d'une page ne dépend pas de
+     * sa position dans l'historique. Les présences des mois archivés sont lues dans leurs segments
+     * et fusionnées dans le même ordre.
+     *
+     * @throws BadRequestException       si la taille de page, le curseur ou la période est invalide.
+     * @throws ResourceNotFoundException si le département n'existe pas.
+     */
     @Transactional(readOnly = true)
-    public List<Presence> getDepartementPresenceSummary(Long departementId) {
-        Departement departement = departementRepository.findById(departementId)
-                .orElseThrow(() -> new ResourceNotFoundException("Département", "id", departementId));
-
-        
-        
-        List<Employe> employesInDepartement = employeRepository.findByDepartementId(departementId, Pageable.unpaged()).getContent();
+    public PresenceKeysetPageDto getDepartementPresenceSummary(Long departementId, LocalDate from, LocalDate to,
+                                                              LocalDate afterDate, Long afterEmployeId, int size) {
+        if (size < 1 || size > TAILLE_PAGE_MAX) {
+            throw new BadRequestException("La taille de page doit être comprise entre 1 et " + TAILLE_PAGE_MAX + ".");
+        }
+        if ((afterDate == null) != (afterEmployeId == null)) {
+            throw new BadRequestException("Le curseur de page est incomplet : afterDate et afterEmployeId vont ensemble.");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("La date de début (" + from + ") ne peut pas être après la date de fin (" + to + ").");
+        }
+        if (!departementRepository.existsById(departementId)) {
+            throw new ResourceNotFoundException("Département", "id", departementId);
+        }
 
-        return employesInDepartement.stream()
-                .flatMap(employe -> presenceRepository.findByEmployeIdOrderByDateAsc(employe.getId()).stream())
-                .collect(Collectors.toList()); 
+        // Une ligne de plus que la page : indique s'il reste des présences sans requête de comptage
+        PresenceTrendFilter filtre = new PresenceTrendFilter(from, to, departementId, null);
+        List<PresencePointageRow> rows = presenceRepository.findPresencesApres(filtre, afterDate, afterEmployeId, size + 1);
+        if (presenceArchive.contientSegments()) {
+            List<PresencePointageRow> fusion = new ArrayList<>(presenceArchive.lirePresencesApres(
+                    filtre, employeRepository.findAllDepartementsEmployes(), afterDate, afterEmployeId, size + 1));
+            fusion.addAll(rows);
+            fusion.sort(Comparator.comparing(PresencePointageRow::getDate).thenComparing(PresencePointageRow::getEmployeId)
+                    .thenComparing(PresencePointageRow::getId));
+            rows = fusion.size() > size + 1 ? fusion.subList(0, size + 1) : fusion;
+        }
+        boolean hasNext = rows.size() > size;
+        List<PresenceDto> content = new ArrayList<>(Math.min(rows.size(), size));
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            content.add(presenceMapper.toDto(rows.get(i)));
+        }
+        if (!hasNext) {
+            return new PresenceKeysetPageDto(content, size, false, null, null);
+        }
+        PresenceDto derniere = content.get(content.size() - 1);
+        return new PresenceKeysetPageDto(content, size, true, derniere.getDate(), derniere.getEmployeId());
     }
 }
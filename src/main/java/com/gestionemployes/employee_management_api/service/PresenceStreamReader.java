@@ -0,0 +1,208 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.DateBoundsProjection;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceMinutesRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Lit la table presences en flux (curseur JDBC) pour les rapports qui ne peuvent pas
+ * être calculés par la base. Les lignes sont scalaires et consommées une à une par un
+ * agrégateur (PresenceTrendAggregator ou PresenceDistributionAggregator) : la mémoire
+ * utilisée dépend du nombre de dates, d'employés et de départements distincts, pas du
+ * nombre de présences.
+ *
+ * Lorsque app.rapports.partitions.parallelisme est supérieur à 1 (1 par défaut), la période est
+ * découpée par mois : chaque mois est lu dans sa propre transaction en lecture seule (donc sa propre
+ * connexion) sur un pool fork-join dédié, puis les agrégateurs partiels sont fusionnés dans l'ordre
+ * chronologique. Un rapport occupe alors jusqu'à parallelisme + 1 connexions (celle de la transaction
+ * appelante comprise) : le démarrage échoue si parallelisme n'est pas inférieur à
+ * spring.datasource.hikari.maximum-pool-size, et plusieurs rapports simultanés demandent un pool
+ * dimensionné en conséquence.
+ *
+ * Les mois archivés (PresenceArchive) sont agrégés depuis leurs segments avant la table, le
+ * département de chaque employé étant celui de son affectation courante.
+ */
+@Service
+public class PresenceStreamReader implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceStreamReader.class);
+
+    private final PresenceRepository presenceRepository;
+    private final EmployeRepository employeRepository;
+    private final PresenceArchive presenceArchive;
+    private final TransactionTemplate lecture;
+    private final TransactionTemplate lecturePartition;
+    private final int parallelisme;
+    private final ForkJoinPool pool;
+
+    public PresenceStreamReader(PresenceRepository presenceRepository, EmployeRepository employeRepository,
+                                PresenceArchive presenceArchive, PlatformTransactionManager transactionManager,
+                                @Value("${app.rapports.partitions.parallelisme:1}") int parallelisme,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connexionsMax) {
+        if (parallelisme >= connexionsMax) {
+            throw new IllegalStateException("app.rapports.partitions.parallelisme (" + parallelisme + ") doit être inférieur à "
+                    + "spring.datasource.hikari.maximum-pool-size (" + connexionsMax + ") : chaque partition lue occupe une "
+                    + "connexion en plus de celle de la transaction appelante");
+        }
+        this.presenceRepository = presenceRepository;
+        this.employeRepository = employeRepository;
+        this.presenceArchive = presenceArchive;
+        this.lecture = new TransactionTemplate(transactionManager);
+        this.lecture.setReadOnly(true);
+        // Une transaction par partition, même si le thread appelant en exécute une lui-même
+        this.lecturePartition = new TransactionTemplate(transactionManager);
+        this.lecturePartition.setReadOnly(true);
+        this.lecturePartition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.parallelisme = Math.max(1, parallelisme);
+        this.pool = this.parallelisme > 1 ? new ForkJoinPool(this.parallelisme, PresenceStreamReader::creerThread, null, false) : null;
+    }
+
+    /**
+     * Agrège les présences clôturées correspondant au filtre pour le rapport de tendances.
+     *
+     * @param filtre Critères de dates, département et employé (PresenceTrendFilter.sansFiltre() pour toute la table).
+     * @return L'agrégateur alimenté, prêt pour toReport().
+     */
+    public PresenceTrendAggregator agregerTendances(PresenceTrendFilter filtre) {
+        return agreger(filtre, PresenceTrendAggregator::new, "tendances");
+    }
+
+    /**
+     * Agrège les présences clôturées correspondant au filtre pour le rapport de distribution
+     * (quantiles des minutes travaillées et employés distincts par jour).
+     *
+     * @param filtre Critères de dates, département et employé (PresenceTrendFilter.sansFiltre() pour toute la table).
+     * @return L'agrégateur alimenté, prêt pour toReport().
+     */
+    public PresenceDistributionAggregator agregerDistribution(PresenceTrendFilter filtre) {
+        return agreger(filtre, PresenceDistributionAggregator::new, "distribution");
+    }
+
+    private <A extends PresenceRowAggregator<A>> A agreger(PresenceTrendFilter filtre, Supplier<A> nouvelAgregateur, String rapport) {
+        A table = agregerTable(filtre, nouvelAgregateur, rapport);
+        if (!presenceArchive.contientSegments()) {
+            return table;
+        }
+        // Mois archivés d'abord : ils précèdent ceux de la table
+        A aggregator = presenceArchive.agreger(filtre, employeRepository.findAllDepartementsEmployes(), nouvelAgregateur.get());
+        aggregator.merge(table);
+        return aggregator;
+    }
+
+    private <A extends PresenceRowAggregator<A>> A agregerTable(PresenceTrendFilter filtre, Supplier<A> nouvelAgregateur, String rapport) {
+        if (pool == null) {
+            return lire(filtre, lecture, nouvelAgregateur, rapport);
+        }
+        List<PresenceTrendFilter> partitions = partitionnerParMois(filtre);
+        if (partitions.size() <= 1) {
+            return lire(filtre, lecture, nouvelAgregateur, rapport);
+        }
+
+        // Fenêtre glissante : au plus parallelisme partitions en vol, fusionnées dans l'ordre des mois,
+        // pour que la mémoire ne dépende pas du nombre de mois couverts
+        A aggregator = nouvelAgregateur.get();
+        Deque<Future<A>> enVol = new ArrayDeque<>(parallelisme);
+        int suivante = 0;
+        try {
+            while (suivante < partitions.size() || !enVol.isEmpty()) {
+                while (suivante < partitions.size() && enVol.size() < parallelisme) {
+                    PresenceTrendFilter partition = partitions.get(suivante++);
+                    enVol.addLast(pool.submit(() -> lire(partition, lecturePartition, nouvelAgregateur, rapport)));
+                }
+                aggregator.merge(resultat(enVol.removeFirst()));
+            }
+        } finally {
+            enVol.forEach(future -> future.cancel(true));
+        }
+        log.debug("Rapport de {} calculé sur {} partitions mensuelles ({})", rapport, partitions.size(), filtre);
+        return aggregator;
+    }
+
+    // Un filtre par mois couvert, bornes du filtre incluses ; vide si aucune présence clôturée ne correspond
+    private List<PresenceTrendFilter> partitionnerParMois(PresenceTrendFilter filtre) {
+        LocalDate debut = filtre.getFrom();
+        LocalDate fin = filtre.getTo();
+        if (debut == null || fin == null) {
+            DateBoundsProjection bornes = presenceRepository.findDateBoundsPresencesCloturees();
+            if (bornes == null || bornes.getMinDate() == null) {
+                return List.of();
+            }
+            debut = debut == null || debut.isBefore(bornes.getMinDate()) ? bornes.getMinDate() : debut;
+            fin = fin == null || fin.isAfter(bornes.getMaxDate()) ? bornes.getMaxDate() : fin;
+        }
+
+        List<PresenceTrendFilter> partitions = new ArrayList<>();
+        for (YearMonth mois = YearMonth.from(debut); !mois.atDay(1).isAfter(fin); mois = mois.plusMonths(1)) {
+            LocalDate debutMois = mois.atDay(1).isBefore(debut) ? debut : mois.atDay(1);
+            LocalDate finMois = mois.atEndOfMonth().isAfter(fin) ? fin : mois.atEndOfMonth();
+            partitions.add(filtre.avecPeriode(debutMois, finMois));
+        }
+        return partitions;
+    }
+
+    private <A extends PresenceRowAggregator<A>> A lire(PresenceTrendFilter filtre, TransactionTemplate transaction,
+                                                        Supplier<A> nouvelAgregateur, String rapport) {
+        return transaction.execute(status -> {
+            A aggregator = nouvelAgregateur.get();
+            long rows = 0;
+            try (Stream<PresenceMinutesRow> stream = presenceRepository.streamPresencesCloturees(filtre)) {
+                for (PresenceMinutesRow row : (Iterable<PresenceMinutesRow>) stream::iterator) {
+                    aggregator.add(row.getDate(), row.getEmployeId(), row.getDepartementNom(), row.getMinutes());
+                    rows++;
+                }
+            }
+            log.debug("Rapport de {} calculé en flux sur {} présences ({})", rapport, rows, filtre);
+            return aggregator;
+        });
+    }
+
+    private static <A> A resultat(Future<A> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lecture partitionnée des présences interrompue", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Échec de la lecture partitionnée des présences", e.getCause());
+        }
+    }
+
+    private static ForkJoinWorkerThread creerThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("rapports-partition-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
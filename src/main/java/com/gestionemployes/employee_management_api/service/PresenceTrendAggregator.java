@@ -0,0 +1,179 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.dto.DureesEnMinutes;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.json.DureeFormat;
+import com.gestionemployes.employee_management_api.model.Presence;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Agrège les présences clôturées en un seul passage pour le rapport de tendances.
+ * Les cumuls sont tenus dans des tableaux primitifs (jour de semaine, mois) et des tables
+ * long -> long (date, employé) ; les Map du DTO ne sont construites qu'à la fin, dans
+ * toReport(). Une instance n'est pas thread-safe : un agrégateur par lecture, fusionnés
+ * ensuite si besoin.
+ */
+public final class PresenceTrendAggregator implements PresenceRowAggregator<PresenceTrendAggregator> {
+
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+    private final long[] minutesByDayOfWeek = new long[7];
+    // Rang de première apparition de chaque jour (0 = jamais vu), pour reproduire l'ordre du rapport historique
+    private final int[] dayOfWeekRank = new int[7];
+    private int daysOfWeekSeen;
+
+    private final long[] minutesByMonth = new long[12];
+    private final boolean[] monthSeen = new boolean[12];
+
+    private final LongLongHashMap minutesByEpochDay;
+    private final LongLongHashMap minutesByEmployeId;
+    private final Map<Long, String> departementNomByEmployeId = new HashMap<>();
+
+    public PresenceTrendAggregator() {
+        this(1024, 1024);
+    }
+
+    public PresenceTrendAggregator(int expectedDates, int expectedEmployes) {
+        this.minutesByEpochDay = new LongLongHashMap(expectedDates);
+        this.minutesByEmployeId = new LongLongHashMap(expectedEmployes);
+    }
+
+    /**
+     * Ajoute une présence ; les présences sans heures travaillées sont ignorées.
+     */
+    public void add(Presence presence) {
+        Long minutes = presence.getHeuresTravaillees();
+        if (minutes == null) {
+            return;
+        }
+        if (presence.getEmploye() == null) {
+            add(presence.getDate(), null, null, minutes);
+        } else {
+            add(presence.getDate(), presence.getEmploye().getId(),
+                    presence.getEmploye().getDepartement() != null ? presence.getEmploye().getDepartement().getNom() : null,
+                    minutes);
+        }
+    }
+
+    /**
+     * Ajoute les minutes travaillées d'une présence clôturée.
+     *
+     * @param date           Date de la présence.
+     * @param employeId      Id de l'employé (null : compté uniquement dans les axes temporels).
+     * @param departementNom Nom du département de l'employé (null : non compté par département).
+     * @param minutes        Minutes travaillées.
+     */
+    @Override
+    public void add(LocalDate date, Long employeId, String departementNom, long minutes) {
+        int dayOfWeek = date.getDayOfWeek().ordinal();
+        minutesByDayOfWeek[dayOfWeek] += minutes;
+        if (dayOfWeekRank[dayOfWeek] == 0) {
+            dayOfWeekRank[dayOfWeek] = ++daysOfWeekSeen;
+        }
+
+        int month = date.getMonthValue() - 1;
+        minutesByMonth[month] += minutes;
+        monthSeen[month] = true;
+
+        minutesByEpochDay.addTo(date.toEpochDay(), minutes);
+
+        if (employeId != null && minutesByEmployeId.addTo(employeId, minutes) && departementNom != null) {
+            departementNomByEmployeId.put(employeId, departementNom);
+        }
+    }
+
+    /**
+     * Ajoute les cumuls d'un autre agrégateur (lecture partitionnée).
+     * L'ordre de première apparition des jours de la semaine suit celui de this, puis de other.
+     */
+    @Override
+    public void merge(PresenceTrendAggregator other) {
+        for (int rank = 1; rank <= other.daysOfWeekSeen; rank++) {
+            for (int day = 0; day < 7; day++) {
+                if (other.dayOfWeekRank[day] == rank && dayOfWeekRank[day] == 0) {
+                    dayOfWeekRank[day] = ++daysOfWeekSeen;
+                }
+            }
+        }
+        for (int day = 0; day < 7; day++) {
+            minutesByDayOfWeek[day] += other.minutesByDayOfWeek[day];
+        }
+        for (int month = 0; month < 12; month++) {
+            minutesByMonth[month] += other.minutesByMonth[month];
+            monthSeen[month] |= other.monthSeen[month];
+        }
+        minutesByEpochDay.addAll(other.minutesByEpochDay);
+        minutesByEmployeId.addAll(other.minutesByEmployeId);
+        other.departementNomByEmployeId.forEach(departementNomByEmployeId::putIfAbsent);
+    }
+
+    /**
+     * Construit le DTO du rapport à partir des cumuls.
+     */
+    public PresenceTrendReportDto toReport() {
+        PresenceTrendReportDto report = new PresenceTrendReportDto();
+
+        // Jours de la semaine : même ordre d'itération que le HashMap de Collectors.groupingBy,
+        // alimenté par computeIfAbsent (insertion en tête de case) dans l'ordre de première apparition
+        Map<String, Long> minutesByDayName = new HashMap<>();
+        for (int rank = 1; rank <= daysOfWeekSeen; rank++) {
+            for (int day = 0; day < 7; day++) {
+                if (dayOfWeekRank[day] == rank) {
+                    long minutes = minutesByDayOfWeek[day];
+                    minutesByDayName.computeIfAbsent(DAYS[day].toString(), key -> minutes);
+                }
+            }
+        }
+        DureesEnMinutes<String> totalHoursByDayOfWeek = new DureesEnMinutes<>();
+        minutesByDayName.forEach(totalHoursByDayOfWeek::ajouter);
+        report.setTotalHoursByDayOfWeek(totalHoursByDayOfWeek);
+
+        DureesEnMinutes<Integer> totalHoursByMonth = new DureesEnMinutes<>();
+        for (int month = 0; month < 12; month++) {
+            if (monthSeen[month]) {
+                totalHoursByMonth.ajouter(month + 1, minutesByMonth[month]);
+            }
+        }
+        report.setTotalHoursByMonth(totalHoursByMonth);
+
+        // Année-mois et moyenne journalière : dérivées des cumuls par date (une entrée par jour distinct)
+        Map<String, Long> minutesByYearMonth = new TreeMap<>();
+        long[] totalMinutes = new long[1];
+        minutesByEpochDay.forEach((epochDay, minutes) -> {
+            totalMinutes[0] += minutes;
+            minutesByYearMonth.merge(YearMonth.from(LocalDate.ofEpochDay(epochDay)).toString(), minutes, Long::sum);
+        });
+        DureesEnMinutes<String> totalHoursByMonthYear = new DureesEnMinutes<>(minutesByYearMonth.size());
+        minutesByYearMonth.forEach(totalHoursByMonthYear::ajouter);
+        report.setTotalHoursByMonthYear(totalHoursByMonthYear);
+
+        double averageMinutesPerDay = minutesByEpochDay.size() > 0
+                ? (double) totalMinutes[0] / minutesByEpochDay.size()
+                : 0.0;
+        report.setAverageDailyHoursAcrossAllEmployees(DureeFormat.format(Math.round(averageMinutesPerDay)));
+
+        DureesEnMinutes<Long> totalHoursByEmployeeId = new DureesEnMinutes<>(minutesByEmployeId.size());
+        Map<String, Long> minutesByDepartementNom = new TreeMap<>();
+        for (long employeId : minutesByEmployeId.sortedKeys()) {
+            long minutes = minutesByEmployeId.get(employeId);
+            totalHoursByEmployeeId.ajouter(employeId, minutes);
+            String departementNom = departementNomByEmployeId.get(employeId);
+            if (departementNom != null) {
+                minutesByDepartementNom.merge(departementNom, minutes, Long::sum);
+            }
+        }
+        report.setTotalHoursByEmployeeId(totalHoursByEmployeeId);
+
+        DureesEnMinutes<String> totalHoursByDepartementName = new DureesEnMinutes<>(minutesByDepartementNom.size());
+        minutesByDepartementNom.forEach(totalHoursByDepartementName::ajouter);
+        report.setTotalHoursByDepartementName(totalHoursByDepartementName);
+
+        return report;
+    }
+}
@@ -0,0 +1,225 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache local des résultats de rapports, borné en taille et en durée de vie.
+ *
+ * Chaque rapport appartient à un groupe (présences, salaires) invalidé par les écritures
+ * correspondantes (voir RapportCacheInvalidator). Une entrée invalidée ou trop ancienne reste
+ * servie pendant qu'un seul recalcul tourne en arrière-plan (stale-while-revalidate) :
+ * seul le premier calcul d'un rapport bloque le lecteur.
+ *
+ * Métriques (actuator /metrics) : rapports.cache.acces{rapport, resultat=hit|stale|miss},
+ * rapports.cache.recalcul{rapport} (durée des calculs), rapports.cache.taille.
+ */
+@Component
+public class RapportCache implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RapportCache.class);
+
+    public enum Groupe { PRESENCES, SALAIRES }
+
+    private final boolean enabled;
+    private final long rafraichissementNanos;
+    private final Cache<Cle, Entree> cache;
+    private final Executor executor;
+    private final ExecutorService executorPropre;
+    private final MeterRegistry meterRegistry;
+    // Une invalidation incrémente la génération du groupe : les entrées calculées avant sont périmées
+    private final Map<Groupe, AtomicLong> generations = new EnumMap<>(Groupe.class);
+
+    @Autowired
+    public RapportCache(MeterRegistry meterRegistry,
+                        @Value("${app.rapports.cache.enabled:true}") boolean enabled,
+                        @Value("${app.rapports.cache.taille-max:500}") long tailleMax,
+                        @Value("${app.rapports.cache.ttl:10m}") Duration ttl,
+                        @Value("${app.rapports.cache.rafraichissement:1m}") Duration rafraichissement) {
+        this(meterRegistry, enabled, tailleMax, ttl, rafraichissement, creerExecutor());
+    }
+
+    public RapportCache(MeterRegistry meterRegistry, boolean enabled, long tailleMax, Duration ttl,
+                        Duration rafraichissement, Executor executor) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.rafraichissementNanos = rafraichissement.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tailleMax)
+                .expireAfterWrite(ttl)
+                .build();
+        this.executor = executor;
+        this.executorPropre = executor instanceof ExecutorService ? (ExecutorService) executor : null;
+        for (Groupe groupe : Groupe.values()) {
+            generations.put(groupe, new AtomicLong());
+        }
+        Gauge.builder("rapports.cache.taille", cache, Cache::estimatedSize)
+                .description("Nombre de résultats de rapports en cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retourne le résultat en cache du rapport, ou le calcule.
+     *
+     * @param rapport    Nom du rapport (tag des métriques).
+     * @param groupe     Groupe d'invalidation du rapport.
+     * @param parametres Paramètres du rapport faisant partie de la clé (null si aucun).
+     * @param calcul     Calcul du rapport ; appelé par le lecteur au premier accès, en arrière-plan ensuite.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String rapport, Groupe groupe, Object parametres, Supplier<T> calcul) {
+        if (!enabled) {
+            return calcul.get();
+        }
+        Cle cle = new Cle(rapport, groupe, parametres);
+        Entree entree = cache.getIfPresent(cle);
+        if (entree == null) {
+            boolean[] calcule = {false};
+            entree = cache.get(cle, k -> {
+                calcule[0] = true;
+                return calculer(k, calcul);
+            });
+            compteur(rapport, calcule[0] ? "miss" : "hit").increment();
+            return (T) entree.valeur;
+        }
+        if (estPerimee(cle, entree)) {
+            compteur(rapport, "stale").increment();
+            rafraichirEnArrierePlan(cle, entree, calcul);
+        } else {
+            compteur(rapport, "hit").increment();
+        }
+        return (T) entree.valeur;
+    }
+
+    /**
+     * Périme tous les rapports du groupe ; ils seront recalculés à leur prochaine lecture.
+     */
+    public void invalider(Groupe groupe) {
+        generations.get(groupe).incrementAndGet();
+    }
+
+    private Entree calculer(Cle cle, Supplier<?> calcul) {
+        long generation = generations.get(cle.groupe).get();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object valeur = calcul.get();
+        sample.stop(Timer.builder("rapports.cache.recalcul")
+                .description("Durée de calcul des rapports mis en cache")
+                .tag("rapport", cle.rapport)
+                .register(meterRegistry));
+        return new Entree(valeur, generation, System.nanoTime());
+    }
+
+    private boolean estPerimee(Cle cle, Entree entree) {
+        return entree.generation != generations.get(cle.groupe).get()
+                || System.nanoTime() - entree.calculeA > rafraichissementNanos;
+    }
+
+    private void rafraichirEnArrierePlan(Cle cle, Entree entree, Supplier<?> calcul) {
+        if (!entree.rafraichissementEnCours.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    cache.asMap().replace(cle, entree, calculer(cle, calcul));
+                } catch (RuntimeException e) {
+                    log.warn("Échec du recalcul en arrière-plan du rapport {} ; l'ancien résultat reste servi", cle.rapport, e);
+                } finally {
+                    entree.rafraichissementEnCours.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entree.rafraichissementEnCours.set(false);
+            log.debug("File de recalcul pleine, rapport {} rafraîchi plus tard", cle.rapport);
+        }
+    }
+
+    private Counter compteur(String rapport, String resultat) {
+        return Counter.builder("rapports.cache.acces")
+                .description("Lectures des rapports mis en cache")
+                .tag("rapport", rapport)
+                .tag("resultat", resultat)
+                .register(meterRegistry);
+    }
+
+    private static ExecutorService creerExecutor() {
+        AtomicInteger compteur = new AtomicInteger();
+        return new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(32), runnable -> {
+            Thread thread = new Thread(runnable, "rapports-cache-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (executorPropre != null) {
+            executorPropre.shutdownNow();
+        }
+    }
+
+    private static final class Cle {
+
+        private final String rapport;
+        private final Groupe groupe;
+        private final Object parametres;
+
+        private Cle(String rapport, Groupe groupe, Object parametres) {
+            this.rapport = rapport;
+            this.groupe = groupe;
+            this.parametres = parametres;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Cle cle = (Cle) o;
+            return rapport.equals(cle.rapport) && groupe == cle.groupe && Objects.equals(parametres, cle.parametres);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(rapport, groupe, parametres);
+        }
+    }
+
+    private static final class Entree {
+
+        private final Object valeur;
+        private final long generation;
+        private final long calculeA;
+        private final AtomicBoolean rafraichissementEnCours = new AtomicBoolean();
+
+        private Entree(Object valeur, long generation, long calculeA) {
+            this.valeur = valeur;
+            this.generation = generation;
+            this.calculeA = calculeA;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.event.DepartementModifieEvent;
+import com.gestionemployes.employee_management_api.event.EmployeModifieEvent;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalide les rapports en cache après validation des écritures qui les concernent :
+ * un recalcul lancé avant le commit ne peut donc pas remettre en cache l'état précédent.
+ */
+@Component
+public class RapportCacheInvalidator {
+
+    private final RapportCache rapportCache;
+
+    public RapportCacheInvalidator(RapportCache rapportCache) {
+        this.rapportCache = rapportCache;
+    }
+
+    // Seul un départ change les rapports : une présence ouverte n'y est pas comptée
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPointage(PointageEvent event) {
+        if (event.getType() == PointageEvent.Type.DEPART) {
+            rapportCache.invalider(RapportCache.Groupe.PRESENCES);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEmployeModifie(EmployeModifieEvent event) {
+        rapportCache.invalider(RapportCache.Groupe.SALAIRES);
+        if (event.isDepartementChange()) {
+            rapportCache.invalider(RapportCache.Groupe.PRESENCES);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDepartementModifie(DepartementModifieEvent event) {
+        rapportCache.invalider(RapportCache.Groupe.SALAIRES);
+        if (event.isNomChange()) {
+            rapportCache.invalider(RapportCache.Groupe.PRESENCES);
+        }
+    }
+}
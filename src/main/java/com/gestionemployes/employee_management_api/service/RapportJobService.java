@@ -0,0 +1,228 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.dto.RapportJobDto;
+import com.gestionemployes.employee_management_api.dto.RapportJobRequest;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
+import com.gestionemployes.employee_management_api.exception.TooManyRequestsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Exécute les rapports longs hors des threads HTTP.
+ *
+ * Un job est soumis puis calculé par un pool borné (app.rapports.jobs.concurrence threads,
+ * app.rapports.jobs.file-max jobs en attente) : la charge des rapports ne peut pas occuper
+ * toutes les connexions à la base au détriment des pointages. Une soumission au-delà de la
+ * file est refusée (429). Les jobs terminés restent consultables pendant
+ * app.rapports.jobs.retention puis sont purgés.
+ *
+ * Le calcul d'un rapport (agrégations en base ou lecture du cache) n'a pas d'étapes dont
+ * l'avancement serait mesurable : le client suit le statut (EN_ATTENTE, EN_COURS, puis
+ * TERMINE ou ECHEC) en interrogeant le job.
+ */
+@Service
+public class RapportJobService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RapportJobService.class);
+
+    private final RapportService rapportService;
+    private final RapportCache rapportCache;
+    private final Executor executor;
+    private final ExecutorService executorPropre;
+    private final Duration retention;
+    private final Clock clock;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RapportJobService(RapportService rapportService, RapportCache rapportCache,
+                             @Value("${app.rapports.jobs.concurrence:2}") int concurrence,
+                             @Value("${app.rapports.jobs.file-max:20}") int fileMax,
+                             @Value("${app.rapports.jobs.retention:1h}") Duration retention) {
+        this(rapportService, rapportCache, creerExecutor(concurrence, fileMax), retention, Clock.systemUTC());
+    }
+
+    public RapportJobService(RapportService rapportService, RapportCache rapportCache, Executor executor,
+                             Duration retention, Clock clock) {
+        this.rapportService = rapportService;
+        this.rapportCache = rapportCache;
+        this.executor = executor;
+        this.executorPropre = executor instanceof ExecutorService ? (ExecutorService) executor : null;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    /**
+     * Soumet un rapport à calculer en arrière-plan.
+     *
+     * @param request Type du rapport et ses paramètres.
+     * @return L'état initial du job, avec son id.
+     * @throws BadRequestException      si les paramètres du rapport sont invalides.
+     * @throws TooManyRequestsException si la file des jobs est pleine.
+     */
+    public RapportJobDto soumettre(RapportJobRequest request) {
+        Supplier<Object> calcul = preparerCalcul(request);
+        Job job = new Job(UUID.randomUUID().toString(), request.getType(), clock.instant());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> executer(job, calcul));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new TooManyRequestsException("Trop de rapports en cours de calcul, veuillez réessayer plus tard.");
+        }
+        log.debug("Job de rapport {} ({}) soumis", job.id, job.type);
+        return job.toDto();
+    }
+
+    /**
+     * Retourne l'état d'un job, avec son résultat lorsqu'il est terminé.
+     *
+     * @param id L'id du job.
+     * @throws ResourceNotFoundException si le job n'existe pas ou a été purgé.
+     */
+    public RapportJobDto getJob(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Job de rapport", "id", id);
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Supprime les jobs terminés depuis plus longtemps que la durée de rétention.
+     *
+     * @return Le nombre de jobs purgés.
+     */
+    @Scheduled(fixedDelayString = "${app.rapports.jobs.purge-intervalle:1m}")
+    public int purgerJobsExpires() {
+        Instant limite = clock.instant().minus(retention);
+        int avant = jobs.size();
+        jobs.values().removeIf(job -> job.estTermineAvant(limite));
+        int purges = avant - jobs.size();
+        if (purges > 0) {
+            log.debug("{} job(s) de rapport purgé(s)", purges);
+        }
+        return purges;
+    }
+
+    // Les paramètres sont vérifiés à la soumission : une erreur de saisie ne consomme pas de place dans la file
+    private Supplier<Object> preparerCalcul(RapportJobRequest request) {
+        switch (request.getType()) {
+            case TENDANCES_PRESENCES -> {
+                PresenceTrendFilter filtre = new PresenceTrendFilter(request.getFrom(), request.getTo(),
+                        request.getDepartementId(), request.getEmployeId());
+                rapportService.verifierFiltre(filtre);
+                return () -> rapportCache.get("tendances-presences", RapportCache.Groupe.PRESENCES, filtre,
+                        () -> rapportService.getPresenceTrendsAndStats(filtre));
+            }
+            case DISTRIBUTION_PRESENCES -> {
+                PresenceTrendFilter filtre = new PresenceTrendFilter(request.getFrom(), request.getTo(),
+                        request.getDepartementId(), request.getEmployeId());
+                rapportService.verifierFiltre(filtre);
+                return () -> rapportCache.get("distribution-presences", RapportCache.Groupe.PRESENCES, filtre,
+                        () -> rapportService.getPresenceDistribution(filtre));
+            }
+            case RESUME_SALAIRES -> {
+                return () -> rapportCache.get("resume-salaires", RapportCache.Groupe.SALAIRES, null,
+                        rapportService::getResumeSalairesByDepartement);
+            }
+            case STATISTIQUES_SALAIRES -> {
+                return () -> rapportCache.get("statistiques-salaires", RapportCache.Groupe.SALAIRES, null,
+                        rapportService::getResumeSalairesParDepartement);
+            }
+            default -> throw new BadRequestException("Type de rapport non pris en charge : " + request.getType());
+        }
+    }
+
+    private void executer(Job job, Supplier<Object> calcul) {
+        job.demarrer(clock.instant());
+        try {
+            job.terminer(calcul.get(), clock.instant());
+        } catch (BadRequestException | ResourceNotFoundException e) {
+            job.echouer(e.getMessage(), clock.instant());
+        } catch (RuntimeException e) {
+            log.error("Échec du job de rapport {} ({})", job.id, job.type, e);
+            job.echouer("Une erreur inattendue est survenue.", clock.instant());
+        }
+    }
+
+    private static ExecutorService creerExecutor(int concurrence, int fileMax) {
+        AtomicInteger compteur = new AtomicInteger();
+        return new ThreadPoolExecutor(concurrence, concurrence, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(fileMax), runnable -> {
+            Thread thread = new Thread(runnable, "rapports-job-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (executorPropre != null) {
+            executorPropre.shutdownNow();
+        }
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final RapportJobRequest.Type type;
+        private final Instant soumisLe;
+        private RapportJobDto.Statut statut = RapportJobDto.Statut.EN_ATTENTE;
+        private Instant demarreLe;
+        private Instant termineLe;
+        private Object resultat;
+        private String erreur;
+
+        private Job(String id, RapportJobRequest.Type type, Instant soumisLe) {
+            this.id = id;
+            this.type = type;
+            this.soumisLe = soumisLe;
+        }
+
+        private synchronized void demarrer(Instant maintenant) {
+            statut = RapportJobDto.Statut.EN_COURS;
+            demarreLe = maintenant;
+        }
+
+        private synchronized void terminer(Object valeur, Instant maintenant) {
+            resultat = valeur;
+            statut = RapportJobDto.Statut.TERMINE;
+            termineLe = maintenant;
+        }
+
+        private synchronized void echouer(String message, Instant maintenant) {
+            erreur = message;
+            statut = RapportJobDto.Statut.ECHEC;
+            termineLe = maintenant;
+        }
+
+        private synchronized boolean estTermineAvant(Instant limite) {
+            return termineLe != null && termineLe.isBefore(limite);
+        }
+
+        private synchronized RapportJobDto toDto() {
+            return new RapportJobDto(id, type, statut, soumisLe, demarreLe, termineLe, resultat, erreur);
+        }
+    }
+}
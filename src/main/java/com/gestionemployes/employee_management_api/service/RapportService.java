@@ -1,21 +1,34 @@
 package com.gestionemployes.employee_management_api.service;
 
 import com.gestionemployes.employee_management_api.dto.DepartementSalarySummaryDto;
+import com.gestionemployes.employee_management_api.dto.DureesEnMinutes;
+import com.gestionemployes.employee_management_api.dto.PresenceDistributionReportDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
 import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
-import com.gestionemployes.employee_management_api.model.Departement;
-import com.gestionemployes.employee_management_api.model.Employe;
-import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.json.DureeFormat;
+import com.gestionemployes.employee_management_api.model.PresenceRollup;
 import com.gestionemployes.employee_management_api.repository.DepartementRepository;
-import com.gestionemployes.employee_management_api.repository.EmployeRepository;
 import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRollupRepository;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByDateProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByDayOfWeekProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByDepartementProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByEmployeProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByMonthProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByYearMonthProjection;
+import com.gestionemployes.employee_management_api.repository.projection.SalaireStatsByDepartementProjection;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.DayOfWeek;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,13 +38,29 @@ import java.util.stream.Collectors;
 public class RapportService {
 
     private final PresenceRepository presenceRepository;
-    private final EmployeRepository employeRepository;
     private final DepartementRepository departementRepository;
+    private final PresenceRollupRepository presenceRollupRepository;
+    private final PresenceStreamReader presenceStreamReader;
+    private final PresenceColumnStore presenceColumnStore;
+    private final PresenceArchive presenceArchive;
 
-    public RapportService(PresenceRepository presenceRepository, EmployeRepository employeRepository, DepartementRepository departementRepository) {
+    // Si désactivé, le rapport de tendances est recalculé par GROUP BY sur la table presences
+    @Value("${app.rapports.rollups.enabled:true}")
+    private boolean rollupsEnabled = true;
+
+    // Sans cumuls : lecture en flux de la table (un seul parcours) au lieu des GROUP BY
+    @Value("${app.rapports.streaming.enabled:false}")
+    private boolean streamingEnabled = false;
+
+    public RapportService(PresenceRepository presenceRepository, DepartementRepository departementRepository,
+                          PresenceRollupRepository presenceRollupRepository, PresenceStreamReader presenceStreamReader,
+                          PresenceColumnStore presenceColumnStore, PresenceArchive presenceArchive) {
         this.presenceRepository = presenceRepository;
-        this.employeRepository = employeRepository;
         this.departementRepository = departementRepository;
+        this.presenceRollupRepository = presenceRollupRepository;
+        this.presenceStreamReader = presenceStreamReader;
+        this.presenceColumnStore = presenceColumnStore;
+        this.presenceArchive = presenceArchive;
     }
 
     /**
@@ -44,121 +73,210 @@ public class RapportService {
         if (totalMinutes == null) {
             return "0h 00m";
         }
-        long hours = totalMinutes / 60;
-        long minutes = totalMinutes % 60;
-        return String.format("%dh %02dm", hours, minutes);
+        return DureeFormat.format(totalMinutes);
     }
 
     /**
      * Génère un rapport complet des tendances et statistiques de présence.
+     * Le rapport est lu dans les cumuls maintenus au pointage de départ ; si ceux-ci
+     * sont désactivés, il est calculé sur le stockage en colonnes s'il est chargé, sinon
+     * en un parcours en flux de la table presences, ou à défaut par la base (un GROUP BY
+     * par agrégation) tant qu'aucun mois n'est archivé.
      *
      * @return PresenceTrendReportDto contenant diverses agrégations.
      */
     @Transactional(readOnly = true)
     public PresenceTrendReportDto getPresenceTrendsAndStats() {
-        List<Presence> allPresences = presenceRepository.findAll();
-        List<Employe> allEmployes = employeRepository.findAll();
-        List<Departement> allDepartements = departementRepository.findAll();
+        return getPresenceTrendsAndStats(PresenceTrendFilter.sansFiltre());
+    }
 
-        PresenceTrendReportDto report = new PresenceTrendReportDto();
+    /**
+     * Génère le rapport de tendances restreint à une période, un département et/ou un employé.
+     * Un rapport filtré ne peut pas être servi par les cumuls : il est calculé sur le stockage
+     * en colonnes s'il est chargé, sinon en flux sur les seules présences retenues par les
+     * index (date, employé).
+     *
+     * @param filtre Critères optionnels du rapport.
+     * @return PresenceTrendReportDto contenant diverses agrégations.
+     * @throws BadRequestException si la date de début est postérieure à la date de fin.
+     */
+    @Transactional(readOnly = true)
+    public PresenceTrendReportDto getPresenceTrendsAndStats(PresenceTrendFilter filtre) {
+        verifierFiltre(filtre);
+        if (filtre.isEmpty() && rollupsEnabled) {
+            return buildTrendReportFromRollups();
+        }
+        if (presenceColumnStore.isDisponible()) {
+            return presenceColumnStore.agregerTendances(filtre).toReport();
+        }
+        // Les GROUP BY ne voient que la table : avec des mois archivés, le parcours en flux lit aussi les segments
+        if (!filtre.isEmpty() || streamingEnabled || presenceArchive.contientSegments()) {
+            return presenceStreamReader.agregerTendances(filtre).toReport();
+        }
+        return buildTrendReportFromPresences();
+    }
 
-        
-        Map<String, Long> totalMinutesByDayOfWeek = allPresences.stream()
-                .filter(p -> p.getHeuresTravaillees() != null)
-                .collect(Collectors.groupingBy(
-                        presence -> presence.getDate().getDayOfWeek().toString(),
-                        Collectors.summingLong(Presence::getHeuresTravaillees)
-                ));
-        report.setTotalHoursByDayOfWeek(totalMinutesByDayOfWeek.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> formatMinutesToHoursMinutes(entry.getValue()),
-                        (e1, e2) -> e1, 
-                        LinkedHashMap::new 
-                )));
+    /**
+     * Génère le rapport de distribution des minutes travaillées par présence : minimum,
+     * médiane, p90, p99 et maximum, globalement, par département et par mois, ainsi que le
+     * nombre estimé d'employés distincts présents chaque jour. Les quantiles sont exacts
+     * (histogramme à la minute) ; le nombre d'employés distincts est une estimation HyperLogLog
+     * dont l'erreur relative type est indiquée dans le rapport.
+     *
+     * @param filtre Critères optionnels du rapport.
+     * @return PresenceDistributionReportDto contenant les distributions.
+     * @throws BadRequestException si la date de début est postérieure à la date de fin.
+     */
+    public PresenceDistributionReportDto getPresenceDistribution(PresenceTrendFilter filtre) {
+        verifierFiltre(filtre);
+        if (presenceColumnStore.isDisponible()) {
+            return presenceColumnStore.agregerDistribution(filtre).toReport();
+        }
+        return presenceStreamReader.agregerDistribution(filtre).toReport();
+    }
 
-        
-        Map<Integer, Long> totalMinutesByMonth = allPresences.stream()
-                .filter(p -> p.getHeuresTravaillees() != null)
-                .collect(Collectors.groupingBy(
-                        presence -> presence.getDate().getMonthValue(),
-                        Collectors.summingLong(Presence::getHeuresTravaillees)
-                ));
-        report.setTotalHoursByMonth(totalMinutesByMonth.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey()) 
+    /**
+     * Vérifie la cohérence d'un filtre de rapport de tendances.
+     *
+     * @param filtre Critères optionnels du rapport.
+     * @throws BadRequestException si la date de début est postérieure à la date de fin.
+     */
+    public void verifierFiltre(PresenceTrendFilter filtre) {
+        if (filtre.getFrom() != null && filtre.getTo() != null && filtre.getFrom().isAfter(filtre.getTo())) {
+            throw new BadRequestException("La date de début (" + filtre.getFrom() + ") ne peut pas être après la date de fin (" + filtre.getTo() + ").");
+        }
+    }
+
+    private PresenceTrendReportDto buildTrendReportFromRollups() {
+        Map<String, Long> totalMinutesByDayOfWeek = new LinkedHashMap<>();
+        Map<Integer, Long> totalMinutesByMonth = new HashMap<>();
+        Map<String, Long> totalMinutesByMonthYear = new HashMap<>();
+        List<Long> dailyTotalMinutes = new ArrayList<>();
+        Map<Long, Long> totalMinutesByEmployeId = new HashMap<>();
+
+        for (PresenceRollup rollup : presenceRollupRepository.findAllByOrderByIdAsc()) {
+            switch (rollup.getDimension()) {
+                case JOUR -> dailyTotalMinutes.add(rollup.getTotalMinutes());
+                case ANNEE_MOIS -> {
+                    totalMinutesByMonthYear.put(rollup.getCle(), rollup.getTotalMinutes());
+                    totalMinutesByMonth.merge(YearMonth.parse(rollup.getCle()).getMonthValue(), rollup.getTotalMinutes(), Long::sum);
+                }
+                case JOUR_SEMAINE -> totalMinutesByDayOfWeek.put(rollup.getCle(), rollup.getTotalMinutes());
+                case EMPLOYE -> totalMinutesByEmployeId.put(Long.valueOf(rollup.getCle()), rollup.getTotalMinutes());
+            }
+        }
+
+        // Cumul par département replié depuis le cumul par employé par la base (comme la jointure des autres chemins)
+        Map<String, Long> totalMinutesByDepartementName = new HashMap<>();
+        if (!totalMinutesByEmployeId.isEmpty()) {
+            presenceRollupRepository.sumMinutesByDepartement().forEach(row ->
+                    totalMinutesByDepartementName.put(row.getDepartementNom(), row.getTotalMinutes()));
+        }
+
+        return buildTrendReport(totalMinutesByDayOfWeek, totalMinutesByMonth, totalMinutesByMonthYear,
+                dailyTotalMinutes, totalMinutesByEmployeId, totalMinutesByDepartementName);
+    }
+
+    private PresenceTrendReportDto buildTrendReportFromPresences() {
+        Map<String, Long> totalMinutesByDayOfWeek = presenceRepository.sumMinutesByDayOfWeek().stream()
                 .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> formatMinutesToHoursMinutes(entry.getValue()),
+                        row -> toDayOfWeek(row.getDayOfWeek()).toString(),
+                        MinutesByDayOfWeekProjection::getTotalMinutes,
                         (e1, e2) -> e1,
                         LinkedHashMap::new
-                )));
+                ));
 
-        
-        Map<String, Long> totalMinutesByMonthYear = allPresences.stream()
-                .filter(p -> p.getHeuresTravaillees() != null)
-                .collect(Collectors.groupingBy(
-                        presence -> presence.getDate().format(DateTimeFormatter.ofPattern("yyyy-MM")),
-                        Collectors.summingLong(Presence::getHeuresTravaillees)
+        Map<Integer, Long> totalMinutesByMonth = presenceRepository.sumMinutesByMonth().stream()
+                .collect(Collectors.toMap(
+                        MinutesByMonthProjection::getMonth,
+                        MinutesByMonthProjection::getTotalMinutes
                 ));
-        report.setTotalHoursByMonthYear(totalMinutesByMonthYear.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey()) 
+
+        Map<String, Long> totalMinutesByMonthYear = presenceRepository.sumMinutesByYearMonth().stream()
                 .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> formatMinutesToHoursMinutes(entry.getValue()),
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                )));
+                        row -> YearMonth.of(row.getYear(), row.getMonth()).toString(),
+                        MinutesByYearMonthProjection::getTotalMinutes
+                ));
+
+        List<Long> dailyTotalMinutes = presenceRepository.sumMinutesByDate().stream()
+                .map(MinutesByDateProjection::getTotalMinutes)
+                .collect(Collectors.toList());
+
+        Map<Long, Long> totalMinutesByEmployeId = presenceRepository.sumMinutesByEmploye().stream()
+                .collect(Collectors.toMap(
+                        MinutesByEmployeProjection::getEmployeId,
+                        MinutesByEmployeProjection::getTotalMinutes
+                ));
+
+        Map<String, Long> totalMinutesByDepartementName = presenceRepository.sumMinutesByDepartement().stream()
+                .collect(Collectors.toMap(
+                        MinutesByDepartementProjection::getDepartementNom,
+                        MinutesByDepartementProjection::getTotalMinutes
+                ));
+
+        return buildTrendReport(totalMinutesByDayOfWeek, totalMinutesByMonth, totalMinutesByMonthYear,
+                dailyTotalMinutes, totalMinutesByEmployeId, totalMinutesByDepartementName);
+    }
+
+    /**
+     * Met en forme les totaux agrégés (en minutes) dans le DTO du rapport.
+     * Les jours de la semaine sont fournis dans leur ordre de première apparition et
+     * rangés dans un HashMap comme le regroupement historique ; les autres axes sont triés par clé.
+     */
+    private PresenceTrendReportDto buildTrendReport(Map<String, Long> totalMinutesByDayOfWeek,
+                                                    Map<Integer, Long> totalMinutesByMonth,
+                                                    Map<String, Long> totalMinutesByMonthYear,
+                                                    List<Long> dailyTotalMinutes,
+                                                    Map<Long, Long> totalMinutesByEmployeId,
+                                                    Map<String, Long> totalMinutesByDepartementName) {
+        PresenceTrendReportDto report = new PresenceTrendReportDto();
+
+        
+        // computeIfAbsent insère en tête de case, comme le HashMap de Collectors.groupingBy historique
+        Map<String, Long> totalMinutesByDayOfWeekHashed = new HashMap<>();
+        totalMinutesByDayOfWeek.forEach((day, minutes) -> totalMinutesByDayOfWeekHashed.computeIfAbsent(day, key -> minutes));
+        DureesEnMinutes<String> totalHoursByDayOfWeek = new DureesEnMinutes<>();
+        totalMinutesByDayOfWeekHashed.forEach(totalHoursByDayOfWeek::ajouter);
+        report.setTotalHoursByDayOfWeek(totalHoursByDayOfWeek);
 
         
+        report.setTotalHoursByMonth(formatSortedByKey(totalMinutesByMonth));
+
         
-        Map<LocalDate, Long> dailyTotalMinutes = allPresences.stream()
-                .filter(p -> p.getHeuresTravaillees() != null)
-                .collect(Collectors.groupingBy(
-                        Presence::getDate,
-                        Collectors.summingLong(Presence::getHeuresTravaillees)
-                ));
-        double averageMinutesPerDay = dailyTotalMinutes.values().stream()
+        report.setTotalHoursByMonthYear(formatSortedByKey(totalMinutesByMonthYear));
+
+        
+        
+        double averageMinutesPerDay = dailyTotalMinutes.stream()
                 .mapToLong(Long::longValue)
                 .average()
                 .orElse(0.0);
         report.setAverageDailyHoursAcrossAllEmployees(formatMinutesToHoursMinutes(Math.round(averageMinutesPerDay)));
 
-
         
-        Map<Long, Long> totalMinutesByEmployeId = allPresences.stream()
-                .filter(p -> p.getHeuresTravaillees() != null && p.getEmploye() != null)
-                .collect(Collectors.groupingBy(
-                        presence -> presence.getEmploye().getId(),
-                        Collectors.summingLong(Presence::getHeuresTravaillees)
-                ));
-        report.setTotalHoursByEmployeeId(totalMinutesByEmployeId.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey()) 
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> formatMinutesToHoursMinutes(entry.getValue()),
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                )));
+        report.setTotalHoursByEmployeeId(formatSortedByKey(totalMinutesByEmployeId));
 
         
-        Map<String, Long> totalMinutesByDepartementName = allPresences.stream()
-                .filter(p -> p.getHeuresTravaillees() != null && p.getEmploye() != null && p.getEmploye().getDepartement() != null)
-                .collect(Collectors.groupingBy(
-                        presence -> presence.getEmploye().getDepartement().getNom(),
-                        Collectors.summingLong(Presence::getHeuresTravaillees)
-                ));
-        report.setTotalHoursByDepartementName(totalMinutesByDepartementName.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey()) 
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> formatMinutesToHoursMinutes(entry.getValue()),
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                )));
+        report.setTotalHoursByDepartementName(formatSortedByKey(totalMinutesByDepartementName));
 
         return report;
     }
 
+    private <K extends Comparable<K>> Map<K, String> formatSortedByKey(Map<K, Long> totalMinutesByKey) {
+        DureesEnMinutes<K> durees = new DureesEnMinutes<>(totalMinutesByKey.size());
+        totalMinutesByKey.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> durees.ajouter(entry.getKey(), entry.getValue()));
+        return durees;
+    }
+
+    /**
+     * Convertit le jour de la semaine HQL (1 = dimanche ... 7 = samedi) en DayOfWeek.
+     */
+    private DayOfWeek toDayOfWeek(Integer hqlDayOfWeek) {
+        return DayOfWeek.SUNDAY.plus(hqlDayOfWeek - 1);
+    }
+
     /**
      * Génère un résumé des salaires par département.
      *
@@ -166,58 +284,50 @@ public class RapportService {
      */
     @Transactional(readOnly = true)
     public List<DepartementSalarySummaryDto> getResumeSalairesByDepartement() {
-        return departementRepository.findAll().stream()
-                .map(departement -> {
-                    List<Employe> employesInDepartement = employeRepository.findByDepartementId(departement.getId());
-
-                    BigDecimal totalSalaries = employesInDepartement.stream()
-                            .map(Employe::getSalaire)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    Long numberOfEmployees = (long) employesInDepartement.size();
-
-                    BigDecimal averageSalary = BigDecimal.ZERO;
-                    if (numberOfEmployees > 0) {
-                        averageSalary = totalSalaries.divide(BigDecimal.valueOf(numberOfEmployees), 2, RoundingMode.HALF_UP);
-                    }
-
-                    return new DepartementSalarySummaryDto(
-                            departement.getId(),
-                            departement.getNom(),
-                            totalSalaries,
-                            numberOfEmployees,
-                            averageSalary
-                    );
-                })
+        return departementRepository.findSalaireStatsByDepartement().stream()
+                .map(stats -> new DepartementSalarySummaryDto(
+                        stats.getDepartementId(),
+                        stats.getDepartementNom(),
+                        totalSalaires(stats),
+                        stats.getNombreEmployes(),
+                        averageSalary(stats)
+                ))
                 .sorted(Comparator.comparing(DepartementSalarySummaryDto::getDepartementNom)) 
                 .collect(Collectors.toList());
     }
 
-
-	
+    /**
+     * Génère les statistiques de salaire (total, moyenne, max, min) par nom de département.
+     *
+     * @return Map nom du département -> statistiques, dans l'ordre des ids de département.
+     */
+    @Transactional(readOnly = true)
     public Map<String, Map<String, BigDecimal>> getResumeSalairesParDepartement() {
-        return departementRepository.findAll().stream()
+        return departementRepository.findSalaireStatsByDepartement().stream()
                 .collect(Collectors.toMap(
-                        Departement::getNom,
-                        departement -> {
-                            List<Employe> employes = employeRepository.findByDepartementId(departement.getId());
-                            BigDecimal total = employes.stream().map(Employe::getSalaire).reduce(BigDecimal.ZERO, BigDecimal::add);
-                            BigDecimal average = employes.isEmpty() ? BigDecimal.ZERO :
-                                    total.divide(BigDecimal.valueOf(employes.size()), 2, RoundingMode.HALF_UP);
-                            BigDecimal max = employes.stream().map(Employe::getSalaire).max(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-                            BigDecimal min = employes.stream().map(Employe::getSalaire).min(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-
-                            Map<String, BigDecimal> stats = new LinkedHashMap<>();
-                            stats.put("totalSalary", total);
-                            stats.put("averageSalary", average);
-                            stats.put("maxSalary", max);
-                            stats.put("minSalary", min);
-                            return stats;
+                        SalaireStatsByDepartementProjection::getDepartementNom,
+                        stats -> {
+                            Map<String, BigDecimal> result = new LinkedHashMap<>();
+                            result.put("totalSalary", totalSalaires(stats));
+                            result.put("averageSalary", averageSalary(stats));
+                            result.put("maxSalary", stats.getSalaireMax() != null ? stats.getSalaireMax() : BigDecimal.ZERO);
+                            result.put("minSalary", stats.getSalaireMin() != null ? stats.getSalaireMin() : BigDecimal.ZERO);
+                            return result;
                         },
                         (e1, e2) -> e1,
                         LinkedHashMap::new
                 ));
     }
 
+    private BigDecimal totalSalaires(SalaireStatsByDepartementProjection stats) {
+        return stats.getTotalSalaires() != null ? stats.getTotalSalaires() : BigDecimal.ZERO;
+    }
 
+    // Moyenne arrondie à 2 décimales côté Java, comme avant (AVG() de la base n'a pas la même échelle)
+    private BigDecimal averageSalary(SalaireStatsByDepartementProjection stats) {
+        if (stats.getNombreEmployes() == null || stats.getNombreEmployes() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return totalSalaires(stats).divide(BigDecimal.valueOf(stats.getNombreEmployes()), 2, RoundingMode.HALF_UP);
+    }
 }
@@ -0,0 +1,28 @@
+package com.gestionemployes.employee_management_api.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recale le registre de paie des départements au démarrage s'il ne correspond plus à la table
+ * employes : première mise en service sur une base contenant déjà des employés, ou modifications
+ * faites hors de l'API. Un registre cohérent n'est pas reconstruit, les écritures d'employés ne
+ * sont donc pas bloquées à chaque déploiement.
+ */
+@Component
+public class RegistrePaieInitializer implements ApplicationRunner {
+
+    private final RegistrePaieService registrePaieService;
+
+    public RegistrePaieInitializer(RegistrePaieService registrePaieService) {
+        this.registrePaieService = registrePaieService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!registrePaieService.registresCoherents()) {
+            registrePaieService.reconstruireRegistres();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.gestionemployes.employee_management_api.service;
+
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.model.Departement;
+import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.repository.DepartementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+/**
+ * Maintient le registre de paie des départements (effectif et masse salariale des employés actifs).
+ * Chaque mouvement est appliqué dans la transaction de l'écriture d'employé par une mise à jour
+ * conditionnelle de la ligne du département : le contrôle du budget ne somme jamais les salaires
+ * et deux embauches concurrentes ne peuvent pas dépasser le budget ensemble.
+ */
+@Service
+public class RegistrePaieService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrePaieService.class);
+
+    private static final String STATUT_INACTIF = "INACTIF";
+
+    private final DepartementRepository departementRepository;
+
+    public RegistrePaieService(DepartementRepository departementRepository) {
+        this.departementRepository = departementRepository;
+    }
+
+    /**
+     * Ajoute un nouvel employé au registre de son département.
+     *
+     * @param employe L'employé sur le point d'être enregistré.
+     * @throws BadRequestException si la masse salariale dépasserait le budget du département.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrerEmbauche(Employe employe) {
+        if (estActif(employe.getStatut())) {
+            appliquer(employe.getDepartement(), 1, employe.getSalaire());
+        }
+    }
+
+    /**
+     * Reporte la modification d'un employé (salaire, statut ou mutation) sur le registre.
+     * Lors d'une mutation, les deux départements sont modifiés dans l'ordre de leurs ids
+     * pour que deux mutations croisées ne s'interbloquent pas.
+     *
+     * @param ancienDepartement Département avant la modification (peut être null).
+     * @param ancienSalaire     Salaire avant la modification.
+     * @param ancienStatut      Statut avant la modification.
+     * @param employe           L'employé modifié, avec ses nouvelles valeurs.
+     * @throws BadRequestException si la masse salariale du département d'arrivée dépasserait son budget.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrerModification(Departement ancienDepartement, BigDecimal ancienSalaire, String ancienStatut, Employe employe) {
+        int ancienEffectif = estActif(ancienStatut) ? 1 : 0;
+        int nouvelEffectif = estActif(employe.getStatut()) ? 1 : 0;
+        BigDecimal ancienneMasse = ancienEffectif == 1 ? ancienSalaire : BigDecimal.ZERO;
+        BigDecimal nouvelleMasse = nouvelEffectif == 1 ? employe.getSalaire() : BigDecimal.ZERO;
+        Departement nouveauDepartement = employe.getDepartement();
+
+        if (ancienDepartement != null && ancienDepartement.getId().equals(nouveauDepartement.getId())) {
+            appliquer(nouveauDepartement, nouvelEffectif - ancienEffectif, nouvelleMasse.subtract(ancienneMasse));
+            return;
+        }
+        if (ancienDepartement == null) {
+            appliquer(nouveauDepartement, nouvelEffectif, nouvelleMasse);
+        } else if (ancienDepartement.getId() < nouveauDepartement.getId()) {
+            appliquer(ancienDepartement, -ancienEffectif, ancienneMasse.negate());
+            appliquer(nouveauDepartement, nouvelEffectif, nouvelleMasse);
+        } else {
+            appliquer(nouveauDepartement, nouvelEffectif, nouvelleMasse);
+            appliquer(ancienDepartement, -ancienEffectif, ancienneMasse.negate());
+        }
+    }
+
+    /**
+     * Retire du registre un employé qui vient d'être désactivé.
+     *
+     * @param employe      L'employé désactivé.
+     * @param ancienStatut Statut avant la désactivation.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enregistrerDesactivation(Employe employe, String ancienStatut) {
+        if (estActif(ancienStatut)) {
+            appliquer(employe.getDepartement(), -1, employe.getSalaire().negate());
+        }
+    }
+
+    /**
+     * Compare, sans verrou, le registre de chaque département aux employés actifs de la table employes.
+     *
+     * @return true si tous les registres sont cohérents.
+     */
+    @Transactional(readOnly = true)
+    public boolean registresCoherents() {
+        return !departementRepository.existsRegistrePaieIncoherent();
+    }
+
+    /**
+     * Recalcule le registre de tous les départements à partir de la table employes.
+     *
+     * @return Le nombre de départements dont le registre a été corrigé.
+     */
+    @Transactional
+    public int reconstruireRegistres() {
+        departementRepository.lockEmployesForRebuild();
+        int corriges = departementRepository.reconstruireRegistresPaie();
+        if (corriges > 0) {
+            log.info("Registre de paie recalculé pour {} département(s)", corriges);
+        }
+        return corriges;
+    }
+
+    private void appliquer(Departement departement, int deltaEffectif, BigDecimal deltaMasse) {
+        if (departement == null || (deltaEffectif == 0 && deltaMasse.signum() == 0)) {
+            return;
+        }
+        if (departementRepository.appliquerMouvementPaie(departement.getId(), deltaEffectif, deltaMasse) == 0) {
+            throw new BadRequestException("La masse salariale du département " + departement.getNom()
+                    + " (ID: " + departement.getId() + ") dépasserait son budget.");
+        }
+    }
+
+    private static boolean estActif(String statut) {
+        return !STATUT_INACTIF.equals(statut);
+    }
+}
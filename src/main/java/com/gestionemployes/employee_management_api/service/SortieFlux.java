@@ -0,0 +1,36 @@
+package com.gestionemployes.employee_management_api.service;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Réponse d'un abonné au flux des présences, écrite sans bloquer : un message n'est écrit que
+ * lorsque le client peut le recevoir (isPrete), sinon il attend dans la file de l'abonné.
+ */
+public interface SortieFlux {
+
+    /**
+     * Ouvre la réponse et branche les rappels du conteneur.
+     *
+     * @param timeout           Durée maximale de l'abonnement.
+     * @param ecriturePossible  Appelé quand le client peut de nouveau recevoir après un refus d'isPrete.
+     * @param terminee          Appelé à la fin de la réponse (client déconnecté, erreur, expiration).
+     */
+    void ouvrir(Duration timeout, Runnable ecriturePossible, Runnable terminee) throws IOException;
+
+    /**
+     * @return true si une écriture est possible sans bloquer. Un refus garantit un appel
+     * ultérieur d'ecriturePossible.
+     */
+    boolean isPrete();
+
+    /**
+     * Écrit un message complet ; à n'appeler qu'après isPrete.
+     */
+    void ecrire(byte[] message) throws IOException;
+
+    /**
+     * Termine la réponse sans attendre le client.
+     */
+    void fermer();
+}
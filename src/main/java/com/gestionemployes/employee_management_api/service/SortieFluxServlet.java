@@ -0,0 +1,111 @@
+package com.gestionemployes.employee_management_api.service;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * SortieFlux sur une réponse servlet asynchrone en E/S non bloquantes (WriteListener) : une
+ * écriture vers un client dont la fenêtre TCP est pleine ne retient aucun thread, le conteneur
+ * rappelle onWritePossible quand le client lit de nouveau.
+ */
+public class SortieFluxServlet implements SortieFlux, WriteListener, AsyncListener {
+
+    private final HttpServletRequest requete;
+    private final HttpServletResponse reponse;
+    private AsyncContext contexte;
+    private ServletOutputStream sortie;
+    private Runnable ecriturePossible;
+    private Runnable terminee;
+    // Réponse terminée : son flux de sortie est recyclé par le conteneur et ne doit plus être touché
+    private volatile boolean fermee;
+
+    public SortieFluxServlet(HttpServletRequest requete, HttpServletResponse reponse) {
+        this.requete = requete;
+        this.reponse = reponse;
+    }
+
+    @Override
+    public void ouvrir(Duration timeout, Runnable ecriturePossible, Runnable terminee) throws IOException {
+        this.ecriturePossible = ecriturePossible;
+        this.terminee = terminee;
+        reponse.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        reponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        reponse.setHeader("Cache-Control", "no-cache");
+        contexte = requete.startAsync(requete, reponse);
+        contexte.setTimeout(timeout.toMillis());
+        contexte.addListener(this);
+        sortie = reponse.getOutputStream();
+        // Le conteneur appelle onWritePossible dès l'enregistrement
+        sortie.setWriteListener(this);
+    }
+
+    @Override
+    public boolean isPrete() {
+        return !fermee && sortie.isReady();
+    }
+
+    @Override
+    public void ecrire(byte[] message) throws IOException {
+        if (fermee) {
+            throw new IOException("Réponse du flux terminée");
+        }
+        sortie.write(message);
+        // Un flush n'est permis que si l'écriture a tout transmis ; sinon le reste part dès que possible
+        if (sortie.isReady()) {
+            sortie.flush();
+        }
+    }
+
+    @Override
+    public void fermer() {
+        fermee = true;
+        try {
+            contexte.complete();
+        } catch (IllegalStateException e) {
+            // Réponse déjà terminée par le conteneur
+        }
+    }
+
+    @Override
+    public void onWritePossible() {
+        ecriturePossible.run();
+    }
+
+    @Override
+    public void onError(Throwable erreur) {
+        terminee.run();
+        fermer();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        fermee = true;
+        terminee.run();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        terminee.run();
+        fermer();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        terminee.run();
+        fermer();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+}
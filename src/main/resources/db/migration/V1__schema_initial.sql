@@ -0,0 +1,39 @@
+-- Schéma tel que le créait Hibernate (ddl-auto=update) avant le passage aux migrations :
+-- identifiants IDENTITY, contraintes aux noms générés par Hibernate. Une base existante sans
+-- historique Flyway est marquée à cette version sans l'exécuter
+-- (spring.flyway.baseline-on-migrate, baseline-version=1) ; les migrations suivantes s'appliquent
+-- donc de la même façon à une base neuve et à une base de cette époque.
+
+CREATE TABLE departements (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    budget numeric(38,2) NOT NULL,
+    manager_id bigint,
+    nom varchar(255) NOT NULL,
+    CONSTRAINT departements_pkey PRIMARY KEY (id),
+    CONSTRAINT uko7gxpwc0wow8fsm1u9ox55f01 UNIQUE (nom)
+);
+
+CREATE TABLE employes (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    date_embauche date NOT NULL,
+    email varchar(255) NOT NULL,
+    nom varchar(255) NOT NULL,
+    prenom varchar(255) NOT NULL,
+    salaire numeric(38,2) NOT NULL,
+    statut varchar(255) NOT NULL,
+    departement_id bigint NOT NULL,
+    CONSTRAINT employes_pkey PRIMARY KEY (id),
+    CONSTRAINT uk3v0uyo0bds0i1s553pjkiewvv UNIQUE (email),
+    CONSTRAINT fkg6y4s69ena7cto8y7egtpqsi FOREIGN KEY (departement_id) REFERENCES departements (id)
+);
+
+CREATE TABLE presences (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    arrivee time(6) NOT NULL,
+    date date NOT NULL,
+    depart time(6),
+    heures_travaillees bigint,
+    employe_id bigint NOT NULL,
+    CONSTRAINT presences_pkey PRIMARY KEY (id),
+    CONSTRAINT fkhppi2n16tojxo65oanqhemen2 FOREIGN KEY (employe_id) REFERENCES employes (id)
+);
@@ -0,0 +1,19 @@
+-- Identifiants attribués par séquence, réservés par blocs de 50 (@SequenceGenerator), au lieu des
+-- colonnes IDENTITY : les insertions en lot partent en batch JDBC et les pointages d'arrivée
+-- prennent leur identifiant par nextval dans l'INSERT ... ON CONFLICT.
+--
+-- Chaque séquence est recalée sur le plus grand identifiant existant : Hibernate (optimiseur
+-- pooled) lit nextval comme la fin du bloc réservé, le premier bloc commence donc à max(id) + 1.
+-- Une table vide garde la séquence neuve, dont la première valeur ouvre le bloc 1 à 50.
+
+ALTER TABLE departements ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE employes ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE presences ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE departements_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE employes_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE presences_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('departements_seq', MAX(id)) FROM departements HAVING MAX(id) IS NOT NULL;
+SELECT setval('employes_seq', MAX(id)) FROM employes HAVING MAX(id) IS NOT NULL;
+SELECT setval('presences_seq', MAX(id)) FROM presences HAVING MAX(id) IS NOT NULL;
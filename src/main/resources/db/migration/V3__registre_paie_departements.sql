@@ -0,0 +1,11 @@
+-- Registre de paie des départements (effectif et masse salariale des employés non inactifs),
+-- tenu à jour par RegistrePaieService à chaque écriture d'employé. Initialisé ici depuis la
+-- table employes ; RegistrePaieInitializer le recale au démarrage s'il s'en écarte.
+
+ALTER TABLE departements ADD COLUMN effectif integer NOT NULL DEFAULT 0;
+ALTER TABLE departements ADD COLUMN masse_salariale numeric(38,2) NOT NULL DEFAULT 0;
+
+UPDATE departements d SET effectif = s.effectif, masse_salariale = s.masse
+FROM (SELECT e.departement_id, COUNT(*) AS effectif, SUM(e.salaire) AS masse
+      FROM employes e WHERE e.statut <> 'INACTIF' GROUP BY e.departement_id) s
+WHERE d.id = s.departement_id;
@@ -0,0 +1,31 @@
+-- Cumuls des minutes travaillées par jour, par mois, par jour de la semaine et par employé, tenus
+-- à jour à chaque pointage de départ (PresenceRollupService) et lus par le rapport de tendances.
+-- Le cumul par département n'est pas stocké : il est replié à la lecture depuis celui des employés.
+-- Les clés suivent le format de PresenceRollupRepository.
+
+CREATE TABLE presence_rollups (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    dimension varchar(20) NOT NULL,
+    cle varchar(20) NOT NULL,
+    total_minutes bigint NOT NULL,
+    CONSTRAINT presence_rollups_pkey PRIMARY KEY (id),
+    CONSTRAINT presence_rollups_dimension_check CHECK (dimension IN ('JOUR', 'ANNEE_MOIS', 'JOUR_SEMAINE', 'EMPLOYE')),
+    CONSTRAINT uk_presence_rollups_dimension_cle UNIQUE (dimension, cle)
+);
+
+-- Présences déjà clôturées
+INSERT INTO presence_rollups (dimension, cle, total_minutes)
+SELECT 'JOUR', to_char(p.date, 'YYYY-MM-DD'), SUM(p.heures_travaillees) FROM presences p
+WHERE p.heures_travaillees IS NOT NULL GROUP BY to_char(p.date, 'YYYY-MM-DD');
+
+INSERT INTO presence_rollups (dimension, cle, total_minutes)
+SELECT 'ANNEE_MOIS', to_char(p.date, 'YYYY-MM'), SUM(p.heures_travaillees) FROM presences p
+WHERE p.heures_travaillees IS NOT NULL GROUP BY to_char(p.date, 'YYYY-MM');
+
+INSERT INTO presence_rollups (dimension, cle, total_minutes)
+SELECT 'JOUR_SEMAINE', to_char(p.date, 'FMDAY'), SUM(p.heures_travaillees) FROM presences p
+WHERE p.heures_travaillees IS NOT NULL GROUP BY to_char(p.date, 'FMDAY');
+
+INSERT INTO presence_rollups (dimension, cle, total_minutes)
+SELECT 'EMPLOYE', CAST(p.employe_id AS varchar), SUM(p.heures_travaillees) FROM presences p
+WHERE p.heures_travaillees IS NOT NULL GROUP BY p.employe_id;
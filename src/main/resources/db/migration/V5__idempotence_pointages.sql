@@ -0,0 +1,14 @@
+-- Réponses des pointages rejouées pour un même en-tête Idempotency-Key (IdempotenceService),
+-- purgées par date de création.
+
+CREATE TABLE pointages_idempotence (
+    cle varchar(255) NOT NULL,
+    route varchar(64) NOT NULL,
+    statut integer NOT NULL,
+    type_contenu varchar(100),
+    corps bytea NOT NULL,
+    cree_le timestamp(6) with time zone NOT NULL,
+    CONSTRAINT pointages_idempotence_pkey PRIMARY KEY (cle)
+);
+
+CREATE INDEX idx_pointages_idempotence_cree_le ON pointages_idempotence (cree_le);
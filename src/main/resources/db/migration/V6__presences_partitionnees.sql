@@ -0,0 +1,78 @@
+-- presences partitionnée par mois sur date (partitionnement déclaratif). Les requêtes bornées
+-- sur date (rapport mensuel, résumé par département, lecture par mois des rapports) ne lisent
+-- que les partitions des mois demandés, et un mois ancien se retire par
+-- ALTER TABLE presences DETACH PARTITION presences_AAAA_MM sans réécrire la table.
+--
+-- Les partitions mensuelles sont créées à l'avance par creer_partitions_presences
+-- (PresencePartitionService). Une date hors des mois créés (saisie rétroactive, date lointaine)
+-- tombe dans presences_defaut ; ses lignes sont déplacées quand la partition du mois est créée.
+--
+-- Toute clé unique d'une table partitionnée contient la clé de partitionnement : la clé primaire
+-- devient (id, date). L'unicité de id reste assurée par presences_seq ; une recherche par id seul
+-- consulte l'index de clé primaire de chaque partition.
+
+ALTER TABLE presences RENAME TO presences_non_partitionnee;
+
+CREATE TABLE presences (
+    id bigint NOT NULL,
+    employe_id bigint NOT NULL,
+    date date NOT NULL,
+    arrivee time(6) NOT NULL,
+    depart time(6),
+    heures_travaillees bigint
+) PARTITION BY RANGE (date);
+
+CREATE TABLE presences_defaut PARTITION OF presences DEFAULT;
+
+-- Crée les partitions mensuelles manquantes des mois de debut à fin (inclus) et renvoie leur nombre
+CREATE FUNCTION creer_partitions_presences(debut date, fin date) RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    mois date := date_trunc('month', debut)::date;
+    suivant date;
+    nom_partition text;
+    creees integer := 0;
+BEGIN
+    WHILE mois <= fin LOOP
+        suivant := (mois + interval '1 month')::date;
+        nom_partition := 'presences_' || to_char(mois, 'YYYY_MM');
+        IF to_regclass(nom_partition) IS NULL THEN
+            -- Table créée puis rattachée : les lignes du mois déjà dans presences_defaut y sont
+            -- déplacées avant le rattachement, qui vérifie que la partition par défaut n'en a plus
+            EXECUTE format('CREATE TABLE %I (LIKE presences INCLUDING DEFAULTS)', nom_partition);
+            EXECUTE format('WITH deplacees AS (DELETE FROM presences_defaut p WHERE p.date >= %L AND p.date < %L RETURNING p.*) '
+                           'INSERT INTO %I SELECT * FROM deplacees', mois, suivant, nom_partition);
+            EXECUTE format('ALTER TABLE presences ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', nom_partition, mois, suivant);
+            creees := creees + 1;
+        END IF;
+        mois := suivant;
+    END LOOP;
+    RETURN creees;
+END;
+$$;
+
+-- Partitions des mois déjà pointés jusqu'à trois mois après le mois courant
+SELECT creer_partitions_presences(
+    LEAST(COALESCE((SELECT MIN(p.date) FROM presences_non_partitionnee p), CURRENT_DATE), CURRENT_DATE),
+    (CURRENT_DATE + interval '3 months')::date);
+
+INSERT INTO presences (id, employe_id, date, arrivee, depart, heures_travaillees)
+SELECT p.id, p.employe_id, p.date, p.arrivee, p.depart, p.heures_travaillees FROM presences_non_partitionnee p;
+
+DROP TABLE presences_non_partitionnee;
+
+-- Contraintes et index créés après la copie, sur le partitionné : chaque partition reçoit les siens.
+-- L'unicité (employé, date), jusque-là vérifiée par PresenceService seul, devient une contrainte.
+
+ALTER TABLE presences ADD CONSTRAINT presences_pkey PRIMARY KEY (id, date);
+
+-- Pointage d'arrivée (ON CONFLICT), présence d'un employé un jour donné, rapport mensuel d'un employé
+ALTER TABLE presences ADD CONSTRAINT uk_presences_employe_date UNIQUE (employe_id, date);
+
+ALTER TABLE presences ADD CONSTRAINT fk_presences_employe FOREIGN KEY (employe_id) REFERENCES employes (id);
+
+-- Résumé par département (parcours par date puis employé), bornes et lecture par mois des rapports
+CREATE INDEX idx_presences_date_employe ON presences (date, employe_id);
+
+-- Présences ouvertes (chargement de l'index en mémoire, comptage sur site sans index disponible)
+CREATE INDEX idx_presences_ouvertes ON presences (employe_id) WHERE depart IS NULL;
@@ -0,0 +1,12 @@
+-- Recherche d'employés (EmployeRepository.rechercher) : index trigrammes sur le prénom, le nom et
+-- l'email en minuscules. Ils servent la recherche de sous-chaîne (LIKE '%terme%') comme celle de
+-- nom approchant (opérateur %), combinées par BitmapOr sans parcours séquentiel de employes.
+-- pg_trgm est une extension de confiance depuis PostgreSQL 13 : le propriétaire de la base peut la créer.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_employes_prenom_trgm ON employes USING gin (lower(prenom) gin_trgm_ops);
+
+CREATE INDEX idx_employes_nom_trgm ON employes USING gin (lower(nom) gin_trgm_ops);
+
+CREATE INDEX idx_employes_email_trgm ON employes USING gin (lower(email) gin_trgm_ops);
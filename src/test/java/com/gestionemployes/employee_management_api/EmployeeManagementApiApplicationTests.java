@@ -13,7 +13,7 @@ import org.springframework.test.context.TestPropertySource; // Importez cette an
     "spring.datasource.url=jdbc:postgresql://postgres-test:5432/test_db",
     "spring.datasource.username=testuser",
     "spring.datasource.password=testpassword",
-    "spring.jpa.hibernate.ddl-auto=create-drop" // Assure que le schéma est créé/détruit
+    "spring.jpa.hibernate.ddl-auto=validate" // Schéma créé par les migrations Flyway, vérifié par Hibernate
 })
 class EmployeeManagementApiApplicationTests {
 
@@ -0,0 +1,52 @@
+package com.gestionemployes.employee_management_api.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * PresenceDto historique (durée portée sous forme de chaîne déjà formatée, sérialiseur
+ * par défaut de Jackson), conservé comme référence pour les benchmarks.
+ */
+public class LegacyPresenceDto {
+
+    private final Long id;
+    private final Long employeId;
+    private final LocalDate date;
+    private final LocalTime arrivee;
+    private final LocalTime depart;
+    private final String heuresTravaillees;
+
+    public LegacyPresenceDto(Long id, Long employeId, LocalDate date, LocalTime arrivee, LocalTime depart,
+                             String heuresTravaillees) {
+        this.id = id;
+        this.employeId = employeId;
+        this.date = date;
+        this.arrivee = arrivee;
+        this.depart = depart;
+        this.heuresTravaillees = heuresTravaillees;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getEmployeId() {
+        return employeId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getArrivee() {
+        return arrivee;
+    }
+
+    public LocalTime getDepart() {
+        return depart;
+    }
+
+    public String getHeuresTravaillees() {
+        return heuresTravaillees;
+    }
+}
@@ -0,0 +1,94 @@
+package com.gestionemployes.employee_management_api.benchmark;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.model.Presence;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Chaîne de collecteurs historique de RapportService.getPresenceTrendsAndStats()
+ * (six passages sur la liste, minutes en Long), conservée comme référence
+ * pour les benchmarks et les tests d'équivalence.
+ */
+public final class LegacyPresenceTrendReport {
+
+    private LegacyPresenceTrendReport() {
+    }
+
+    public static PresenceTrendReportDto compute(List<Presence> allPresences) {
+        PresenceTrendReportDto report = new PresenceTrendReportDto();
+
+        Map<String, Long> totalMinutesByDayOfWeek = allPresences.stream()
+                .filter(p -> p.getHeuresTravaillees() != null)
+                .collect(Collectors.groupingBy(
+                        presence -> presence.getDate().getDayOfWeek().toString(),
+                        Collectors.summingLong(Presence::getHeuresTravaillees)
+                ));
+        report.setTotalHoursByDayOfWeek(format(totalMinutesByDayOfWeek, false));
+
+        Map<Integer, Long> totalMinutesByMonth = allPresences.stream()
+                .filter(p -> p.getHeuresTravaillees() != null)
+                .collect(Collectors.groupingBy(
+                        presence -> presence.getDate().getMonthValue(),
+                        Collectors.summingLong(Presence::getHeuresTravaillees)
+                ));
+        report.setTotalHoursByMonth(format(totalMinutesByMonth, true));
+
+        Map<String, Long> totalMinutesByMonthYear = allPresences.stream()
+                .filter(p -> p.getHeuresTravaillees() != null)
+                .collect(Collectors.groupingBy(
+                        presence -> presence.getDate().format(DateTimeFormatter.ofPattern("yyyy-MM")),
+                        Collectors.summingLong(Presence::getHeuresTravaillees)
+                ));
+        report.setTotalHoursByMonthYear(format(totalMinutesByMonthYear, true));
+
+        Map<LocalDate, Long> dailyTotalMinutes = allPresences.stream()
+                .filter(p -> p.getHeuresTravaillees() != null)
+                .collect(Collectors.groupingBy(
+                        Presence::getDate,
+                        Collectors.summingLong(Presence::getHeuresTravaillees)
+                ));
+        double averageMinutesPerDay = dailyTotalMinutes.values().stream()
+                .mapToLong(Long::longValue)
+                .average()
+                .orElse(0.0);
+        report.setAverageDailyHoursAcrossAllEmployees(formatMinutes(Math.round(averageMinutesPerDay)));
+
+        Map<Long, Long> totalMinutesByEmployeId = allPresences.stream()
+                .filter(p -> p.getHeuresTravaillees() != null && p.getEmploye() != null)
+                .collect(Collectors.groupingBy(
+                        presence -> presence.getEmploye().getId(),
+                        Collectors.summingLong(Presence::getHeuresTravaillees)
+                ));
+        report.setTotalHoursByEmployeeId(format(totalMinutesByEmployeId, true));
+
+        Map<String, Long> totalMinutesByDepartementName = allPresences.stream()
+                .filter(p -> p.getHeuresTravaillees() != null && p.getEmploye() != null && p.getEmploye().getDepartement() != null)
+                .collect(Collectors.groupingBy(
+                        presence -> presence.getEmploye().getDepartement().getNom(),
+                        Collectors.summingLong(Presence::getHeuresTravaillees)
+                ));
+        report.setTotalHoursByDepartementName(format(totalMinutesByDepartementName, true));
+
+        return report;
+    }
+
+    private static <K extends Comparable<K>> Map<K, String> format(Map<K, Long> totals, boolean sorted) {
+        return (sorted ? totals.entrySet().stream().sorted(Map.Entry.comparingByKey()) : totals.entrySet().stream())
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        entry -> formatMinutes(entry.getValue()),
+                        (e1, e2) -> e1,
+                        LinkedHashMap::new
+                ));
+    }
+
+    private static String formatMinutes(Long totalMinutes) {
+        return String.format("%dh %02dm", totalMinutes / 60, totalMinutes % 60);
+    }
+}
@@ -0,0 +1,143 @@
+package com.gestionemployes.employee_management_api.benchmark;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.service.PresenceTrendAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure l'accélération de l'agrégation partitionnée par mois (comme PresenceStreamReader)
+ * selon le nombre de threads du pool fork-join, sur 10M de présences générées avec une
+ * graine fixe et découpées en 36 mois. L'accélération pour n threads est le temps à
+ * parallelisme=1 divisé par le temps à parallelisme=n ; seul le coût CPU de l'agrégation
+ * et de la fusion est mesuré, pas la lecture en base.
+ *
+ * Lancement : mvn -Pbenchmark test-compile exec:exec -Djmh.args=PresencePartitionScalingBenchmark
+ * (restreindre aux cœurs disponibles avec, par exemple, "-p parallelisme=1,2,4,8").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PresencePartitionScalingBenchmark {
+
+    private static final int PRESENCES = 10_000_000;
+    private static final int EMPLOYES = 5_000;
+    private static final int DEPARTEMENTS = 20;
+    private static final YearMonth PREMIER_MOIS = YearMonth.of(2022, 1);
+    private static final int MOIS = 36;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int parallelisme;
+
+    private LocalDate[] dates;
+    private Long[] employeIds;
+    private String[] departementNoms;
+    // Une partition par mois, en colonnes : index de la date, index de l'employé, minutes
+    private int[][] jourParPartition;
+    private int[][] employeParPartition;
+    private short[][] minutesParPartition;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDate debut = PREMIER_MOIS.atDay(1);
+        int jours = (int) (PREMIER_MOIS.plusMonths(MOIS).atDay(1).toEpochDay() - debut.toEpochDay());
+        dates = new LocalDate[jours];
+        for (int i = 0; i < jours; i++) {
+            dates[i] = debut.plusDays(i);
+        }
+        employeIds = new Long[EMPLOYES];
+        departementNoms = new String[EMPLOYES];
+        for (int i = 0; i < EMPLOYES; i++) {
+            employeIds[i] = (long) i + 1;
+            departementNoms[i] = "Departement " + (i % DEPARTEMENTS);
+        }
+
+        int[] jourDePresence = new int[PRESENCES];
+        int[] tailles = new int[MOIS];
+        for (int i = 0; i < PRESENCES; i++) {
+            jourDePresence[i] = random.nextInt(jours);
+            tailles[mois(jourDePresence[i])]++;
+        }
+        jourParPartition = new int[MOIS][];
+        employeParPartition = new int[MOIS][];
+        minutesParPartition = new short[MOIS][];
+        for (int m = 0; m < MOIS; m++) {
+            jourParPartition[m] = new int[tailles[m]];
+            employeParPartition[m] = new int[tailles[m]];
+            minutesParPartition[m] = new short[tailles[m]];
+        }
+        int[] positions = new int[MOIS];
+        for (int i = 0; i < PRESENCES; i++) {
+            int m = mois(jourDePresence[i]);
+            int position = positions[m]++;
+            jourParPartition[m][position] = jourDePresence[i];
+            employeParPartition[m][position] = random.nextInt(EMPLOYES);
+            minutesParPartition[m][position] = (short) (240 + random.nextInt(360));
+        }
+
+        pool = new ForkJoinPool(parallelisme);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public PresenceTrendReportDto agregationPartitionnee() throws InterruptedException, ExecutionException {
+        List<Callable<PresenceTrendAggregator>> partitions = new ArrayList<>(MOIS);
+        for (int m = 0; m < MOIS; m++) {
+            int partition = m;
+            partitions.add(() -> agreger(partition));
+        }
+        PresenceTrendAggregator aggregator = new PresenceTrendAggregator();
+        for (Future<PresenceTrendAggregator> partiel : pool.invokeAll(partitions)) {
+            aggregator.merge(partiel.get());
+        }
+        return aggregator.toReport();
+    }
+
+    private PresenceTrendAggregator agreger(int partition) {
+        int[] jours = jourParPartition[partition];
+        int[] employes = employeParPartition[partition];
+        short[] minutes = minutesParPartition[partition];
+        PresenceTrendAggregator aggregator = new PresenceTrendAggregator(32, EMPLOYES);
+        for (int i = 0; i < jours.length; i++) {
+            int employe = employes[i];
+            aggregator.add(dates[jours[i]], employeIds[employe], departementNoms[employe], minutes[i]);
+        }
+        return aggregator;
+    }
+
+    private int mois(int jour) {
+        LocalDate date = dates[jour];
+        return (date.getYear() - PREMIER_MOIS.getYear()) * 12 + date.getMonthValue() - PREMIER_MOIS.getMonthValue();
+    }
+}
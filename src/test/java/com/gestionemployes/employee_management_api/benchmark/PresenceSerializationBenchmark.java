@@ -0,0 +1,173 @@
+package com.gestionemployes.employee_management_api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gestionemployes.employee_management_api.dto.DureesEnMinutes;
+import com.gestionemployes.employee_management_api.dto.PresenceDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.mapper.PresenceMapper;
+import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.service.PresenceTrendAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare le formatage historique des durées (String.format dans le mapper et le rapport)
+ * au formatage par table de chiffres écrit directement dans le générateur Jackson :
+ * mapping Presence -> PresenceDto, sérialisation d'une liste de présences, et formatage
+ * plus sérialisation du rapport de tendances (une entrée par employé). Le JSON est écrit
+ * dans un flux vide pour ne mesurer que le mapping et la sérialisation.
+ *
+ * Lancement : mvn -Pbenchmark test-compile exec:exec -Djmh.args=PresenceSerializationBenchmark
+ * (ajouter "-prof gc" aux arguments pour l'allocation par opération).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PresenceSerializationBenchmark {
+
+    private static final int JOURS = 365;
+
+    private static final OutputStream FLUX_VIDE = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({"100000"})
+    public int presences;
+
+    @Param({"10000"})
+    public int employes;
+
+    private final PresenceMapper presenceMapper = new PresenceMapper();
+    private ObjectWriter writer;
+
+    private List<Presence> data;
+    private List<PresenceDto> dtos;
+    private List<LegacyPresenceDto> dtosHistoriques;
+    private PresenceTrendReportDto rapport;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        writer = objectMapper.writer();
+
+        Random random = new Random(42);
+        List<Employe> listeEmployes = new ArrayList<>();
+        for (int i = 0; i < employes; i++) {
+            Employe employe = new Employe("Prenom" + i, "Nom" + i, "employe" + i + "@example.com",
+                    null, BigDecimal.valueOf(3000), LocalDate.of(2020, 1, 1), "ACTIF");
+            employe.setId((long) i + 1);
+            listeEmployes.add(employe);
+        }
+        LocalTime arrivee = LocalTime.of(8, 0);
+        data = new ArrayList<>(presences);
+        for (long id = 1; id <= presences; id++) {
+            Presence presence = new Presence(listeEmployes.get(random.nextInt(employes)),
+                    LocalDate.of(2024, 1, 1).plusDays(random.nextInt(JOURS)), arrivee);
+            presence.setId(id);
+            presence.setDepart(arrivee.plusMinutes(240 + random.nextInt(360)));
+            data.add(presence);
+        }
+
+        dtos = mapper();
+        dtosHistoriques = mapperHistorique();
+
+        PresenceTrendAggregator aggregator = new PresenceTrendAggregator(JOURS, employes);
+        data.forEach(aggregator::add);
+        rapport = aggregator.toReport();
+    }
+
+    // Rapport historique : une chaîne String.format par entrée, puis sérialisation de la Map
+    @SuppressWarnings("unchecked")
+    private static <K> Map<K, String> formatHistorique(Map<K, String> durees) {
+        Map<K, String> resultat = new LinkedHashMap<>();
+        ((DureesEnMinutes<K>) durees).getMinutes().forEach((cle, minutes) -> resultat.put(cle, formatHistorique(minutes)));
+        return resultat;
+    }
+
+    private static String formatHistorique(Long totalMinutes) {
+        return totalMinutes == null ? null : String.format("%dh %02dm", totalMinutes / 60, totalMinutes % 60);
+    }
+
+    @Benchmark
+    public List<LegacyPresenceDto> mapperHistorique() {
+        List<LegacyPresenceDto> resultat = new ArrayList<>(data.size());
+        for (Presence presence : data) {
+            resultat.add(new LegacyPresenceDto(presence.getId(), presence.getEmploye().getId(), presence.getDate(),
+                    presence.getArrivee(), presence.getDepart(), formatHistorique(presence.getHeuresTravaillees())));
+        }
+        return resultat;
+    }
+
+    @Benchmark
+    public List<PresenceDto> mapper() {
+        List<PresenceDto> resultat = new ArrayList<>(data.size());
+        for (Presence presence : data) {
+            resultat.add(presenceMapper.toDto(presence));
+        }
+        return resultat;
+    }
+
+    // DTO portant déjà la chaîne formatée : isole le coût du formatage dans le générateur
+    @Benchmark
+    public void serialisationPresencesHistorique() throws IOException {
+        writer.writeValue(FLUX_VIDE, dtosHistoriques);
+    }
+
+    @Benchmark
+    public void serialisationPresences() throws IOException {
+        writer.writeValue(FLUX_VIDE, dtos);
+    }
+
+    @Benchmark
+    public void rapportHistorique() throws IOException {
+        PresenceTrendReportDto historique = new PresenceTrendReportDto(
+                formatHistorique(rapport.getTotalHoursByDayOfWeek()),
+                formatHistorique(rapport.getTotalHoursByMonth()),
+                formatHistorique(rapport.getTotalHoursByMonthYear()),
+                rapport.getAverageDailyHoursAcrossAllEmployees(),
+                formatHistorique(rapport.getTotalHoursByEmployeeId()),
+                formatHistorique(rapport.getTotalHoursByDepartementName()));
+        writer.writeValue(FLUX_VIDE, historique);
+    }
+
+    @Benchmark
+    public void rapport() throws IOException {
+        writer.writeValue(FLUX_VIDE, rapport);
+    }
+}
@@ -0,0 +1,99 @@
+package com.gestionemployes.employee_management_api.benchmark;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.model.Departement;
+import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.service.PresenceTrendAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare la chaîne de collecteurs historique à l'agrégateur en un passage
+ * sur 1M et 10M de présences chargées en mémoire.
+ *
+ * Lancement : mvn -Pbenchmark test-compile exec:exec -Djmh.args=PresenceTrendAggregatorBenchmark
+ * (ajouter "-prof gc" aux arguments pour l'allocation par opération).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class PresenceTrendAggregatorBenchmark {
+
+    private static final int EMPLOYES = 2_000;
+    private static final int DEPARTEMENTS = 20;
+    private static final int JOURS = 3 * 365;
+
+    @Param({"1000000", "10000000"})
+    public int presences;
+
+    private List<Presence> data;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Departement> departements = new ArrayList<>();
+        for (int i = 0; i < DEPARTEMENTS; i++) {
+            departements.add(new Departement("Departement " + i, null, BigDecimal.valueOf(1_000_000)));
+        }
+        List<Employe> employes = new ArrayList<>();
+        for (int i = 0; i < EMPLOYES; i++) {
+            Employe employe = new Employe("Prenom" + i, "Nom" + i, "employe" + i + "@example.com",
+                    departements.get(i % DEPARTEMENTS), BigDecimal.valueOf(3000), LocalDate.of(2020, 1, 1), "ACTIF");
+            employe.setId((long) i + 1);
+            employes.add(employe);
+        }
+        // Dates et heures partagées : seul le coût de l'agrégation est mesuré, pas celui du jeu de données
+        LocalDate[] dates = new LocalDate[JOURS];
+        for (int i = 0; i < JOURS; i++) {
+            dates[i] = LocalDate.of(2022, 1, 1).plusDays(i);
+        }
+        LocalTime arrivee = LocalTime.of(8, 0);
+        LocalTime[] departs = new LocalTime[360];
+        for (int i = 0; i < departs.length; i++) {
+            departs[i] = arrivee.plusMinutes(240 + i);
+        }
+
+        data = new ArrayList<>(presences);
+        for (long id = 1; id <= presences; id++) {
+            Presence presence = new Presence(employes.get(random.nextInt(EMPLOYES)), dates[random.nextInt(JOURS)], arrivee);
+            presence.setId(id);
+            presence.setDepart(departs[random.nextInt(departs.length)]);
+            data.add(presence);
+        }
+    }
+
+    @Benchmark
+    public PresenceTrendReportDto collecteursHistoriques() {
+        return LegacyPresenceTrendReport.compute(data);
+    }
+
+    @Benchmark
+    public PresenceTrendReportDto agregateurUnPassage() {
+        PresenceTrendAggregator aggregator = new PresenceTrendAggregator(JOURS, EMPLOYES);
+        for (Presence presence : data) {
+            aggregator.add(presence);
+        }
+        return aggregator.toReport();
+    }
+}
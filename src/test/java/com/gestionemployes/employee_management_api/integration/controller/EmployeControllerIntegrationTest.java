@@ -3,6 +3,7 @@ package com.gestionemployes.employee_management_api.integration.controller;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gestionemployes.employee_management_api.dto.DepartementBudgetAnalysisDto;
 import com.gestionemployes.employee_management_api.dto.EmployeDto;
 import com.gestionemployes.employee_management_api.dto.EmployeRequest;
 import com.gestionemployes.employee_management_api.dto.PageResponse;
@@ -69,7 +70,7 @@ public class EmployeControllerIntegrationTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
-        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
     }
 
     private Departement savedDepartement;
@@ -233,6 +234,31 @@ public class EmployeControllerIntegrationTest {
         assertThat(response.getBody().getNumber()).isEqualTo(0);
     }
 
+    @Test
+    void getAllEmployes_shouldFindEmployesByPrenomAndToleratingTypos() {
+        employeRepository.save(new Employe("Fatoumata", "Traore", "fatoumata.traore@example.com", savedDepartement, BigDecimal.valueOf(40000), LocalDate.of(2021, 5, 10), "ACTIF"));
+        employeRepository.save(new Employe("Kouadio", "Kouassi", "kouadio.kouassi@example.com", savedDepartement, BigDecimal.valueOf(50000), LocalDate.of(2022, 7, 20), "ACTIF"));
+
+        ResponseEntity<PageResponse<EmployeDto>> parPrenom = restTemplate.exchange(
+                baseUrl + "?searchTerm=FATOU",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<PageResponse<EmployeDto>>() {}
+        );
+        ResponseEntity<PageResponse<EmployeDto>> avecFaute = restTemplate.exchange(
+                baseUrl + "?searchTerm=Kouasi&sort=prenom",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<PageResponse<EmployeDto>>() {}
+        );
+
+        assertThat(parPrenom.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(parPrenom.getBody().getContent()).extracting(EmployeDto::getEmail).containsExactly("fatoumata.traore@example.com");
+        assertThat(avecFaute.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(avecFaute.getBody().getContent()).extracting(EmployeDto::getEmail).containsExactly("kouadio.kouassi@example.com");
+        assertThat(avecFaute.getBody().getTotalElements()).isEqualTo(1);
+    }
+
     @Test
     void getEmployeById_shouldReturnEmployeDto() {
         Employe employe = new Employe("Nafy", "Diop", "nafy.diop@example.com", savedDepartement, BigDecimal.valueOf(45000), LocalDate.of(2020, 1, 1), "ACTIF");
@@ -294,6 +320,66 @@ public class EmployeControllerIntegrationTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    void createEmploye_shouldReturnBadRequestWhenPayrollWouldExceedBudget() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        EmployeRequest premier = new EmployeRequest(
+                "Kadi", "Sanogo", "kadi.sanogo@example.com", savedDepartement.getId(),
+                BigDecimal.valueOf(150000), LocalDate.of(2023, 2, 1), "ACTIF"
+        );
+        EmployeRequest second = new EmployeRequest(
+                "Ibrahim", "Ouattara", "ibrahim.ouattara@example.com", savedDepartement.getId(),
+                BigDecimal.valueOf(120000), LocalDate.of(2023, 3, 1), "ACTIF"
+        );
+
+        ResponseEntity<EmployeDto> created = restTemplate.postForEntity(baseUrl, new HttpEntity<>(premier, headers), EmployeDto.class);
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl, new HttpEntity<>(second, headers), String.class);
+
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        JsonNode root = objectMapper.readTree(response.getBody());
+        assertThat(root.path("message").asText()).contains("dépasserait son budget");
+        assertFalse(employeRepository.existsByEmail("ibrahim.ouattara@example.com"));
+    }
+
+    @Test
+    void payrollLedger_shouldFollowHiresTransfersAndDeactivations() {
+        Departement autre = new Departement("Logistique", null, BigDecimal.valueOf(100000));
+        autre = departementRepository.save(autre);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        EmployeDto adama = restTemplate.postForEntity(baseUrl, new HttpEntity<>(new EmployeRequest(
+                "Adama", "Diallo", "adama.diallo@example.com", savedDepartement.getId(),
+                BigDecimal.valueOf(60000), LocalDate.of(2023, 1, 1), "ACTIF"), headers), EmployeDto.class).getBody();
+        EmployeDto mariam = restTemplate.postForEntity(baseUrl, new HttpEntity<>(new EmployeRequest(
+                "Mariam", "Doumbia", "mariam.doumbia@example.com", savedDepartement.getId(),
+                BigDecimal.valueOf(40000), LocalDate.of(2023, 1, 1), "ACTIF"), headers), EmployeDto.class).getBody();
+        restTemplate.put(baseUrl + "/{id}", new HttpEntity<>(new EmployeRequest(
+                "Mariam", "Doumbia", "mariam.doumbia@example.com", autre.getId(),
+                BigDecimal.valueOf(45000), LocalDate.of(2023, 1, 1), "ACTIF"), headers), mariam.getId());
+        restTemplate.delete(baseUrl + "/{id}", adama.getId());
+
+        DepartementBudgetAnalysisDto comptabilite = budgetAnalysis(savedDepartement.getId());
+        DepartementBudgetAnalysisDto logistique = budgetAnalysis(autre.getId());
+
+        assertThat(comptabilite.getEffectif()).isZero();
+        assertThat(comptabilite.getMasseSalariale()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(comptabilite.getBudgetRestant()).isEqualByComparingTo(BigDecimal.valueOf(250000));
+        assertThat(logistique.getEffectif()).isEqualTo(1);
+        assertThat(logistique.getMasseSalariale()).isEqualByComparingTo(BigDecimal.valueOf(45000));
+        assertThat(logistique.getBudgetRestant()).isEqualByComparingTo(BigDecimal.valueOf(55000));
+        assertThat(logistique.getTauxUtilisation()).isEqualByComparingTo(BigDecimal.valueOf(45));
+    }
+
+    private DepartementBudgetAnalysisDto budgetAnalysis(Long departementId) {
+        ResponseEntity<DepartementBudgetAnalysisDto> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/departements/{id}/rapport-budget", DepartementBudgetAnalysisDto.class, departementId);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+
     @Test
     void deactivateEmploye_shouldReturnNoContent() {
         Employe employe = new Employe("Lassina", "Traore", "lassina.traore@example.com", savedDepartement, BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF");
@@ -0,0 +1,175 @@
+package com.gestionemployes.employee_management_api.integration.controller;
+
+import com.gestionemployes.employee_management_api.dto.PresenceArriveeRequest;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
+import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.service.PresenceService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de charge du pointage d'arrivée : rafale de 5 000 passages simultanés (5 par employé,
+ * 1 000 employés, 100 threads) sur la même journée. Le pointage par INSERT ... ON CONFLICT
+ * doit créer exactement une présence par employé, refuser les autres passages avec le message
+ * habituel, et tenir la rafale plus vite que l'ancien enchaînement lecture employé, lecture
+ * présence puis insertion (rejoué ici pour comparaison, sous la même contrainte d'unicité).
+ *
+ * Lancement : mvn -Pcharge verify
+ */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+public class PointageConcurrentChargeIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PointageConcurrentChargeIntegrationTest.class);
+
+    private static final int EMPLOYES = 1_000;
+    private static final int PASSAGES_PAR_EMPLOYE = 5;
+    private static final int THREADS = 100;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private PresenceRepository presenceRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withDatabaseName("test_db")
+            .withUsername("testuser")
+            .withPassword("testpassword");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Test
+    void pointageArrivee_burstOfSimultaneousSwipes_shouldCreateOnePresencePerEmployeFasterThanCheckThenInsert() throws InterruptedException {
+        seedEmployes();
+        // Préchauffage des deux chemins (JIT, pool de connexions) sur des journées à part
+        rafale(LocalDate.of(2024, 6, 1), this::pointageHistorique);
+        rafale(LocalDate.of(2024, 6, 2), presenceService::pointageArrivee);
+
+        Rafale historique = rafale(LocalDate.of(2024, 6, 3), this::pointageHistorique);
+        Rafale upsert = rafale(LocalDate.of(2024, 6, 4), presenceService::pointageArrivee);
+        log.info("Rafale de {} passages : historique {} ms ({} créées, {} refus, {} erreurs), upsert {} ms ({} créées, {} refus, {} erreurs)",
+                EMPLOYES * PASSAGES_PAR_EMPLOYE, historique.millis, historique.creees.get(), historique.refus.get(), historique.erreurs.get(),
+                upsert.millis, upsert.creees.get(), upsert.refus.get(), upsert.erreurs.get());
+
+        assertThat(upsert.creees.get()).isEqualTo(EMPLOYES);
+        assertThat(upsert.refus.get()).isEqualTo(EMPLOYES * (PASSAGES_PAR_EMPLOYE - 1));
+        assertThat(upsert.erreurs.get()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM presences WHERE date = DATE '2024-06-04'", Long.class)).isEqualTo(EMPLOYES);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT 1 FROM presences GROUP BY employe_id, date HAVING COUNT(*) > 1) d", Long.class)).isZero();
+        assertThat(upsert.millis).isLessThan(historique.millis);
+    }
+
+    // Ancien pointage : trois allers-retours, contrôle puis insertion. Sous contrainte d'unicité,
+    // les passages concurrents qui franchissent le contrôle échouent à l'insertion (erreurs).
+    private void pointageHistorique(PresenceArriveeRequest request) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Employe employe = employeRepository.findById(request.getEmployeId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Employé", "id", request.getEmployeId()));
+            Optional<Presence> existante = presenceRepository.findByEmployeIdAndDate(employe.getId(), request.getDate());
+            if (existante.isPresent()) {
+                throw new BadRequestException("L'employé a déjà pointé son arrivée pour le " + request.getDate() + ".");
+            }
+            presenceRepository.save(new Presence(employe, request.getDate(), request.getArrivee()));
+        });
+    }
+
+    private Rafale rafale(LocalDate jour, Consumer<PresenceArriveeRequest> pointage) throws InterruptedException {
+        List<PresenceArriveeRequest> passages = new ArrayList<>(EMPLOYES * PASSAGES_PAR_EMPLOYE);
+        for (long employeId = 1; employeId <= EMPLOYES; employeId++) {
+            for (int i = 0; i < PASSAGES_PAR_EMPLOYE; i++) {
+                passages.add(new PresenceArriveeRequest(employeId, jour, LocalTime.of(8, 55 + i)));
+            }
+        }
+        Collections.shuffle(passages, new Random(42));
+
+        Rafale rafale = new Rafale();
+        CountDownLatch depart = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (PresenceArriveeRequest passage : passages) {
+            executor.execute(() -> {
+                try {
+                    depart.await();
+                    pointage.accept(passage);
+                    rafale.creees.incrementAndGet();
+                } catch (BadRequestException e) {
+                    rafale.refus.incrementAndGet();
+                } catch (Exception e) {
+                    rafale.erreurs.incrementAndGet();
+                }
+            });
+        }
+        long debut = System.nanoTime();
+        depart.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        rafale.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - debut);
+        return rafale;
+    }
+
+    private void seedEmployes() {
+        // Identifiants explicites et contigus : les colonnes id n'ont pas de valeur par défaut (séquences par blocs)
+        jdbcTemplate.update("INSERT INTO departements (id, nom, budget) VALUES (1, 'Accueil', 1000000)");
+        jdbcTemplate.update("INSERT INTO employes (id, prenom, nom, email, departement_id, salaire, date_embauche, statut) " +
+                "SELECT g, 'Prenom' || g, 'Nom' || g, 'employe' || g || '@example.com', 1, 3000, DATE '2020-01-01', 'ACTIF' " +
+                "FROM generate_series(1, ?) g", EMPLOYES);
+    }
+
+    private static class Rafale {
+        final AtomicInteger creees = new AtomicInteger();
+        final AtomicInteger refus = new AtomicInteger();
+        final AtomicInteger erreurs = new AtomicInteger();
+        long millis;
+    }
+}
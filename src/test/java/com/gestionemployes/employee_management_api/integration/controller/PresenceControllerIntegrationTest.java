@@ -0,0 +1,377 @@
+package com.gestionemployes.employee_management_api.integration.controller;
+
+import com.gestionemployes.employee_management_api.dto.PresenceArriveeRequest;
+import com.gestionemployes.employee_management_api.dto.PresenceDepartRequest;
+import com.gestionemployes.employee_management_api.dto.PresenceKeysetPageDto;
+import com.gestionemployes.employee_management_api.dto.PresenceLotReponseDto;
+import com.gestionemployes.employee_management_api.dto.PresenceDto;
+import com.gestionemployes.employee_management_api.dto.PresenceMonthlyReportDto;
+import com.gestionemployes.employee_management_api.dto.PresencesOuvertesDto;
+import com.gestionemployes.employee_management_api.model.Departement;
+import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.repository.DepartementRepository;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.service.PresenceOuverteIndex;
+import com.gestionemployes.employee_management_api.service.PresencePartitionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@ActiveProfiles("test")
+public class PresenceControllerIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private DepartementRepository departementRepository;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private PresenceRepository presenceRepository;
+
+    @Autowired
+    private PresenceOuverteIndex presenceOuverteIndex;
+
+    @Autowired
+    private PresencePartitionService presencePartitionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withDatabaseName("test_db")
+            .withUsername("testuser")
+            .withPassword("testpassword");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    private Employe employe;
+
+    @BeforeEach
+    void setUp() {
+        presenceRepository.deleteAll();
+        employeRepository.deleteAll();
+        departementRepository.deleteAll();
+        
+        Departement departement = new Departement();
+        departement.setNom("Logistique");
+        departement.setBudget(BigDecimal.valueOf(250000));
+        departement = departementRepository.save(departement);
+        employe = employeRepository.save(new Employe("Awa", "Diallo", "awa.diallo@example.com", departement, BigDecimal.valueOf(40000), LocalDate.of(2021, 5, 10), "ACTIF"));
+        
+        Presence cloturee = new Presence(employe, LocalDate.of(2024, 6, 3), LocalTime.of(8, 30));
+        cloturee.setDepart(LocalTime.of(17, 0));
+        presenceRepository.save(cloturee);
+        presenceRepository.save(new Presence(employe, LocalDate.of(2024, 6, 4), LocalTime.of(9, 0)));
+        presenceRepository.save(new Presence(employe, LocalDate.of(2024, 7, 1), LocalTime.of(9, 0)));
+    }
+
+    private String exportUrl() {
+        return "http://localhost:" + port + "/api/presences/export";
+    }
+
+    @Test
+    void exportPresences_ndjson_shouldStreamOneLinePerPresenceInPeriod() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                exportUrl() + "?from=2024-06-01&to=2024-06-30&employeId=" + employe.getId(),
+                HttpMethod.GET,
+                null,
+                String.class);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType().toString()).startsWith("application/x-ndjson");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION)).contains("presences.ndjson");
+        String[] lignes = response.getBody().split("\n");
+        assertThat(lignes).hasSize(2);
+        assertThat(lignes[0]).contains("\"date\":\"2024-06-03\"").contains("\"heuresTravaillees\":\"8h 30m\"");
+        assertThat(lignes[1]).contains("\"date\":\"2024-06-04\"").contains("\"depart\":null");
+    }
+
+    @Test
+    void exportPresences_csvWithGzip_shouldReturnCompressedCsv() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        
+        ResponseEntity<byte[]> response = restTemplate.exchange(
+                exportUrl() + "?format=csv&departementId=" + employe.getDepartement().getId(),
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lignes = csv.split("\n");
+        assertThat(lignes).hasSize(4);
+        assertThat(lignes[0]).isEqualTo("id,employeId,date,arrivee,depart,heuresTravaillees");
+        assertThat(lignes[1]).endsWith(",2024-06-03,08:30:00,17:00:00,8h 30m");
+    }
+
+    @Test
+    void exportPresences_withUnknownFormat_shouldReturnBadRequest() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                exportUrl() + "?format=xml",
+                HttpMethod.GET,
+                null,
+                String.class);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void exportPresences_withFromAfterTo_shouldReturnBadRequest() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                exportUrl() + "?from=2024-07-01&to=2024-06-01",
+                HttpMethod.GET,
+                null,
+                String.class);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void getMonthlyPresenceReport_shouldReturnMonthPresencesWithTotals() {
+        ResponseEntity<PresenceMonthlyReportDto> response = restTemplate.exchange(
+                "http://localhost:" + port + "/api/presences/rapport/{employeId}?year=2024&month=6",
+                HttpMethod.GET,
+                null,
+                PresenceMonthlyReportDto.class,
+                employe.getId());
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        PresenceMonthlyReportDto report = response.getBody();
+        assertThat(report.getPresences()).extracting("date").containsExactly(LocalDate.of(2024, 6, 3), LocalDate.of(2024, 6, 4));
+        assertThat(report.getTotalMinutes()).isEqualTo(510);
+        assertThat(report.getTotalHeuresTravaillees()).isEqualTo("8h 30m");
+        assertThat(report.getJoursPresents()).isEqualTo(2);
+        assertThat(report.getArriveeMoyenne()).isEqualTo(LocalTime.of(8, 45));
+    }
+
+    @Test
+    void getMonthlyPresenceReport_withInvalidMonth_shouldReturnBadRequest() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                "http://localhost:" + port + "/api/presences/rapport/{employeId}?year=2024&month=13",
+                HttpMethod.GET,
+                null,
+                String.class,
+                employe.getId());
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void getDepartementPresenceSummary_shouldWalkPagesWithCursor() {
+        String url = "http://localhost:" + port + "/api/presences/departement/" + employe.getDepartement().getId() + "?size=2";
+        
+        ResponseEntity<PresenceKeysetPageDto> premiere = restTemplate.getForEntity(url, PresenceKeysetPageDto.class);
+        
+        assertThat(premiere.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(premiere.getBody().getContent()).extracting("date").containsExactly(LocalDate.of(2024, 6, 3), LocalDate.of(2024, 6, 4));
+        assertThat(premiere.getBody().isHasNext()).isTrue();
+        
+        ResponseEntity<PresenceKeysetPageDto> suivante = restTemplate.getForEntity(url + "&afterDate=" + premiere.getBody().getNextAfterDate()
+                + "&afterEmployeId=" + premiere.getBody().getNextAfterEmployeId(), PresenceKeysetPageDto.class);
+        
+        assertThat(suivante.getBody().getContent()).extracting("date").containsExactly(LocalDate.of(2024, 7, 1));
+        assertThat(suivante.getBody().isHasNext()).isFalse();
+        assertThat(suivante.getBody().getNextAfterDate()).isNull();
+    }
+
+    @Test
+    void getDepartementPresenceSummary_withPeriod_shouldOnlyReturnPresencesInPeriod() {
+        ResponseEntity<PresenceKeysetPageDto> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/presences/departement/" + employe.getDepartement().getId() + "?from=2024-07-01&to=2024-07-31",
+                PresenceKeysetPageDto.class);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getContent()).hasSize(1);
+        assertThat(response.getBody().isHasNext()).isFalse();
+    }
+
+    @Test
+    void getDepartementPresenceSummary_withUnknownDepartement_shouldReturnNotFound() {
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/presences/departement/999999", String.class);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void pointagesArrivee_shouldCreateBatchAndReportEachItem() {
+        List<PresenceArriveeRequest> requests = new ArrayList<>();
+        for (int jour = 1; jour <= 20; jour++) {
+            requests.add(new PresenceArriveeRequest(employe.getId(), LocalDate.of(2024, 5, jour), LocalTime.of(9, 0)));
+        }
+        requests.add(new PresenceArriveeRequest(employe.getId(), LocalDate.of(2024, 6, 3), LocalTime.of(9, 0)));
+        requests.add(new PresenceArriveeRequest(999999L, LocalDate.of(2024, 5, 1), LocalTime.of(9, 0)));
+        requests.add(new PresenceArriveeRequest(employe.getId(), null, LocalTime.of(9, 0)));
+        
+        ResponseEntity<PresenceLotReponseDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/api/presences/arrivees", requests, PresenceLotReponseDto.class);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        PresenceLotReponseDto lot = response.getBody();
+        assertThat(lot.getTotal()).isEqualTo(23);
+        assertThat(lot.getReussis()).isEqualTo(20);
+        assertThat(lot.getResultats()).extracting("status").containsSequence(201, 201).endsWith(400, 404, 400);
+        assertThat(lot.getResultats().get(20).getMessage()).isEqualTo("L'employé a déjà complété un pointage pour le 2024-06-03.");
+        assertThat(lot.getResultats().get(0).getPresence().getId()).isNotNull();
+        assertThat(presenceRepository.count()).isEqualTo(23);
+    }
+
+    @Test
+    void pointagesDepart_shouldCloseBatchAndReportEachItem() {
+        Presence ouverte = presenceRepository.findByEmployeIdAndDate(employe.getId(), LocalDate.of(2024, 6, 4)).orElseThrow();
+        Presence cloturee = presenceRepository.findByEmployeIdAndDate(employe.getId(), LocalDate.of(2024, 6, 3)).orElseThrow();
+        List<PresenceDepartRequest> requests = List.of(
+                new PresenceDepartRequest(ouverte.getId(), LocalTime.of(17, 30)),
+                new PresenceDepartRequest(cloturee.getId(), LocalTime.of(18, 0)),
+                new PresenceDepartRequest(999999L, LocalTime.of(17, 0)));
+        
+        ResponseEntity<PresenceLotReponseDto> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/api/presences/departs", requests, PresenceLotReponseDto.class);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getResultats()).extracting("status").containsExactly(200, 400, 404);
+        assertThat(response.getBody().getResultats().get(0).getPresence().getHeuresTravaillees()).isEqualTo("8h 30m");
+        assertThat(presenceRepository.findById(ouverte.getId()).orElseThrow().getHeuresTravaillees()).isEqualTo(510L);
+    }
+
+    @Test
+    void pointagesArrivee_withEmptyBatch_shouldReturnBadRequest() {
+        ResponseEntity<String> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/api/presences/arrivees", List.of(), String.class);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void getPresencesOuvertes_shouldFollowArrivalsAndDepartures() {
+        // Données insérées directement par les dépôts : l'index est rechargé comme au démarrage
+        presenceOuverteIndex.charger();
+        String url = "http://localhost:" + port + "/api/presences/ouvertes";
+        Long departementId = employe.getDepartement().getId();
+        
+        PresencesOuvertesDto avant = restTemplate.getForObject(url, PresencesOuvertesDto.class);
+        ResponseEntity<PresenceDto> arrivee = restTemplate.postForEntity("http://localhost:" + port + "/api/presences/arrivee",
+                new PresenceArriveeRequest(employe.getId(), LocalDate.of(2024, 7, 2), LocalTime.of(8, 45)), PresenceDto.class);
+        PresencesOuvertesDto apresArrivee = restTemplate.getForObject(url + "?departementId=" + departementId, PresencesOuvertesDto.class);
+        ResponseEntity<PresenceDto> depart = restTemplate.postForEntity("http://localhost:" + port + "/api/presences/depart",
+                new PresenceDepartRequest(arrivee.getBody().getId(), LocalTime.of(17, 15)), PresenceDto.class);
+        PresencesOuvertesDto apresDepart = restTemplate.getForObject(url, PresencesOuvertesDto.class);
+        
+        assertThat(avant.getTotal()).isEqualTo(2);
+        assertThat(avant.getDepartements()).extracting("departementId").containsExactly(departementId);
+        assertThat(apresArrivee.getTotal()).isEqualTo(3);
+        assertThat(apresArrivee.getDepartements().get(0).getNombre()).isEqualTo(3);
+        assertThat(depart.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(depart.getBody().getHeuresTravaillees()).isEqualTo("8h 30m");
+        assertThat(presenceRepository.findById(arrivee.getBody().getId()).orElseThrow().getHeuresTravaillees()).isEqualTo(510L);
+        assertThat(apresDepart.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    void pointageDepart_withStaleIndexEntry_shouldFallBackToDatabaseMessage() {
+        Presence ouverte = presenceRepository.findByEmployeIdAndDate(employe.getId(), LocalDate.of(2024, 6, 4)).orElseThrow();
+        presenceOuverteIndex.charger();
+        // Clôture hors API : l'index la croit encore ouverte
+        ouverte.setDepart(LocalTime.of(17, 0));
+        presenceRepository.save(ouverte);
+        
+        ResponseEntity<String> response = restTemplate.postForEntity("http://localhost:" + port + "/api/presences/depart",
+                new PresenceDepartRequest(ouverte.getId(), LocalTime.of(18, 0)), String.class);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).contains("Le pointage de départ a déjà été enregistré");
+        assertThat(presenceOuverteIndex.getPresenceOuverte(ouverte.getId())).isNull();
+    }
+
+    @Test
+    void pointageArrivee_withSameIdempotencyKey_shouldReplayOriginalResponse() {
+        String url = "http://localhost:" + port + "/api/presences/arrivee";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+        HttpEntity<PresenceArriveeRequest> requete = new HttpEntity<>(
+                new PresenceArriveeRequest(employe.getId(), LocalDate.of(2024, 7, 3), LocalTime.of(8, 15)), headers);
+        
+        ResponseEntity<String> premiere = restTemplate.exchange(url, HttpMethod.POST, requete, String.class);
+        ResponseEntity<String> rejeu = restTemplate.exchange(url, HttpMethod.POST, requete, String.class);
+        ResponseEntity<String> autreRoute = restTemplate.exchange("http://localhost:" + port + "/api/presences/depart", HttpMethod.POST,
+                new HttpEntity<>(new PresenceDepartRequest(1L, LocalTime.of(17, 0)), headers), String.class);
+        
+        assertThat(premiere.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(rejeu.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(rejeu.getBody()).isEqualTo(premiere.getBody());
+        assertThat(rejeu.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(premiere.getHeaders().getFirst("Idempotent-Replayed")).isNull();
+        assertThat(presenceRepository.findByEmployeIdAndDate(employe.getId(), LocalDate.of(2024, 7, 3))).isPresent();
+        assertThat(presenceRepository.count()).isEqualTo(4);
+        assertThat(autreRoute.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void creerPartitions_shouldMoveMonthOutOfDefaultPartitionAndPruneQueries() {
+        // Les présences de 2024 sont dans presences_defaut tant que leurs mois n'ont pas de partition
+        presencePartitionService.creerPartitions(YearMonth.of(2024, 6), YearMonth.of(2024, 7));
+        
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT DISTINCT p.tableoid::regclass::text FROM presences p WHERE p.employe_id = ?", String.class, employe.getId());
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM presences p WHERE p.employe_id = " + employe.getId() +
+                " AND p.date BETWEEN DATE '2024-06-01' AND DATE '2024-06-30'", String.class));
+        ResponseEntity<PresenceMonthlyReportDto> rapport = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/presences/rapport/{employeId}?year=2024&month=6", PresenceMonthlyReportDto.class, employe.getId());
+        
+        assertThat(partitions).containsExactlyInAnyOrder("presences_2024_06", "presences_2024_07");
+        assertThat(plan).contains("presences_2024_06").doesNotContain("presences_2024_07").doesNotContain("presences_defaut");
+        assertThat(presencePartitionService.creerPartitions(YearMonth.of(2024, 6), YearMonth.of(2024, 7))).isZero();
+        assertThat(rapport.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(rapport.getBody().getPresences()).hasSize(2);
+    }
+}
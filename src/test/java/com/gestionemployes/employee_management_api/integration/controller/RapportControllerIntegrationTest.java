@@ -1,7 +1,12 @@
 package com.gestionemployes.employee_management_api.integration.controller;
 
 import com.gestionemployes.employee_management_api.dto.DepartementSalarySummaryDto;
+import com.gestionemployes.employee_management_api.dto.PresenceDistributionReportDto;
 import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.dto.RapportJobDto;
+import com.gestionemployes.employee_management_api.dto.RapportJobRequest;
+import com.gestionemployes.employee_management_api.model.Departement;
+import com.gestionemployes.employee_management_api.repository.DepartementRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -16,7 +21,10 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -31,6 +39,9 @@ public class RapportControllerIntegrationTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private DepartementRepository departementRepository;
+
     @Container
     static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
             .withDatabaseName("test_db")
@@ -42,7 +53,7 @@ public class RapportControllerIntegrationTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
-        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
     }
 
     private String baseUrl() {
@@ -62,6 +73,55 @@ public class RapportControllerIntegrationTest {
         
     }
 
+    @Test
+    void getTendancesPresences_withFilters_shouldReturnPresenceTrendReport() {
+        ResponseEntity<PresenceTrendReportDto> response = restTemplate.exchange(
+                baseUrl() + "/tendances-presences?from=2024-06-01&to=2024-06-30&departementId=1&employeId=1",
+                HttpMethod.GET,
+                null,
+                PresenceTrendReportDto.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getTotalHoursByEmployeeId()).isEmpty();
+    }
+
+    @Test
+    void getTendancesPresences_withFromAfterTo_shouldReturnBadRequest() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl() + "/tendances-presences?from=2024-07-01&to=2024-06-01",
+                HttpMethod.GET,
+                null,
+                String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void getDistributionPresences_withFilters_shouldReturnDistributionReport() {
+        ResponseEntity<PresenceDistributionReportDto> response = restTemplate.exchange(
+                baseUrl() + "/distribution-presences?from=2024-06-01&to=2024-06-30&departementId=1",
+                HttpMethod.GET,
+                null,
+                PresenceDistributionReportDto.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getGlobal().getNombrePresences()).isZero();
+        assertThat(response.getBody().getEmployesDistinctsParJour()).isEmpty();
+    }
+
+    @Test
+    void getDistributionPresences_withFromAfterTo_shouldReturnBadRequest() {
+        ResponseEntity<String> response = restTemplate.exchange(
+                baseUrl() + "/distribution-presences?from=2024-07-01&to=2024-06-01",
+                HttpMethod.GET,
+                null,
+                String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void getResumeSalairesByDepartement_shouldReturnSummaryList() {
         ResponseEntity<List<DepartementSalarySummaryDto>> response = restTemplate.exchange(
@@ -74,4 +134,59 @@ public class RapportControllerIntegrationTest {
         assertThat(response.getBody()).isNotNull();
         
     }
+
+    @Test
+    void getStatistiquesSalaires_shouldIncludeDepartementsWithoutEmployees() {
+        departementRepository.save(new Departement("Statistiques Vide", null, BigDecimal.valueOf(50000)));
+
+        ResponseEntity<Map<String, Map<String, BigDecimal>>> response = restTemplate.exchange(
+                baseUrl() + "/statistiques-salaires",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<Map<String, Map<String, BigDecimal>>>() {});
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).containsKey("Statistiques Vide");
+        assertThat(response.getBody().get("Statistiques Vide").get("totalSalary")).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(response.getBody().get("Statistiques Vide").get("minSalary")).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void soumettreRapport_shouldRunJobInBackgroundAndExposeResult() throws InterruptedException {
+        departementRepository.save(new Departement("Jobs", null, BigDecimal.valueOf(80000)));
+
+        ResponseEntity<RapportJobDto> soumis = restTemplate.postForEntity(baseUrl() + "/jobs",
+                new RapportJobRequest(RapportJobRequest.Type.STATISTIQUES_SALAIRES, null, null, null, null), RapportJobDto.class);
+
+        assertThat(soumis.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(soumis.getHeaders().getLocation()).isNotNull();
+        String id = soumis.getBody().getId();
+
+        RapportJobDto job = soumis.getBody();
+        for (int i = 0; i < 100 && job.getStatut() != RapportJobDto.Statut.TERMINE && job.getStatut() != RapportJobDto.Statut.ECHEC; i++) {
+            Thread.sleep(50);
+            job = restTemplate.getForObject(soumis.getHeaders().getLocation(), RapportJobDto.class);
+        }
+
+        assertThat(job.getId()).isEqualTo(id);
+        assertThat(job.getStatut()).isEqualTo(RapportJobDto.Statut.TERMINE);
+        assertThat(job.getResultat()).isInstanceOf(Map.class);
+        assertThat(((Map<?, ?>) job.getResultat()).containsKey("Jobs")).isTrue();
+    }
+
+    @Test
+    void soumettreRapport_withFromAfterTo_shouldReturnBadRequest() {
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl() + "/jobs",
+                new RapportJobRequest(RapportJobRequest.Type.TENDANCES_PRESENCES, LocalDate.of(2024, 7, 1), LocalDate.of(2024, 6, 1), null, null),
+                String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void getJob_shouldReturnNotFoundForUnknownJob() {
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl() + "/jobs/inconnu", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
 }
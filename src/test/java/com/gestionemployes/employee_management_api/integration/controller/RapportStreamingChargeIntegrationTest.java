@@ -0,0 +1,150 @@
+package com.gestionemployes.employee_management_api.integration.controller;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.service.PresenceStreamReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de charge du rapport de tendances lu en flux : 5 millions de présences générées
+ * en SQL, rapport calculé sous un tas fixe (-Xmx256m, cf. profil Maven "charge").
+ * Le chargement complet de la table ne tiendrait pas dans ce tas ; le pic mesuré doit
+ * rester du même ordre à 500 000 et à 5 000 000 lignes.
+ *
+ * Lancement : mvn -Pcharge verify
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@ActiveProfiles("test")
+public class RapportStreamingChargeIntegrationTest {
+
+    private static final int EMPLOYES = 5_000;
+    private static final long MAX_PEAK_GROWTH_BYTES = 32L * 1024 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PresenceStreamReader presenceStreamReader;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withDatabaseName("test_db")
+            .withUsername("testuser")
+            .withPassword("testpassword");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("app.rapports.rollups.enabled", () -> "false");
+        registry.add("app.rapports.streaming.enabled", () -> "true");
+    }
+
+    @Test
+    void getTendancesPresences_shouldKeepPeakHeapFlatUpToFiveMillionRows() {
+        seedEmployes();
+        seedPresences(1, 500_000);
+        long peakAtHalfMillion = measurePeakHeap();
+
+        seedPresences(500_001, 5_000_000);
+        long peakAtFiveMillion = measurePeakHeap();
+
+        assertThat(peakAtFiveMillion - peakAtHalfMillion).isLessThan(MAX_PEAK_GROWTH_BYTES);
+
+        // Mêmes totaux que le calcul par la base
+        Long totalMinutes = jdbcTemplate.queryForObject("SELECT SUM(heures_travaillees) FROM presences", Long.class);
+        long reportedMinutes = presenceStreamReader.agregerTendances(PresenceTrendFilter.sansFiltre()).toReport().getTotalHoursByEmployeeId().values().stream()
+                .mapToLong(RapportStreamingChargeIntegrationTest::parseMinutes)
+                .sum();
+        assertThat(reportedMinutes).isEqualTo(totalMinutes);
+    }
+
+    @Test
+    void getTendancesPresences_shouldServeStreamedReport() {
+        ResponseEntity<PresenceTrendReportDto> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/rapports/tendances-presences", PresenceTrendReportDto.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+    }
+
+    private void seedEmployes() {
+        // Identifiants explicites et contigus : les colonnes id n'ont pas de valeur par défaut (séquences par blocs)
+        jdbcTemplate.update("INSERT INTO departements (id, nom, budget) " +
+                "SELECT g, 'Departement ' || g, 1000000 FROM generate_series(1, 20) g");
+        jdbcTemplate.update("INSERT INTO employes (id, prenom, nom, email, departement_id, salaire, date_embauche, statut) " +
+                "SELECT g, 'Prenom' || g, 'Nom' || g, 'employe' || g || '@example.com', " +
+                "(SELECT MIN(id) FROM departements) + g % 20, 3000, DATE '2020-01-01', 'ACTIF' " +
+                "FROM generate_series(1, ?) g", EMPLOYES);
+    }
+
+    // Une présence par (employé, jour) : la ligne g va à l'employé g % 5000, le jour g / 5000
+    private void seedPresences(int from, int to) {
+        jdbcTemplate.update("INSERT INTO presences (id, employe_id, date, arrivee, depart, heures_travaillees) " +
+                "SELECT g, (SELECT MIN(id) FROM employes) + g % ?, DATE '2022-01-01' + g / ?, TIME '08:00', " +
+                "TIME '08:00' + (240 + g % 360) * INTERVAL '1 minute', 240 + g % 360 " +
+                "FROM generate_series(?, ?) g", EMPLOYES, EMPLOYES, from, to);
+    }
+
+    private long measurePeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (isRetainedHeapPool(pool)) {
+                pool.resetPeakUsage();
+            }
+        }
+
+        PresenceTrendReportDto report = presenceStreamReader.agregerTendances(PresenceTrendFilter.sansFiltre()).toReport();
+        assertThat(report.getTotalHoursByEmployeeId()).hasSize(EMPLOYES);
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (isRetainedHeapPool(pool)) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    // Eden et survivants se remplissent jusqu'à leur taille quel que soit le volume lu :
+    // seule la vieille génération reflète ce que le calcul retient
+    private static boolean isRetainedHeapPool(MemoryPoolMXBean pool) {
+        return pool.getType() == MemoryType.HEAP
+                && !pool.getName().contains("Eden")
+                && !pool.getName().contains("Survivor");
+    }
+
+    private static long parseMinutes(String formatted) {
+        String[] parts = formatted.split("h ");
+        return Long.parseLong(parts[0]) * 60 + Long.parseLong(parts[1].replace("m", ""));
+    }
+}
@@ -1,8 +1,10 @@
 package com.gestionemployes.employee_management_api.unit;
 
+import com.gestionemployes.employee_management_api.dto.DepartementBudgetAnalysisDto;
 import com.gestionemployes.employee_management_api.dto.DepartementDto;
 import com.gestionemployes.employee_management_api.dto.DepartementRequest;
 import com.gestionemployes.employee_management_api.dto.EmployeDto; 
+import com.gestionemployes.employee_management_api.event.DepartementModifieEvent;
 import com.gestionemployes.employee_management_api.exception.BadRequestException;
 import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
 import com.gestionemployes.employee_management_api.mapper.DepartementMapper; 
@@ -14,9 +16,11 @@ import com.gestionemployes.employee_management_api.repository.EmployeRepository;
 import com.gestionemployes.employee_management_api.service.DepartementService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -45,6 +49,9 @@ public class DepartementServiceTest {
     @Mock 
     private EmployeMapper employeMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks 
     private DepartementService departementService;
 
@@ -186,6 +193,10 @@ public class DepartementServiceTest {
         verify(departementRepository, times(1)).findById(departementId);
         verify(departementRepository, times(1)).findByNom(request.getNom()); 
         verify(departementRepository, times(1)).save(existingDepartement);
+        ArgumentCaptor<DepartementModifieEvent> event = ArgumentCaptor.forClass(DepartementModifieEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(departementId, event.getValue().getDepartementId());
+        assertTrue(event.getValue().isNomChange());
     }
 
 
@@ -413,20 +424,59 @@ public class DepartementServiceTest {
     }
 
     @Test
-    void getDepartementBudgetAnalysis_shouldReturnBudget() {
+    void getDepartementBudgetAnalysis_shouldReturnUtilizationFromPayrollLedger() {
         
         Long departementId = 1L;
         Departement departement = new Departement("Dev", null, BigDecimal.valueOf(120000));
         departement.setId(departementId);
+        departement.setEffectif(3);
+        departement.setMasseSalariale(new BigDecimal("90000.00"));
 
         
         when(departementRepository.findById(departementId)).thenReturn(Optional.of(departement));
 
         
-        BigDecimal budget = departementService.getDepartementBudgetAnalysis(departementId);
+        DepartementBudgetAnalysisDto analyse = departementService.getDepartementBudgetAnalysis(departementId);
 
-        assertNotNull(budget);
-        assertEquals(BigDecimal.valueOf(120000), budget);
+        assertNotNull(analyse);
+        assertEquals(departementId, analyse.getDepartementId());
+        assertEquals(BigDecimal.valueOf(120000), analyse.getBudget());
+        assertEquals(3, analyse.getEffectif());
+        assertEquals(new BigDecimal("90000.00"), analyse.getMasseSalariale());
+        assertEquals(new BigDecimal("30000.00"), analyse.getBudgetRestant());
+        assertEquals(new BigDecimal("75.00"), analyse.getTauxUtilisation());
+        assertEquals(new BigDecimal("30000.00"), analyse.getSalaireMoyen());
         verify(departementRepository, times(1)).findById(departementId);
+        verifyNoInteractions(employeRepository);
+    }
+
+    @Test
+    void getDepartementBudgetAnalysis_withoutEmployees_shouldReturnFullBudget() {
+        
+        Long departementId = 2L;
+        Departement departement = new Departement("Vide", null, BigDecimal.valueOf(50000));
+        departement.setId(departementId);
+
+        when(departementRepository.findById(departementId)).thenReturn(Optional.of(departement));
+
+        
+        DepartementBudgetAnalysisDto analyse = departementService.getDepartementBudgetAnalysis(departementId);
+
+        
+        assertEquals(0, analyse.getEffectif());
+        assertEquals(BigDecimal.valueOf(50000), analyse.getBudgetRestant());
+        assertEquals(BigDecimal.ZERO, analyse.getTauxUtilisation());
+        assertEquals(BigDecimal.ZERO, analyse.getSalaireMoyen());
+    }
+
+    @Test
+    void getDepartementBudgetAnalysis_shouldThrowExceptionIfNotFound() {
+        
+        Long departementId = 99L;
+
+        when(departementRepository.findById(departementId)).thenReturn(Optional.empty());
+
+        
+        assertThrows(ResourceNotFoundException.class, () -> departementService.getDepartementBudgetAnalysis(departementId));
     }
 }
@@ -0,0 +1,121 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gestionemployes.employee_management_api.dto.DureesEnMinutes;
+import com.gestionemployes.employee_management_api.dto.PresenceDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.json.DureeFormat;
+import com.gestionemployes.employee_management_api.mapper.PresenceMapper;
+import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.model.Presence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DureeSerializationTest {
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static String formatHistorique(long totalMinutes) {
+        return String.format("%dh %02dm", totalMinutes / 60, totalMinutes % 60);
+    }
+
+    @Test
+    void format_shouldMatchStringFormat() throws Exception {
+        
+        Random random = new Random(42);
+        long[] bornes = {0, 1, 9, 59, 60, 61, 510, 599, 600, 5_999, 6_000, 59_999, 600_000, -1, -90, Long.MAX_VALUE, Long.MIN_VALUE};
+        
+        
+        for (long minutes : bornes) {
+            assertEquals(formatHistorique(minutes), DureeFormat.format(minutes));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            long minutes = i % 2 == 0 ? random.nextInt(1_000_000) : random.nextLong() >>> random.nextInt(64);
+            assertEquals(formatHistorique(minutes), DureeFormat.format(minutes));
+        }
+        StringWriter writer = new StringWriter();
+        DureeFormat.ecrire(510, writer);
+        assertEquals("8h 30m", writer.toString());
+    }
+
+    @Test
+    void presenceDto_fromMapper_shouldSerializeLikeFormattedDto() throws Exception {
+        
+        Employe employe = new Employe("Awa", "Diallo", "awa.diallo@example.com", null, BigDecimal.valueOf(3000), LocalDate.of(2020, 1, 1), "ACTIF");
+        employe.setId(7L);
+        Presence cloturee = new Presence(employe, LocalDate.of(2024, 6, 3), LocalTime.of(8, 30));
+        cloturee.setId(1L);
+        cloturee.setDepart(LocalTime.of(17, 5));
+        Presence ouverte = new Presence(employe, LocalDate.of(2024, 6, 4), LocalTime.of(9, 0));
+        ouverte.setId(2L);
+        PresenceMapper presenceMapper = new PresenceMapper();
+        
+        
+        String json = objectMapper.writeValueAsString(List.of(presenceMapper.toDto(cloturee), presenceMapper.toDto(ouverte)));
+        
+        
+        assertEquals("[{\"id\":1,\"employeId\":7,\"date\":\"2024-06-03\",\"arrivee\":\"08:30:00\",\"depart\":\"17:05:00\",\"heuresTravaillees\":\"8h 35m\"}," +
+                "{\"id\":2,\"employeId\":7,\"date\":\"2024-06-04\",\"arrivee\":\"09:00:00\",\"depart\":null,\"heuresTravaillees\":null}]", json);
+        assertEquals("8h 35m", presenceMapper.toDto(cloturee).getHeuresTravaillees());
+        PresenceDto relu = objectMapper.readValue(json.substring(1, json.indexOf('}') + 1), PresenceDto.class);
+        assertEquals("8h 35m", relu.getHeuresTravaillees());
+        assertEquals(515L, relu.getMinutesTravaillees());
+        assertEquals(json.substring(1, json.indexOf('}') + 1), objectMapper.writeValueAsString(relu));
+    }
+
+    @Test
+    void lire_shouldReadBackFormattedDuration() {
+        
+        long[] bornes = {0, 1, 59, 60, 510, 6_000, 600_000, -1, -90};
+        
+        
+        for (long minutes : bornes) {
+            assertEquals(minutes, DureeFormat.lire(DureeFormat.format(minutes)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> DureeFormat.lire("8:30"));
+        assertThrows(IllegalArgumentException.class, () -> DureeFormat.lire("8h"));
+    }
+
+    @Test
+    void dureesEnMinutes_shouldBehaveLikeFormattedLinkedHashMap() throws Exception {
+        
+        DureesEnMinutes<Long> durees = new DureesEnMinutes<Long>().ajouter(3L, 510L).ajouter(1L, 65L);
+        Map<Long, String> chaines = new LinkedHashMap<>();
+        chaines.put(3L, "8h 30m");
+        chaines.put(1L, "1h 05m");
+        
+        
+        PresenceTrendReportDto enMinutes = new PresenceTrendReportDto(Map.of(), Map.of(), Map.of(), "0h 00m", durees, Map.of());
+        PresenceTrendReportDto enChaines = new PresenceTrendReportDto(Map.of(), Map.of(), Map.of(), "0h 00m", chaines, Map.of());
+        
+        
+        assertEquals(chaines, durees);
+        assertEquals(durees, chaines);
+        assertEquals("1h 05m", durees.get(1L));
+        assertNull(durees.get(2L));
+        assertEquals(List.of(3L, 1L), List.copyOf(durees.keySet()));
+        assertEquals(objectMapper.writeValueAsString(enChaines), objectMapper.writeValueAsString(enMinutes));
+        assertTrue(objectMapper.writeValueAsString(enMinutes).contains("\"totalHoursByEmployeeId\":{\"3\":\"8h 30m\",\"1\":\"1h 05m\"}"));
+        assertThrows(UnsupportedOperationException.class, () -> durees.put(4L, "1h 00m"));
+    }
+}
@@ -1,6 +1,7 @@
 package com.gestionemployes.employee_management_api.unit;
 
 import com.gestionemployes.employee_management_api.dto.EmployeRequest;
+import com.gestionemployes.employee_management_api.event.EmployeModifieEvent;
 import com.gestionemployes.employee_management_api.exception.BadRequestException;
 import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
 import com.gestionemployes.employee_management_api.model.Departement;
@@ -9,15 +10,20 @@ import com.gestionemployes.employee_management_api.repository.DepartementReposit
 import com.gestionemployes.employee_management_api.repository.EmployeRepository;
 import com.gestionemployes.employee_management_api.repository.PresenceRepository;
 import com.gestionemployes.employee_management_api.service.EmployeService;
+import com.gestionemployes.employee_management_api.service.RegistrePaieService;
 import com.gestionemployes.employee_management_api.mapper.EmployeMapper; 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -39,6 +45,10 @@ public class EmployeServiceTest {
     private PresenceRepository presenceRepository;
     @Mock 
     private EmployeMapper employeMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private RegistrePaieService registrePaieService;
 
     @InjectMocks
     private EmployeService employeService;
@@ -59,23 +69,24 @@ public class EmployeServiceTest {
         );
         Employe newEmploye = new Employe("Koffi", "Kouassi", "koffi.kouassi@example.com", departement, BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF");
         newEmploye.setId(1L);
-
+        
         when(employeRepository.existsByEmail(request.getEmail())).thenReturn(false);
         when(departementRepository.findById(request.getDepartementId())).thenReturn(Optional.of(departement));
         
         
         when(employeMapper.toEntity(any(EmployeRequest.class), any(Departement.class))).thenReturn(newEmploye);
         when(employeRepository.save(any(Employe.class))).thenReturn(newEmploye);
-
+        
         
         Employe createdEmploye = employeService.createEmploye(request);
-
+        
         
         assertNotNull(createdEmploye);
         assertEquals("Koffi", createdEmploye.getPrenom());
         verify(employeRepository, times(1)).existsByEmail(request.getEmail());
         verify(departementRepository, times(1)).findById(request.getDepartementId());
         verify(employeMapper, times(1)).toEntity(any(EmployeRequest.class), any(Departement.class)); 
+        verify(registrePaieService, times(1)).enregistrerEmbauche(newEmploye);
         verify(employeRepository, times(1)).save(any(Employe.class));
     }
 
@@ -86,9 +97,9 @@ public class EmployeServiceTest {
                 "Koffi", "Kouassi", "koffi.kouassi@example.com", 1L,
                 BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF"
         );
-
+        
         when(employeRepository.existsByEmail(request.getEmail())).thenReturn(true);
-
+        
         
         assertThrows(BadRequestException.class, () -> employeService.createEmploye(request));
         verify(employeRepository, times(1)).existsByEmail(request.getEmail());
@@ -104,10 +115,10 @@ public class EmployeServiceTest {
                 "Koffi", "Kouassi", "koffi.kouassi@example.com", 99L, 
                 BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF"
         );
-
+        
         when(employeRepository.existsByEmail(request.getEmail())).thenReturn(false);
         when(departementRepository.findById(request.getDepartementId())).thenReturn(Optional.empty());
-
+        
         
         assertThrows(ResourceNotFoundException.class, () -> employeService.createEmploye(request));
         verify(employeRepository, times(1)).existsByEmail(request.getEmail());
@@ -125,10 +136,10 @@ public class EmployeServiceTest {
                 "Koffi", "Kouassi", "koffi.kouassi@example.com", 1L,
                 BigDecimal.valueOf(-100), LocalDate.now(), "ACTIF" 
         );
-
+        
         when(employeRepository.existsByEmail(request.getEmail())).thenReturn(false);
         when(departementRepository.findById(request.getDepartementId())).thenReturn(Optional.of(departement));
-
+        
         
         assertThrows(BadRequestException.class, () -> employeService.createEmploye(request));
         verify(employeRepository, times(1)).existsByEmail(request.getEmail());
@@ -146,10 +157,10 @@ public class EmployeServiceTest {
                 "Koffi", "Kouassi", "koffi.kouassi@example.com", 1L,
                 BigDecimal.valueOf(15000), LocalDate.now(), "ACTIF" 
         );
-
+        
         when(employeRepository.existsByEmail(request.getEmail())).thenReturn(false);
         when(departementRepository.findById(request.getDepartementId())).thenReturn(Optional.of(departement));
-
+        
         
         assertThrows(BadRequestException.class, () -> employeService.createEmploye(request));
         verify(employeRepository, times(1)).existsByEmail(request.getEmail());
@@ -158,6 +169,29 @@ public class EmployeServiceTest {
         verify(employeRepository, never()).save(any(Employe.class));
     }
 
+    @Test
+    void createEmploye_shouldThrowExceptionIfPayrollWouldExceedDepartmentBudget() {
+        
+        Departement departement = new Departement("IT", null, BigDecimal.valueOf(100000));
+        departement.setId(1L);
+        EmployeRequest request = new EmployeRequest(
+                "Koffi", "Kouassi", "koffi.kouassi@example.com", 1L,
+                BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF"
+        );
+        Employe newEmploye = new Employe("Koffi", "Kouassi", "koffi.kouassi@example.com", departement, BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF");
+        
+        when(employeRepository.existsByEmail(request.getEmail())).thenReturn(false);
+        when(departementRepository.findById(request.getDepartementId())).thenReturn(Optional.of(departement));
+        when(employeMapper.toEntity(any(EmployeRequest.class), any(Departement.class))).thenReturn(newEmploye);
+        doThrow(new BadRequestException("La masse salariale du département IT (ID: 1) dépasserait son budget."))
+                .when(registrePaieService).enregistrerEmbauche(newEmploye);
+        
+        
+        assertThrows(BadRequestException.class, () -> employeService.createEmploye(request));
+        verify(employeRepository, never()).save(any(Employe.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     @Test
     void updateEmploye_shouldUpdateSuccessfully() {
         
@@ -166,31 +200,36 @@ public class EmployeServiceTest {
         oldDepartement.setId(10L);
         Employe existingEmploye = new Employe("Ancien", "Utilisateur", "ancien.utilisateur@example.com", oldDepartement, BigDecimal.valueOf(30000), LocalDate.now(), "ACTIF");
         existingEmploye.setId(employeId);
-
+        
         Departement newDepartement = new Departement("Nouveau Dépt", null, BigDecimal.valueOf(70000));
         newDepartement.setId(20L);
         EmployeRequest request = new EmployeRequest(
                 "Nouveau", "Utilisateur", "nouveau.utilisateur@example.com", 20L,
                 BigDecimal.valueOf(40000), LocalDate.now().minusDays(1), "INACTIF"
         );
-
-        when(employeRepository.findById(employeId)).thenReturn(Optional.of(existingEmploye));
+        
+        when(employeRepository.findByIdForUpdate(employeId)).thenReturn(Optional.of(existingEmploye));
         when(employeRepository.existsByEmail(request.getEmail())).thenReturn(false);
         when(departementRepository.findById(request.getDepartementId())).thenReturn(Optional.of(newDepartement));
         when(employeRepository.save(any(Employe.class))).thenReturn(existingEmploye); 
-
+        
         
         Employe updatedEmploye = employeService.updateEmploye(employeId, request);
-
+        
         
         assertNotNull(updatedEmploye);
         assertEquals("Nouveau", updatedEmploye.getPrenom());
         assertEquals("nouveau.utilisateur@example.com", updatedEmploye.getEmail());
         assertEquals(newDepartement.getId(), updatedEmploye.getDepartement().getId());
-        verify(employeRepository, times(1)).findById(employeId);
+        verify(employeRepository, times(1)).findByIdForUpdate(employeId);
         verify(employeRepository, times(1)).existsByEmail(request.getEmail());
         verify(departementRepository, times(1)).findById(request.getDepartementId());
         verify(employeRepository, times(1)).save(existingEmploye);
+        verify(registrePaieService, times(1)).enregistrerModification(oldDepartement, BigDecimal.valueOf(30000), "ACTIF", existingEmploye);
+        ArgumentCaptor<EmployeModifieEvent> event = ArgumentCaptor.forClass(EmployeModifieEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(employeId, event.getValue().getEmployeId());
+        assertTrue(event.getValue().isDepartementChange());
     }
 
     @Test
@@ -198,12 +237,12 @@ public class EmployeServiceTest {
         
         Long employeId = 99L;
         EmployeRequest request = new EmployeRequest("Test", "Test", "test@test.com", 1L, BigDecimal.valueOf(100), LocalDate.now(), "ACTIF");
-
-        when(employeRepository.findById(employeId)).thenReturn(Optional.empty());
-
+        
+        when(employeRepository.findByIdForUpdate(employeId)).thenReturn(Optional.empty());
+        
         
         assertThrows(ResourceNotFoundException.class, () -> employeService.updateEmploye(employeId, request));
-        verify(employeRepository, times(1)).findById(employeId);
+        verify(employeRepository, times(1)).findByIdForUpdate(employeId);
         verify(employeRepository, never()).existsByEmail(anyString());
         verify(departementRepository, never()).findById(anyLong());
         verify(employeRepository, never()).save(any(Employe.class));
@@ -217,18 +256,18 @@ public class EmployeServiceTest {
         departement.setId(1L);
         Employe existingEmploye = new Employe("Ancien", "Utilisateur", "ancien.utilisateur@example.com", departement, BigDecimal.valueOf(30000), LocalDate.now(), "ACTIF");
         existingEmploye.setId(employeId);
-
+        
         EmployeRequest request = new EmployeRequest(
                 "Aya", "Koné", "aya.kone@example.com", 1L, 
                 BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF"
         );
-
-        when(employeRepository.findById(employeId)).thenReturn(Optional.of(existingEmploye));
+        
+        when(employeRepository.findByIdForUpdate(employeId)).thenReturn(Optional.of(existingEmploye));
         when(employeRepository.existsByEmail(request.getEmail())).thenReturn(true); 
-
+        
         
         assertThrows(BadRequestException.class, () -> employeService.updateEmploye(employeId, request));
-        verify(employeRepository, times(1)).findById(employeId);
+        verify(employeRepository, times(1)).findByIdForUpdate(employeId);
         verify(employeRepository, times(1)).existsByEmail(request.getEmail());
         verify(departementRepository, never()).findById(anyLong());
         verify(employeRepository, never()).save(any(Employe.class));
@@ -242,17 +281,18 @@ public class EmployeServiceTest {
         departement.setId(1L);
         Employe employe = new Employe("Moussa", "Traoré", "moussa.traore@example.com", departement, BigDecimal.valueOf(40000), LocalDate.now(), "ACTIF");
         employe.setId(employeId);
-
-        when(employeRepository.findById(employeId)).thenReturn(Optional.of(employe));
+        
+        when(employeRepository.findByIdForUpdate(employeId)).thenReturn(Optional.of(employe));
         when(presenceRepository.existsByEmployeId(employeId)).thenReturn(false); 
-
+        
         
         employeService.deactivateEmploye(employeId);
-
+        
         
         assertEquals("INACTIF", employe.getStatut()); 
-        verify(employeRepository, times(1)).findById(employeId);
+        verify(employeRepository, times(1)).findByIdForUpdate(employeId);
         verify(presenceRepository, times(1)).existsByEmployeId(employeId);
+        verify(registrePaieService, times(1)).enregistrerDesactivation(employe, "ACTIF");
         verify(employeRepository, times(1)).save(employe); 
     }
 
@@ -260,12 +300,12 @@ public class EmployeServiceTest {
     void deactivateEmploye_shouldThrowExceptionIfEmployeNotFound() {
         
         Long employeId = 99L;
-
-        when(employeRepository.findById(employeId)).thenReturn(Optional.empty());
-
+        
+        when(employeRepository.findByIdForUpdate(employeId)).thenReturn(Optional.empty());
+        
         
         assertThrows(ResourceNotFoundException.class, () -> employeService.deactivateEmploye(employeId));
-        verify(employeRepository, times(1)).findById(employeId);
+        verify(employeRepository, times(1)).findByIdForUpdate(employeId);
         verify(presenceRepository, never()).existsByEmployeId(anyLong());
         verify(employeRepository, never()).save(any(Employe.class));
     }
@@ -278,14 +318,15 @@ public class EmployeServiceTest {
         departement.setId(1L);
         Employe employe = new Employe("Moussa", "Traoré", "moussa.traore@example.com", departement, BigDecimal.valueOf(40000), LocalDate.now(), "ACTIF");
         employe.setId(employeId);
-
-        when(employeRepository.findById(employeId)).thenReturn(Optional.of(employe));
+        
+        when(employeRepository.findByIdForUpdate(employeId)).thenReturn(Optional.of(employe));
         when(presenceRepository.existsByEmployeId(employeId)).thenReturn(true); 
-
+        
         
         assertThrows(BadRequestException.class, () -> employeService.deactivateEmploye(employeId));
-        verify(employeRepository, times(1)).findById(employeId);
+        verify(employeRepository, times(1)).findByIdForUpdate(employeId);
         verify(presenceRepository, times(1)).existsByEmployeId(employeId);
+        verify(registrePaieService, never()).enregistrerDesactivation(any(), any());
         verify(employeRepository, never()).save(any(Employe.class));
     }
 
@@ -297,12 +338,12 @@ public class EmployeServiceTest {
         departement.setId(1L);
         Employe employe = new Employe("Fatou", "Camara", "fatou.camara@example.com", departement, BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF");
         employe.setId(employeId);
-
+        
         when(employeRepository.findById(employeId)).thenReturn(Optional.of(employe));
-
+        
         
         Employe foundEmploye = employeService.getEmployeById(employeId);
-
+        
         
         assertNotNull(foundEmploye);
         assertEquals(employeId, foundEmploye.getId());
@@ -313,9 +354,9 @@ public class EmployeServiceTest {
     void getEmployeById_shouldThrowExceptionIfNotFound() {
         
         Long employeId = 99L;
-
+        
         when(employeRepository.findById(employeId)).thenReturn(Optional.empty());
-
+        
         
         assertThrows(ResourceNotFoundException.class, () -> employeService.getEmployeById(employeId));
         verify(employeRepository, times(1)).findById(employeId);
@@ -331,17 +372,17 @@ public class EmployeServiceTest {
         Employe emp2 = new Employe("Mariam", "Doumbia", "mariam.doumbia@example.com", departement, BigDecimal.valueOf(60000), LocalDate.now(), "ACTIF");
         List<Employe> employes = Arrays.asList(emp1, emp2);
         Page<Employe> employePage = new PageImpl<>(employes, pageable, employes.size());
-
+        
         when(employeRepository.findAll(pageable)).thenReturn(employePage);
-
+        
         
         Page<Employe> result = employeService.getAllEmployes(null, pageable);
-
+        
         
         assertNotNull(result);
         assertEquals(2, result.getTotalElements());
         verify(employeRepository, times(1)).findAll(pageable);
-        verify(employeRepository, never()).findByNomContainingIgnoreCaseOrEmailContainingIgnoreCase(anyString(), anyString(), any(Pageable.class));
+        verify(employeRepository, never()).rechercher(anyString(), anyString(), any(Pageable.class));
     }
 
     @Test
@@ -354,16 +395,30 @@ public class EmployeServiceTest {
         Employe emp1 = new Employe("Koffi", "Kouassi", "koffi.kouassi@example.com", departement, BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF");
         List<Employe> employes = Collections.singletonList(emp1);
         Page<Employe> employePage = new PageImpl<>(employes, pageable, employes.size());
-
-        when(employeRepository.findByNomContainingIgnoreCaseOrEmailContainingIgnoreCase(searchTerm, searchTerm, pageable)).thenReturn(employePage);
-
+        
+        when(employeRepository.rechercher("koffi", "%koffi%", pageable)).thenReturn(employePage);
+        
         
         Page<Employe> result = employeService.getAllEmployes(searchTerm, pageable);
-
+        
         
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
-        verify(employeRepository, times(1)).findByNomContainingIgnoreCaseOrEmailContainingIgnoreCase(searchTerm, searchTerm, pageable);
+        verify(employeRepository, times(1)).rechercher("koffi", "%koffi%", pageable);
         verify(employeRepository, never()).findAll(any(Pageable.class));
     }
+
+    @Test
+    void getAllEmployes_shouldEscapeWildcardsAndIgnoreSortWhenSearching() {
+        
+        Pageable pageable = PageRequest.of(1, 10, Sort.by("nom"));
+        when(employeRepository.rechercher(anyString(), anyString(), any(Pageable.class))).thenReturn(Page.empty());
+        
+        
+        employeService.getAllEmployes("  Jean_100% ", pageable);
+        
+        
+        // Le classement par similarité remplace le tri ; '_' et '%' sont cherchés tels quels
+        verify(employeRepository, times(1)).rechercher("jean_100%", "%jean\\_100\\%%", PageRequest.of(1, 10));
+    }
 }
@@ -0,0 +1,230 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.exception.ConflictException;
+import com.gestionemployes.employee_management_api.model.PointageIdempotence;
+import com.gestionemployes.employee_management_api.repository.PointageIdempotenceRepository;
+import com.gestionemployes.employee_management_api.service.IdempotenceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class IdempotenceServiceTest {
+
+    private static final String ARRIVEE = "/api/presences/arrivee";
+    private static final String DEPART = "/api/presences/depart";
+
+    @Mock
+    private PointageIdempotenceRepository repository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private HorlogeReglable horloge;
+    private IdempotenceService idempotenceService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        horloge = new HorlogeReglable(Instant.parse("2024-06-03T08:00:00Z"));
+        idempotenceService = new IdempotenceService(repository, transactionManager, meterRegistry,
+                Duration.ofHours(24), Duration.ofMillis(200), 1000, horloge);
+        when(repository.findByCleAndCreeLeAfter(anyString(), any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void reserver_shouldReplayRecordedResponseFromMemory() {
+        
+        IdempotenceService.ReponseEnregistree reponse = reponse(201, "{\"id\":1}");
+        
+        
+        assertNull(idempotenceService.reserver("cle-1", ARRIVEE));
+        idempotenceService.enregistrer("cle-1", ARRIVEE, reponse);
+        IdempotenceService.ReponseEnregistree rejeu = idempotenceService.reserver("cle-1", ARRIVEE);
+        
+        
+        assertSame(reponse, rejeu);
+        // Base lue une seule fois, pour la clé nouvelle ; réponse copiée en base
+        verify(repository, times(1)).findByCleAndCreeLeAfter(eq("cle-1"), any());
+        verify(repository).enregistrer(eq("cle-1"), eq(ARRIVEE), eq(201), eq("application/json"), any(), eq(horloge.instant()));
+        assertEquals(1.0, meterRegistry.get("pointages.idempotence.rejeux").counter().count());
+    }
+
+    @Test
+    void reserver_shouldRejectKeyReusedOnAnotherRoute() {
+        
+        idempotenceService.reserver("cle-1", ARRIVEE);
+        idempotenceService.enregistrer("cle-1", ARRIVEE, reponse(201, "{\"id\":1}"));
+        
+        
+        assertThrows(BadRequestException.class, () -> idempotenceService.reserver("cle-1", DEPART));
+    }
+
+    @Test
+    void reserver_shouldThrowConflictWhileOriginalRequestIsInFlight() {
+        
+        idempotenceService.reserver("cle-1", ARRIVEE);
+        
+        
+        assertThrows(ConflictException.class, () -> idempotenceService.reserver("cle-1", ARRIVEE));
+    }
+
+    @Test
+    void reserver_shouldWaitForOriginalRequestResponse() throws Exception {
+        
+        idempotenceService = new IdempotenceService(repository, transactionManager, meterRegistry,
+                Duration.ofHours(24), Duration.ofSeconds(10), 1000, horloge);
+        IdempotenceService.ReponseEnregistree reponse = reponse(201, "{\"id\":1}");
+        idempotenceService.reserver("cle-1", ARRIVEE);
+        
+        
+        CompletableFuture<IdempotenceService.ReponseEnregistree> tentative =
+                CompletableFuture.supplyAsync(() -> idempotenceService.reserver("cle-1", ARRIVEE));
+        Thread.sleep(50);
+        idempotenceService.enregistrer("cle-1", ARRIVEE, reponse);
+        
+        
+        assertSame(reponse, tentative.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void abandonner_shouldLetNextAttemptProcessTheRequest() {
+        
+        idempotenceService.reserver("cle-1", ARRIVEE);
+        
+        
+        idempotenceService.abandonner("cle-1");
+        
+        
+        assertNull(idempotenceService.reserver("cle-1", ARRIVEE));
+        verify(repository, never()).enregistrer(anyString(), anyString(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void reserver_shouldReplayResponseFoundInDatabase() {
+        
+        PointageIdempotence ligne = new PointageIdempotence();
+        ligne.setCle("cle-1");
+        ligne.setRoute(ARRIVEE);
+        ligne.setStatut(201);
+        ligne.setTypeContenu("application/json");
+        ligne.setCorps("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        ligne.setCreeLe(horloge.instant().minus(Duration.ofHours(1)));
+        when(repository.findByCleAndCreeLeAfter(eq("cle-1"), any())).thenReturn(Optional.of(ligne));
+        
+        
+        IdempotenceService.ReponseEnregistree rejeu = idempotenceService.reserver("cle-1", ARRIVEE);
+        IdempotenceService.ReponseEnregistree rejeuSuivant = idempotenceService.reserver("cle-1", ARRIVEE);
+        
+        
+        assertEquals(201, rejeu.getStatut());
+        assertEquals("{\"id\":1}", new String(rejeu.getCorps(), StandardCharsets.UTF_8));
+        assertSame(rejeu, rejeuSuivant);
+        verify(repository, times(1)).findByCleAndCreeLeAfter(eq("cle-1"), any());
+    }
+
+    @Test
+    void reserver_shouldSkipDatabaseOnceRetentionSinceStartupHasElapsed() {
+        
+        horloge.avancer(Duration.ofHours(25));
+        
+        
+        assertNull(idempotenceService.reserver("cle-1", ARRIVEE));
+        
+        
+        verify(repository, never()).findByCleAndCreeLeAfter(anyString(), any());
+    }
+
+    @Test
+    void reserver_shouldForgetExpiredResponses() {
+        
+        idempotenceService.reserver("cle-1", ARRIVEE);
+        idempotenceService.enregistrer("cle-1", ARRIVEE, reponse(201, "{\"id\":1}"));
+        
+        
+        horloge.avancer(Duration.ofHours(25));
+        
+        
+        assertNull(idempotenceService.reserver("cle-1", ARRIVEE));
+    }
+
+    @Test
+    void enregistrer_shouldKeepMemoryResponseWhenDatabaseWriteFails() {
+        
+        IdempotenceService.ReponseEnregistree reponse = reponse(200, "{\"id\":1}");
+        when(repository.enregistrer(anyString(), anyString(), anyInt(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("base indisponible"));
+        idempotenceService.reserver("cle-1", DEPART);
+        
+        
+        idempotenceService.enregistrer("cle-1", DEPART, reponse);
+        
+        
+        assertSame(reponse, idempotenceService.reserver("cle-1", DEPART));
+    }
+
+    @Test
+    void purger_shouldDeleteExpiredRowsFromDatabase() {
+        
+        horloge.avancer(Duration.ofHours(30));
+        
+        
+        idempotenceService.purger();
+        
+        
+        verify(repository).purgerAvant(Instant.parse("2024-06-03T14:00:00Z"));
+    }
+
+    private static IdempotenceService.ReponseEnregistree reponse(int statut, String corps) {
+        return new IdempotenceService.ReponseEnregistree(statut, "application/json", corps.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class HorlogeReglable extends Clock {
+
+        private volatile Instant maintenant;
+
+        private HorlogeReglable(Instant maintenant) {
+            this.maintenant = maintenant;
+        }
+
+        private void avancer(Duration duree) {
+            maintenant = maintenant.plus(duree);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return maintenant;
+        }
+    }
+}
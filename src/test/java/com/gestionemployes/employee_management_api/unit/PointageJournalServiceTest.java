@@ -0,0 +1,205 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.dto.PointageJournaliseDto;
+import com.gestionemployes.employee_management_api.dto.PresenceArriveeRequest;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
+import com.gestionemployes.employee_management_api.exception.TooManyRequestsException;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import com.gestionemployes.employee_management_api.service.PointageJournal;
+import com.gestionemployes.employee_management_api.service.PointageJournalService;
+import com.gestionemployes.employee_management_api.service.PresenceArchive;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PointageJournalServiceTest {
+
+    private static final LocalDate JOUR = LocalDate.of(2024, 6, 3);
+
+    @Mock
+    private PresenceRepository presenceRepository;
+    @Mock
+    private EmployeRepository employeRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private PresenceArchive presenceArchive;
+
+    @TempDir
+    Path dossier;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PointageJournal journal;
+    private PointageJournalService pointageJournalService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        // Deux entrées au plus : entête de 64 octets, entrées de 40 octets
+        journal = PointageJournal.ouvrir(dossier.resolve("pointages.journal"), 64 + 40 * 2);
+        pointageJournalService = new PointageJournalService(presenceRepository, employeRepository, eventPublisher,
+                presenceArchive, transactionManager, meterRegistry, journal, 500);
+        when(employeRepository.existsById(1L)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+    }
+
+    @Test
+    void journaliser_shouldAcknowledgeOnceDurableWithoutWritingToDatabase() {
+        
+        PresenceArriveeRequest request = new PresenceArriveeRequest(1L, JOUR, LocalTime.of(8, 30));
+        
+        
+        PointageJournaliseDto dto = pointageJournalService.journaliser(request);
+        
+        
+        assertTrue(pointageJournalService.isActif());
+        assertEquals(1L, dto.getSequence());
+        assertEquals(1L, dto.getEmployeId());
+        assertEquals(LocalTime.of(8, 30), dto.getArrivee());
+        assertEquals(1.0, meterRegistry.get("pointages.journal.retard").gauge().value());
+        verify(presenceRepository, never()).insererArrivees(any(), any(), any());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void journaliser_withUnknownEmploye_shouldThrowResourceNotFound() {
+        
+        PresenceArriveeRequest request = new PresenceArriveeRequest(99L, JOUR, LocalTime.of(8, 30));
+        
+        
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> pointageJournalService.journaliser(request));
+        
+        
+        assertEquals("Employé non trouvé(e) avec id : '99'", exception.getMessage());
+        assertEquals(0L, journal.getRetard());
+    }
+
+    @Test
+    void journaliser_whenJournalIsFull_shouldThrowTooManyRequests() {
+        
+        PresenceArriveeRequest request = new PresenceArriveeRequest(1L, JOUR, LocalTime.of(8, 30));
+        pointageJournalService.journaliser(request);
+        pointageJournalService.journaliser(request);
+        
+        
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, () -> pointageJournalService.journaliser(request));
+        
+        
+        assertEquals("Le journal des pointages est plein, veuillez réessayer plus tard.", exception.getMessage());
+    }
+
+    @Test
+    void vider_shouldInsertBatchPublishEventsForCreatedRowsAndCountDuplicates() {
+        
+        pointageJournalService.journaliser(new PresenceArriveeRequest(1L, JOUR, LocalTime.of(8, 30)));
+        pointageJournalService.journaliser(new PresenceArriveeRequest(1L, JOUR, LocalTime.of(8, 31)));
+        PresencePointageRow creee = mock(PresencePointageRow.class);
+        when(creee.getId()).thenReturn(10L);
+        when(creee.getEmployeId()).thenReturn(1L);
+        when(creee.getDate()).thenReturn(JOUR);
+        when(creee.getArrivee()).thenReturn(LocalTime.of(8, 30));
+        when(presenceRepository.insererArrivees(List.of(1L, 1L), List.of(JOUR, JOUR), List.of(LocalTime.of(8, 30), LocalTime.of(8, 31))))
+                .thenReturn(List.of(creee));
+        
+        
+        int creees = pointageJournalService.vider();
+        
+        
+        assertEquals(1, creees);
+        ArgumentCaptor<PointageEvent> event = ArgumentCaptor.forClass(PointageEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(PointageEvent.Type.ARRIVEE, event.getValue().getType());
+        assertEquals(10L, event.getValue().getPresenceId());
+        assertEquals(1.0, meterRegistry.get("pointages.journal.doublons").counter().count());
+        assertEquals(0.0, meterRegistry.get("pointages.journal.retard").gauge().value());
+        verify(transactionManager, times(1)).commit(any());
+        // Journal vidé puis remis à zéro : de nouveau de la place
+        assertEquals(3L, pointageJournalService.journaliser(new PresenceArriveeRequest(1L, JOUR.plusDays(1), LocalTime.of(8, 30))).getSequence());
+    }
+
+    @Test
+    void journaliser_onArchivedDayAlreadyClocked_shouldThrowBadRequest() {
+        
+        PresencePointageRow archivee = mock(PresencePointageRow.class);
+        when(archivee.getDepart()).thenReturn(LocalTime.of(17, 0));
+        when(presenceArchive.getPresence(1L, JOUR)).thenReturn(archivee);
+        
+        
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> pointageJournalService.journaliser(new PresenceArriveeRequest(1L, JOUR, LocalTime.of(8, 30))));
+        
+        
+        assertEquals("L'employé a déjà complété un pointage pour le " + JOUR + ".", exception.getMessage());
+        assertEquals(0L, journal.getRetard());
+    }
+
+    @Test
+    void vider_shouldSkipEntriesOnDaysArchivedSinceJournaled() {
+        
+        pointageJournalService.journaliser(new PresenceArriveeRequest(1L, JOUR, LocalTime.of(8, 30)));
+        when(presenceArchive.getPresence(1L, JOUR)).thenReturn(mock(PresencePointageRow.class));
+        
+        
+        int creees = pointageJournalService.vider();
+        
+        
+        assertEquals(0, creees);
+        verify(presenceRepository, never()).insererArrivees(any(), any(), any());
+        assertEquals(1.0, meterRegistry.get("pointages.journal.doublons").counter().count());
+        assertEquals(0.0, meterRegistry.get("pointages.journal.retard").gauge().value());
+    }
+
+    @Test
+    void vider_whenInsertFails_shouldKeepEntriesForNextRun() {
+        
+        pointageJournalService.journaliser(new PresenceArriveeRequest(1L, JOUR, LocalTime.of(8, 30)));
+        when(presenceRepository.insererArrivees(any(), any(), any())).thenThrow(new IllegalStateException("connexion perdue"));
+        
+        
+        assertThrows(IllegalStateException.class, () -> pointageJournalService.vider());
+        
+        
+        assertEquals(1L, journal.getRetard());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void vider_whenJournalDisabled_shouldDoNothing() {
+        
+        PointageJournalService inactif = new PointageJournalService(presenceRepository, employeRepository, eventPublisher,
+                presenceArchive, transactionManager, new SimpleMeterRegistry(), null, 500);
+        
+        
+        assertFalse(inactif.isActif());
+        assertEquals(0, inactif.vider());
+        verifyNoInteractions(presenceRepository, transactionManager);
+    }
+}
@@ -0,0 +1,168 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.service.PointageJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PointageJournalTest {
+
+    private static final LocalDate JOUR = LocalDate.of(2024, 6, 3);
+    // Entête de 64 octets et entrées de 40 octets
+    private static final int CAPACITE = 64 + 40 * 10;
+
+    @TempDir
+    Path dossier;
+
+    @Test
+    void ajouter_shouldReadEntriesInOrderUntilAcknowledged() throws Exception {
+        
+        try (PointageJournal journal = PointageJournal.ouvrir(dossier.resolve("pointages.journal"), CAPACITE)) {
+            long premiere = journal.ajouter(1L, JOUR, LocalTime.of(8, 0));
+            long seconde = journal.ajouter(2L, JOUR, LocalTime.of(8, 1, 30));
+            
+            
+            PointageJournal.Lot lot = journal.lire(10);
+            PointageJournal.Lot relu = journal.lire(10);
+            
+            
+            assertEquals(1L, premiere);
+            assertEquals(2L, seconde);
+            assertEquals(2, lot.getEntrees().size());
+            assertEquals(2, relu.getEntrees().size());
+            PointageJournal.Entree entree = lot.getEntrees().get(1);
+            assertEquals(2L, entree.getEmployeId());
+            assertEquals(JOUR, entree.getDate());
+            assertEquals(LocalTime.of(8, 1, 30), entree.getArrivee());
+            assertEquals(2L, journal.getRetard());
+            journal.acquitter(lot);
+            assertTrue(journal.lire(10).getEntrees().isEmpty());
+            assertEquals(0L, journal.getRetard());
+        }
+    }
+
+    @Test
+    void ouvrir_shouldReplayEntriesNotAcknowledgedBeforeClose() throws Exception {
+        
+        Path fichier = dossier.resolve("pointages.journal");
+        try (PointageJournal journal = PointageJournal.ouvrir(fichier, CAPACITE)) {
+            journal.ajouter(1L, JOUR, LocalTime.of(8, 0));
+            journal.ajouter(2L, JOUR, LocalTime.of(8, 5));
+            journal.ajouter(3L, JOUR, LocalTime.of(8, 10));
+            journal.acquitter(journal.lire(1));
+        }
+        
+        
+        try (PointageJournal journal = PointageJournal.ouvrir(fichier, CAPACITE)) {
+            List<PointageJournal.Entree> entrees = journal.lire(10).getEntrees();
+            long suivante = journal.ajouter(4L, JOUR, LocalTime.of(8, 15));
+            
+            
+            assertEquals(2, entrees.size());
+            assertEquals(2L, entrees.get(0).getSequence());
+            assertEquals(3L, entrees.get(1).getEmployeId());
+            assertEquals(4L, suivante);
+        }
+    }
+
+    @Test
+    void ajouter_whenFull_shouldRefuseUntilEverythingIsAcknowledged() throws Exception {
+        
+        Path fichier = dossier.resolve("pointages.journal");
+        try (PointageJournal journal = PointageJournal.ouvrir(fichier, CAPACITE)) {
+            for (long employeId = 1; employeId <= 10; employeId++) {
+                assertTrue(journal.ajouter(employeId, JOUR, LocalTime.of(8, 0)) > 0);
+            }
+            
+            
+            assertEquals(-1L, journal.ajouter(11L, JOUR, LocalTime.of(8, 0)));
+            journal.acquitter(journal.lire(5));
+            assertEquals(-1L, journal.ajouter(11L, JOUR, LocalTime.of(8, 0)));
+            journal.acquitter(journal.lire(10));
+            
+            
+            assertEquals(11L, journal.ajouter(11L, JOUR, LocalTime.of(8, 0)));
+            assertEquals(1, journal.lire(10).getEntrees().size());
+        }
+        // Le journal repart du début : les entrées de la génération précédente ne sont pas rejouées
+        try (PointageJournal journal = PointageJournal.ouvrir(fichier, CAPACITE)) {
+            List<PointageJournal.Entree> entrees = journal.lire(10).getEntrees();
+            assertEquals(1, entrees.size());
+            assertEquals(11L, entrees.get(0).getSequence());
+        }
+    }
+
+    @Test
+    void ouvrir_shouldStopReplayAtCorruptedEntry() throws Exception {
+        
+        Path fichier = dossier.resolve("pointages.journal");
+        try (PointageJournal journal = PointageJournal.ouvrir(fichier, CAPACITE)) {
+            journal.ajouter(1L, JOUR, LocalTime.of(8, 0));
+            journal.ajouter(2L, JOUR, LocalTime.of(8, 5));
+            journal.ajouter(3L, JOUR, LocalTime.of(8, 10));
+        }
+        // Écriture partielle simulée : l'identifiant d'employé de la deuxième entrée est altéré
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[]{0x7F}), 64 + 40 + 16);
+        }
+        
+        
+        try (PointageJournal journal = PointageJournal.ouvrir(fichier, CAPACITE)) {
+            List<PointageJournal.Entree> entrees = journal.lire(10).getEntrees();
+            
+            
+            assertEquals(1, entrees.size());
+            assertEquals(1L, entrees.get(0).getEmployeId());
+            assertEquals(2L, journal.ajouter(4L, JOUR, LocalTime.of(8, 15)));
+        }
+    }
+
+    @Test
+    void ajouter_concurrently_shouldShareDiskSynchronisations() throws Exception {
+        
+        int ajouts = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try (PointageJournal journal = PointageJournal.ouvrir(dossier.resolve("pointages.journal"), 64 + 40 * ajouts)) {
+            List<Future<Long>> sequences = new ArrayList<>();
+            for (int i = 0; i < ajouts; i++) {
+                long employeId = i + 1;
+                sequences.add(executor.submit(() -> journal.ajouter(employeId, JOUR, LocalTime.of(8, 0))));
+            }
+            
+            
+            for (Future<Long> sequence : sequences) {
+                assertTrue(sequence.get() > 0);
+            }
+            
+            
+            assertEquals(ajouts, journal.lire(ajouts).getEntrees().size());
+            assertTrue(journal.getSynchronisations() < ajouts);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void ajouter_afterClose_shouldFail() throws IOException {
+        
+        PointageJournal journal = PointageJournal.ouvrir(dossier.resolve("pointages.journal"), CAPACITE);
+        journal.close();
+        
+        
+        assertThrows(IllegalStateException.class, () -> journal.ajouter(1L, JOUR, LocalTime.of(8, 0)));
+    }
+}
@@ -0,0 +1,179 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import com.gestionemployes.employee_management_api.service.PresenceArchivageService;
+import com.gestionemployes.employee_management_api.service.PresenceArchive;
+import com.gestionemployes.employee_management_api.service.PresenceSegment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+public class PresenceArchivageServiceTest {
+
+    private static final YearMonth JUIN = YearMonth.of(2024, 6);
+    private static final LocalDate DEBUT = LocalDate.of(2024, 6, 1);
+    private static final LocalDate FIN = LocalDate.of(2024, 6, 30);
+
+    @TempDir
+    Path dossier;
+
+    @Mock
+    private PresenceRepository presenceRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PresenceArchive presenceArchive;
+    private PresenceArchivageService presenceArchivageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        presenceArchive = new PresenceArchive(dossier);
+        // Mi-octobre, trois mois chauds : juillet à octobre restent en table
+        Clock clock = Clock.fixed(Instant.parse("2024-10-15T10:00:00Z"), ZoneOffset.UTC);
+        presenceArchivageService = new PresenceArchivageService(presenceRepository, presenceArchive, jdbcTemplate,
+                transactionManager, true, 3, clock);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        presenceArchive.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void archiverMoisClos_shouldWriteSegmentDropPartitionAndPublish() {
+        
+        moisClos(2);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq("presences_2024_06"))).thenReturn(true);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), any(RowMapper.class))).thenReturn(new long[]{2, 990});
+        
+        
+        int archives = presenceArchivageService.archiverMoisClos();
+        
+        
+        assertEquals(1, archives);
+        verify(jdbcTemplate).execute("ALTER TABLE presences DETACH PARTITION presences_2024_06");
+        verify(jdbcTemplate).execute("DROP TABLE presences_2024_06");
+        assertTrue(presenceArchive.isArchive(JUIN));
+        assertFalse(presenceArchive.isArchive(YearMonth.of(2024, 7)));
+        assertTrue(Files.exists(presenceArchive.chemin(JUIN)));
+        assertFalse(Files.exists(presenceArchive.cheminEnAttente(JUIN)));
+        List<PresencePointageRow> presences = presenceArchive.lirePresences(7L, DEBUT, FIN);
+        assertEquals(1, presences.size());
+        assertEquals(510L, presences.get(0).getMinutes());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void archiverMois_shouldRollBackAndDeleteSegmentWhenTableDoesNotMatch() {
+        
+        // Une présence saisie pendant l'archivage : la table en compte une de plus que le segment
+        moisClos(2);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq("presences_2024_06"))).thenReturn(false);
+        when(jdbcTemplate.queryForObject(startsWith("WITH retirees"), any(RowMapper.class), eq(DEBUT), eq(FIN)))
+                .thenReturn(new long[]{3, 1470});
+        
+        
+        assertThrows(IllegalStateException.class, () -> presenceArchivageService.archiverMois(JUIN));
+        
+        
+        verify(transactionManager).rollback(any());
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+        assertFalse(presenceArchive.isArchive(JUIN));
+        assertFalse(Files.exists(presenceArchive.chemin(JUIN)));
+        assertFalse(Files.exists(presenceArchive.cheminEnAttente(JUIN)));
+    }
+
+    @Test
+    void archiverMois_shouldSkipMonthWithOpenPresences() {
+        
+        when(presenceRepository.countByDateBetween(DEBUT, FIN)).thenReturn(2L);
+        when(presenceRepository.countByDateBetweenAndDepartIsNull(DEBUT, FIN)).thenReturn(1L);
+        
+        
+        boolean archive = presenceArchivageService.archiverMois(JUIN);
+        
+        
+        assertFalse(archive);
+        verify(presenceRepository, never()).streamPresencesParEmploye(any(), any());
+        assertFalse(presenceArchive.isArchive(JUIN));
+    }
+
+    @Test
+    void recupererEnAttente_shouldPublishCommittedMonthAndDeleteRolledBackOne() throws IOException {
+        
+        // Juin retiré de la table avant l'arrêt, mai encore en table
+        YearMonth mai = YearMonth.of(2024, 5);
+        PresenceSegment.ecrire(presenceArchive.cheminEnAttente(JUIN), JUIN, List.of(
+                presence(1L, 3L, LocalDate.of(2024, 6, 3), 480L)).iterator());
+        PresenceSegment.ecrire(presenceArchive.cheminEnAttente(mai), mai, List.of(
+                presence(2L, 3L, LocalDate.of(2024, 5, 6), 480L)).iterator());
+        when(presenceRepository.existsById(1L)).thenReturn(false);
+        when(presenceRepository.existsById(2L)).thenReturn(true);
+        
+        
+        presenceArchivageService.recupererEnAttente();
+        
+        
+        assertTrue(presenceArchive.isArchive(JUIN));
+        assertEquals(1, presenceArchive.lirePresences(3L, DEBUT, FIN).size());
+        assertFalse(presenceArchive.isArchive(mai));
+        assertFalse(Files.exists(presenceArchive.cheminEnAttente(mai)));
+    }
+
+    // Juin : deux présences clôturées (480 et 510 minutes), premier mois encore en table
+    private void moisClos(long nombre) {
+        when(presenceRepository.findPremiereDate()).thenReturn(LocalDate.of(2024, 6, 3));
+        when(presenceRepository.countByDateBetween(DEBUT, FIN)).thenReturn(nombre);
+        when(presenceRepository.countByDateBetweenAndDepartIsNull(DEBUT, FIN)).thenReturn(0L);
+        when(presenceRepository.streamPresencesParEmploye(DEBUT, FIN)).thenAnswer(invocation -> Stream.of(
+                presence(10L, 3L, LocalDate.of(2024, 6, 3), 480L),
+                presence(11L, 7L, LocalDate.of(2024, 6, 3), 510L)));
+    }
+
+    private static PresencePointageRow presence(Long id, Long employeId, LocalDate date, Long minutes) {
+        return new PresencePointageRow() {
+            @Override
+            public Long getId() { return id; }
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public LocalDate getDate() { return date; }
+            @Override
+            public LocalTime getArrivee() { return LocalTime.of(8, 0); }
+            @Override
+            public LocalTime getDepart() { return LocalTime.of(8, 0).plusMinutes(minutes); }
+            @Override
+            public Long getMinutes() { return minutes; }
+        };
+    }
+}
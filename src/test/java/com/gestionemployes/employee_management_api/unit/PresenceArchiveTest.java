@@ -0,0 +1,140 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.repository.projection.EmployeDepartementProjection;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import com.gestionemployes.employee_management_api.service.PresenceArchive;
+import com.gestionemployes.employee_management_api.service.PresenceSegment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresenceArchiveTest {
+
+    private static final YearMonth MAI = YearMonth.of(2024, 5);
+    private static final YearMonth JUIN = YearMonth.of(2024, 6);
+
+    // Employés 3 et 7 au département 1, employé 5 au département 2 ; l'employé 9 a été supprimé
+    private static final List<EmployeDepartementProjection> AFFECTATIONS = List.of(
+            affectation(3L, 1L), affectation(5L, 2L), affectation(7L, 1L));
+
+    @TempDir
+    Path dossier;
+
+    private PresenceArchive presenceArchive;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        presenceArchive = new PresenceArchive(dossier);
+        archiver(MAI, List.of(
+                presence(1L, 3L, LocalDate.of(2024, 5, 30)),
+                presence(2L, 3L, LocalDate.of(2024, 5, 31)),
+                presence(3L, 7L, LocalDate.of(2024, 5, 30))));
+        archiver(JUIN, List.of(
+                presence(10L, 3L, LocalDate.of(2024, 6, 3)),
+                presence(11L, 5L, LocalDate.of(2024, 6, 3)),
+                presence(12L, 7L, LocalDate.of(2024, 6, 3)),
+                presence(13L, 9L, LocalDate.of(2024, 6, 4))));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        presenceArchive.destroy();
+    }
+
+    @Test
+    void iterer_shouldReadMonthByMonthThenByEmployeeWithinFilter() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 5, 31), null, 1L, null);
+        
+        
+        List<Long> ids = new ArrayList<>();
+        Iterator<PresencePointageRow> presences = presenceArchive.iterer(filtre, AFFECTATIONS);
+        presences.forEachRemaining(presence -> ids.add(presence.getId()));
+        
+        
+        assertEquals(List.of(2L, 10L, 12L), ids);
+        assertFalse(presences.hasNext());
+    }
+
+    @Test
+    void iterer_shouldSkipDeletedEmployees() {
+        
+        List<Long> ids = new ArrayList<>();
+        presenceArchive.iterer(new PresenceTrendFilter(JUIN.atDay(1), JUIN.atEndOfMonth(), null, null), AFFECTATIONS)
+                .forEachRemaining(presence -> ids.add(presence.getId()));
+        
+        
+        assertEquals(List.of(10L, 11L, 12L), ids);
+    }
+
+    @Test
+    void lirePresencesApres_shouldSortByDateThenEmployeeAfterCursor() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(null, null, 1L, null);
+        
+        
+        List<PresencePointageRow> premiere = presenceArchive.lirePresencesApres(filtre, AFFECTATIONS, null, null, 2);
+        List<PresencePointageRow> suivante = presenceArchive.lirePresencesApres(filtre, AFFECTATIONS, LocalDate.of(2024, 5, 30), 7L, 10);
+        
+        
+        assertEquals(List.of(1L, 3L), premiere.stream().map(PresencePointageRow::getId).toList());
+        assertEquals(List.of(2L, 10L, 12L), suivante.stream().map(PresencePointageRow::getId).toList());
+        assertTrue(presenceArchive.lirePresencesApres(new PresenceTrendFilter(null, LocalDate.of(2024, 5, 31), 1L, null),
+                AFFECTATIONS, LocalDate.of(2024, 6, 3), 3L, 10).isEmpty());
+    }
+
+    @Test
+    void getPresence_shouldFindArchivedDayOfEmployee() {
+        
+        assertEquals(2L, presenceArchive.getPresence(3L, LocalDate.of(2024, 5, 31)).getId());
+        assertNull(presenceArchive.getPresence(7L, LocalDate.of(2024, 5, 31)));
+        // Mois non archivé : la table presences fait foi
+        assertNull(presenceArchive.getPresence(3L, LocalDate.of(2024, 7, 1)));
+    }
+
+    private void archiver(YearMonth mois, List<PresencePointageRow> presences) throws IOException {
+        PresenceSegment.ecrire(presenceArchive.cheminEnAttente(mois), mois, presences.iterator());
+        presenceArchive.publier(mois);
+    }
+
+    private static EmployeDepartementProjection affectation(Long employeId, Long departementId) {
+        return new EmployeDepartementProjection() {
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public Long getDepartementId() { return departementId; }
+            @Override
+            public String getDepartementNom() { return "Département " + departementId; }
+        };
+    }
+
+    private static PresencePointageRow presence(Long id, Long employeId, LocalDate date) {
+        return new PresencePointageRow() {
+            @Override
+            public Long getId() { return id; }
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public LocalDate getDate() { return date; }
+            @Override
+            public LocalTime getArrivee() { return LocalTime.of(8, 0); }
+            @Override
+            public LocalTime getDepart() { return LocalTime.of(16, 0); }
+            @Override
+            public Long getMinutes() { return 480L; }
+        };
+    }
+}
@@ -0,0 +1,250 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.event.DepartementModifieEvent;
+import com.gestionemployes.employee_management_api.event.EmployeModifieEvent;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import com.gestionemployes.employee_management_api.model.Departement;
+import com.gestionemployes.employee_management_api.repository.DepartementRepository;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.EmployeDepartementProjection;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import com.gestionemployes.employee_management_api.service.PresenceArchive;
+import com.gestionemployes.employee_management_api.service.PresenceColumnStore;
+import com.gestionemployes.employee_management_api.service.PresenceTrendAggregator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PresenceColumnStoreTest {
+
+    @Mock
+    private PresenceRepository presenceRepository;
+    @Mock
+    private EmployeRepository employeRepository;
+    @Mock
+    private DepartementRepository departementRepository;
+    @Mock
+    private PresenceArchive presenceArchive;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PresenceColumnStore presenceColumnStore;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(employeRepository.findAllDepartementsEmployes()).thenReturn(List.of(
+                affectation(1L, 10L, "IT"), affectation(2L, 10L, "IT"), affectation(3L, 20L, "RH")));
+        presenceColumnStore = new PresenceColumnStore(presenceRepository, employeRepository, departementRepository, presenceArchive, transactionManager, true);
+    }
+
+    private static EmployeDepartementProjection affectation(Long employeId, Long departementId, String departementNom) {
+        return new EmployeDepartementProjection() {
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public Long getDepartementId() { return departementId; }
+            @Override
+            public String getDepartementNom() { return departementNom; }
+        };
+    }
+
+    private static PresencePointageRow ligne(Long id, Long employeId, LocalDate date, LocalTime arrivee, LocalTime depart, Long minutes) {
+        return new PresencePointageRow() {
+            @Override
+            public Long getId() { return id; }
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public LocalDate getDate() { return date; }
+            @Override
+            public LocalTime getArrivee() { return arrivee; }
+            @Override
+            public LocalTime getDepart() { return depart; }
+            @Override
+            public Long getMinutes() { return minutes; }
+        };
+    }
+
+    private static PresencePointageRow cloturee(Long id, Long employeId, LocalDate date, long minutes) {
+        LocalTime arrivee = LocalTime.of(8, 0);
+        return ligne(id, employeId, date, arrivee, arrivee.plusMinutes(minutes), minutes);
+    }
+
+    private void chargerLignes(List<PresencePointageRow> lignes) {
+        when(presenceRepository.count()).thenReturn((long) lignes.size());
+        when(presenceRepository.streamPresences(PresenceTrendFilter.sansFiltre())).thenReturn(lignes.stream());
+        presenceColumnStore.charger();
+    }
+
+    @Test
+    void agregerTendances_shouldMatchAggregationOfClosedPresences() throws Exception {
+        
+        Random random = new Random(42);
+        Map<Long, String> departements = Map.of(1L, "IT", 2L, "IT", 3L, "RH");
+        List<PresencePointageRow> lignes = new ArrayList<>();
+        PresenceTrendAggregator attendu = new PresenceTrendAggregator();
+        PresenceTrendAggregator attenduIt = new PresenceTrendAggregator();
+        for (long id = 1; id <= 5_000; id++) {
+            long employeId = 1 + random.nextInt(3);
+            LocalDate date = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(180));
+            if (random.nextInt(10) == 0) {
+                lignes.add(ligne(id, employeId, date, LocalTime.of(9, 0), null, null));
+                continue;
+            }
+            long minutes = 240 + random.nextInt(360);
+            lignes.add(cloturee(id, employeId, date, minutes));
+            attendu.add(date, employeId, departements.get(employeId), minutes);
+            if (employeId != 3L && date.getMonthValue() >= 3 && date.getMonthValue() <= 4) {
+                attenduIt.add(date, employeId, departements.get(employeId), minutes);
+            }
+        }
+        chargerLignes(lignes);
+        
+        
+        PresenceTrendReportDto report = presenceColumnStore.agregerTendances(PresenceTrendFilter.sansFiltre()).toReport();
+        PresenceTrendReportDto reportIt = presenceColumnStore.agregerTendances(
+                new PresenceTrendFilter(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 4, 30), 10L, null)).toReport();
+        
+        
+        assertTrue(presenceColumnStore.isDisponible());
+        assertEquals(5_000, presenceColumnStore.getNombrePresences());
+        assertEquals(objectMapper.writeValueAsString(attendu.toReport()), objectMapper.writeValueAsString(report));
+        assertEquals(objectMapper.writeValueAsString(attenduIt.toReport()), objectMapper.writeValueAsString(reportIt));
+    }
+
+    @Test
+    void charger_shouldKeepColumnsUnderSixteenBytesPerPresence() {
+        
+        List<PresencePointageRow> lignes = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            lignes.add(cloturee(id, 1 + id % 3, LocalDate.of(2024, 1, 1).plusDays(id % 365), 480));
+        }
+        // Le comptage sous-estime la table : les colonnes doivent s'agrandir pendant la lecture
+        when(presenceRepository.count()).thenReturn(10_000L);
+        when(presenceRepository.streamPresences(PresenceTrendFilter.sansFiltre())).thenReturn(lignes.stream());
+        
+        
+        presenceColumnStore.charger();
+        
+        
+        assertEquals(100_000, presenceColumnStore.getNombrePresences());
+        assertTrue(presenceColumnStore.getOctetsColonnes() < 16L * 100_000,
+                "Colonnes : " + presenceColumnStore.getOctetsColonnes() + " octets");
+    }
+
+    @Test
+    void onPointage_shouldAddArrivalAndCountItOnlyOnceClosed() {
+        
+        chargerLignes(List.of(cloturee(1L, 1L, LocalDate.of(2024, 6, 3), 480)));
+        PresenceTrendFilter filtre = new PresenceTrendFilter(null, null, null, 2L);
+        
+        
+        presenceColumnStore.onPointage(new PointageEvent(PointageEvent.Type.ARRIVEE, 2L, 2L, LocalDate.of(2024, 6, 4), LocalTime.of(8, 0), null));
+        PresenceTrendReportDto ouverte = presenceColumnStore.agregerTendances(filtre).toReport();
+        presenceColumnStore.onPointage(new PointageEvent(PointageEvent.Type.DEPART, 2L, 2L, LocalDate.of(2024, 6, 4), LocalTime.of(16, 30), 510L));
+        PresenceTrendReportDto cloturee = presenceColumnStore.agregerTendances(filtre).toReport();
+        
+        
+        assertTrue(ouverte.getTotalHoursByEmployeeId().isEmpty());
+        assertEquals("8h 30m", cloturee.getTotalHoursByEmployeeId().get(2L));
+        assertEquals(2, presenceColumnStore.getNombrePresences());
+        verify(employeRepository, never()).findDepartementEmploye(anyLong());
+    }
+
+    @Test
+    void onPointage_forEmployeeCreatedAfterLoading_shouldResolveDepartment() {
+        
+        chargerLignes(List.of());
+        when(employeRepository.findDepartementEmploye(4L)).thenReturn(Optional.of(affectation(4L, 20L, "RH")));
+        
+        
+        presenceColumnStore.onPointage(new PointageEvent(PointageEvent.Type.ARRIVEE, 7L, 4L, LocalDate.of(2024, 6, 4), LocalTime.of(8, 0), null));
+        presenceColumnStore.onPointage(new PointageEvent(PointageEvent.Type.DEPART, 7L, 4L, LocalDate.of(2024, 6, 4), LocalTime.of(12, 0), 240L));
+        
+        
+        PresenceTrendReportDto report = presenceColumnStore.agregerTendances(new PresenceTrendFilter(null, null, 20L, null)).toReport();
+        assertEquals("4h 00m", report.getTotalHoursByDepartementName().get("RH"));
+    }
+
+    @Test
+    void charger_shouldReplayPointagesCommittedDuringLoadingWithoutDuplicates() {
+        
+        LocalDate date = LocalDate.of(2024, 6, 3);
+        when(presenceRepository.count()).thenReturn(2L);
+        when(presenceRepository.streamPresences(PresenceTrendFilter.sansFiltre())).thenAnswer(invocation -> {
+            // Validés pendant la lecture : la présence 2 a déjà été lue ouverte, la 3 est postérieure
+            presenceColumnStore.onPointage(new PointageEvent(PointageEvent.Type.ARRIVEE, 2L, 2L, date, LocalTime.of(9, 0), null));
+            presenceColumnStore.onPointage(new PointageEvent(PointageEvent.Type.DEPART, 2L, 2L, date, LocalTime.of(17, 0), 480L));
+            presenceColumnStore.onPointage(new PointageEvent(PointageEvent.Type.ARRIVEE, 3L, 3L, date, LocalTime.of(9, 0), null));
+            presenceColumnStore.onPointage(new PointageEvent(PointageEvent.Type.DEPART, 1L, 1L, date, LocalTime.of(16, 0), 420L));
+            assertFalse(presenceColumnStore.isDisponible());
+            return Stream.of(cloturee(1L, 1L, date, 420), ligne(2L, 2L, date, LocalTime.of(9, 0), null, null));
+        });
+        
+        
+        presenceColumnStore.charger();
+        
+        
+        PresenceTrendReportDto report = presenceColumnStore.agregerTendances(PresenceTrendFilter.sansFiltre()).toReport();
+        assertEquals(3, presenceColumnStore.getNombrePresences());
+        assertEquals("7h 00m", report.getTotalHoursByEmployeeId().get(1L));
+        assertEquals("8h 00m", report.getTotalHoursByEmployeeId().get(2L));
+        assertNull(report.getTotalHoursByEmployeeId().get(3L));
+    }
+
+    @Test
+    void onEmployeModifie_andOnDepartementModifie_shouldUpdateDepartmentDictionary() {
+        
+        chargerLignes(List.of(cloturee(1L, 1L, LocalDate.of(2024, 6, 3), 480)));
+        when(employeRepository.findDepartementEmploye(1L)).thenReturn(Optional.of(affectation(1L, 20L, "RH")));
+        Departement renomme = new Departement("Ressources humaines", null, BigDecimal.valueOf(80000));
+        renomme.setId(20L);
+        when(departementRepository.findById(20L)).thenReturn(Optional.of(renomme));
+        
+        
+        presenceColumnStore.onEmployeModifie(new EmployeModifieEvent(1L, true));
+        presenceColumnStore.onDepartementModifie(new DepartementModifieEvent(20L, true));
+        
+        
+        PresenceTrendReportDto report = presenceColumnStore.agregerTendances(new PresenceTrendFilter(null, null, 20L, null)).toReport();
+        assertEquals(Map.of("Ressources humaines", "8h 00m"), report.getTotalHoursByDepartementName());
+        assertTrue(presenceColumnStore.agregerTendances(new PresenceTrendFilter(null, null, 10L, null)).toReport()
+                .getTotalHoursByEmployeeId().isEmpty());
+    }
+
+    @Test
+    void charger_whenDisabled_shouldStayUnavailableAndIgnorePointages() {
+        
+        presenceColumnStore = new PresenceColumnStore(presenceRepository, employeRepository, departementRepository, presenceArchive, transactionManager, false);
+        
+        
+        presenceColumnStore.charger();
+        presenceColumnStore.onPointage(new PointageEvent(PointageEvent.Type.ARRIVEE, 1L, 1L, LocalDate.of(2024, 6, 3), LocalTime.of(8, 0), null));
+        
+        
+        assertFalse(presenceColumnStore.isDisponible());
+        assertThrows(IllegalStateException.class, () -> presenceColumnStore.agregerTendances(PresenceTrendFilter.sansFiltre()));
+        verifyNoInteractions(presenceRepository, employeRepository);
+    }
+}
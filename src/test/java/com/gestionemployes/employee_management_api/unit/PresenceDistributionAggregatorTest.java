@@ -0,0 +1,120 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestionemployes.employee_management_api.dto.DistributionMinutesDto;
+import com.gestionemployes.employee_management_api.dto.PresenceDistributionReportDto;
+import com.gestionemployes.employee_management_api.service.PresenceDistributionAggregator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresenceDistributionAggregatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void toReport_shouldComputeExactNearestRankPercentiles() {
+        
+        PresenceDistributionAggregator aggregator = new PresenceDistributionAggregator();
+        List<Long> minutes = new ArrayList<>();
+        for (long m = 1; m <= 100; m++) {
+            minutes.add(m * 6);
+        }
+        Collections.shuffle(minutes, new Random(7));
+        minutes.forEach(m -> aggregator.add(LocalDate.of(2024, 6, 3), 1L, "IT", m));
+        
+        
+        DistributionMinutesDto global = aggregator.toReport().getGlobal();
+        
+        
+        assertEquals(100, global.getNombrePresences());
+        assertEquals(6, global.getMinMinutes());
+        assertEquals(300, global.getP50Minutes());
+        assertEquals(540, global.getP90Minutes());
+        assertEquals(594, global.getP99Minutes());
+        assertEquals(600, global.getMaxMinutes());
+    }
+
+    @Test
+    void toReport_shouldGroupByDepartementAndMonthInSortedOrder() {
+        
+        PresenceDistributionAggregator aggregator = new PresenceDistributionAggregator();
+        aggregator.add(LocalDate.of(2024, 7, 1), 1L, "RH", 420L);
+        aggregator.add(LocalDate.of(2024, 6, 28), 2L, "IT", 480L);
+        aggregator.add(LocalDate.of(2024, 6, 28), 3L, "IT", 540L);
+        aggregator.add(LocalDate.of(2024, 6, 28), 4L, null, 60L);
+        
+        
+        PresenceDistributionReportDto report = aggregator.toReport();
+        
+        
+        assertEquals(List.of("IT", "RH"), List.copyOf(report.getParDepartement().keySet()));
+        assertEquals(2, report.getParDepartement().get("IT").getNombrePresences());
+        assertEquals(480, report.getParDepartement().get("IT").getP50Minutes());
+        assertEquals(List.of("2024-06", "2024-07"), List.copyOf(report.getParMois().keySet()));
+        assertEquals(3, report.getParMois().get("2024-06").getNombrePresences());
+        assertEquals(3L, report.getEmployesDistinctsParJour().get("2024-06-28"));
+        assertEquals(1L, report.getEmployesDistinctsParJour().get("2024-07-01"));
+    }
+
+    @Test
+    void merge_shouldProduceSameReportAsSinglePass() throws Exception {
+        
+        Random random = new Random(42);
+        PresenceDistributionAggregator single = new PresenceDistributionAggregator();
+        PresenceDistributionAggregator janvier = new PresenceDistributionAggregator();
+        PresenceDistributionAggregator fevrier = new PresenceDistributionAggregator();
+        for (int i = 0; i < 20_000; i++) {
+            LocalDate date = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(60));
+            long employeId = 1 + random.nextInt(500);
+            String departementNom = "Departement " + employeId % 7;
+            long minutes = 240 + random.nextInt(360);
+            single.add(date, employeId, departementNom, minutes);
+            (date.getMonthValue() == 1 ? janvier : fevrier).add(date, employeId, departementNom, minutes);
+        }
+        
+        
+        janvier.merge(fevrier);
+        
+        
+        assertEquals(objectMapper.writeValueAsString(single.toReport()), objectMapper.writeValueAsString(janvier.toReport()));
+    }
+
+    @Test
+    void toReport_shouldEstimateDistinctEmployeesWithinRelativeError() {
+        
+        PresenceDistributionAggregator aggregator = new PresenceDistributionAggregator();
+        LocalDate date = LocalDate.of(2024, 6, 3);
+        for (long employeId = 1; employeId <= 10_000; employeId++) {
+            // Deux présences par employé : les doublons ne doivent pas être comptés
+            aggregator.add(date, employeId, "IT", 240L);
+            aggregator.add(date, employeId, "IT", 240L);
+        }
+        
+        
+        PresenceDistributionReportDto report = aggregator.toReport();
+        
+        
+        long estimation = report.getEmployesDistinctsParJour().get("2024-06-03");
+        assertEquals(10_000, estimation, 10_000 * 3 * report.getErreurRelativeEmployesDistincts());
+        assertEquals(20_000, report.getGlobal().getNombrePresences());
+    }
+
+    @Test
+    void toReport_withoutPresence_shouldReturnEmptyDistribution() {
+        
+        PresenceDistributionReportDto report = new PresenceDistributionAggregator().toReport();
+        
+        
+        assertEquals(0, report.getGlobal().getNombrePresences());
+        assertEquals(0, report.getGlobal().getP99Minutes());
+        assertTrue(report.getParDepartement().isEmpty());
+        assertTrue(report.getEmployesDistinctsParJour().isEmpty());
+    }
+}
@@ -0,0 +1,188 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gestionemployes.employee_management_api.dto.PresenceDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.mapper.PresenceMapper;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import com.gestionemployes.employee_management_api.service.PresenceArchive;
+import com.gestionemployes.employee_management_api.service.PresenceExportService;
+import com.gestionemployes.employee_management_api.service.RapportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PresenceExportServiceTest {
+
+    @Mock
+    private PresenceRepository presenceRepository;
+    @Mock
+    private EmployeRepository employeRepository;
+    @Mock
+    private PresenceArchive presenceArchive;
+    @Mock
+    private RapportService rapportService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper objectMapper;
+    private PresenceExportService presenceExportService;
+
+    private final PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), 1L, null);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        presenceExportService = new PresenceExportService(presenceRepository, employeRepository, presenceArchive, new PresenceMapper(), rapportService,
+                objectMapper, transactionManager);
+    }
+
+    private static PresencePointageRow ligne(Long id, Long employeId, LocalDate date, LocalTime arrivee, LocalTime depart, Long minutes) {
+        return new PresencePointageRow() {
+            @Override
+            public Long getId() { return id; }
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public LocalDate getDate() { return date; }
+            @Override
+            public LocalTime getArrivee() { return arrivee; }
+            @Override
+            public LocalTime getDepart() { return depart; }
+            @Override
+            public Long getMinutes() { return minutes; }
+        };
+    }
+
+    private List<PresencePointageRow> deuxPresences() {
+        return List.of(
+                ligne(1L, 1L, LocalDate.of(2024, 6, 3), LocalTime.of(8, 30), LocalTime.of(17, 0), 510L),
+                ligne(2L, 1L, LocalDate.of(2024, 6, 4), LocalTime.of(9, 0), null, null));
+    }
+
+    @Test
+    void exporter_ndjson_shouldWriteOnePresenceDtoPerLine() throws Exception {
+        
+        when(presenceRepository.streamPresences(filtre)).thenReturn(deuxPresences().stream());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        
+        long lignes = presenceExportService.exporter(filtre, PresenceExportService.Format.NDJSON, out);
+        
+        
+        assertEquals(2, lignes);
+        String[] json = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, json.length);
+        assertEquals("", json[2]);
+        assertEquals(objectMapper.writeValueAsString(new PresenceDto(1L, 1L, LocalDate.of(2024, 6, 3), LocalTime.of(8, 30), LocalTime.of(17, 0), 510L)), json[0]);
+        PresenceDto ouverte = objectMapper.readValue(json[1], PresenceDto.class);
+        assertNull(ouverte.getDepart());
+        assertNull(ouverte.getHeuresTravaillees());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void exporter_csv_shouldWriteHeaderThenOneRowPerPresence() {
+        
+        when(presenceRepository.streamPresences(filtre)).thenReturn(deuxPresences().stream());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        
+        presenceExportService.exporter(filtre, PresenceExportService.Format.CSV, out);
+        
+        
+        assertEquals("id,employeId,date,arrivee,depart,heuresTravaillees\n" +
+                "1,1,2024-06-03,08:30:00,17:00:00,8h 30m\n" +
+                "2,1,2024-06-04,09:00:00,,\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exporter_shouldNotFlushOutputForEveryRow() {
+        
+        when(presenceRepository.streamPresences(filtre)).thenReturn(LongStream.rangeClosed(1, 10_000)
+                .mapToObj(id -> ligne(id, 1L, LocalDate.of(2024, 6, 3), LocalTime.of(8, 0), LocalTime.of(16, 0), 480L)));
+        AtomicInteger flushes = new AtomicInteger();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) { }
+            @Override
+            public void write(byte[] b, int off, int len) { }
+            @Override
+            public void flush() { flushes.incrementAndGet(); }
+        };
+        
+        
+        long lignes = presenceExportService.exporter(filtre, PresenceExportService.Format.NDJSON, out);
+        
+        
+        assertEquals(10_000, lignes);
+        assertTrue(flushes.get() <= 2, "flushes : " + flushes.get());
+    }
+
+    @Test
+    void exporter_csv_shouldWriteArchivedPresencesBeforeTable() {
+        
+        when(presenceArchive.contientSegments()).thenReturn(true);
+        when(presenceArchive.iterer(eq(filtre), any())).thenReturn(List.of(
+                ligne(7L, 1L, LocalDate.of(2024, 6, 1), LocalTime.of(8, 0), LocalTime.of(16, 0), 480L)).iterator());
+        when(presenceRepository.streamPresences(filtre)).thenReturn(deuxPresences().stream());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        
+        long lignes = presenceExportService.exporter(filtre, PresenceExportService.Format.CSV, out);
+        
+        
+        assertEquals(3, lignes);
+        String[] csv = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("7,1,2024-06-01,08:00:00,16:00:00,8h 00m", csv[1]);
+        assertTrue(csv[2].startsWith("1,1,2024-06-03,"));
+        verify(employeRepository, times(1)).findAllDepartementsEmployes();
+    }
+
+    @Test
+    void exporter_withoutPresence_shouldWriteNothingInNdjsonAndOnlyHeaderInCsv() {
+        
+        when(presenceRepository.streamPresences(filtre)).thenAnswer(invocation -> Stream.empty());
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        
+        
+        presenceExportService.exporter(filtre, PresenceExportService.Format.NDJSON, ndjson);
+        presenceExportService.exporter(filtre, PresenceExportService.Format.CSV, csv);
+        
+        
+        assertEquals(0, ndjson.size());
+        assertEquals("id,employeId,date,arrivee,depart,heuresTravaillees\n", csv.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void format_parse_shouldAcceptAnyCaseAndRejectUnknownFormat() {
+        
+        assertEquals(PresenceExportService.Format.CSV, PresenceExportService.Format.parse("csv"));
+        assertEquals(PresenceExportService.Format.NDJSON, PresenceExportService.Format.parse(" NDJSON "));
+        assertThrows(BadRequestException.class, () -> PresenceExportService.Format.parse("xml"));
+    }
+}
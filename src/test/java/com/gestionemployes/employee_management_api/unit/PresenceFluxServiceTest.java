@@ -0,0 +1,263 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gestionemployes.employee_management_api.dto.PresencesOuvertesDepartementDto;
+import com.gestionemployes.employee_management_api.dto.PresencesOuvertesDto;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import com.gestionemployes.employee_management_api.exception.TooManyRequestsException;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.service.PresenceFluxService;
+import com.gestionemployes.employee_management_api.service.PresenceOuverteIndex;
+import com.gestionemployes.employee_management_api.service.PresenceService;
+import com.gestionemployes.employee_management_api.service.SortieFlux;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PresenceFluxServiceTest {
+
+    private static final LocalDate JOUR = LocalDate.of(2024, 6, 3);
+
+    @Mock
+    private PresenceService presenceService;
+    @Mock
+    private PresenceOuverteIndex presenceOuverteIndex;
+    @Mock
+    private EmployeRepository employeRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private SimpleMeterRegistry meterRegistry;
+    // Envois mis en file et exécutés explicitement par les tests
+    private List<Runnable> envoisEnAttente;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        envoisEnAttente = new ArrayList<>();
+        PresencesOuvertesDto occupation = new PresencesOuvertesDto(5, List.of(
+                new PresencesOuvertesDepartementDto(10L, 3), new PresencesOuvertesDepartementDto(20L, 2)));
+        when(presenceService.getPresencesOuvertes(null)).thenReturn(occupation);
+        when(presenceService.getPresencesOuvertes(10L)).thenReturn(new PresencesOuvertesDto(3, List.of(new PresencesOuvertesDepartementDto(10L, 3))));
+        when(presenceService.getPresencesOuvertes(20L)).thenReturn(new PresencesOuvertesDto(2, List.of(new PresencesOuvertesDepartementDto(20L, 2))));
+        when(presenceOuverteIndex.connaitEmploye(1L)).thenReturn(true);
+        when(presenceOuverteIndex.getDepartementEmploye(1L)).thenReturn(10L);
+        when(presenceOuverteIndex.connaitEmploye(2L)).thenReturn(true);
+        when(presenceOuverteIndex.getDepartementEmploye(2L)).thenReturn(20L);
+    }
+
+    private PresenceFluxService service(int capaciteFile, int abonnesMax, Executor executor) {
+        return service(capaciteFile, abonnesMax, executor, Duration.ofSeconds(5));
+    }
+
+    private PresenceFluxService service(int capaciteFile, int abonnesMax, Executor executor, Duration delaiEnvoi) {
+        return new PresenceFluxService(presenceService, presenceOuverteIndex, employeRepository, meterRegistry, objectMapper,
+                capaciteFile, abonnesMax, executor, Duration.ofMinutes(30), delaiEnvoi);
+    }
+
+    private static PointageEvent arrivee(Long presenceId, Long employeId) {
+        return new PointageEvent(PointageEvent.Type.ARRIVEE, presenceId, employeId, JOUR, LocalTime.of(8, 30), null);
+    }
+
+    @Test
+    void abonner_shouldSendOccupationThenPointagesOfFollowedDepartement() throws IOException {
+        
+        PresenceFluxService service = service(64, 10, Runnable::run);
+        SortieEnregistree tous = new SortieEnregistree();
+        SortieEnregistree departement = new SortieEnregistree();
+        service.abonner(null, tous);
+        service.abonner(10L, departement);
+        
+        
+        service.onPointage(arrivee(100L, 1L));
+        service.onPointage(new PointageEvent(PointageEvent.Type.DEPART, 101L, 2L, JOUR, LocalTime.of(17, 0), 480L));
+        
+        
+        assertEquals(List.of("occupation", "arrivee", "depart"), tous.noms);
+        assertEquals(List.of("occupation", "arrivee"), departement.noms);
+        assertEquals(3, departement.donnees.get(0).get("total").asInt());
+        JsonNode depart = tous.donnees.get(2);
+        assertEquals("DEPART", depart.get("type").asText());
+        assertEquals(20L, depart.get("departementId").asLong());
+        assertEquals(480L, depart.get("minutesTravaillees").asLong());
+        assertEquals("2024-06-03", depart.get("date").asText());
+        verify(employeRepository, never()).findDepartementEmploye(anyLong());
+    }
+
+    @Test
+    void diffuserOccupation_shouldRestrictCountsToFollowedDepartement() throws IOException {
+        
+        PresenceFluxService service = service(64, 10, Runnable::run);
+        SortieEnregistree sortie = new SortieEnregistree();
+        service.abonner(20L, sortie);
+        
+        
+        service.diffuserOccupation();
+        
+        
+        JsonNode occupation = sortie.donnees.get(1);
+        assertEquals(2, occupation.get("total").asInt());
+        assertEquals(20L, occupation.get("departements").get(0).get("departementId").asLong());
+        verify(presenceService, times(1)).getPresencesOuvertes(null);
+    }
+
+    @Test
+    void publier_toSlowClient_shouldKeepNewestMessagesInOneSendTask() throws IOException {
+        
+        PresenceFluxService service = service(3, 10, envoisEnAttente::add);
+        SortieEnregistree sortie = new SortieEnregistree();
+        service.abonner(null, sortie);
+        for (long id = 100; id < 105; id++) {
+            service.onPointage(arrivee(id, 1L));
+        }
+        
+        
+        assertEquals(1, envoisEnAttente.size());
+        envoisEnAttente.forEach(Runnable::run);
+        
+        
+        assertEquals(3, sortie.donnees.size());
+        assertEquals(102L, sortie.donnees.get(0).get("presenceId").asLong());
+        assertEquals(104L, sortie.donnees.get(2).get("presenceId").asLong());
+        assertEquals(3.0, meterRegistry.get("presences.stream.messages.perdus").counter().count());
+    }
+
+    @Test
+    void envoyer_whenClientNotReady_shouldWaitForContainerCallback() throws IOException {
+        
+        PresenceFluxService service = service(64, 10, Runnable::run);
+        SortieEnregistree sortie = new SortieEnregistree();
+        service.abonner(null, sortie);
+        sortie.prete = false;
+        
+        
+        service.onPointage(arrivee(100L, 1L));
+        service.onPointage(arrivee(101L, 1L));
+        assertEquals(List.of("occupation"), sortie.noms);
+        sortie.prete = true;
+        sortie.ecriturePossible.run();
+        
+        
+        assertEquals(List.of("occupation", "arrivee", "arrivee"), sortie.noms);
+        assertEquals(1, service.getNombreAbonnes());
+    }
+
+    @Test
+    void publier_whenClientStopsReading_shouldUnsubscribeAfterDeadlineWithoutBlockingOthers() throws IOException, InterruptedException {
+        
+        PresenceFluxService service = service(64, 10, Runnable::run, Duration.ofMillis(50));
+        SortieEnregistree fige = new SortieEnregistree();
+        SortieEnregistree actif = new SortieEnregistree();
+        service.abonner(null, fige);
+        service.abonner(null, actif);
+        fige.prete = false;
+        
+        
+        service.onPointage(arrivee(100L, 1L));
+        // Au-delà du délai d'envoi pour le client figé
+        Thread.sleep(100);
+        service.onPointage(arrivee(101L, 1L));
+        
+        
+        assertTrue(fige.fermee);
+        assertEquals(List.of("occupation"), fige.noms);
+        assertEquals(List.of(100L, 101L), actif.donnees.subList(1, 3).stream().map(dto -> dto.get("presenceId").asLong()).toList());
+        assertEquals(1, service.getNombreAbonnes());
+        assertEquals(1.0, meterRegistry.get("presences.stream.envois.expires").counter().count());
+    }
+
+    @Test
+    void envoyer_whenClientDisconnected_shouldUnsubscribe() throws IOException {
+        
+        PresenceFluxService service = service(64, 10, Runnable::run);
+        when(presenceOuverteIndex.connaitEmploye(3L)).thenReturn(false);
+        SortieEnregistree sortie = new SortieEnregistree();
+        service.abonner(null, sortie);
+        sortie.deconnectee = true;
+        
+        
+        service.onPointage(arrivee(100L, 1L));
+        service.onPointage(arrivee(101L, 3L));
+        
+        
+        assertEquals(0, service.getNombreAbonnes());
+        assertEquals(0.0, meterRegistry.get("presences.stream.abonnes").gauge().value());
+        // Plus d'abonné : le département de l'employé inconnu n'est pas relu
+        verify(employeRepository, never()).findDepartementEmploye(anyLong());
+    }
+
+    @Test
+    void abonner_beyondMaximum_shouldThrowTooManyRequests() throws IOException {
+        
+        PresenceFluxService service = service(64, 1, Runnable::run);
+        SortieEnregistree sortie = new SortieEnregistree();
+        service.abonner(null, sortie);
+        
+        
+        SortieEnregistree refusee = new SortieEnregistree();
+        assertThrows(TooManyRequestsException.class, () -> service.abonner(null, refusee));
+        assertFalse(refusee.ouverte);
+        assertEquals(1, service.getNombreAbonnes());
+        // La place d'un client dont la réponse est terminée est rendue
+        sortie.terminee.run();
+        service.abonner(null, new SortieEnregistree());
+        assertEquals(1, service.getNombreAbonnes());
+    }
+
+    // Enregistre les événements au lieu de les écrire dans une réponse
+    private class SortieEnregistree implements SortieFlux {
+
+        private final List<String> noms = new ArrayList<>();
+        private final List<JsonNode> donnees = new ArrayList<>();
+        private Runnable ecriturePossible;
+        private Runnable terminee;
+        private boolean ouverte;
+        private boolean prete = true;
+        private boolean deconnectee;
+        private boolean fermee;
+
+        @Override
+        public void ouvrir(Duration timeout, Runnable ecriturePossible, Runnable terminee) {
+            this.ecriturePossible = ecriturePossible;
+            this.terminee = terminee;
+            ouverte = true;
+        }
+
+        @Override
+        public boolean isPrete() {
+            return prete;
+        }
+
+        @Override
+        public void ecrire(byte[] message) throws IOException {
+            if (deconnectee) {
+                throw new IOException("Broken pipe");
+            }
+            String[] lignes = new String(message, StandardCharsets.UTF_8).split("\n");
+            noms.add(lignes[0].substring("event:".length()));
+            donnees.add(objectMapper.readTree(lignes[1].substring("data:".length())));
+        }
+
+        @Override
+        public void fermer() {
+            fermee = true;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.event.EmployeModifieEvent;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.EmployeDepartementProjection;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceOuverteRow;
+import com.gestionemployes.employee_management_api.service.PresenceOuverteIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PresenceOuverteIndexTest {
+
+    private static final LocalDate JOUR = LocalDate.of(2024, 6, 3);
+
+    @Mock
+    private PresenceRepository presenceRepository;
+    @Mock
+    private EmployeRepository employeRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PresenceOuverteIndex presenceOuverteIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(presenceRepository.findPresencesOuvertes()).thenReturn(List.of(
+                ouverte(100L, 1L, 10L), ouverte(101L, 2L, 10L), ouverte(102L, 3L, null)));
+        presenceOuverteIndex = new PresenceOuverteIndex(presenceRepository, employeRepository, transactionManager, true);
+    }
+
+    private static PresenceOuverteRow ouverte(Long id, Long employeId, Long departementId) {
+        return new PresenceOuverteRow() {
+            @Override
+            public Long getId() { return id; }
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public Long getDepartementId() { return departementId; }
+            @Override
+            public LocalDate getDate() { return JOUR; }
+            @Override
+            public LocalTime getArrivee() { return LocalTime.of(9, 0); }
+        };
+    }
+
+    private static EmployeDepartementProjection affectation(Long employeId, Long departementId) {
+        return new EmployeDepartementProjection() {
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public Long getDepartementId() { return departementId; }
+            @Override
+            public String getDepartementNom() { return "D" + departementId; }
+        };
+    }
+
+    @Test
+    void charger_shouldCountOpenPresencesByDepartement() {
+        
+        presenceOuverteIndex.charger();
+        
+        
+        assertTrue(presenceOuverteIndex.isDisponible());
+        assertEquals(3, presenceOuverteIndex.getNombreOuvertes());
+        assertEquals(2, presenceOuverteIndex.getNombreOuvertesDepartement(10L));
+        assertEquals(1, presenceOuverteIndex.getNombreOuvertesDepartement(null));
+        assertEquals(0, presenceOuverteIndex.getNombreOuvertesDepartement(20L));
+        Map<Long, Integer> parDepartement = presenceOuverteIndex.getNombreOuvertesParDepartement();
+        assertEquals(2, parDepartement.size());
+        assertEquals(1, parDepartement.get(null));
+        assertEquals(LocalTime.of(9, 0), presenceOuverteIndex.getPresenceOuverte(101L).getArrivee());
+    }
+
+    @Test
+    void onPointage_shouldAddArrivalsAndRemoveDepartures() {
+        
+        presenceOuverteIndex.charger();
+        when(employeRepository.findDepartementEmploye(4L)).thenReturn(Optional.of(affectation(4L, 20L)));
+        
+        
+        presenceOuverteIndex.onPointage(new PointageEvent(PointageEvent.Type.ARRIVEE, 103L, 4L, JOUR, LocalTime.of(8, 0), null));
+        presenceOuverteIndex.onPointage(new PointageEvent(PointageEvent.Type.ARRIVEE, 104L, 1L, JOUR.plusDays(1), LocalTime.of(8, 0), null));
+        presenceOuverteIndex.onPointage(new PointageEvent(PointageEvent.Type.DEPART, 100L, 1L, JOUR, LocalTime.of(17, 0), 480L));
+        // Événements rejoués : sans effet
+        presenceOuverteIndex.onPointage(new PointageEvent(PointageEvent.Type.ARRIVEE, 103L, 4L, JOUR, LocalTime.of(8, 0), null));
+        presenceOuverteIndex.onPointage(new PointageEvent(PointageEvent.Type.DEPART, 100L, 1L, JOUR, LocalTime.of(17, 0), 480L));
+        
+        
+        assertEquals(4, presenceOuverteIndex.getNombreOuvertes());
+        assertEquals(1, presenceOuverteIndex.getNombreOuvertesDepartement(20L));
+        assertEquals(2, presenceOuverteIndex.getNombreOuvertesDepartement(10L));
+        assertNull(presenceOuverteIndex.getPresenceOuverte(100L));
+        assertEquals(List.of(104L), presenceOuverteIndex.getPresencesOuvertesEmploye(1L).stream().map(PresenceOuverteIndex.PresenceOuverte::getId).toList());
+        // Département de l'employé 1 connu depuis le chargement : pas relu
+        verify(employeRepository, times(1)).findDepartementEmploye(anyLong());
+    }
+
+    @Test
+    void onEmployeModifie_shouldMoveOpenPresencesToNewDepartement() {
+        
+        presenceOuverteIndex.charger();
+        when(employeRepository.findDepartementEmploye(1L)).thenReturn(Optional.of(affectation(1L, 20L)));
+        
+        
+        presenceOuverteIndex.onEmployeModifie(new EmployeModifieEvent(1L, true));
+        presenceOuverteIndex.onPointage(new PointageEvent(PointageEvent.Type.DEPART, 100L, 1L, JOUR, LocalTime.of(17, 0), 480L));
+        
+        
+        assertEquals(1, presenceOuverteIndex.getNombreOuvertesDepartement(10L));
+        assertEquals(0, presenceOuverteIndex.getNombreOuvertesDepartement(20L));
+        assertFalse(presenceOuverteIndex.getNombreOuvertesParDepartement().containsKey(20L));
+    }
+
+    @Test
+    void onEmployeModifie_withoutDepartementChange_shouldNotQuery() {
+        
+        presenceOuverteIndex.charger();
+        
+        
+        presenceOuverteIndex.onEmployeModifie(new EmployeModifieEvent(1L, false));
+        
+        
+        verify(employeRepository, never()).findDepartementEmploye(anyLong());
+    }
+
+    @Test
+    void oublier_shouldRemoveStaleEntry() {
+        
+        presenceOuverteIndex.charger();
+        
+        
+        presenceOuverteIndex.oublier(102L);
+        
+        
+        assertNull(presenceOuverteIndex.getPresenceOuverte(102L));
+        assertEquals(0, presenceOuverteIndex.getNombreOuvertesDepartement(null));
+    }
+
+    @Test
+    void beforeLoad_shouldIgnoreEventsAndServeNothing() {
+        
+        presenceOuverteIndex.onPointage(new PointageEvent(PointageEvent.Type.ARRIVEE, 103L, 4L, JOUR, LocalTime.of(8, 0), null));
+        
+        
+        assertFalse(presenceOuverteIndex.isDisponible());
+        assertNull(presenceOuverteIndex.getPresenceOuverte(100L));
+        verifyNoInteractions(employeRepository);
+    }
+
+    @Test
+    void charger_whenDisabled_shouldNotReadDatabase() {
+        
+        PresenceOuverteIndex desactive = new PresenceOuverteIndex(presenceRepository, employeRepository, transactionManager, false);
+        
+        
+        desactive.charger();
+        
+        
+        assertFalse(desactive.isDisponible());
+        verify(presenceRepository, never()).findPresencesOuvertes();
+    }
+}
@@ -0,0 +1,62 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.service.PresencePartitionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class PresencePartitionServiceTest {
+
+    private static final String CREER = "SELECT creer_partitions_presences(?, ?)";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PresencePartitionService presencePartitionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Clock clock = Clock.fixed(Instant.parse("2024-11-20T10:00:00Z"), ZoneOffset.UTC);
+        presencePartitionService = new PresencePartitionService(jdbcTemplate, 3, clock);
+    }
+
+    @Test
+    void creerPartitionsAVenir_shouldCoverCurrentMonthAndMonthsAhead() {
+        
+        when(jdbcTemplate.queryForObject(eq(CREER), eq(Integer.class), eq(LocalDate.of(2024, 11, 1)), eq(LocalDate.of(2025, 2, 1))))
+                .thenReturn(2);
+        
+        
+        int creees = presencePartitionService.creerPartitionsAVenir();
+        
+        
+        assertEquals(2, creees);
+        verify(jdbcTemplate).queryForObject(CREER, Integer.class, LocalDate.of(2024, 11, 1), LocalDate.of(2025, 2, 1));
+    }
+
+    @Test
+    void creerPartitions_shouldReturnZeroWhenAllPartitionsExist() {
+        
+        when(jdbcTemplate.queryForObject(eq(CREER), eq(Integer.class), eq(LocalDate.of(2024, 6, 1)), eq(LocalDate.of(2024, 7, 1))))
+                .thenReturn(0);
+        
+        
+        int creees = presencePartitionService.creerPartitions(YearMonth.of(2024, 6), YearMonth.of(2024, 7));
+        
+        
+        assertEquals(0, creees);
+    }
+}
@@ -0,0 +1,294 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.dto.PresenceArriveeRequest;
+import com.gestionemployes.employee_management_api.dto.PresenceDepartRequest;
+import com.gestionemployes.employee_management_api.dto.PresenceLotReponseDto;
+import com.gestionemployes.employee_management_api.dto.PresenceLotResultatDto;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.mapper.PresenceMapper;
+import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import com.gestionemployes.employee_management_api.service.PresenceArchive;
+import com.gestionemployes.employee_management_api.service.PresencePointageLotService;
+import com.gestionemployes.employee_management_api.service.PresenceRollupService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PresencePointageLotServiceTest {
+
+    private static final LocalDate JOUR = LocalDate.of(2024, 6, 3);
+
+    @Mock
+    private PresenceRepository presenceRepository;
+    @Mock
+    private EmployeRepository employeRepository;
+    @Mock
+    private PresenceRollupService presenceRollupService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private PresenceMapper presenceMapper = new PresenceMapper();
+    @Mock
+    private PresenceArchive presenceArchive;
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @InjectMocks
+    private PresencePointageLotService presencePointageLotService;
+
+    private Employe testEmploye;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        testEmploye = new Employe("Test", "Employe", "test@example.com", null, BigDecimal.valueOf(30000), LocalDate.of(2020, 1, 1), "ACTIF");
+        testEmploye.setId(1L);
+        // Identifiants attribués comme par la séquence à l'insertion
+        when(presenceRepository.insererArrivees(anyList(), anyList(), anyList())).thenAnswer(invocation -> {
+            List<Long> employeIds = invocation.getArgument(0);
+            List<LocalDate> dates = invocation.getArgument(1);
+            List<LocalTime> arrivees = invocation.getArgument(2);
+            List<PresencePointageRow> creees = new ArrayList<>();
+            for (int i = 0; i < employeIds.size(); i++) {
+                creees.add(row(100L + i, employeIds.get(i), dates.get(i), arrivees.get(i)));
+            }
+            return creees;
+        });
+    }
+
+    @Test
+    void pointagesArrivee_shouldSaveValidItemsInOneBatchAndReportEachItem() {
+        
+        Presence cloturee = new Presence(testEmploye, JOUR.minusDays(1), LocalTime.of(8, 0));
+        cloturee.setId(5L);
+        cloturee.setDepart(LocalTime.of(16, 0));
+        List<PresenceArriveeRequest> requests = Arrays.asList(
+                new PresenceArriveeRequest(1L, JOUR, LocalTime.of(9, 0)),
+                new PresenceArriveeRequest(99L, JOUR, LocalTime.of(9, 0)),
+                new PresenceArriveeRequest(1L, JOUR.minusDays(1), LocalTime.of(9, 0)),
+                new PresenceArriveeRequest(1L, JOUR, LocalTime.of(9, 5)),
+                new PresenceArriveeRequest(1L, null, LocalTime.of(9, 0)),
+                null);
+        
+        when(employeRepository.findIdsExistants(Set.of(1L, 99L))).thenReturn(Set.of(1L));
+        when(presenceRepository.findByEmployeIdInAndDateIn(Set.of(1L), Set.of(JOUR, JOUR.minusDays(1)))).thenReturn(List.of(cloturee));
+        
+        
+        PresenceLotReponseDto reponse = presencePointageLotService.pointagesArrivee(requests);
+        
+        
+        List<PresenceLotResultatDto> resultats = reponse.getResultats();
+        assertEquals(6, reponse.getTotal());
+        assertEquals(1, reponse.getReussis());
+        assertEquals(5, reponse.getEchecs());
+        assertEquals(201, resultats.get(0).getStatus());
+        assertEquals(100L, resultats.get(0).getPresence().getId());
+        assertEquals(1L, resultats.get(0).getPresence().getEmployeId());
+        assertEquals(404, resultats.get(1).getStatus());
+        assertEquals("Employé non trouvé(e) avec id : '99'", resultats.get(1).getMessage());
+        assertEquals(400, resultats.get(2).getStatus());
+        assertEquals("L'employé a déjà complété un pointage pour le " + JOUR.minusDays(1) + ".", resultats.get(2).getMessage());
+        // Doublon dans le lot : l'arrivée de l'élément 0 est encore ouverte
+        assertEquals("L'employé a déjà pointé son arrivée pour le " + JOUR + " et n'a pas encore pointé son départ.", resultats.get(3).getMessage());
+        assertEquals("date : La date ne peut pas être nulle", resultats.get(4).getMessage());
+        assertEquals("L'élément du lot ne peut pas être nul.", resultats.get(5).getMessage());
+        for (int i = 0; i < resultats.size(); i++) {
+            assertEquals(i, resultats.get(i).getIndex());
+        }
+        verify(presenceRepository, times(1)).insererArrivees(List.of(1L), List.of(JOUR), List.of(LocalTime.of(9, 0)));
+        verify(presenceRepository, never()).saveAll(anyList());
+        verify(employeRepository, never()).findById(anyLong());
+        verify(eventPublisher, times(1)).publishEvent(any(PointageEvent.class));
+    }
+
+    @Test
+    void pointagesArrivee_withConcurrentDuplicateOrDeletedEmployee_shouldRejectOnlySkippedItems() {
+        
+        Presence concurrente = new Presence(testEmploye, JOUR, LocalTime.of(8, 55));
+        concurrente.setId(7L);
+        List<PresenceArriveeRequest> requests = List.of(
+                new PresenceArriveeRequest(1L, JOUR, LocalTime.of(9, 0)),
+                new PresenceArriveeRequest(2L, JOUR, LocalTime.of(9, 0)),
+                new PresenceArriveeRequest(3L, JOUR, LocalTime.of(9, 0)));
+        
+        when(employeRepository.findIdsExistants(Set.of(1L, 2L, 3L))).thenReturn(Set.of(1L, 2L, 3L));
+        when(presenceRepository.findByEmployeIdInAndDateIn(Set.of(1L, 2L, 3L), Set.of(JOUR))).thenReturn(List.of());
+        // Pointage concurrent de l'employé 1 et suppression de l'employé 2 entre la lecture et l'insertion
+        when(presenceRepository.insererArrivees(anyList(), anyList(), anyList()))
+                .thenReturn(List.of(row(100L, 3L, JOUR, LocalTime.of(9, 0))));
+        when(presenceRepository.findByEmployeIdInAndDateIn(Set.of(1L, 2L), Set.of(JOUR))).thenReturn(List.of(concurrente));
+        
+        
+        PresenceLotReponseDto reponse = presencePointageLotService.pointagesArrivee(requests);
+        
+        
+        List<PresenceLotResultatDto> resultats = reponse.getResultats();
+        assertEquals(1, reponse.getReussis());
+        assertEquals(400, resultats.get(0).getStatus());
+        assertEquals("L'employé a déjà pointé son arrivée pour le " + JOUR + " et n'a pas encore pointé son départ.", resultats.get(0).getMessage());
+        assertEquals(404, resultats.get(1).getStatus());
+        assertEquals("Employé non trouvé(e) avec id : '2'", resultats.get(1).getMessage());
+        assertEquals(201, resultats.get(2).getStatus());
+        assertEquals(100L, resultats.get(2).getPresence().getId());
+        assertEquals(3L, resultats.get(2).getPresence().getEmployeId());
+        verify(eventPublisher, times(1)).publishEvent(any(PointageEvent.class));
+    }
+
+    @Test
+    void pointagesArrivee_onArchivedDayAlreadyClocked_shouldRejectItemBeforeInsert() {
+        
+        LocalDate jourArchive = LocalDate.of(2023, 1, 9);
+        List<PresenceArriveeRequest> requests = List.of(
+                new PresenceArriveeRequest(1L, jourArchive, LocalTime.of(9, 0)),
+                new PresenceArriveeRequest(1L, jourArchive.plusDays(1), LocalTime.of(9, 0)));
+        
+        when(employeRepository.findIdsExistants(Set.of(1L))).thenReturn(Set.of(1L));
+        // Ligne archivée : elle n'est plus en table, seul le segment la connaît
+        when(presenceArchive.getPresence(1L, jourArchive)).thenReturn(row(3L, 1L, jourArchive, LocalTime.of(8, 0)));
+        
+        
+        PresenceLotReponseDto reponse = presencePointageLotService.pointagesArrivee(requests);
+        
+        
+        assertEquals(400, reponse.getResultats().get(0).getStatus());
+        assertEquals("L'employé a déjà pointé son arrivée pour le " + jourArchive + " et n'a pas encore pointé son départ.",
+                reponse.getResultats().get(0).getMessage());
+        assertEquals(201, reponse.getResultats().get(1).getStatus());
+        verify(presenceRepository, times(1)).insererArrivees(List.of(1L), List.of(jourArchive.plusDays(1)), List.of(LocalTime.of(9, 0)));
+    }
+
+    @Test
+    void pointagesArrivee_withOnlyInvalidItems_shouldNotQueryRepositories() {
+        
+        List<PresenceArriveeRequest> requests = List.of(new PresenceArriveeRequest(-1L, JOUR, LocalTime.of(9, 0)));
+        
+        
+        PresenceLotReponseDto reponse = presencePointageLotService.pointagesArrivee(requests);
+        
+        
+        assertEquals(400, reponse.getResultats().get(0).getStatus());
+        assertEquals("employeId : L'ID de l'employé doit être un nombre positif", reponse.getResultats().get(0).getMessage());
+        verify(employeRepository, never()).findIdsExistants(any());
+        verify(presenceRepository, never()).findByEmployeIdInAndDateIn(any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void pointagesArrivee_shouldRejectEmptyOrOversizedBatch() {
+        
+        List<PresenceArriveeRequest> tropGrand = new ArrayList<>(Collections.nCopies(PresencePointageLotService.TAILLE_LOT_MAX + 1,
+                new PresenceArriveeRequest(1L, JOUR, LocalTime.of(9, 0))));
+        
+        
+        assertThrows(BadRequestException.class, () -> presencePointageLotService.pointagesArrivee(List.of()));
+        assertThrows(BadRequestException.class, () -> presencePointageLotService.pointagesArrivee(tropGrand));
+        verify(presenceRepository, never()).insererArrivees(anyList(), anyList(), anyList());
+    }
+
+    @Test
+    void pointagesDepart_shouldCloseValidPresencesConditionallyAndUpdateRollups() {
+        
+        Presence ouverte = new Presence(testEmploye, JOUR, LocalTime.of(9, 0));
+        ouverte.setId(10L);
+        Presence dejaCloturee = new Presence(testEmploye, JOUR.minusDays(1), LocalTime.of(9, 0));
+        dejaCloturee.setId(11L);
+        dejaCloturee.setDepart(LocalTime.of(17, 0));
+        Presence tardive = new Presence(testEmploye, JOUR.minusDays(2), LocalTime.of(14, 0));
+        tardive.setId(12L);
+        List<PresenceDepartRequest> requests = List.of(
+                new PresenceDepartRequest(10L, LocalTime.of(17, 30)),
+                new PresenceDepartRequest(11L, LocalTime.of(18, 0)),
+                new PresenceDepartRequest(12L, LocalTime.of(13, 0)),
+                new PresenceDepartRequest(13L, LocalTime.of(17, 0)),
+                new PresenceDepartRequest(10L, LocalTime.of(18, 0)),
+                new PresenceDepartRequest(14L, null));
+        
+        when(presenceRepository.findAllById(Set.of(10L, 11L, 12L, 13L))).thenReturn(List.of(ouverte, dejaCloturee, tardive));
+        when(presenceRepository.cloturerSiOuverte(10L, LocalTime.of(17, 30), 510L)).thenReturn(1);
+        
+        
+        PresenceLotReponseDto reponse = presencePointageLotService.pointagesDepart(requests);
+        
+        
+        List<PresenceLotResultatDto> resultats = reponse.getResultats();
+        assertEquals(1, reponse.getReussis());
+        assertEquals(200, resultats.get(0).getStatus());
+        assertEquals("8h 30m", resultats.get(0).getPresence().getHeuresTravaillees());
+        assertEquals(LocalTime.of(17, 30), resultats.get(0).getPresence().getDepart());
+        assertEquals("Le pointage de départ a déjà été enregistré pour cet enregistrement de présence.", resultats.get(1).getMessage());
+        assertEquals("L'heure de départ (13:00) ne peut pas être avant l'heure d'arrivée (14:00).", resultats.get(2).getMessage());
+        assertEquals(404, resultats.get(3).getStatus());
+        assertEquals("Enregistrement de présence non trouvé(e) avec id : '13'", resultats.get(3).getMessage());
+        // Même présence plus tôt dans le lot : la clôture conditionnelle ne modifie plus de ligne
+        assertEquals(400, resultats.get(4).getStatus());
+        assertEquals("Le pointage de départ a déjà été enregistré pour cet enregistrement de présence.", resultats.get(4).getMessage());
+        assertEquals("depart : L'heure de départ ne peut pas être nulle", resultats.get(5).getMessage());
+        assertNull(tardive.getDepart());
+        // La présence lue n'est pas modifiée : seule la clôture conditionnelle écrit
+        assertNull(ouverte.getDepart());
+        verify(presenceRepository, never()).saveAll(anyList());
+        verify(presenceRepository, times(1)).cloturerSiOuverte(10L, LocalTime.of(18, 0), 540L);
+        verify(presenceRollupService, times(1)).enregistrerPresenceCloturee(argThat(presence -> presence.getId().equals(10L)
+                && presence.getHeuresTravaillees() == 510L));
+        verify(eventPublisher, times(1)).publishEvent(any(PointageEvent.class));
+    }
+
+    @Test
+    void pointagesDepart_whenClosedConcurrently_shouldRejectItemWithoutCountingIt() {
+        
+        Presence ouverte = new Presence(testEmploye, JOUR, LocalTime.of(9, 0));
+        ouverte.setId(10L);
+        when(presenceRepository.findAllById(Set.of(10L))).thenReturn(List.of(ouverte));
+        // Pointage unitaire validé entre la lecture du lot et sa clôture
+        when(presenceRepository.cloturerSiOuverte(10L, LocalTime.of(17, 30), 510L)).thenReturn(0);
+        
+        
+        PresenceLotReponseDto reponse = presencePointageLotService.pointagesDepart(List.of(new PresenceDepartRequest(10L, LocalTime.of(17, 30))));
+        
+        
+        assertEquals(400, reponse.getResultats().get(0).getStatus());
+        assertEquals("Le pointage de départ a déjà été enregistré pour cet enregistrement de présence.", reponse.getResultats().get(0).getMessage());
+        verify(presenceRollupService, never()).enregistrerPresenceCloturee(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    private static PresencePointageRow row(Long id, Long employeId, LocalDate date, LocalTime arrivee) {
+        return new PresencePointageRow() {
+            @Override
+            public Long getId() { return id; }
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public LocalDate getDate() { return date; }
+            @Override
+            public LocalTime getArrivee() { return arrivee; }
+            @Override
+            public LocalTime getDepart() { return null; }
+            @Override
+            public Long getMinutes() { return null; }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.model.Departement;
+import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRollupRepository;
+import com.gestionemployes.employee_management_api.service.PresenceArchive;
+import com.gestionemployes.employee_management_api.service.PresenceRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PresenceRollupServiceTest {
+
+    @Mock
+    private PresenceRollupRepository presenceRollupRepository;
+    @Mock
+    private EmployeRepository employeRepository;
+    @Mock
+    private PresenceArchive presenceArchive;
+
+    @InjectMocks
+    private PresenceRollupService presenceRollupService;
+
+    private Employe testEmploye;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Departement departement = new Departement("HR", null, BigDecimal.valueOf(50000));
+        departement.setId(1L);
+        testEmploye = new Employe("Test", "Employe", "test@example.com", departement, BigDecimal.valueOf(30000), LocalDate.now(), "ACTIF");
+        testEmploye.setId(7L);
+    }
+
+    @Test
+    void enregistrerPresenceCloturee_shouldAddWorkedMinutes() {
+        
+        Presence presence = new Presence(testEmploye, LocalDate.of(2024, 6, 20), LocalTime.of(9, 0));
+        presence.setDepart(LocalTime.of(17, 30));
+
+        
+        presenceRollupService.enregistrerPresenceCloturee(presence);
+
+        
+        verify(presenceRollupRepository, times(1)).addMinutes(7L, LocalDate.of(2024, 6, 20), 510L);
+    }
+
+    @Test
+    void enregistrerPresenceCloturee_shouldIgnoreOpenPresence() {
+        
+        Presence presence = new Presence(testEmploye, LocalDate.of(2024, 6, 20), LocalTime.of(9, 0));
+
+        
+        presenceRollupService.enregistrerPresenceCloturee(presence);
+
+        
+        verify(presenceRollupRepository, never()).addMinutes(anyLong(), any(LocalDate.class), anyLong());
+    }
+
+    @Test
+    void reconstruireRollups_shouldLockThenReplaceEveryDimension() {
+        
+        when(presenceRollupRepository.rebuildByDate()).thenReturn(20);
+        when(presenceRollupRepository.rebuildByYearMonth()).thenReturn(1);
+        when(presenceRollupRepository.rebuildByDayOfWeek()).thenReturn(5);
+        when(presenceRollupRepository.rebuildByEmploye()).thenReturn(12);
+
+        
+        int lignes = presenceRollupService.reconstruireRollups();
+
+        
+        assertEquals(38, lignes);
+        InOrder inOrder = inOrder(presenceRollupRepository);
+        inOrder.verify(presenceRollupRepository).lockForRebuild();
+        inOrder.verify(presenceRollupRepository).deleteAllRollups();
+        inOrder.verify(presenceRollupRepository).rebuildByDate();
+    }
+}
@@ -0,0 +1,123 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import com.gestionemployes.employee_management_api.service.PresenceSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresenceSegmentTest {
+
+    private static final YearMonth JUIN = YearMonth.of(2024, 6);
+
+    @TempDir
+    Path dossier;
+
+    @Test
+    void ecrire_shouldReadBackPresencesByEmployeeThroughIndex() throws IOException {
+        
+        Path fichier = dossier.resolve("presences-2024-06.seg");
+        List<PresencePointageRow> presences = List.of(
+                presence(1L, 3L, LocalDate.of(2024, 6, 3), LocalTime.of(8, 0), LocalTime.of(16, 30), 510L),
+                presence(4L, 3L, LocalDate.of(2024, 6, 4), LocalTime.of(8, 5, 12, 345_000), LocalTime.of(12, 0), 234L),
+                presence(2L, 7L, LocalDate.of(2024, 6, 3), LocalTime.of(9, 0), null, null),
+                presence(3L, 12L, LocalDate.of(2024, 6, 30), LocalTime.of(22, 0), LocalTime.of(23, 59, 59), 1439L));
+        
+        
+        PresenceSegment.ecrire(fichier, JUIN, presences.iterator());
+        
+        
+        try (PresenceSegment segment = PresenceSegment.ouvrir(fichier)) {
+            assertEquals(JUIN, segment.getMois());
+            assertEquals(3, segment.getNombreEmployes());
+            assertEquals(4, segment.getNombrePresences());
+            assertEquals(3, segment.getNombreCloturees());
+            assertEquals(510L + 234L + 1439L, segment.getTotalMinutes());
+        
+            List<PresencePointageRow> employe3 = segment.lireEmploye(3L);
+            assertEquals(2, employe3.size());
+            assertEquals(4L, employe3.get(1).getId());
+            assertEquals(LocalDate.of(2024, 6, 4), employe3.get(1).getDate());
+            assertEquals(LocalTime.of(8, 5, 12, 345_000), employe3.get(1).getArrivee());
+            assertEquals(LocalTime.of(12, 0), employe3.get(1).getDepart());
+            assertEquals(234L, employe3.get(1).getMinutes());
+        
+            PresencePointageRow ouverte = segment.lireEmploye(7L).get(0);
+            assertNull(ouverte.getDepart());
+            assertNull(ouverte.getMinutes());
+            assertEquals(LocalDate.of(2024, 6, 30), segment.lireEmploye(12L).get(0).getDate());
+            assertTrue(segment.lireEmploye(5L).isEmpty());
+            assertEquals(1L, segment.premiere().getId());
+        
+            List<Long> ids = new ArrayList<>();
+            segment.parcourir(presence -> ids.add(presence.getId()));
+            assertEquals(List.of(1L, 4L, 2L, 3L), ids);
+        }
+        assertFalse(Files.exists(dossier.resolve("presences-2024-06.seg.tmp")));
+    }
+
+    @Test
+    void ecrire_shouldRejectPresencesNotSortedByEmployeeOrOutsideMonth() {
+        
+        Path fichier = dossier.resolve("presences-2024-06.seg");
+        List<PresencePointageRow> desordre = List.of(
+                presence(1L, 7L, LocalDate.of(2024, 6, 3), LocalTime.of(8, 0), LocalTime.of(16, 0), 480L),
+                presence(2L, 3L, LocalDate.of(2024, 6, 3), LocalTime.of(8, 0), LocalTime.of(16, 0), 480L));
+        List<PresencePointageRow> horsMois = List.of(
+                presence(1L, 3L, LocalDate.of(2024, 7, 1), LocalTime.of(8, 0), LocalTime.of(16, 0), 480L));
+        
+        
+        assertThrows(IllegalArgumentException.class, () -> PresenceSegment.ecrire(fichier, JUIN, desordre.iterator()));
+        assertThrows(IllegalArgumentException.class, () -> PresenceSegment.ecrire(fichier, JUIN, horsMois.iterator()));
+        
+        
+        assertFalse(Files.exists(fichier));
+        assertFalse(Files.exists(dossier.resolve("presences-2024-06.seg.tmp")));
+    }
+
+    @Test
+    void ouvrir_shouldRejectCorruptedSegment() throws IOException {
+        
+        Path fichier = dossier.resolve("presences-2024-06.seg");
+        PresenceSegment.ecrire(fichier, JUIN, List.of(
+                presence(1L, 3L, LocalDate.of(2024, 6, 3), LocalTime.of(8, 0), LocalTime.of(16, 30), 510L)).iterator());
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer octet = ByteBuffer.allocate(1);
+            canal.read(octet, 50);
+            canal.write(ByteBuffer.wrap(new byte[]{(byte) ~octet.get(0)}), 50);
+        }
+        
+        
+        assertThrows(IOException.class, () -> PresenceSegment.ouvrir(fichier));
+    }
+
+    private static PresencePointageRow presence(Long id, Long employeId, LocalDate date, LocalTime arrivee, LocalTime depart, Long minutes) {
+        return new PresencePointageRow() {
+            @Override
+            public Long getId() { return id; }
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public LocalDate getDate() { return date; }
+            @Override
+            public LocalTime getArrivee() { return arrivee; }
+            @Override
+            public LocalTime getDepart() { return depart; }
+            @Override
+            public Long getMinutes() { return minutes; }
+        };
+    }
+}
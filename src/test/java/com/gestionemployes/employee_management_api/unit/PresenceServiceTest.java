@@ -2,30 +2,49 @@ package com.gestionemployes.employee_management_api.unit;
 
 import com.gestionemployes.employee_management_api.dto.PresenceArriveeRequest;
 import com.gestionemployes.employee_management_api.dto.PresenceDepartRequest;
+import com.gestionemployes.employee_management_api.dto.PresenceDto;
+import com.gestionemployes.employee_management_api.dto.PresenceKeysetPageDto;
+import com.gestionemployes.employee_management_api.dto.PresenceMonthlyReportDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.dto.PresencesOuvertesDto;
+import com.gestionemployes.employee_management_api.event.PointageEvent;
 import com.gestionemployes.employee_management_api.exception.BadRequestException;
 import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
+import com.gestionemployes.employee_management_api.mapper.PresenceMapper;
 import com.gestionemployes.employee_management_api.model.Departement;
 import com.gestionemployes.employee_management_api.model.Employe;
 import com.gestionemployes.employee_management_api.model.Presence;
 import com.gestionemployes.employee_management_api.repository.DepartementRepository;
 import com.gestionemployes.employee_management_api.repository.EmployeRepository;
 import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.PointageArriveeResultat;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceMoisRow;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceOuverteRow;
+import com.gestionemployes.employee_management_api.repository.projection.PresencePointageRow;
+import com.gestionemployes.employee_management_api.service.PresenceArchive;
+import com.gestionemployes.employee_management_api.service.PresenceOuverteIndex;
+import com.gestionemployes.employee_management_api.service.PresenceRollupService;
 import com.gestionemployes.employee_management_api.service.PresenceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.domain.PageImpl; 
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable; 
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,6 +58,16 @@ public class PresenceServiceTest {
     private EmployeRepository employeRepository;
     @Mock
     private DepartementRepository departementRepository;
+    @Mock
+    private PresenceRollupService presenceRollupService;
+    @Mock
+    private PresenceOuverteIndex presenceOuverteIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private PresenceMapper presenceMapper = new PresenceMapper();
+    @Mock
+    private PresenceArchive presenceArchive;
 
     @InjectMocks
     private PresenceService presenceService;
@@ -55,75 +84,109 @@ public class PresenceServiceTest {
         testEmploye.setId(1L);
     }
 
+    private static PointageArriveeResultat resultatArrivee(Long id, boolean employeExiste, Boolean cloturee) {
+        return new PointageArriveeResultat() {
+            @Override
+            public Long getId() { return id; }
+            @Override
+            public Boolean getEmployeExiste() { return employeExiste; }
+            @Override
+            public Boolean getCloturee() { return cloturee; }
+        };
+    }
+
+    @Test
+    void pointageArrivee_onArchivedDayAlreadyClocked_shouldThrowWithoutInsert() {
+        
+        LocalDate jourArchive = LocalDate.of(2023, 1, 9);
+        PresenceArriveeRequest request = new PresenceArriveeRequest(testEmploye.getId(), jourArchive, LocalTime.of(9, 0));
+        PresencePointageRow archivee = mock(PresencePointageRow.class);
+        when(archivee.getDepart()).thenReturn(null);
+        when(presenceArchive.getPresence(testEmploye.getId(), jourArchive)).thenReturn(archivee);
+        
+        
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> presenceService.pointageArrivee(request));
+        
+        
+        assertEquals("L'employé a déjà pointé son arrivée pour le 2023-01-09 et n'a pas encore pointé son départ.", exception.getMessage());
+        verify(presenceRepository, never()).insererArrivee(anyLong(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     @Test
     void pointageArrivee_shouldCreateSuccessfully() {
         
         PresenceArriveeRequest request = new PresenceArriveeRequest(testEmploye.getId(), LocalDate.now(), LocalTime.of(9, 0));
-        Presence newPresence = new Presence(testEmploye, request.getDate(), request.getArrivee());
-        newPresence.setId(1L);
-
-        when(employeRepository.findById(request.getEmployeId())).thenReturn(Optional.of(testEmploye));
-        when(presenceRepository.findByEmployeIdAndDate(testEmploye.getId(), request.getDate())).thenReturn(Optional.empty());
-        when(presenceRepository.save(any(Presence.class))).thenReturn(newPresence);
-
+        
+        when(presenceRepository.insererArrivee(testEmploye.getId(), request.getDate(), request.getArrivee())).thenReturn(resultatArrivee(42L, true, null));
+        when(employeRepository.getReferenceById(testEmploye.getId())).thenReturn(testEmploye);
+        
         
         Presence createdPresence = presenceService.pointageArrivee(request);
-
+        
         
         assertNotNull(createdPresence);
+        assertEquals(42L, createdPresence.getId());
         assertEquals(request.getArrivee(), createdPresence.getArrivee());
-        verify(employeRepository, times(1)).findById(request.getEmployeId());
-        verify(presenceRepository, times(1)).findByEmployeIdAndDate(testEmploye.getId(), request.getDate());
-        verify(presenceRepository, times(1)).save(any(Presence.class));
+        assertEquals(testEmploye.getId(), presenceMapper.toDto(createdPresence).getEmployeId());
+        verify(presenceRepository, times(1)).insererArrivee(testEmploye.getId(), request.getDate(), request.getArrivee());
+        verify(employeRepository, never()).findById(anyLong());
+        verify(presenceRepository, never()).save(any(Presence.class));
+        ArgumentCaptor<PointageEvent> event = ArgumentCaptor.forClass(PointageEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(PointageEvent.Type.ARRIVEE, event.getValue().getType());
     }
 
     @Test
     void pointageArrivee_shouldThrowExceptionIfEmployeNotFound() {
         
         PresenceArriveeRequest request = new PresenceArriveeRequest(99L, LocalDate.now(), LocalTime.of(9, 0));
-
-        when(employeRepository.findById(request.getEmployeId())).thenReturn(Optional.empty());
-
         
-        assertThrows(ResourceNotFoundException.class, () -> presenceService.pointageArrivee(request));
-        verify(employeRepository, times(1)).findById(request.getEmployeId());
-        verify(presenceRepository, never()).findByEmployeIdAndDate(anyLong(), any(LocalDate.class));
-        verify(presenceRepository, never()).save(any(Presence.class));
+        when(presenceRepository.insererArrivee(99L, request.getDate(), request.getArrivee())).thenReturn(resultatArrivee(null, false, null));
+        
+        
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> presenceService.pointageArrivee(request));
+        assertEquals("Employé non trouvé(e) avec id : '99'", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     void pointageArrivee_shouldThrowExceptionIfAlreadyClockedInAndNotClockedOut() {
         
         PresenceArriveeRequest request = new PresenceArriveeRequest(testEmploye.getId(), LocalDate.now(), LocalTime.of(9, 0));
-        Presence existingPresence = new Presence(testEmploye, request.getDate(), request.getArrivee());
-        existingPresence.setId(1L); 
-
-        when(employeRepository.findById(request.getEmployeId())).thenReturn(Optional.of(testEmploye));
-        when(presenceRepository.findByEmployeIdAndDate(testEmploye.getId(), request.getDate())).thenReturn(Optional.of(existingPresence));
+        
+        when(presenceRepository.insererArrivee(testEmploye.getId(), request.getDate(), request.getArrivee())).thenReturn(resultatArrivee(null, true, false));
+        
+        
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> presenceService.pointageArrivee(request));
+        assertEquals("L'employé a déjà pointé son arrivée pour le " + request.getDate() + " et n'a pas encore pointé son départ.", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
 
+    @Test
+    void pointageArrivee_shouldThrowExceptionIfConcurrentClockInNotVisible() {
         
-        assertThrows(BadRequestException.class, () -> presenceService.pointageArrivee(request));
-        verify(employeRepository, times(1)).findById(request.getEmployeId());
-        verify(presenceRepository, times(1)).findByEmployeIdAndDate(testEmploye.getId(), request.getDate());
-        verify(presenceRepository, never()).save(any(Presence.class));
+        // Conflit sur une présence validée par un pointage concurrent après le début de l'instruction
+        PresenceArriveeRequest request = new PresenceArriveeRequest(testEmploye.getId(), LocalDate.now(), LocalTime.of(9, 0));
+        
+        when(presenceRepository.insererArrivee(testEmploye.getId(), request.getDate(), request.getArrivee())).thenReturn(resultatArrivee(null, true, null));
+        
+        
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> presenceService.pointageArrivee(request));
+        assertTrue(exception.getMessage().endsWith("n'a pas encore pointé son départ."));
     }
 
     @Test
     void pointageArrivee_shouldThrowExceptionIfAlreadyCompletedForToday() {
         
         PresenceArriveeRequest request = new PresenceArriveeRequest(testEmploye.getId(), LocalDate.now(), LocalTime.of(9, 0));
-        Presence existingCompletedPresence = new Presence(testEmploye, request.getDate(), request.getArrivee());
-        existingCompletedPresence.setDepart(LocalTime.of(17, 0)); 
-        existingCompletedPresence.setId(1L);
-
-        when(employeRepository.findById(request.getEmployeId())).thenReturn(Optional.of(testEmploye));
-        when(presenceRepository.findByEmployeIdAndDate(testEmploye.getId(), request.getDate())).thenReturn(Optional.of(existingCompletedPresence));
-
         
-        assertThrows(BadRequestException.class, () -> presenceService.pointageArrivee(request));
-        verify(employeRepository, times(1)).findById(request.getEmployeId());
-        verify(presenceRepository, times(1)).findByEmployeIdAndDate(testEmploye.getId(), request.getDate());
-        verify(presenceRepository, never()).save(any(Presence.class));
+        when(presenceRepository.insererArrivee(testEmploye.getId(), request.getDate(), request.getArrivee())).thenReturn(resultatArrivee(null, true, true));
+        
+        
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> presenceService.pointageArrivee(request));
+        assertEquals("L'employé a déjà complété un pointage pour le " + request.getDate() + ".", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
 
@@ -133,28 +196,33 @@ public class PresenceServiceTest {
         PresenceDepartRequest request = new PresenceDepartRequest(1L, LocalTime.of(17, 0));
         Presence existingPresence = new Presence(testEmploye, LocalDate.now(), LocalTime.of(9, 0));
         existingPresence.setId(1L); 
-
+        
         when(presenceRepository.findById(request.getPresenceId())).thenReturn(Optional.of(existingPresence));
         when(presenceRepository.save(any(Presence.class))).thenReturn(existingPresence);
-
+        
         
         Presence updatedPresence = presenceService.pointageDepart(request);
-
+        
         
         assertNotNull(updatedPresence);
         assertEquals(request.getDepart(), updatedPresence.getDepart());
         assertEquals(Duration.between(LocalTime.of(9,0), LocalTime.of(17,0)).toMinutes(), updatedPresence.getHeuresTravaillees()); 
         verify(presenceRepository, times(1)).findById(request.getPresenceId());
         verify(presenceRepository, times(1)).save(existingPresence);
+        verify(presenceRollupService, times(1)).enregistrerPresenceCloturee(existingPresence);
+        ArgumentCaptor<PointageEvent> event = ArgumentCaptor.forClass(PointageEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(PointageEvent.Type.DEPART, event.getValue().getType());
+        assertEquals(480L, event.getValue().getMinutesTravaillees());
     }
 
     @Test
     void pointageDepart_shouldThrowExceptionIfPresenceNotFound() {
         
         PresenceDepartRequest request = new PresenceDepartRequest(99L, LocalTime.of(17, 0));
-
+        
         when(presenceRepository.findById(request.getPresenceId())).thenReturn(Optional.empty());
-
+        
         
         assertThrows(ResourceNotFoundException.class, () -> presenceService.pointageDepart(request));
         verify(presenceRepository, times(1)).findById(request.getPresenceId());
@@ -168,9 +236,9 @@ public class PresenceServiceTest {
         Presence existingPresence = new Presence(testEmploye, LocalDate.now(), LocalTime.of(9, 0));
         existingPresence.setDepart(LocalTime.of(16, 0)); 
         existingPresence.setId(1L);
-
+        
         when(presenceRepository.findById(request.getPresenceId())).thenReturn(Optional.of(existingPresence));
-
+        
         
         assertThrows(BadRequestException.class, () -> presenceService.pointageDepart(request));
         verify(presenceRepository, times(1)).findById(request.getPresenceId());
@@ -183,9 +251,9 @@ public class PresenceServiceTest {
         PresenceDepartRequest request = new PresenceDepartRequest(1L, LocalTime.of(8, 0)); 
         Presence existingPresence = new Presence(testEmploye, LocalDate.now(), LocalTime.of(9, 0));
         existingPresence.setId(1L);
-
+        
         when(presenceRepository.findById(request.getPresenceId())).thenReturn(Optional.of(existingPresence));
-
+        
         
         assertThrows(BadRequestException.class, () -> presenceService.pointageDepart(request));
         verify(presenceRepository, times(1)).findById(request.getPresenceId());
@@ -193,29 +261,208 @@ public class PresenceServiceTest {
     }
 
     @Test
-    void getMonthlyPresenceReport_shouldReturnReportForGivenMonth() {
+    void pointageDepart_withPresenceOpenInIndex_shouldCloseWithoutLookup() {
+        
+        PresenceDepartRequest request = new PresenceDepartRequest(7L, LocalTime.of(17, 30));
+        when(presenceOuverteIndex.getPresenceOuverte(7L)).thenReturn(
+                new PresenceOuverteIndex.PresenceOuverte(7L, testEmploye.getId(), LocalDate.of(2024, 6, 3), LocalTime.of(9, 0)));
+        when(employeRepository.getReferenceById(testEmploye.getId())).thenReturn(testEmploye);
+        when(presenceRepository.cloturerSiOuverte(7L, LocalTime.of(17, 30), 510L)).thenReturn(1);
         
-        LocalDate dateInMonth = LocalDate.of(2024, 6, 15);
-        Presence p1 = new Presence(testEmploye, LocalDate.of(2024, 6, 10), LocalTime.of(9, 0)); p1.setDepart(LocalTime.of(17,0)); p1.calculateHeuresTravaillees();
-        Presence p2 = new Presence(testEmploye, LocalDate.of(2024, 6, 15), LocalTime.of(9, 0)); p2.setDepart(LocalTime.of(17,0)); p2.calculateHeuresTravaillees();
-        Presence p3_outsideMonth = new Presence(testEmploye, LocalDate.of(2024, 5, 20), LocalTime.of(9, 0)); p3_outsideMonth.setDepart(LocalTime.of(17,0)); p3_outsideMonth.calculateHeuresTravaillees();
+        
+        Presence cloturee = presenceService.pointageDepart(request);
+        
+        
+        assertEquals(7L, cloturee.getId());
+        assertEquals(LocalDate.of(2024, 6, 3), cloturee.getDate());
+        assertEquals(510L, cloturee.getHeuresTravaillees());
+        verify(presenceRepository, never()).findById(anyLong());
+        verify(presenceRepository, never()).save(any(Presence.class));
+        verify(presenceRollupService, times(1)).enregistrerPresenceCloturee(cloturee);
+        ArgumentCaptor<PointageEvent> event = ArgumentCaptor.forClass(PointageEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(PointageEvent.Type.DEPART, event.getValue().getType());
+        assertEquals(510L, event.getValue().getMinutesTravaillees());
+    }
 
-        List<Presence> allPresences = Arrays.asList(p1, p2, p3_outsideMonth);
+    @Test
+    void pointageDepart_withPresenceOpenInIndex_shouldRejectDepartureBeforeArrivalWithoutQuery() {
+        
+        PresenceDepartRequest request = new PresenceDepartRequest(7L, LocalTime.of(8, 0));
+        when(presenceOuverteIndex.getPresenceOuverte(7L)).thenReturn(
+                new PresenceOuverteIndex.PresenceOuverte(7L, testEmploye.getId(), LocalDate.of(2024, 6, 3), LocalTime.of(9, 0)));
+        
+        
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> presenceService.pointageDepart(request));
+        
+        
+        assertEquals("L'heure de départ (08:00) ne peut pas être avant l'heure d'arrivée (09:00).", exception.getMessage());
+        verifyNoInteractions(presenceRepository);
+    }
 
-        when(employeRepository.existsById(testEmploye.getId())).thenReturn(true);
-        when(presenceRepository.findByEmployeIdOrderByDateAsc(testEmploye.getId())).thenReturn(allPresences);
+    @Test
+    void pointageDepart_whenClosedSinceIndexed_shouldForgetEntryAndReportFromDatabase() {
+        
+        PresenceDepartRequest request = new PresenceDepartRequest(7L, LocalTime.of(17, 30));
+        Presence dejaCloturee = new Presence(testEmploye, LocalDate.of(2024, 6, 3), LocalTime.of(9, 0));
+        dejaCloturee.setId(7L);
+        dejaCloturee.setDepart(LocalTime.of(17, 0));
+        when(presenceOuverteIndex.getPresenceOuverte(7L)).thenReturn(
+                new PresenceOuverteIndex.PresenceOuverte(7L, testEmploye.getId(), LocalDate.of(2024, 6, 3), LocalTime.of(9, 0)));
+        when(employeRepository.getReferenceById(testEmploye.getId())).thenReturn(testEmploye);
+        when(presenceRepository.cloturerSiOuverte(7L, LocalTime.of(17, 30), 510L)).thenReturn(0);
+        when(presenceRepository.findById(7L)).thenReturn(Optional.of(dejaCloturee));
+        
+        
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> presenceService.pointageDepart(request));
+        
+        
+        assertEquals("Le pointage de départ a déjà été enregistré pour cet enregistrement de présence.", exception.getMessage());
+        verify(presenceOuverteIndex, times(1)).oublier(7L);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void getPresencesOuvertes_withIndexAvailable_shouldReadCountsFromIndex() {
+        
+        Map<Long, Integer> nombres = new HashMap<>();
+        nombres.put(2L, 4);
+        nombres.put(null, 1);
+        nombres.put(1L, 3);
+        when(presenceOuverteIndex.isDisponible()).thenReturn(true);
+        when(presenceOuverteIndex.getNombreOuvertesParDepartement()).thenReturn(nombres);
+        
+        
+        PresencesOuvertesDto dto = presenceService.getPresencesOuvertes(null);
+        
+        
+        assertEquals(8, dto.getTotal());
+        assertEquals(Arrays.asList(1L, 2L, null), dto.getDepartements().stream().map(d -> d.getDepartementId()).toList());
+        assertEquals(3, dto.getDepartements().get(0).getNombre());
+        verify(presenceRepository, never()).findPresencesOuvertes();
+    }
 
+    @Test
+    void getPresencesOuvertes_withIndexUnavailable_shouldCountFromDatabase() {
+        
+        PresenceOuverteRow ouverte = mock(PresenceOuverteRow.class);
+        when(ouverte.getDepartementId()).thenReturn(2L);
+        PresenceOuverteRow autre = mock(PresenceOuverteRow.class);
+        when(autre.getDepartementId()).thenReturn(3L);
+        when(departementRepository.existsById(2L)).thenReturn(true);
+        when(presenceRepository.findPresencesOuvertes()).thenReturn(List.of(ouverte, ouverte, autre));
+        
+        
+        PresencesOuvertesDto dto = presenceService.getPresencesOuvertes(2L);
         
-        List<Presence> report = presenceService.getMonthlyPresenceReport(testEmploye.getId(), 2024, 6);
+        
+        assertEquals(2, dto.getTotal());
+        assertEquals(1, dto.getDepartements().size());
+        assertEquals(2L, dto.getDepartements().get(0).getDepartementId());
+    }
+
+    @Test
+    void getPresencesOuvertes_withUnknownDepartement_shouldThrowResourceNotFound() {
+        
+        when(departementRepository.existsById(99L)).thenReturn(false);
+        
+        
+        assertThrows(ResourceNotFoundException.class, () -> presenceService.getPresencesOuvertes(99L));
+        verifyNoInteractions(presenceOuverteIndex);
+    }
+
+    private static PresenceMoisRow ligneMois(Long id, Long employeId, LocalDate date, LocalTime arrivee, LocalTime depart, Long minutes,
+                                             long totalMinutes, long joursPresents, long arriveeMoyenneSecondes) {
+        return new PresenceMoisRow() {
+            @Override
+            public Long getId() { return id; }
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public LocalDate getDate() { return date; }
+            @Override
+            public LocalTime getArrivee() { return arrivee; }
+            @Override
+            public LocalTime getDepart() { return depart; }
+            @Override
+            public Long getMinutes() { return minutes; }
+            @Override
+            public Long getTotalMinutes() { return totalMinutes; }
+            @Override
+            public Long getJoursPresents() { return joursPresents; }
+            @Override
+            public Long getArriveeMoyenneSecondes() { return arriveeMoyenneSecondes; }
+        };
+    }
 
+    @Test
+    void getMonthlyPresenceReport_shouldReturnReportForGivenMonth() {
+        
+        // 9h00 et 9h30 : arrivée moyenne 9h15 ; seule la présence clôturée compte dans les minutes
+        List<PresenceMoisRow> rows = Arrays.asList(
+                ligneMois(1L, testEmploye.getId(), LocalDate.of(2024, 6, 10), LocalTime.of(9, 0), LocalTime.of(17, 0), 480L, 480, 2, 33_300),
+                ligneMois(2L, testEmploye.getId(), LocalDate.of(2024, 6, 15), LocalTime.of(9, 30), null, null, 480, 2, 33_300));
+        
+        when(employeRepository.existsById(testEmploye.getId())).thenReturn(true);
+        when(presenceRepository.findPresencesPeriodeAvecTotaux(testEmploye.getId(), LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30))).thenReturn(rows);
+        
+        
+        PresenceMonthlyReportDto report = presenceService.getMonthlyPresenceReport(testEmploye.getId(), 2024, 6);
+        
         
         assertNotNull(report);
-        assertEquals(2, report.size());
-        assertTrue(report.contains(p1));
-        assertTrue(report.contains(p2));
-        assertFalse(report.contains(p3_outsideMonth));
+        assertEquals(2, report.getPresences().size());
+        assertEquals(LocalDate.of(2024, 6, 10), report.getPresences().get(0).getDate());
+        assertEquals("8h 00m", report.getPresences().get(0).getHeuresTravaillees());
+        assertNull(report.getPresences().get(1).getDepart());
+        assertEquals(480, report.getTotalMinutes());
+        assertEquals("8h 00m", report.getTotalHeuresTravaillees());
+        assertEquals(2, report.getJoursPresents());
+        assertEquals(LocalTime.of(9, 15), report.getArriveeMoyenne());
         verify(employeRepository, times(1)).existsById(testEmploye.getId());
-        verify(presenceRepository, times(1)).findByEmployeIdOrderByDateAsc(testEmploye.getId());
+        verify(presenceRepository, times(1)).findPresencesPeriodeAvecTotaux(testEmploye.getId(), LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30));
+    }
+
+    @Test
+    void getMonthlyPresenceReport_forArchivedMonth_shouldMergeArchiveWithTableAndComputeTotals() {
+        
+        // Présence du 10 lue dans le segment, présence du 3 saisie après l'archivage et restée en table
+        YearMonth juin = YearMonth.of(2024, 6);
+        when(employeRepository.existsById(testEmploye.getId())).thenReturn(true);
+        when(presenceArchive.isArchive(juin)).thenReturn(true);
+        when(presenceArchive.lirePresences(testEmploye.getId(), LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30))).thenReturn(List.of(
+                ligneMois(5L, testEmploye.getId(), LocalDate.of(2024, 6, 10), LocalTime.of(9, 0), LocalTime.of(17, 0), 480L, 0, 0, 0)));
+        when(presenceRepository.findPresencesPeriodeAvecTotaux(testEmploye.getId(), LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30))).thenReturn(List.of(
+                ligneMois(9L, testEmploye.getId(), LocalDate.of(2024, 6, 3), LocalTime.of(8, 30), LocalTime.of(12, 30), 240L, 240, 1, 30_600)));
+        
+        
+        PresenceMonthlyReportDto report = presenceService.getMonthlyPresenceReport(testEmploye.getId(), 2024, 6);
+        
+        
+        assertEquals(2, report.getPresences().size());
+        assertEquals(LocalDate.of(2024, 6, 3), report.getPresences().get(0).getDate());
+        assertEquals(LocalDate.of(2024, 6, 10), report.getPresences().get(1).getDate());
+        assertEquals(720, report.getTotalMinutes());
+        assertEquals("12h 00m", report.getTotalHeuresTravaillees());
+        assertEquals(2, report.getJoursPresents());
+        assertEquals(LocalTime.of(8, 45), report.getArriveeMoyenne());
+    }
+
+    @Test
+    void getMonthlyPresenceReport_withoutPresence_shouldReturnZeroTotals() {
+        
+        when(employeRepository.existsById(testEmploye.getId())).thenReturn(true);
+        when(presenceRepository.findPresencesPeriodeAvecTotaux(testEmploye.getId(), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29))).thenReturn(List.of());
+        
+        
+        PresenceMonthlyReportDto report = presenceService.getMonthlyPresenceReport(testEmploye.getId(), 2024, 2);
+        
+        
+        assertTrue(report.getPresences().isEmpty());
+        assertEquals(0, report.getTotalMinutes());
+        assertEquals("0h 00m", report.getTotalHeuresTravaillees());
+        assertEquals(0, report.getJoursPresents());
+        assertNull(report.getArriveeMoyenne());
     }
 
     @Test
@@ -223,58 +470,112 @@ public class PresenceServiceTest {
         
         Long employeId = 99L;
         when(employeRepository.existsById(employeId)).thenReturn(false);
-
+        
         
         assertThrows(ResourceNotFoundException.class, () -> presenceService.getMonthlyPresenceReport(employeId, 2024, 6));
         verify(employeRepository, times(1)).existsById(employeId);
-        verify(presenceRepository, never()).findByEmployeIdOrderByDateAsc(anyLong());
+        verify(presenceRepository, never()).findPresencesPeriodeAvecTotaux(anyLong(), any(), any());
+    }
+
+    @Test
+    void getMonthlyPresenceReport_shouldThrowExceptionIfYearOrMonthInvalid() {
+        
+        assertThrows(BadRequestException.class, () -> presenceService.getMonthlyPresenceReport(testEmploye.getId(), 2024, 13));
+        assertThrows(BadRequestException.class, () -> presenceService.getMonthlyPresenceReport(testEmploye.getId(), 2024, 0));
+        assertThrows(BadRequestException.class, () -> presenceService.getMonthlyPresenceReport(testEmploye.getId(), 1_000_000_000, 6));
+        assertThrows(BadRequestException.class, () -> presenceService.getMonthlyPresenceReport(testEmploye.getId(), 0, 6));
+        verify(presenceRepository, never()).findPresencesPeriodeAvecTotaux(anyLong(), any(), any());
+    }
+
+    private static PresencePointageRow ligne(Long id, Long employeId, LocalDate date) {
+        return ligneMois(id, employeId, date, LocalTime.of(9, 0), LocalTime.of(17, 0), 480L, 0, 0, 0);
+    }
+
+    @Test
+    void getDepartementPresenceSummary_shouldReturnFirstPageWithCursor() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), 1L, null);
+        when(departementRepository.existsById(1L)).thenReturn(true);
+        when(presenceRepository.findPresencesApres(filtre, null, null, 3)).thenReturn(Arrays.asList(
+                ligne(1L, 10L, LocalDate.of(2024, 6, 1)),
+                ligne(2L, 11L, LocalDate.of(2024, 6, 1)),
+                ligne(3L, 10L, LocalDate.of(2024, 6, 2))));
+        
+        
+        PresenceKeysetPageDto page = presenceService.getDepartementPresenceSummary(1L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), null, null, 2);
+        
+        
+        assertEquals(2, page.getContent().size());
+        assertEquals(2L, page.getContent().get(1).getId());
+        assertEquals("8h 00m", page.getContent().get(0).getHeuresTravaillees());
+        assertTrue(page.isHasNext());
+        assertEquals(LocalDate.of(2024, 6, 1), page.getNextAfterDate());
+        assertEquals(11L, page.getNextAfterEmployeId());
+        verify(presenceRepository, times(1)).findPresencesApres(filtre, null, null, 3);
+        verify(employeRepository, never()).findByDepartementId(anyLong(), any(Pageable.class));
     }
 
     @Test
-    void getDepartementPresenceSummary_shouldReturnSummaryForDepartment() {
-        
-        Departement dept = new Departement("Dev", null, BigDecimal.valueOf(100000));
-        dept.setId(1L);
-        Employe emp1 = new Employe("Emp1", "Dev", "emp1@dev.com", dept, BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF");
-        emp1.setId(10L);
-        Employe emp2 = new Employe("Emp2", "Dev", "emp2@dev.com", dept, BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF");
-        emp2.setId(11L);
-
-        Presence p1 = new Presence(emp1, LocalDate.of(2024, 6, 1), LocalTime.of(9,0)); p1.setDepart(LocalTime.of(17,0)); p1.calculateHeuresTravaillees();
-        Presence p2 = new Presence(emp2, LocalDate.of(2024, 6, 1), LocalTime.of(9,0)); p2.setDepart(LocalTime.of(17,0)); p2.calculateHeuresTravaillees();
-        Presence p3 = new Presence(emp1, LocalDate.of(2024, 6, 2), LocalTime.of(9,0)); p3.setDepart(LocalTime.of(17,0)); p3.calculateHeuresTravaillees();
-
-        when(departementRepository.findById(dept.getId())).thenReturn(Optional.of(dept));
-        when(employeRepository.findByDepartementId(eq(dept.getId()), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(Arrays.asList(emp1, emp2)));
-        when(presenceRepository.findByEmployeIdOrderByDateAsc(emp1.getId())).thenReturn(Arrays.asList(p1, p3));
-        when(presenceRepository.findByEmployeIdOrderByDateAsc(emp2.getId())).thenReturn(Collections.singletonList(p2));
-
-        
-        List<Presence> summary = presenceService.getDepartementPresenceSummary(dept.getId());
-
-        
-        assertNotNull(summary);
-        assertEquals(3, summary.size());
-        assertTrue(summary.contains(p1));
-        assertTrue(summary.contains(p2));
-        assertTrue(summary.contains(p3));
-        verify(departementRepository, times(1)).findById(dept.getId());
-        verify(employeRepository, times(1)).findByDepartementId(eq(dept.getId()), any(Pageable.class));
-        verify(presenceRepository, times(1)).findByEmployeIdOrderByDateAsc(emp1.getId());
-        verify(presenceRepository, times(1)).findByEmployeIdOrderByDateAsc(emp2.getId());
+    void getDepartementPresenceSummary_lastPage_shouldHaveNoCursor() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(null, null, 1L, null);
+        when(departementRepository.existsById(1L)).thenReturn(true);
+        when(presenceRepository.findPresencesApres(filtre, LocalDate.of(2024, 6, 1), 11L, 3))
+                .thenReturn(Collections.singletonList(ligne(3L, 10L, LocalDate.of(2024, 6, 2))));
+        
+        
+        PresenceKeysetPageDto page = presenceService.getDepartementPresenceSummary(1L, null, null, LocalDate.of(2024, 6, 1), 11L, 2);
+        
+        
+        assertEquals(1, page.getContent().size());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextAfterDate());
+        assertNull(page.getNextAfterEmployeId());
+    }
+
+    @Test
+    void getDepartementPresenceSummary_withArchivedMonths_shouldMergeArchiveInPageOrder() {
+        
+        // Mai archivé, juin en table : la page commence par les présences archivées
+        PresenceTrendFilter filtre = new PresenceTrendFilter(null, null, 1L, null);
+        when(departementRepository.existsById(1L)).thenReturn(true);
+        when(presenceArchive.contientSegments()).thenReturn(true);
+        when(presenceArchive.lirePresencesApres(eq(filtre), any(), isNull(), isNull(), eq(3))).thenReturn(Arrays.asList(
+                ligne(1L, 10L, LocalDate.of(2024, 5, 31)),
+                ligne(2L, 11L, LocalDate.of(2024, 5, 31))));
+        when(presenceRepository.findPresencesApres(filtre, null, null, 3)).thenReturn(Arrays.asList(
+                ligne(5L, 10L, LocalDate.of(2024, 6, 3)),
+                ligne(6L, 11L, LocalDate.of(2024, 6, 3))));
+        
+        
+        PresenceKeysetPageDto page = presenceService.getDepartementPresenceSummary(1L, null, null, null, null, 2);
+        
+        
+        assertEquals(Arrays.asList(1L, 2L), page.getContent().stream().map(PresenceDto::getId).toList());
+        assertTrue(page.isHasNext());
+        assertEquals(LocalDate.of(2024, 5, 31), page.getNextAfterDate());
+        assertEquals(11L, page.getNextAfterEmployeId());
+    }
+
+    @Test
+    void getDepartementPresenceSummary_shouldRejectInvalidPageRequests() {
+        
+        assertThrows(BadRequestException.class, () -> presenceService.getDepartementPresenceSummary(1L, null, null, null, null, 0));
+        assertThrows(BadRequestException.class, () -> presenceService.getDepartementPresenceSummary(1L, null, null, null, null, PresenceService.TAILLE_PAGE_MAX + 1));
+        assertThrows(BadRequestException.class, () -> presenceService.getDepartementPresenceSummary(1L, null, null, LocalDate.of(2024, 6, 1), null, 10));
+        assertThrows(BadRequestException.class, () -> presenceService.getDepartementPresenceSummary(1L, LocalDate.of(2024, 7, 1), LocalDate.of(2024, 6, 1), null, null, 10));
+        verify(presenceRepository, never()).findPresencesApres(any(), any(), any(), anyInt());
     }
 
     @Test
     void getDepartementPresenceSummary_shouldThrowExceptionIfDepartementNotFound() {
         
         Long departementId = 99L;
-        when(departementRepository.findById(departementId)).thenReturn(Optional.empty());
-
+        when(departementRepository.existsById(departementId)).thenReturn(false);
         
-        assertThrows(ResourceNotFoundException.class, () -> presenceService.getDepartementPresenceSummary(departementId));
-        verify(departementRepository, times(1)).findById(departementId);
-        verify(employeRepository, never()).findByDepartementId(anyLong(), any(Pageable.class));
-        verify(presenceRepository, never()).findByEmployeIdOrderByDateAsc(anyLong());
+        
+        assertThrows(ResourceNotFoundException.class, () -> presenceService.getDepartementPresenceSummary(departementId, null, null, null, null, 100));
+        verify(departementRepository, times(1)).existsById(departementId);
+        verify(presenceRepository, never()).findPresencesApres(any(), any(), any(), anyInt());
     }
 }
@@ -0,0 +1,169 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.dto.PresenceDistributionReportDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.repository.EmployeRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.projection.DateBoundsProjection;
+import com.gestionemployes.employee_management_api.repository.projection.PresenceMinutesRow;
+import com.gestionemployes.employee_management_api.service.PresenceArchive;
+import com.gestionemployes.employee_management_api.service.PresenceStreamReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PresenceStreamReaderTest {
+
+    @Mock
+    private PresenceRepository presenceRepository;
+    @Mock
+    private EmployeRepository employeRepository;
+    @Mock
+    private PresenceArchive presenceArchive;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PresenceStreamReader presenceStreamReader;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Chaque lecture rend une présence de 60 minutes le premier jour de sa période
+        when(presenceRepository.streamPresencesCloturees(any(PresenceTrendFilter.class))).thenAnswer(invocation -> {
+            PresenceTrendFilter filtre = invocation.getArgument(0);
+            LocalDate date = filtre.getFrom() != null ? filtre.getFrom() : LocalDate.of(2024, 1, 1);
+            return Stream.of(ligne(date, 1L, "IT", 60L));
+        });
+        presenceStreamReader = new PresenceStreamReader(presenceRepository, employeRepository, presenceArchive, transactionManager, 4, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        presenceStreamReader.destroy();
+    }
+
+    private static PresenceMinutesRow ligne(LocalDate date, Long employeId, String departementNom, Long minutes) {
+        return new PresenceMinutesRow() {
+            @Override
+            public LocalDate getDate() { return date; }
+            @Override
+            public Long getEmployeId() { return employeId; }
+            @Override
+            public String getDepartementNom() { return departementNom; }
+            @Override
+            public Long getMinutes() { return minutes; }
+        };
+    }
+
+    @Test
+    void agregerTendances_shouldReadOneMonthlyPartitionPerMonthAndMergeThem() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 3, 10), 2L, null);
+        
+        
+        PresenceTrendReportDto report = presenceStreamReader.agregerTendances(filtre).toReport();
+        
+        
+        ArgumentCaptor<PresenceTrendFilter> partitions = ArgumentCaptor.forClass(PresenceTrendFilter.class);
+        verify(presenceRepository, times(3)).streamPresencesCloturees(partitions.capture());
+        assertTrue(partitions.getAllValues().containsAll(List.of(
+                new PresenceTrendFilter(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 31), 2L, null),
+                new PresenceTrendFilter(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29), 2L, null),
+                new PresenceTrendFilter(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 10), 2L, null))));
+        verify(presenceRepository, never()).findDateBoundsPresencesCloturees();
+        assertEquals("3h 00m", report.getTotalHoursByEmployeeId().get(1L));
+        assertEquals(List.of("2024-01", "2024-02", "2024-03"), List.copyOf(report.getTotalHoursByMonthYear().keySet()));
+        // Chaque partition a sa propre transaction
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void agregerTendances_withoutDates_shouldPartitionBetweenFirstAndLastClosedPresence() {
+        
+        DateBoundsProjection bornes = mock(DateBoundsProjection.class);
+        when(bornes.getMinDate()).thenReturn(LocalDate.of(2023, 11, 20));
+        when(bornes.getMaxDate()).thenReturn(LocalDate.of(2024, 2, 5));
+        when(presenceRepository.findDateBoundsPresencesCloturees()).thenReturn(bornes);
+        
+        
+        PresenceTrendReportDto report = presenceStreamReader.agregerTendances(PresenceTrendFilter.sansFiltre()).toReport();
+        
+        
+        verify(presenceRepository, times(4)).streamPresencesCloturees(any(PresenceTrendFilter.class));
+        assertEquals("4h 00m", report.getTotalHoursByEmployeeId().get(1L));
+    }
+
+    @Test
+    void agregerTendances_withoutClosedPresence_shouldReadOnce() {
+        
+        DateBoundsProjection bornes = mock(DateBoundsProjection.class);
+        when(presenceRepository.findDateBoundsPresencesCloturees()).thenReturn(bornes);
+        
+        
+        presenceStreamReader.agregerTendances(PresenceTrendFilter.sansFiltre());
+        
+        
+        verify(presenceRepository, times(1)).streamPresencesCloturees(PresenceTrendFilter.sansFiltre());
+    }
+
+    @Test
+    void agregerTendances_withParallelismOfOne_shouldReadOnceWithoutPartitioning() {
+        
+        presenceStreamReader.destroy();
+        presenceStreamReader = new PresenceStreamReader(presenceRepository, employeRepository, presenceArchive, transactionManager, 1, 10);
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), null, null);
+        
+        
+        presenceStreamReader.agregerTendances(filtre);
+        
+        
+        verify(presenceRepository, times(1)).streamPresencesCloturees(filtre);
+        verify(presenceRepository, never()).findDateBoundsPresencesCloturees();
+    }
+
+    @Test
+    void constructeur_shouldRejectParallelismThatWouldExhaustConnectionPool() {
+        
+        assertThrows(IllegalStateException.class,
+                () -> new PresenceStreamReader(presenceRepository, employeRepository, presenceArchive, transactionManager, 10, 10));
+    }
+
+    @Test
+    void agregerDistribution_shouldMergeMonthlyPartitionsIntoOneDistribution() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31), null, null);
+        
+        
+        PresenceDistributionReportDto report = presenceStreamReader.agregerDistribution(filtre).toReport();
+        
+        
+        verify(presenceRepository, times(3)).streamPresencesCloturees(any(PresenceTrendFilter.class));
+        assertEquals(3, report.getGlobal().getNombrePresences());
+        assertEquals(3, report.getParDepartement().get("IT").getNombrePresences());
+        assertEquals(List.of("2024-01", "2024-02", "2024-03"), List.copyOf(report.getParMois().keySet()));
+        assertEquals(1L, report.getEmployesDistinctsParJour().get("2024-02-01"));
+    }
+
+    @Test
+    void agregerTendances_whenPartitionFails_shouldPropagateException() {
+        
+        when(presenceRepository.streamPresencesCloturees(new PresenceTrendFilter(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29), null, null)))
+                .thenThrow(new IllegalStateException("connexion perdue"));
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31), null, null);
+        
+        
+        assertThrows(IllegalStateException.class, () -> presenceStreamReader.agregerTendances(filtre));
+    }
+}
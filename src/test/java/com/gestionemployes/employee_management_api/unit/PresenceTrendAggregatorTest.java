@@ -0,0 +1,105 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestionemployes.employee_management_api.benchmark.LegacyPresenceTrendReport;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.model.Departement;
+import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.service.PresenceTrendAggregator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresenceTrendAggregatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void toReport_shouldMatchLegacyCollectorChainByteForByte() throws Exception {
+        
+        List<Presence> presences = randomPresences(new Random(42), 5_000);
+
+        PresenceTrendAggregator aggregator = new PresenceTrendAggregator();
+        presences.forEach(aggregator::add);
+
+        
+        String expected = objectMapper.writeValueAsString(LegacyPresenceTrendReport.compute(presences));
+        String actual = objectMapper.writeValueAsString(aggregator.toReport());
+
+        
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void merge_shouldGiveSameReportAsSinglePass() throws Exception {
+        
+        List<Presence> presences = randomPresences(new Random(7), 2_000);
+        PresenceTrendAggregator single = new PresenceTrendAggregator();
+        PresenceTrendAggregator first = new PresenceTrendAggregator();
+        PresenceTrendAggregator second = new PresenceTrendAggregator();
+        for (int i = 0; i < presences.size(); i++) {
+            single.add(presences.get(i));
+            (i < presences.size() / 2 ? first : second).add(presences.get(i));
+        }
+
+        
+        first.merge(second);
+
+        
+        assertEquals(objectMapper.writeValueAsString(single.toReport()), objectMapper.writeValueAsString(first.toReport()));
+    }
+
+    @Test
+    void toReport_shouldIgnoreOpenPresencesAndHandleEmptyInput() {
+        
+        Departement departement = new Departement("Dev", null, BigDecimal.valueOf(100000));
+        Employe employe = new Employe("A", "B", "a@b.com", departement, BigDecimal.ONE, LocalDate.now(), "ACTIF");
+        employe.setId(1L);
+        PresenceTrendAggregator aggregator = new PresenceTrendAggregator();
+        aggregator.add(new Presence(employe, LocalDate.of(2024, 6, 20), LocalTime.of(9, 0)));
+
+        
+        PresenceTrendReportDto report = aggregator.toReport();
+
+        
+        assertTrue(report.getTotalHoursByDayOfWeek().isEmpty());
+        assertTrue(report.getTotalHoursByEmployeeId().isEmpty());
+        assertEquals("0h 00m", report.getAverageDailyHoursAcrossAllEmployees());
+    }
+
+    static List<Presence> randomPresences(Random random, int count) {
+        List<Employe> employes = new ArrayList<>();
+        for (int d = 1; d <= 5; d++) {
+            Departement departement = new Departement("Departement " + d, null, BigDecimal.valueOf(100000));
+            departement.setId((long) d);
+            for (int e = 0; e < 8; e++) {
+                Employe employe = new Employe("P" + e, "N" + e, "e" + d + e + "@example.com", departement,
+                        BigDecimal.valueOf(30000), LocalDate.of(2020, 1, 1), "ACTIF");
+                employe.setId((long) (d * 100 + e));
+                employes.add(employe);
+            }
+        }
+        List<Presence> presences = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Employe employe = employes.get(random.nextInt(employes.size()));
+            LocalDate date = LocalDate.of(2022, 1, 1).plusDays(random.nextInt(900));
+            LocalTime arrivee = LocalTime.of(7 + random.nextInt(3), random.nextInt(60));
+            Presence presence = new Presence(employe, date, arrivee);
+            if (random.nextInt(10) > 0) {
+                presence.setDepart(arrivee.plusMinutes(random.nextInt(600)));
+            }
+            presences.add(presence);
+        }
+        Collections.shuffle(presences, random);
+        return presences;
+    }
+}
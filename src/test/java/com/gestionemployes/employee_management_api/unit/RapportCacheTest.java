@@ -0,0 +1,132 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.service.RapportCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RapportCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    // Les recalculs en arrière-plan sont mis en file et exécutés explicitement par les tests
+    private List<Runnable> recalculsEnAttente;
+    private RapportCache rapportCache;
+    private AtomicInteger calculs;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        recalculsEnAttente = new ArrayList<>();
+        rapportCache = new RapportCache(meterRegistry, true, 100, Duration.ofMinutes(10), Duration.ofMinutes(1), recalculsEnAttente::add);
+        calculs = new AtomicInteger();
+    }
+
+    private String lire() {
+        return rapportCache.get("resume-salaires", RapportCache.Groupe.SALAIRES, null, () -> "v" + calculs.incrementAndGet());
+    }
+
+    @Test
+    void get_shouldComputeOnceThenServeFromCache() {
+        
+        String first = lire();
+        String second = lire();
+        
+        
+        assertEquals("v1", first);
+        assertEquals("v1", second);
+        assertEquals(1, calculs.get());
+        assertEquals(1.0, meterRegistry.get("rapports.cache.acces").tag("resultat", "miss").counter().count());
+        assertEquals(1.0, meterRegistry.get("rapports.cache.acces").tag("resultat", "hit").counter().count());
+        assertEquals(1L, meterRegistry.get("rapports.cache.recalcul").tag("rapport", "resume-salaires").timer().count());
+    }
+
+    @Test
+    void invalider_shouldServeStaleValueWhileRecomputingInBackground() {
+        
+        lire();
+        
+        
+        rapportCache.invalider(RapportCache.Groupe.SALAIRES);
+        String stale = lire();
+        String staleAgain = lire();
+        
+        
+        assertEquals("v1", stale);
+        assertEquals("v1", staleAgain);
+        assertEquals(1, recalculsEnAttente.size(), "Un seul recalcul doit être lancé pour une entrée périmée");
+        
+        recalculsEnAttente.get(0).run();
+        assertEquals("v2", lire());
+        assertEquals(2, calculs.get());
+        assertEquals(2.0, meterRegistry.get("rapports.cache.acces").tag("resultat", "stale").counter().count());
+    }
+
+    @Test
+    void invalider_shouldOnlyAffectTheGivenGroup() {
+        
+        lire();
+        
+        
+        rapportCache.invalider(RapportCache.Groupe.PRESENCES);
+        
+        
+        assertEquals("v1", lire());
+        assertTrue(recalculsEnAttente.isEmpty());
+    }
+
+    @Test
+    void invalider_duringRecompute_shouldKeepEntryStale() {
+        
+        rapportCache.get("resume-salaires", RapportCache.Groupe.SALAIRES, null, () -> "v1");
+        rapportCache.invalider(RapportCache.Groupe.SALAIRES);
+        // Une écriture est validée pendant le recalcul : son résultat est déjà dépassé
+        rapportCache.get("resume-salaires", RapportCache.Groupe.SALAIRES, null, () -> {
+            rapportCache.invalider(RapportCache.Groupe.SALAIRES);
+            return "v2";
+        });
+        
+        
+        recalculsEnAttente.get(0).run();
+        
+        
+        assertEquals("v2", lire());
+        assertEquals(2, recalculsEnAttente.size(), "Le résultat calculé avant la dernière écriture doit être recalculé");
+    }
+
+    @Test
+    void get_whenBackgroundRecomputeFails_shouldKeepServingPreviousValue() {
+        
+        rapportCache.get("tendances-presences", RapportCache.Groupe.PRESENCES, "filtre", () -> "v1");
+        rapportCache.invalider(RapportCache.Groupe.PRESENCES);
+        rapportCache.get("tendances-presences", RapportCache.Groupe.PRESENCES, "filtre", () -> {
+            throw new IllegalStateException("base indisponible");
+        });
+        
+        
+        recalculsEnAttente.get(0).run();
+        
+        
+        assertEquals("v1", rapportCache.get("tendances-presences", RapportCache.Groupe.PRESENCES, "filtre", () -> "v3"));
+        assertEquals(2, recalculsEnAttente.size());
+    }
+
+    @Test
+    void get_whenDisabled_shouldAlwaysCompute() {
+        
+        rapportCache = new RapportCache(meterRegistry, false, 100, Duration.ofMinutes(10), Duration.ofMinutes(1), recalculsEnAttente::add);
+        
+        
+        lire();
+        lire();
+        
+        
+        assertEquals(2, calculs.get());
+    }
+}
@@ -0,0 +1,173 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.dto.DepartementSalarySummaryDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.dto.RapportJobDto;
+import com.gestionemployes.employee_management_api.dto.RapportJobRequest;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.exception.ResourceNotFoundException;
+import com.gestionemployes.employee_management_api.exception.TooManyRequestsException;
+import com.gestionemployes.employee_management_api.service.RapportCache;
+import com.gestionemployes.employee_management_api.service.RapportJobService;
+import com.gestionemployes.employee_management_api.service.RapportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RapportJobServiceTest {
+
+    @Mock
+    private RapportService rapportService;
+
+    // Les jobs sont mis en file et exécutés explicitement par les tests
+    private List<Runnable> jobsEnAttente;
+    private HorlogeReglable horloge;
+    private RapportJobService rapportJobService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        jobsEnAttente = new ArrayList<>();
+        horloge = new HorlogeReglable(Instant.parse("2024-06-20T08:00:00Z"));
+        RapportCache cacheDesactive = new RapportCache(new SimpleMeterRegistry(), false, 10, Duration.ofMinutes(10), Duration.ofMinutes(1), Runnable::run);
+        rapportJobService = new RapportJobService(rapportService, cacheDesactive, jobsEnAttente::add, Duration.ofHours(1), horloge);
+    }
+
+    private RapportJobRequest resumeSalaires() {
+        return new RapportJobRequest(RapportJobRequest.Type.RESUME_SALAIRES, null, null, null, null);
+    }
+
+    @Test
+    void soumettre_shouldReturnPendingJobThenExposeResult() {
+        
+        List<DepartementSalarySummaryDto> resume = List.of(new DepartementSalarySummaryDto(1L, "IT", BigDecimal.valueOf(100000), 2L, BigDecimal.valueOf(50000)));
+        when(rapportService.getResumeSalairesByDepartement()).thenReturn(resume);
+        
+        
+        RapportJobDto soumis = rapportJobService.soumettre(resumeSalaires());
+        
+        
+        assertEquals(RapportJobDto.Statut.EN_ATTENTE, soumis.getStatut());
+        assertNull(soumis.getResultat());
+        verify(rapportService, never()).getResumeSalairesByDepartement();
+        
+        horloge.avancer(Duration.ofSeconds(5));
+        jobsEnAttente.get(0).run();
+        RapportJobDto termine = rapportJobService.getJob(soumis.getId());
+        assertEquals(RapportJobDto.Statut.TERMINE, termine.getStatut());
+        assertSame(resume, termine.getResultat());
+        assertEquals(Instant.parse("2024-06-20T08:00:05Z"), termine.getTermineLe());
+    }
+
+    @Test
+    void soumettre_tendancesWithInvalidPeriod_shouldThrowBeforeQueueing() {
+        
+        RapportJobRequest request = new RapportJobRequest(RapportJobRequest.Type.TENDANCES_PRESENCES,
+                LocalDate.of(2024, 7, 1), LocalDate.of(2024, 6, 1), null, null);
+        doThrow(new BadRequestException("La date de début (2024-07-01) ne peut pas être après la date de fin (2024-06-01)."))
+                .when(rapportService).verifierFiltre(any(PresenceTrendFilter.class));
+        
+        
+        assertThrows(BadRequestException.class, () -> rapportJobService.soumettre(request));
+        assertTrue(jobsEnAttente.isEmpty());
+    }
+
+    @Test
+    void soumettre_whenQueueIsFull_shouldThrowTooManyRequests() {
+        
+        rapportJobService = new RapportJobService(rapportService,
+                new RapportCache(new SimpleMeterRegistry(), false, 10, Duration.ofMinutes(10), Duration.ofMinutes(1), Runnable::run),
+                runnable -> { throw new RejectedExecutionException(); }, Duration.ofHours(1), horloge);
+        
+        
+        assertThrows(TooManyRequestsException.class, () -> rapportJobService.soumettre(resumeSalaires()));
+        verify(rapportService, never()).getResumeSalairesByDepartement();
+    }
+
+    @Test
+    void executer_whenReportFails_shouldMarkJobAsFailed() {
+        
+        when(rapportService.getResumeSalairesByDepartement()).thenThrow(new IllegalStateException("connexion perdue"));
+        RapportJobDto soumis = rapportJobService.soumettre(resumeSalaires());
+        
+        
+        jobsEnAttente.get(0).run();
+        
+        
+        RapportJobDto job = rapportJobService.getJob(soumis.getId());
+        assertEquals(RapportJobDto.Statut.ECHEC, job.getStatut());
+        assertEquals("Une erreur inattendue est survenue.", job.getErreur());
+        assertNull(job.getResultat());
+    }
+
+    @Test
+    void purgerJobsExpires_shouldOnlyRemoveJobsFinishedBeforeRetention() {
+        
+        when(rapportService.getResumeSalairesByDepartement()).thenReturn(List.of());
+        RapportJobDto termine = rapportJobService.soumettre(resumeSalaires());
+        jobsEnAttente.get(0).run();
+        RapportJobDto enAttente = rapportJobService.soumettre(resumeSalaires());
+        
+        
+        horloge.avancer(Duration.ofMinutes(59));
+        int purgesAvantRetention = rapportJobService.purgerJobsExpires();
+        horloge.avancer(Duration.ofMinutes(2));
+        int purges = rapportJobService.purgerJobsExpires();
+        
+        
+        assertEquals(0, purgesAvantRetention);
+        assertEquals(1, purges);
+        assertThrows(ResourceNotFoundException.class, () -> rapportJobService.getJob(termine.getId()));
+        assertEquals(RapportJobDto.Statut.EN_ATTENTE, rapportJobService.getJob(enAttente.getId()).getStatut());
+    }
+
+    @Test
+    void getJob_shouldThrowExceptionIfUnknown() {
+        
+        assertThrows(ResourceNotFoundException.class, () -> rapportJobService.getJob("inconnu"));
+    }
+
+    private static final class HorlogeReglable extends Clock {
+
+        private Instant maintenant;
+
+        private HorlogeReglable(Instant maintenant) {
+            this.maintenant = maintenant;
+        }
+
+        private void avancer(Duration duree) {
+            maintenant = maintenant.plus(duree);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return maintenant;
+        }
+    }
+}
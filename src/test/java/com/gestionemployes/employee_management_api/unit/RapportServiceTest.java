@@ -1,23 +1,39 @@
 package com.gestionemployes.employee_management_api.unit;
 
+import com.gestionemployes.employee_management_api.dto.DepartementSalarySummaryDto;
+import com.gestionemployes.employee_management_api.dto.PresenceDistributionReportDto;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendFilter;
+import com.gestionemployes.employee_management_api.dto.PresenceTrendReportDto;
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
 import com.gestionemployes.employee_management_api.model.Departement;
 import com.gestionemployes.employee_management_api.model.Employe;
-import com.gestionemployes.employee_management_api.model.Presence;
+import com.gestionemployes.employee_management_api.model.PresenceRollup;
+import com.gestionemployes.employee_management_api.model.RollupDimension;
 import com.gestionemployes.employee_management_api.repository.DepartementRepository;
-import com.gestionemployes.employee_management_api.repository.EmployeRepository;
 import com.gestionemployes.employee_management_api.repository.PresenceRepository;
+import com.gestionemployes.employee_management_api.repository.PresenceRollupRepository;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByDateProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByDayOfWeekProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByDepartementProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByEmployeProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByMonthProjection;
+import com.gestionemployes.employee_management_api.repository.projection.MinutesByYearMonthProjection;
+import com.gestionemployes.employee_management_api.repository.projection.SalaireStatsByDepartementProjection;
+import com.gestionemployes.employee_management_api.service.PresenceArchive;
+import com.gestionemployes.employee_management_api.service.PresenceColumnStore;
+import com.gestionemployes.employee_management_api.service.PresenceDistributionAggregator;
+import com.gestionemployes.employee_management_api.service.PresenceStreamReader;
+import com.gestionemployes.employee_management_api.service.PresenceTrendAggregator;
 import com.gestionemployes.employee_management_api.service.RapportService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -28,12 +44,18 @@ import static org.mockito.Mockito.*;
 
 public class RapportServiceTest {
 
-    @Mock
-    private EmployeRepository employeRepository;
     @Mock
     private DepartementRepository departementRepository;
     @Mock
     private PresenceRepository presenceRepository;
+    @Mock
+    private PresenceRollupRepository presenceRollupRepository;
+    @Mock
+    private PresenceStreamReader presenceStreamReader;
+    @Mock
+    private PresenceColumnStore presenceColumnStore;
+    @Mock
+    private PresenceArchive presenceArchive;
 
     @InjectMocks
     private RapportService rapportService;
@@ -47,21 +69,21 @@ public class RapportServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-
+        
         devDepartement = new Departement("Development", null, BigDecimal.valueOf(100000));
         devDepartement.setId(1L);
-
+        
         hrDepartement = new Departement("Human Resources", null, BigDecimal.valueOf(80000));
         hrDepartement.setId(2L);
-
+        
         devLead = new Employe("John", "Doe", "john@example.com", devDepartement,
                 BigDecimal.valueOf(70000), LocalDate.now(), "ACTIF");
         devLead.setId(10L);
-
+        
         devJunior = new Employe("Jane", "Smith", "jane@example.com", devDepartement,
                 BigDecimal.valueOf(50000), LocalDate.now(), "ACTIF");
         devJunior.setId(11L);
-
+        
         hrAssociate = new Employe("Paul", "Brown", "paul@example.com", hrDepartement,
                 BigDecimal.valueOf(45000), LocalDate.now(), "ACTIF");
         hrAssociate.setId(20L);
@@ -70,39 +92,35 @@ public class RapportServiceTest {
     @Test
     void getResumeSalairesParDepartement_shouldReturnCorrectStatistics() {
         
-        when(departementRepository.findAll()).thenReturn(Arrays.asList(devDepartement, hrDepartement));
-
-        when(employeRepository.findByDepartementId(devDepartement.getId()))
-                .thenReturn(Arrays.asList(devLead, devJunior));
-
-        when(employeRepository.findByDepartementId(hrDepartement.getId()))
-                .thenReturn(Collections.singletonList(hrAssociate));
-
+        List<SalaireStatsByDepartementProjection> rows = Arrays.asList(
+                salaireStatsRow(devDepartement, 2L, BigDecimal.valueOf(120000), BigDecimal.valueOf(50000), BigDecimal.valueOf(70000)),
+                salaireStatsRow(hrDepartement, 1L, BigDecimal.valueOf(45000), BigDecimal.valueOf(45000), BigDecimal.valueOf(45000)));
+        when(departementRepository.findSalaireStatsByDepartement()).thenReturn(rows);
+        
         
         Map<String, Map<String, BigDecimal>> result = rapportService.getResumeSalairesParDepartement();
-
+        
         
         assertNotNull(result);
         assertEquals(2, result.size());
-
+        
         Map<String, BigDecimal> devStats = result.get("Development");
         assertNotNull(devStats);
         assertEquals(BigDecimal.valueOf(120000), devStats.get("totalSalary"));
         assertEquals(BigDecimal.valueOf(60000.00).setScale(2), devStats.get("averageSalary"));
         assertEquals(BigDecimal.valueOf(70000), devStats.get("maxSalary"));
         assertEquals(BigDecimal.valueOf(50000), devStats.get("minSalary"));
-
+        
         Map<String, BigDecimal> hrStats = result.get("Human Resources");
         assertNotNull(hrStats);
         assertEquals(BigDecimal.valueOf(45000), hrStats.get("totalSalary"));
         assertEquals(BigDecimal.valueOf(45000.00).setScale(2), hrStats.get("averageSalary"));
         assertEquals(BigDecimal.valueOf(45000), hrStats.get("maxSalary"));
         assertEquals(BigDecimal.valueOf(45000), hrStats.get("minSalary"));
-
         
-        verify(departementRepository, times(1)).findAll();
-        verify(employeRepository, times(1)).findByDepartementId(devDepartement.getId());
-        verify(employeRepository, times(1)).findByDepartementId(hrDepartement.getId());
+        
+        verify(departementRepository, times(1)).findSalaireStatsByDepartement();
+        verify(departementRepository, never()).findAll();
     }
 
     @Test
@@ -110,17 +128,17 @@ public class RapportServiceTest {
         
         Departement emptyDepartement = new Departement("Empty", null, BigDecimal.valueOf(10000));
         emptyDepartement.setId(3L);
-        when(departementRepository.findAll()).thenReturn(Collections.singletonList(emptyDepartement));
-        when(employeRepository.findByDepartementId(eq(emptyDepartement.getId()), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(Collections.emptyList())); 
-
+        List<SalaireStatsByDepartementProjection> rows = Collections.singletonList(
+                salaireStatsRow(emptyDepartement, 0L, null, null, null));
+        when(departementRepository.findSalaireStatsByDepartement()).thenReturn(rows);
+        
         
         Map<String, Map<String, BigDecimal>> result = rapportService.getResumeSalairesParDepartement();
-
+        
         
         assertNotNull(result);
         assertEquals(1, result.size());
-
+        
         Map<String, BigDecimal> emptyDeptStats = result.get("Empty");
         assertNotNull(emptyDeptStats);
         assertEquals(BigDecimal.ZERO, emptyDeptStats.get("totalSalary"));
@@ -130,50 +148,304 @@ public class RapportServiceTest {
     }
 
     @Test
-    void getTendancesPresences_shouldReturnDailyHoursTrends() {
+    void getResumeSalairesByDepartement_shouldReturnSummariesSortedByName() {
         
-        Presence p1 = new Presence(devLead, LocalDate.of(2024, 6, 20), LocalTime.of(9, 0));
-        p1.setDepart(LocalTime.of(17, 0)); 
-        p1.calculateHeuresTravaillees();
-
-        Presence p2 = new Presence(hrAssociate, LocalDate.of(2024, 6, 20), LocalTime.of(9, 0));
-        p2.setDepart(LocalTime.of(17, 0)); 
-        p2.calculateHeuresTravaillees();
-
-        Presence p3 = new Presence(devLead, LocalDate.of(2024, 6, 21), LocalTime.of(10, 0));
-        p3.setDepart(LocalTime.of(18, 0)); 
-        p3.calculateHeuresTravaillees();
+        List<SalaireStatsByDepartementProjection> rows = Arrays.asList(
+                salaireStatsRow(hrDepartement, 1L, BigDecimal.valueOf(45000), BigDecimal.valueOf(45000), BigDecimal.valueOf(45000)),
+                salaireStatsRow(devDepartement, 2L, BigDecimal.valueOf(120000), BigDecimal.valueOf(50000), BigDecimal.valueOf(70000)));
+        when(departementRepository.findSalaireStatsByDepartement()).thenReturn(rows);
+        
+        
+        List<DepartementSalarySummaryDto> result = rapportService.getResumeSalairesByDepartement();
+        
+        
+        assertEquals(2, result.size());
+        assertEquals("Development", result.get(0).getDepartementNom());
+        assertEquals(2L, result.get(0).getNumberOfEmployees());
+        assertEquals(BigDecimal.valueOf(120000), result.get(0).getTotalSalaries());
+        assertEquals(new BigDecimal("60000.00"), result.get(0).getAverageSalary());
+        assertEquals("Human Resources", result.get(1).getDepartementNom());
+    }
 
-        List<Presence> allPresences = Arrays.asList(p1, p2, p3);
-        when(presenceRepository.findAll()).thenReturn(allPresences);
+    @Test
+    void getTendancesPresences_shouldReadRollupsAndDepartementTotalsFoldedInDatabase() {
+        
+        when(presenceRollupRepository.findAllByOrderByIdAsc()).thenReturn(Arrays.asList(
+                new PresenceRollup(RollupDimension.JOUR, "2024-06-20", 960L),
+                new PresenceRollup(RollupDimension.ANNEE_MOIS, "2024-06", 960L),
+                new PresenceRollup(RollupDimension.JOUR_SEMAINE, "THURSDAY", 960L),
+                new PresenceRollup(RollupDimension.EMPLOYE, "10", 480L),
+                new PresenceRollup(RollupDimension.EMPLOYE, "20", 480L),
+                new PresenceRollup(RollupDimension.JOUR, "2024-07-01", 90L),
+                new PresenceRollup(RollupDimension.ANNEE_MOIS, "2023-07", 90L),
+                new PresenceRollup(RollupDimension.JOUR_SEMAINE, "MONDAY", 90L),
+                new PresenceRollup(RollupDimension.EMPLOYE, "11", 90L)));
+        // Repli par la base du cumul par employé sur le département courant
+        List<MinutesByDepartementProjection> departementRows = Arrays.asList(
+                departementRow("Human Resources", 960L), departementRow("Development", 90L));
+        when(presenceRollupRepository.sumMinutesByDepartement()).thenReturn(departementRows);
+        
+        
+        PresenceTrendReportDto report = rapportService.getPresenceTrendsAndStats();
+        
+        
+        assertEquals("16h 00m", report.getTotalHoursByDayOfWeek().get("THURSDAY"));
+        assertEquals("1h 30m", report.getTotalHoursByDayOfWeek().get("MONDAY"));
+        assertEquals(Arrays.asList(6, 7), List.copyOf(report.getTotalHoursByMonth().keySet()));
+        assertEquals(Arrays.asList("2023-07", "2024-06"), List.copyOf(report.getTotalHoursByMonthYear().keySet()));
+        assertEquals("8h 45m", report.getAverageDailyHoursAcrossAllEmployees()); // (960 + 90) / 2 = 525 minutes
+        assertEquals(Arrays.asList(10L, 11L, 20L), List.copyOf(report.getTotalHoursByEmployeeId().keySet()));
+        assertEquals("1h 30m", report.getTotalHoursByDepartementName().get("Development"));
+        assertEquals("16h 00m", report.getTotalHoursByDepartementName().get("Human Resources"));
+        verify(presenceRepository, never()).sumMinutesByDate();
+        verify(presenceRepository, never()).findAll();
+    }
 
+    @Test
+    void getTendancesPresences_shouldReturnDailyHoursTrends() {
+        
+        ReflectionTestUtils.setField(rapportService, "rollupsEnabled", false);
+        // Jeudi 20/06/2024 : deux présences de 8h, vendredi 21/06/2024 : une présence de 8h
+        List<MinutesByDayOfWeekProjection> rows = Arrays.asList(dayOfWeekRow(5, 960L), dayOfWeekRow(6, 480L));
+        when(presenceRepository.sumMinutesByDayOfWeek()).thenReturn(rows);
+        
         
         Map<String, String> result = rapportService.getPresenceTrendsAndStats().getTotalHoursByDayOfWeek();
-
+        
         
         assertNotNull(result);
         assertEquals(2, result.size()); 
-
+        
         
         
         
         assertEquals("16h 00m", result.get(LocalDate.of(2024, 6, 20).getDayOfWeek().toString()));
         assertEquals("8h 00m", result.get(LocalDate.of(2024, 6, 21).getDayOfWeek().toString()));
+        
+        verify(presenceRepository, times(1)).sumMinutesByDayOfWeek();
+        verify(presenceRepository, never()).findAll();
+    }
 
-        verify(presenceRepository, times(1)).findAll();
+    @Test
+    void getTendancesPresences_shouldBuildEveryAggregationFromGroupedRows() {
+        
+        ReflectionTestUtils.setField(rapportService, "rollupsEnabled", false);
+        // Les lignes sont construites avant le stubbing du repository (Mockito interdit les stubs imbriqués)
+        List<MinutesByMonthProjection> monthRows = Arrays.asList(monthRow(7, 90L), monthRow(6, 1440L));
+        List<MinutesByYearMonthProjection> yearMonthRows = Arrays.asList(yearMonthRow(2024, 7, 90L), yearMonthRow(2024, 6, 1440L));
+        List<MinutesByDateProjection> dateRows = Arrays.asList(
+                dateRow(LocalDate.of(2024, 6, 20), 960L),
+                dateRow(LocalDate.of(2024, 6, 21), 480L),
+                dateRow(LocalDate.of(2024, 7, 1), 90L));
+        List<MinutesByEmployeProjection> employeRows = Arrays.asList(
+                employeRow(hrAssociate.getId(), 480L),
+                employeRow(devLead.getId(), 1050L));
+        List<MinutesByDepartementProjection> departementRows = Arrays.asList(
+                departementRow(hrDepartement.getNom(), 480L),
+                departementRow(devDepartement.getNom(), 1050L));
+        when(presenceRepository.sumMinutesByMonth()).thenReturn(monthRows);
+        when(presenceRepository.sumMinutesByYearMonth()).thenReturn(yearMonthRows);
+        when(presenceRepository.sumMinutesByDate()).thenReturn(dateRows);
+        when(presenceRepository.sumMinutesByEmploye()).thenReturn(employeRows);
+        when(presenceRepository.sumMinutesByDepartement()).thenReturn(departementRows);
+        
+        
+        PresenceTrendReportDto report = rapportService.getPresenceTrendsAndStats();
+        
+        
+        assertEquals(Arrays.asList(6, 7), List.copyOf(report.getTotalHoursByMonth().keySet()));
+        assertEquals("24h 00m", report.getTotalHoursByMonth().get(6));
+        assertEquals("1h 30m", report.getTotalHoursByMonth().get(7));
+        assertEquals(Arrays.asList("2024-06", "2024-07"), List.copyOf(report.getTotalHoursByMonthYear().keySet()));
+        assertEquals("8h 30m", report.getAverageDailyHoursAcrossAllEmployees()); // (960 + 480 + 90) / 3 = 510 minutes
+        assertEquals(Arrays.asList(10L, 20L), List.copyOf(report.getTotalHoursByEmployeeId().keySet()));
+        assertEquals("17h 30m", report.getTotalHoursByEmployeeId().get(10L));
+        assertEquals(Arrays.asList("Development", "Human Resources"), List.copyOf(report.getTotalHoursByDepartementName().keySet()));
+        assertEquals("8h 00m", report.getTotalHoursByDepartementName().get("Human Resources"));
+        verify(presenceRepository, never()).findAll();
+        verify(departementRepository, never()).findAll();
     }
 
     @Test
     void getTendancesPresences_shouldHandleNoPresenceData() {
         
-        when(presenceRepository.findAll()).thenReturn(Collections.emptyList());
+        ReflectionTestUtils.setField(rapportService, "rollupsEnabled", false);
+        when(presenceRepository.sumMinutesByDayOfWeek()).thenReturn(Collections.emptyList());
+        
+        PresenceTrendReportDto report = rapportService.getPresenceTrendsAndStats();
+        Map<String, String> result = report.getTotalHoursByDayOfWeek();
+        
+        
+        
+        assertNotNull(result);
+        assertTrue(result.isEmpty());
+        assertEquals("0h 00m", report.getAverageDailyHoursAcrossAllEmployees());
+        verify(presenceRepository, times(1)).sumMinutesByDayOfWeek();
+    }
 
-        Map<String, String> result = rapportService.getPresenceTrendsAndStats().getTotalHoursByDayOfWeek();
+    @Test
+    void getTendancesPresences_shouldUseStreamReaderWhenEnabled() {
+        
+        ReflectionTestUtils.setField(rapportService, "rollupsEnabled", false);
+        ReflectionTestUtils.setField(rapportService, "streamingEnabled", true);
+        PresenceTrendAggregator aggregator = new PresenceTrendAggregator();
+        aggregator.add(LocalDate.of(2024, 6, 17), 10L, "Development", 480L);
+        aggregator.add(LocalDate.of(2024, 6, 18), 20L, "Human Resources", 450L);
+        when(presenceStreamReader.agregerTendances(PresenceTrendFilter.sansFiltre())).thenReturn(aggregator);
+        
+        
+        PresenceTrendReportDto report = rapportService.getPresenceTrendsAndStats();
+        
+        
+        assertEquals("8h 00m", report.getTotalHoursByDayOfWeek().get("MONDAY"));
+        assertEquals("7h 30m", report.getTotalHoursByDepartementName().get("Human Resources"));
+        assertEquals("7h 45m", report.getAverageDailyHoursAcrossAllEmployees());
+        verify(presenceStreamReader, times(1)).agregerTendances(PresenceTrendFilter.sansFiltre());
+        verifyNoInteractions(presenceRollupRepository);
+        verify(presenceRepository, never()).sumMinutesByDayOfWeek();
+    }
+
+    @Test
+    void getTendancesPresences_withFilter_shouldStreamFilteredPresencesInsteadOfRollups() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), 1L, null);
+        PresenceTrendAggregator aggregator = new PresenceTrendAggregator();
+        aggregator.add(LocalDate.of(2024, 6, 17), 10L, "Development", 480L);
+        when(presenceStreamReader.agregerTendances(filtre)).thenReturn(aggregator);
+        
+        
+        PresenceTrendReportDto report = rapportService.getPresenceTrendsAndStats(filtre);
+        
+        
+        assertEquals("8h 00m", report.getTotalHoursByEmployeeId().get(10L));
+        assertEquals(Map.of("2024-06", "8h 00m"), report.getTotalHoursByMonthYear());
+        verify(presenceStreamReader, times(1)).agregerTendances(filtre);
+        verifyNoInteractions(presenceRollupRepository);
+    }
 
+    @Test
+    void getTendancesPresences_withFilter_shouldUseColumnStoreWhenLoaded() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), null, 10L);
+        PresenceTrendAggregator aggregator = new PresenceTrendAggregator();
+        aggregator.add(LocalDate.of(2024, 6, 17), 10L, "Development", 450L);
+        when(presenceColumnStore.isDisponible()).thenReturn(true);
+        when(presenceColumnStore.agregerTendances(filtre)).thenReturn(aggregator);
+        
+        
+        PresenceTrendReportDto report = rapportService.getPresenceTrendsAndStats(filtre);
+        
+        
+        assertEquals("7h 30m", report.getTotalHoursByEmployeeId().get(10L));
+        verifyNoInteractions(presenceStreamReader, presenceRollupRepository);
+    }
 
+    @Test
+    void getTendancesPresences_withoutFilter_shouldPreferRollupsOverColumnStore() {
         
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(presenceRepository, times(1)).findAll();
+        when(presenceColumnStore.isDisponible()).thenReturn(true);
+        when(presenceRollupRepository.findAllByOrderByIdAsc()).thenReturn(Collections.emptyList());
+        
+        
+        rapportService.getPresenceTrendsAndStats();
+        
+        
+        verify(presenceRollupRepository, times(1)).findAllByOrderByIdAsc();
+        verify(presenceColumnStore, never()).agregerTendances(any(PresenceTrendFilter.class));
+    }
+
+    @Test
+    void getTendancesPresences_withFromAfterTo_shouldThrowBadRequestException() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 7, 1), LocalDate.of(2024, 6, 1), null, null);
+        
+        
+        assertThrows(BadRequestException.class, () -> rapportService.getPresenceTrendsAndStats(filtre));
+        verifyNoInteractions(presenceStreamReader, presenceRollupRepository);
+    }
+
+    @Test
+    void getPresenceDistribution_shouldStreamPresencesIntoDistributionAggregator() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), null, null);
+        PresenceDistributionAggregator aggregator = new PresenceDistributionAggregator();
+        aggregator.add(LocalDate.of(2024, 6, 17), 10L, "Development", 480L);
+        aggregator.add(LocalDate.of(2024, 6, 17), 11L, "Development", 300L);
+        when(presenceStreamReader.agregerDistribution(filtre)).thenReturn(aggregator);
+        
+        
+        PresenceDistributionReportDto report = rapportService.getPresenceDistribution(filtre);
+        
+        
+        assertEquals(2, report.getGlobal().getNombrePresences());
+        assertEquals(300, report.getParDepartement().get("Development").getMinMinutes());
+        assertEquals(480, report.getParMois().get("2024-06").getMaxMinutes());
+        assertEquals(2L, report.getEmployesDistinctsParJour().get("2024-06-17"));
+        verifyNoInteractions(presenceRepository, presenceRollupRepository);
+    }
+
+    @Test
+    void getPresenceDistribution_withFromAfterTo_shouldThrowBadRequestException() {
+        
+        PresenceTrendFilter filtre = new PresenceTrendFilter(LocalDate.of(2024, 7, 1), LocalDate.of(2024, 6, 1), null, null);
+        
+        
+        assertThrows(BadRequestException.class, () -> rapportService.getPresenceDistribution(filtre));
+        verifyNoInteractions(presenceStreamReader);
+    }
+
+    private SalaireStatsByDepartementProjection salaireStatsRow(Departement departement, long nombreEmployes,
+                                                                BigDecimal total, BigDecimal min, BigDecimal max) {
+        SalaireStatsByDepartementProjection row = mock(SalaireStatsByDepartementProjection.class);
+        when(row.getDepartementId()).thenReturn(departement.getId());
+        when(row.getDepartementNom()).thenReturn(departement.getNom());
+        when(row.getNombreEmployes()).thenReturn(nombreEmployes);
+        when(row.getTotalSalaires()).thenReturn(total);
+        when(row.getSalaireMin()).thenReturn(min);
+        when(row.getSalaireMax()).thenReturn(max);
+        return row;
+    }
+
+    private MinutesByDayOfWeekProjection dayOfWeekRow(int dayOfWeek, long totalMinutes) {
+        MinutesByDayOfWeekProjection row = mock(MinutesByDayOfWeekProjection.class);
+        when(row.getDayOfWeek()).thenReturn(dayOfWeek);
+        when(row.getTotalMinutes()).thenReturn(totalMinutes);
+        return row;
+    }
+
+    private MinutesByMonthProjection monthRow(int month, long totalMinutes) {
+        MinutesByMonthProjection row = mock(MinutesByMonthProjection.class);
+        when(row.getMonth()).thenReturn(month);
+        when(row.getTotalMinutes()).thenReturn(totalMinutes);
+        return row;
+    }
+
+    private MinutesByYearMonthProjection yearMonthRow(int year, int month, long totalMinutes) {
+        MinutesByYearMonthProjection row = mock(MinutesByYearMonthProjection.class);
+        when(row.getYear()).thenReturn(year);
+        when(row.getMonth()).thenReturn(month);
+        when(row.getTotalMinutes()).thenReturn(totalMinutes);
+        return row;
+    }
+
+    private MinutesByDateProjection dateRow(LocalDate date, long totalMinutes) {
+        MinutesByDateProjection row = mock(MinutesByDateProjection.class);
+        when(row.getDate()).thenReturn(date);
+        when(row.getTotalMinutes()).thenReturn(totalMinutes);
+        return row;
+    }
+
+    private MinutesByEmployeProjection employeRow(Long employeId, long totalMinutes) {
+        MinutesByEmployeProjection row = mock(MinutesByEmployeProjection.class);
+        when(row.getEmployeId()).thenReturn(employeId);
+        when(row.getTotalMinutes()).thenReturn(totalMinutes);
+        return row;
+    }
+
+    private MinutesByDepartementProjection departementRow(String departementNom, long totalMinutes) {
+        MinutesByDepartementProjection row = mock(MinutesByDepartementProjection.class);
+        when(row.getDepartementNom()).thenReturn(departementNom);
+        when(row.getTotalMinutes()).thenReturn(totalMinutes);
+        return row;
     }
 }
@@ -0,0 +1,161 @@
+package com.gestionemployes.employee_management_api.unit;
+
+import com.gestionemployes.employee_management_api.exception.BadRequestException;
+import com.gestionemployes.employee_management_api.model.Departement;
+import com.gestionemployes.employee_management_api.model.Employe;
+import com.gestionemployes.employee_management_api.repository.DepartementRepository;
+import com.gestionemployes.employee_management_api.service.RegistrePaieService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RegistrePaieServiceTest {
+
+    @Mock
+    private DepartementRepository departementRepository;
+
+    @InjectMocks
+    private RegistrePaieService registrePaieService;
+
+    private Departement it;
+    private Departement rh;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        it = new Departement("IT", null, BigDecimal.valueOf(100000));
+        it.setId(1L);
+        rh = new Departement("RH", null, BigDecimal.valueOf(80000));
+        rh.setId(2L);
+        when(departementRepository.appliquerMouvementPaie(anyLong(), anyInt(), any(BigDecimal.class))).thenReturn(1);
+    }
+
+    private Employe employe(Departement departement, long salaire, String statut) {
+        return new Employe("Awa", "Sylla", "awa.sylla@example.com", departement, BigDecimal.valueOf(salaire), LocalDate.now(), statut);
+    }
+
+    @Test
+    void enregistrerEmbauche_shouldAddActiveEmployeeToLedger() {
+        
+        registrePaieService.enregistrerEmbauche(employe(it, 40000, "ACTIF"));
+        
+        
+        verify(departementRepository, times(1)).appliquerMouvementPaie(1L, 1, BigDecimal.valueOf(40000));
+    }
+
+    @Test
+    void enregistrerEmbauche_shouldIgnoreInactiveEmployee() {
+        
+        registrePaieService.enregistrerEmbauche(employe(it, 40000, "INACTIF"));
+        
+        
+        verify(departementRepository, never()).appliquerMouvementPaie(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void enregistrerEmbauche_shouldThrowExceptionWhenBudgetWouldBeExceeded() {
+        
+        when(departementRepository.appliquerMouvementPaie(1L, 1, BigDecimal.valueOf(40000))).thenReturn(0);
+        
+        
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> registrePaieService.enregistrerEmbauche(employe(it, 40000, "ACTIF")));
+        assertEquals("La masse salariale du département IT (ID: 1) dépasserait son budget.", exception.getMessage());
+    }
+
+    @Test
+    void enregistrerModification_sameDepartement_shouldApplySalaryDelta() {
+        
+        Employe employe = employe(it, 45000, "ACTIF");
+        
+        
+        registrePaieService.enregistrerModification(it, BigDecimal.valueOf(40000), "ACTIF", employe);
+        
+        
+        verify(departementRepository, times(1)).appliquerMouvementPaie(1L, 0, BigDecimal.valueOf(5000));
+        verifyNoMoreInteractions(departementRepository);
+    }
+
+    @Test
+    void enregistrerModification_unchangedSalary_shouldNotTouchLedger() {
+        
+        registrePaieService.enregistrerModification(it, BigDecimal.valueOf(40000), "ACTIF", employe(it, 40000, "ACTIF"));
+        
+        
+        verify(departementRepository, never()).appliquerMouvementPaie(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void enregistrerModification_transfer_shouldMoveEmployeeInDepartementIdOrder() {
+        
+        Employe employe = employe(it, 42000, "ACTIF");
+        
+        
+        registrePaieService.enregistrerModification(rh, BigDecimal.valueOf(40000), "ACTIF", employe);
+        
+        
+        InOrder inOrder = inOrder(departementRepository);
+        inOrder.verify(departementRepository).appliquerMouvementPaie(1L, 1, BigDecimal.valueOf(42000));
+        inOrder.verify(departementRepository).appliquerMouvementPaie(2L, -1, BigDecimal.valueOf(-40000));
+    }
+
+    @Test
+    void enregistrerModification_deactivation_shouldRemoveEmployeeFromLedger() {
+        
+        registrePaieService.enregistrerModification(it, BigDecimal.valueOf(40000), "ACTIF", employe(it, 40000, "INACTIF"));
+        
+        
+        verify(departementRepository, times(1)).appliquerMouvementPaie(1L, -1, BigDecimal.valueOf(-40000));
+    }
+
+    @Test
+    void enregistrerDesactivation_shouldOnlyRemoveActiveEmployee() {
+        
+        Employe employe = employe(it, 40000, "INACTIF");
+        
+        
+        registrePaieService.enregistrerDesactivation(employe, "ACTIF");
+        registrePaieService.enregistrerDesactivation(employe, "INACTIF");
+        
+        
+        verify(departementRepository, times(1)).appliquerMouvementPaie(1L, -1, BigDecimal.valueOf(-40000));
+    }
+
+    @Test
+    void reconstruireRegistres_shouldLockEmployeesBeforeRebuilding() {
+        
+        when(departementRepository.reconstruireRegistresPaie()).thenReturn(2);
+        
+        
+        int corriges = registrePaieService.reconstruireRegistres();
+        
+        
+        assertEquals(2, corriges);
+        InOrder inOrder = inOrder(departementRepository);
+        inOrder.verify(departementRepository).lockEmployesForRebuild();
+        inOrder.verify(departementRepository).reconstruireRegistresPaie();
+    }
+
+    @Test
+    void registresCoherents_shouldCheckWithoutLockingEmployees() {
+        
+        when(departementRepository.existsRegistrePaieIncoherent()).thenReturn(false);
+        
+        
+        boolean coherents = registrePaieService.registresCoherents();
+        
+        
+        assertTrue(coherents);
+        verify(departementRepository, never()).lockEmployesForRebuild();
+        verify(departementRepository, never()).reconstruireRegistresPaie();
+    }
+}